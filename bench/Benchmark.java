@@ -0,0 +1,32 @@
+package bench;
+
+// Один сценарий замера. setUp вызывается один раз на каждый размер доски,
+// operation — многократно в прогревочных и замеряемых итерациях.
+public abstract class Benchmark {
+    private final String name;
+
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public abstract void setUp(int size) throws Exception;
+
+    public abstract void operation() throws Exception;
+
+    public void tearDown() throws Exception {
+    }
+
+    // Размер результата последней операции в байтах (например, файла после сохранения); -1 — не измеряется
+    public long getOutputBytes() {
+        return -1;
+    }
+
+    // Для медленных операций (сохранение миллиона задач) хватает нескольких вызовов за итерацию
+    public boolean isSlow(int size) {
+        return false;
+    }
+}
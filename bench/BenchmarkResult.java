@@ -0,0 +1,93 @@
+package bench;
+
+import java.util.Arrays;
+
+// Результат одного сценария на одном размере: среднее время операции по итерациям,
+// если JVM умеет считать выделения памяти потоком, байты на операцию (иначе NaN),
+// и работа сборщика мусора: сборки и их время за замер, а также пауза полной сборки
+// сразу после заполнения доски — она растёт с числом живых объектов в куче
+public class BenchmarkResult {
+    private final String benchmark;
+    private final int size;
+    private final double[] microsPerOp;
+    private final double bytesPerOp;
+    private final long gcCount;
+    private final long gcMillis;
+    private final long fullGcMillis;
+    private final long outputBytes;
+
+    public BenchmarkResult(String benchmark, int size, double[] microsPerOp) {
+        this(benchmark, size, microsPerOp, Double.NaN);
+    }
+
+    public BenchmarkResult(String benchmark, int size, double[] microsPerOp, double bytesPerOp) {
+        this(benchmark, size, microsPerOp, bytesPerOp, 0, 0, 0);
+    }
+
+    public BenchmarkResult(String benchmark, int size, double[] microsPerOp, double bytesPerOp, long gcCount,
+                           long gcMillis, long fullGcMillis) {
+        this(benchmark, size, microsPerOp, bytesPerOp, gcCount, gcMillis, fullGcMillis, -1);
+    }
+
+    public BenchmarkResult(String benchmark, int size, double[] microsPerOp, double bytesPerOp, long gcCount,
+                           long gcMillis, long fullGcMillis, long outputBytes) {
+        this.benchmark = benchmark;
+        this.size = size;
+        this.microsPerOp = microsPerOp;
+        this.bytesPerOp = bytesPerOp;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+        this.fullGcMillis = fullGcMillis;
+        this.outputBytes = outputBytes;
+    }
+
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getScore() {
+        return Arrays.stream(microsPerOp).average().orElse(0);
+    }
+
+    // Половина 99% доверительного интервала, как scoreError у JMH (нормальное приближение)
+    public double getScoreError() {
+        if (microsPerOp.length < 2) {
+            return 0;
+        }
+        double mean = getScore();
+        double sum = 0;
+        for (double value : microsPerOp) {
+            sum += (value - mean) * (value - mean);
+        }
+        return 2.576 * Math.sqrt(sum / (microsPerOp.length - 1)) / Math.sqrt(microsPerOp.length);
+    }
+
+    public double getBytesPerOp() {
+        return bytesPerOp;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    public long getFullGcMillis() {
+        return fullGcMillis;
+    }
+
+    // -1, если сценарий не измеряет размер результата
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    public double[] getRawData() {
+        return microsPerOp.clone();
+    }
+}
@@ -0,0 +1,158 @@
+package bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Запуск: java -cp out/src:out/bench bench.BenchmarkRunner --sizes=1000,100000 --filter=save --out=results.json
+// Для каждого сценария и размера: прогрев, затем замеряемые итерации; результат — мкс на операцию.
+public final class BenchmarkRunner {
+    private static final List<Benchmark> BENCHMARKS = new ArrayList<>();
+
+    static {
+        BENCHMARKS.addAll(TaskManagerBenchmarks.all());
+        BENCHMARKS.addAll(FileBackedBenchmarks.all());
+        BENCHMARKS.addAll(StorageBenchmarks.all());
+        BENCHMARKS.addAll(JsonBenchmarks.all());
+        BENCHMARKS.addAll(CsvBenchmarks.all());
+    }
+
+    // Счётчик выделенной потоком памяти есть только в HotSpot-расширении ThreadMXBean
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() ? threads : null;
+
+    private int[] sizes = {1_000, 100_000, 1_000_000};
+    private Pattern filter = Pattern.compile(".*");
+    private Path output = Path.of("bench-results.json");
+    private int warmupIterations = 3;
+    private int measurementIterations = 5;
+    private long iterationMillis = 1_000;
+    // Операций в замеряемых итерациях текущего сценария — знаменатель для B/op
+    private long operationCount;
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        runner.parse(args);
+        runner.run();
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Ожидался аргумент вида --ключ=значение: " + arg);
+            }
+            switch (parts[0]) {
+                case "--sizes" -> {
+                    String[] values = parts[1].split(",");
+                    sizes = new int[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        sizes[i] = Integer.parseInt(values[i].trim());
+                    }
+                }
+                case "--filter" -> filter = Pattern.compile(parts[1]);
+                case "--out" -> output = Path.of(parts[1]);
+                case "--warmup" -> warmupIterations = Integer.parseInt(parts[1]);
+                case "--iterations" -> measurementIterations = Integer.parseInt(parts[1]);
+                case "--time" -> iterationMillis = Long.parseLong(parts[1]);
+                default -> throw new IllegalArgumentException("Неизвестный аргумент: " + parts[0]);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (Benchmark benchmark : BENCHMARKS) {
+            if (!filter.matcher(benchmark.getName()).find()) {
+                continue;
+            }
+            for (int size : sizes) {
+                BenchmarkResult result = measure(benchmark, size);
+                results.add(result);
+                System.out.printf(Locale.ROOT,
+                        "%-40s %10d %14.3f ± %.3f us/op %14.0f B/op %6d gc %8d ms gc %8d ms full gc",
+                        result.getBenchmark(), result.getSize(), result.getScore(), result.getScoreError(),
+                        result.getBytesPerOp(), result.getGcCount(), result.getGcMillis(), result.getFullGcMillis());
+                if (result.getOutputBytes() >= 0) {
+                    System.out.printf(Locale.ROOT, " %14d B out", result.getOutputBytes());
+                }
+                System.out.println();
+            }
+        }
+        JsonReport.write(output, results);
+        System.out.println("Результаты записаны в " + output.toAbsolutePath());
+    }
+
+    private BenchmarkResult measure(Benchmark benchmark, int size) throws Exception {
+        benchmark.setUp(size);
+        try {
+            long fullGcMillis = fullGcMillis();
+            for (int i = 0; i < warmupIterations; i++) {
+                iteration(benchmark, size);
+            }
+            double[] scores = new double[measurementIterations];
+            long allocatedBefore = allocatedBytes();
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            operationCount = 0;
+            for (int i = 0; i < measurementIterations; i++) {
+                scores[i] = iteration(benchmark, size);
+            }
+            double bytesPerOp = THREADS != null
+                    ? (double) (allocatedBytes() - allocatedBefore) / operationCount
+                    : Double.NaN;
+            return new BenchmarkResult(benchmark.getName(), size, scores, bytesPerOp, gcCount() - gcCountBefore,
+                    gcMillis() - gcMillisBefore, fullGcMillis, benchmark.getOutputBytes());
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    // Сумма по всем сборщикам (молодое и старое поколение); -1 у сборщика значит "не поддерживается"
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    // Полная сборка сразу после заполнения: её время показывает, во что обходится живая доска в куче
+    private static long fullGcMillis() {
+        long start = System.nanoTime();
+        System.gc();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // Одна итерация: операция повторяется, пока не истечёт время итерации (медленная — ровно один раз)
+    private double iteration(Benchmark benchmark, int size) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long deadline = start + iterationMillis * 1_000_000;
+        long now;
+        do {
+            benchmark.operation();
+            operations++;
+            now = System.nanoTime();
+        } while (!benchmark.isSlow(size) && now < deadline);
+        operationCount += operations;
+        return (now - start) / 1_000.0 / operations;
+    }
+}
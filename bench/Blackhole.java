@@ -0,0 +1,18 @@
+package bench;
+
+// Не даёт JIT выбросить результат измеряемой операции
+public final class Blackhole {
+    private static volatile Object sink;
+    private static volatile long sinkLong;
+
+    private Blackhole() {
+    }
+
+    public static void consume(Object value) {
+        sink = value;
+    }
+
+    public static void consume(long value) {
+        sinkLong = value;
+    }
+}
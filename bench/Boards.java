@@ -0,0 +1,81 @@
+package bench;
+
+import manager.TaskCsvWriter;
+import manager.TaskManager;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Генерация досок заданного размера: половина — задачи со временем, остальное — эпики по 20 подзадач
+public final class Boards {
+    public static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    public static final Duration SLOT = Duration.ofMinutes(30);
+    private static final int SUBTASKS_PER_EPIC = 20;
+
+    private Boards() {
+    }
+
+    public static void fill(TaskManager manager, int size) {
+        int taskCount = size / 2;
+        for (int i = 0; i < taskCount; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание задачи " + i, SLOT, slot(i)));
+        }
+        int remaining = size - taskCount;
+        Epic epic = null;
+        for (int i = 0; i < remaining; i++) {
+            if (i % (SUBTASKS_PER_EPIC + 1) == 0) {
+                epic = new Epic("Эпик " + i, "Описание эпика " + i);
+                manager.createEpic(epic);
+                continue;
+            }
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание подзадачи " + i, epic.getId(),
+                    SLOT, slot(taskCount + i));
+            subtask.setStatus(TaskStatus.values()[i % 3]);
+            manager.createSubtask(subtask);
+        }
+    }
+
+    // Начало i-го получасового слота
+    public static LocalDateTime slot(long index) {
+        return START.plus(SLOT.multipliedBy(index));
+    }
+
+    // CSV в формате FileBackedTaskManager без создания менеджера — быстро даже для миллиона строк
+    public static void writeCsv(Path file, int size) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            TaskCsvWriter writer = new TaskCsvWriter(out).writeHeader();
+            int taskCount = size / 2;
+            int id = 1;
+            for (int i = 0; i < taskCount; i++, id++) {
+                Task task = new Task("Задача " + i, "Описание задачи " + i, SLOT, slot(i));
+                task.setId(id);
+                writer.write(task);
+            }
+            int epicId = 0;
+            for (int i = 0; i < size - taskCount; i++, id++) {
+                Task task;
+                if (i % (SUBTASKS_PER_EPIC + 1) == 0) {
+                    epicId = id;
+                    task = new Epic("Эпик " + i, "Описание эпика " + i);
+                } else {
+                    task = new Subtask("Подзадача " + i, "Описание подзадачи " + i, epicId, SLOT,
+                            slot(taskCount + i));
+                    task.setStatus(TaskStatus.values()[i % 3]);
+                }
+                task.setId(id);
+                writer.write(task);
+            }
+            writer.writeHistory(List.of()).flush();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package bench;
+
+import manager.InMemoryTaskManager;
+import manager.ShardedTaskManager;
+import manager.TaskManager;
+import task.Subtask;
+import task.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Пропускная способность конкурентных обновлений: java -cp out/src:out/bench bench.ContentionTest
+//     --size=100000 --threads=1,2,4,8,16 --shards=8 --think=50 --hot=0 --time=3000
+// Каждый поток в цикле читает случайную подзадачу, «думает» think мкс (обработка на клиенте или
+// сетевой круг между чтением и записью) и записывает её со сменой статуса.
+// mutex — InMemoryTaskManager под одним замком на весь цикл «прочитать — изменить — записать»,
+// иначе чужая запись между чтением и записью потерялась бы.
+// cas — ShardedTaskManager без замка у клиента: чтение из среза, запись через compareAndUpdate,
+// при конфликте версия перечитывается и цикл повторяется.
+// hot — сколько подзадач обновляется (0 — все); маленькое значение показывает поведение при конфликтах.
+// Печатает число обновлений в секунду и долю повторов.
+public final class ContentionTest {
+    private int size = 100_000;
+    private int[] threadCounts = {1, 2, 4, 8, 16};
+    private int shardCount = 8;
+    private long thinkMicros = 50;
+    private int hot = 0;
+    private long durationMillis = 3_000;
+
+    public static void main(String[] args) throws Exception {
+        ContentionTest test = new ContentionTest();
+        test.parse(args);
+        test.run();
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Ожидался аргумент вида --ключ=значение: " + arg);
+            }
+            switch (parts[0]) {
+                case "--size" -> size = Integer.parseInt(parts[1]);
+                case "--threads" -> {
+                    String[] values = parts[1].split(",");
+                    threadCounts = new int[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        threadCounts[i] = Integer.parseInt(values[i].trim());
+                    }
+                }
+                case "--shards" -> shardCount = Integer.parseInt(parts[1]);
+                case "--think" -> thinkMicros = Long.parseLong(parts[1]);
+                case "--hot" -> hot = Integer.parseInt(parts[1]);
+                case "--time" -> durationMillis = Long.parseLong(parts[1]);
+                default -> throw new IllegalArgumentException("Неизвестный аргумент: " + parts[0]);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        InMemoryTaskManager locked = new InMemoryTaskManager();
+        Boards.fill(locked, size);
+        ShardedTaskManager sharded = new ShardedTaskManager(shardCount);
+        Boards.fill(sharded, size);
+        int[] lockedIds = subtaskIds(locked);
+        int[] shardedIds = subtaskIds(sharded);
+        ReentrantLock lock = new ReentrantLock();
+        // Прогрев обоих путей
+        measure("warmup", threadCounts[threadCounts.length - 1], lockedIds,
+                (id, retries) -> mutexUpdate(locked, lock, id));
+        measure("warmup", threadCounts[threadCounts.length - 1], shardedIds,
+                (id, retries) -> casUpdate(sharded, id, retries));
+        for (int threads : threadCounts) {
+            measure("mutex", threads, lockedIds, (id, retries) -> mutexUpdate(locked, lock, id));
+            measure("cas", threads, shardedIds, (id, retries) -> casUpdate(sharded, id, retries));
+        }
+    }
+
+    private int[] subtaskIds(TaskManager manager) {
+        List<Subtask> subtasks = manager.getAllSubtasks();
+        int count = hot > 0 ? Math.min(hot, subtasks.size()) : subtasks.size();
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = subtasks.get(i).getId();
+        }
+        return ids;
+    }
+
+    private interface Update {
+        void apply(int id, LongAdder retries);
+    }
+
+    private void mutexUpdate(InMemoryTaskManager manager, ReentrantLock lock, int id) {
+        lock.lock();
+        try {
+            Subtask next = manager.snapshot().getSubtask(id).copy();
+            think();
+            next.setStatus(nextStatus(next.getStatus()));
+            manager.updateSubtask(next);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void casUpdate(ShardedTaskManager manager, int id, LongAdder retries) {
+        while (true) {
+            Subtask current = manager.snapshot().getSubtask(id);
+            Subtask next = current.copy();
+            think();
+            next.setStatus(nextStatus(next.getStatus()));
+            if (manager.compareAndUpdate(next, current.getVersion())) {
+                return;
+            }
+            retries.increment();
+        }
+    }
+
+    private void think() {
+        if (thinkMicros > 0) {
+            LockSupport.parkNanos(thinkMicros * 1_000);
+        }
+    }
+
+    private static TaskStatus nextStatus(TaskStatus status) {
+        TaskStatus[] values = TaskStatus.values();
+        return values[(status.ordinal() + 1) % values.length];
+    }
+
+    private void measure(String name, int threads, int[] ids, Update update) throws InterruptedException {
+        System.gc();
+        LongAdder updates = new LongAdder();
+        LongAdder retries = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(Thread.ofPlatform().name("contention-" + i).start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    update.apply(ids[random.nextInt(ids.length)], retries);
+                    updates.increment();
+                }
+            }));
+        }
+        long begin = System.nanoTime();
+        Thread.sleep(durationMillis);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long done = updates.sum();
+        System.out.printf(Locale.ROOT, "%-8s threads=%-3d hot=%-7d think=%dus  %10.0f updates/s  retries=%.3f%n",
+                name, threads, ids.length, thinkMicros, done / seconds,
+                done == 0 ? 0.0 : (double) retries.sum() / done);
+    }
+}
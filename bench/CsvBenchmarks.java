@@ -0,0 +1,148 @@
+package bench;
+
+import manager.InMemoryTaskManager;
+import manager.TaskCsvReader;
+import manager.TaskCsvWriter;
+import task.Task;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Строки CSV всей доски: потоковый кодек TaskCsvWriter/TaskCsvReader против прежнего String.format/split.
+// Запись идёт в пустой Writer, чтение — из заранее подготовленного текста, так что диск не участвует
+public final class CsvBenchmarks {
+    private CsvBenchmarks() {
+    }
+
+    public static List<Benchmark> all() {
+        return List.of(new StreamingWrite(), new SplitWrite(), new StreamingRead(), new SplitRead());
+    }
+
+    abstract static class CsvBenchmark extends Benchmark {
+        protected List<Task> tasks;
+
+        CsvBenchmark(String name) {
+            super(name);
+        }
+
+        @Override
+        public void setUp(int size) throws IOException {
+            InMemoryTaskManager manager = new InMemoryTaskManager();
+            Boards.fill(manager, size);
+            tasks = new ArrayList<>(manager.getAllTasks());
+            tasks.addAll(manager.getAllEpics());
+            tasks.addAll(manager.getAllSubtasks());
+        }
+
+        @Override
+        public void tearDown() {
+            tasks = null;
+        }
+
+        @Override
+        public boolean isSlow(int size) {
+            return size >= 100_000;
+        }
+    }
+
+    static final class StreamingWrite extends CsvBenchmark {
+        StreamingWrite() {
+            super("csv.streaming.write");
+        }
+
+        @Override
+        public void operation() throws IOException {
+            TaskCsvWriter writer = new TaskCsvWriter(Writer.nullWriter()).writeHeader();
+            for (Task task : tasks) {
+                writer.write(task);
+            }
+            writer.flush();
+        }
+    }
+
+    // Как писал FileBackedTaskManager.save(): строка на задачу через BufferedWriter
+    static final class SplitWrite extends CsvBenchmark {
+        SplitWrite() {
+            super("csv.split.write");
+        }
+
+        @Override
+        public void operation() throws IOException {
+            try (Writer writer = new BufferedWriter(Writer.nullWriter())) {
+                writer.write("id,type,name,status,description,epic\n");
+                for (Task task : tasks) {
+                    writer.write(SplitCsvCodec.toString(task) + "\n");
+                }
+            }
+        }
+    }
+
+    static final class StreamingRead extends CsvBenchmark {
+        private String text;
+        private long sum;
+
+        StreamingRead() {
+            super("csv.streaming.read");
+        }
+
+        @Override
+        public void setUp(int size) throws IOException {
+            super.setUp(size);
+            StringWriter out = new StringWriter();
+            TaskCsvWriter writer = new TaskCsvWriter(out).writeHeader();
+            for (Task task : tasks) {
+                writer.write(task);
+            }
+            writer.flush();
+            text = out.toString();
+        }
+
+        @Override
+        public void operation() throws IOException {
+            TaskCsvReader reader = new TaskCsvReader(new StringReader(text));
+            reader.readHeader();
+            Task task;
+            while ((task = reader.readTask()) != null) {
+                sum += task.getId();
+            }
+            Blackhole.consume(sum);
+        }
+    }
+
+    // Как читал FileBackedTaskManager.loadFromFile(): readLine и split на каждую строку
+    static final class SplitRead extends CsvBenchmark {
+        private String text;
+        private long sum;
+
+        SplitRead() {
+            super("csv.split.read");
+        }
+
+        @Override
+        public void setUp(int size) throws IOException {
+            super.setUp(size);
+            StringBuilder out = new StringBuilder("id,type,name,status,description,epic\n");
+            for (Task task : tasks) {
+                out.append(SplitCsvCodec.toString(task)).append('\n');
+            }
+            text = out.toString();
+        }
+
+        @Override
+        public void operation() throws IOException {
+            try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+                String line = reader.readLine();
+                while ((line = reader.readLine()) != null && !line.isBlank()) {
+                    sum += SplitCsvCodec.fromString(line).getId();
+                }
+            }
+            Blackhole.consume(sum);
+        }
+    }
+}
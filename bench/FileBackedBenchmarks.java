@@ -0,0 +1,164 @@
+package bench;
+
+import manager.EventLoopTaskManager;
+import manager.FileBackedTaskManager;
+import metrics.ManagerMetrics;
+import task.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+// Сохранение и загрузка FileBackedTaskManager: обычный CSV и сжатые блоки на нескольких уровнях Deflater.
+// Размер файла после сохранения — в колонке "B out", цена сжатия — во времени операции
+public final class FileBackedBenchmarks {
+    private static final int[] LEVELS = {Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION};
+
+    private FileBackedBenchmarks() {
+    }
+
+    public static List<Benchmark> all() {
+        List<Benchmark> benchmarks = new ArrayList<>(List.of(new Save(FileBackedTaskManager.PLAIN_TEXT),
+                new Load(FileBackedTaskManager.PLAIN_TEXT)));
+        for (int level : LEVELS) {
+            benchmarks.add(new Save(level));
+            benchmarks.add(new Load(level));
+        }
+        benchmarks.add(new Burst(false));
+        benchmarks.add(new Burst(true));
+        return benchmarks;
+    }
+
+    private static String suffix(int level) {
+        if (level == FileBackedTaskManager.PLAIN_TEXT) {
+            return "";
+        }
+        return level == Deflater.DEFAULT_COMPRESSION ? ".deflateDefault" : ".deflate" + level;
+    }
+
+    abstract static class FileBenchmark extends Benchmark {
+        protected final int level;
+        protected Path directory;
+        protected File file;
+
+        FileBenchmark(String name, int level) {
+            super(name + suffix(level));
+            this.level = level;
+        }
+
+        // Доска пишется обычным CSV и, если нужно, пересохраняется сжатой
+        @Override
+        public void setUp(int size) throws IOException {
+            directory = Files.createTempDirectory("bench");
+            file = directory.resolve("tasks.csv").toFile();
+            Boards.writeCsv(file.toPath(), size);
+            if (level != FileBackedTaskManager.PLAIN_TEXT) {
+                FileBackedTaskManager.loadFromFile(file, ManagerMetrics.disabled(), level).save();
+            }
+        }
+
+        @Override
+        public long getOutputBytes() {
+            return file.length();
+        }
+
+        @Override
+        public void tearDown() throws IOException {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+
+        @Override
+        public boolean isSlow(int size) {
+            return size >= 100_000;
+        }
+    }
+
+    static final class Save extends FileBenchmark {
+        private FileBackedTaskManager manager;
+
+        Save(int level) {
+            super("fileBacked.save", level);
+        }
+
+        @Override
+        public void setUp(int size) throws IOException {
+            super.setUp(size);
+            manager = FileBackedTaskManager.loadFromFile(file, ManagerMetrics.disabled(), level);
+        }
+
+        @Override
+        public void operation() {
+            manager.save();
+        }
+    }
+
+    // BURST обновлений подряд: синхронный менеджер пишет файл на каждое, EventLoopTaskManager — раз на пачку
+    static final class Burst extends FileBenchmark {
+        private static final int BURST = 64;
+        private final boolean async;
+        private FileBackedTaskManager manager;
+        private EventLoopTaskManager loop;
+        private int taskCount;
+        private int next;
+
+        Burst(boolean async) {
+            super(async ? "fileBacked.burst64.async" : "fileBacked.burst64", FileBackedTaskManager.PLAIN_TEXT);
+            this.async = async;
+        }
+
+        @Override
+        public void setUp(int size) throws IOException {
+            super.setUp(size);
+            manager = FileBackedTaskManager.loadFromFile(file);
+            taskCount = size / 2;
+            if (async) {
+                loop = new EventLoopTaskManager(manager);
+            }
+        }
+
+        @Override
+        public void operation() throws Exception {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(BURST);
+            for (int i = 0; i < BURST; i++) {
+                Task task = manager.snapshot().getTask(1 + next++ % taskCount).copy();
+                task.setDescription("Описание " + next);
+                if (async) {
+                    futures.add(loop.updateTask(task));
+                } else {
+                    manager.updateTask(task);
+                }
+            }
+            for (CompletableFuture<Void> future : futures) {
+                future.get();
+            }
+        }
+
+        @Override
+        public void tearDown() throws IOException {
+            if (loop != null) {
+                loop.close();
+            }
+            super.tearDown();
+        }
+    }
+
+    static final class Load extends FileBenchmark {
+        Load(int level) {
+            super("fileBacked.load", level);
+        }
+
+        @Override
+        public void operation() {
+            Blackhole.consume(FileBackedTaskManager.loadFromFile(file));
+        }
+    }
+}
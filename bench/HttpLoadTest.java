@@ -0,0 +1,133 @@
+package bench;
+
+import http.HttpTaskServer;
+import manager.FileBackedTaskManager;
+import manager.InMemoryTaskManager;
+import metrics.LatencyHistogram;
+import task.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочный прогон HTTP API: java -cp out/src:out/bench bench.HttpLoadTest --clients=64 --time=10000
+// Каждый клиент — виртуальный поток, шлёт запросы без пауз: GET /tasks/{id}, каждый десятый — POST /tasks.
+// Печатает пропускную способность и перцентили задержки для InMemoryTaskManager и FileBackedTaskManager.
+public final class HttpLoadTest {
+    private int clients = 64;
+    private int size = 1_000;
+    private long warmupMillis = 2_000;
+    private long durationMillis = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        // Прогон сам себе приложение: как и HttpTaskServer.main, включает TCP_NODELAY до первого сервера
+        if (System.getProperty(HttpTaskServer.NO_DELAY_PROPERTY) == null) {
+            System.setProperty(HttpTaskServer.NO_DELAY_PROPERTY, "true");
+        }
+        HttpLoadTest test = new HttpLoadTest();
+        test.parse(args);
+        test.run("inMemory", new InMemoryTaskManager());
+        File file = File.createTempFile("http-load", ".csv");
+        try {
+            Files.delete(file.toPath());
+            test.run("fileBacked", new FileBackedTaskManager(file));
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Ожидался аргумент вида --ключ=значение: " + arg);
+            }
+            switch (parts[0]) {
+                case "--clients" -> clients = Integer.parseInt(parts[1]);
+                case "--size" -> size = Integer.parseInt(parts[1]);
+                case "--warmup" -> warmupMillis = Long.parseLong(parts[1]);
+                case "--time" -> durationMillis = Long.parseLong(parts[1]);
+                default -> throw new IllegalArgumentException("Неизвестный аргумент: " + parts[0]);
+            }
+        }
+    }
+
+    private void run(String name, InMemoryTaskManager manager) throws Exception {
+        for (int i = 0; i < size; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание задачи " + i));
+        }
+        HttpTaskServer server = new HttpTaskServer(manager, 0);
+        server.start();
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+            String base = "http://localhost:" + server.getPort();
+            phase(client, base, warmupMillis);
+            Result result = phase(client, base, durationMillis);
+            LatencyHistogram latency = result.latency;
+            System.out.printf(Locale.ROOT, "%-12s clients=%d size=%d  %10.0f req/s  p50=%.2f ms  p99=%.2f ms"
+                            + "  max=%.2f ms  errors=%d%n",
+                    name, clients, size, latency.getCount() * 1_000.0 / durationMillis,
+                    latency.getValueAtQuantile(0.50) / 1e6, latency.getValueAtQuantile(0.99) / 1e6,
+                    latency.getMax() / 1e6, result.errors.get());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private Result phase(HttpClient client, String base, long millis) throws Exception {
+        Result result = new Result();
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                futures.add(workers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = random.nextInt(10) == 0
+                                ? HttpRequest.newBuilder(URI.create(base + "/tasks"))
+                                        .POST(HttpRequest.BodyPublishers.ofString(
+                                                "{\"name\":\"Нагрузка\",\"description\":\"\"}"))
+                                        .build()
+                                : HttpRequest.newBuilder(URI.create(base + "/tasks/" + (1 + random.nextInt(size))))
+                                        .GET()
+                                        .build();
+                        long start = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status >= 400) {
+                                result.errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            result.errors.incrementAndGet();
+                        }
+                        result.latency.record(System.nanoTime() - start);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return result;
+    }
+
+    private static final class Result {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+    }
+}
@@ -0,0 +1,115 @@
+package bench;
+
+import http.TaskJsonReader;
+import http.TaskJsonWriter;
+import manager.BoardSnapshot;
+import manager.InMemoryTaskManager;
+import task.Task;
+import task.TaskType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Сериализация всей доски: потоковый кодировщик по срезу против обобщённого маппера по getAll*()
+public final class JsonBenchmarks {
+    private JsonBenchmarks() {
+    }
+
+    public static List<Benchmark> all() {
+        return List.of(new StreamingEncode(), new ReflectionEncode(), new StreamingDecode());
+    }
+
+    abstract static class BoardBenchmark extends Benchmark {
+        protected InMemoryTaskManager manager;
+
+        BoardBenchmark(String name) {
+            super(name);
+        }
+
+        @Override
+        public void setUp(int size) {
+            manager = new InMemoryTaskManager();
+            Boards.fill(manager, size);
+        }
+
+        @Override
+        public boolean isSlow(int size) {
+            return size >= 100_000;
+        }
+    }
+
+    // Обход среза без копирования, запись в поток через буфер кодировщика
+    static final class StreamingEncode extends BoardBenchmark {
+        StreamingEncode() {
+            super("json.streaming.encode");
+        }
+
+        @Override
+        public void operation() throws IOException {
+            BoardSnapshot board = manager.snapshot();
+            TaskJsonWriter writer = new TaskJsonWriter(OutputStream.nullOutputStream(), board);
+            writer.beginArray();
+            for (Task task : board.getTasks()) {
+                writer.write(task);
+            }
+            for (Task epic : board.getEpics()) {
+                writer.write(epic);
+            }
+            for (Task subtask : board.getSubtasks()) {
+                writer.write(subtask);
+            }
+            writer.endArray().flush();
+        }
+    }
+
+    // Как раньше отдавали доску: списки из менеджера, дерево, строка, байты
+    static final class ReflectionEncode extends BoardBenchmark {
+        private final ReflectionJsonMapper mapper = new ReflectionJsonMapper();
+
+        ReflectionEncode() {
+            super("json.reflection.encode");
+        }
+
+        @Override
+        public void operation() throws IOException {
+            List<Task> all = new ArrayList<>(manager.getAllTasks());
+            all.addAll(manager.getAllEpics());
+            all.addAll(manager.getAllSubtasks());
+            mapper.writeValue(OutputStream.nullOutputStream(), all);
+        }
+    }
+
+    // Разбор заранее закодированных задач из ByteBuffer без промежуточного дерева
+    static final class StreamingDecode extends Benchmark {
+        private ByteBuffer encoded;
+        private long sum;
+
+        StreamingDecode() {
+            super("json.streaming.decode");
+        }
+
+        @Override
+        public void setUp(int size) throws IOException {
+            InMemoryTaskManager manager = new InMemoryTaskManager();
+            Boards.fill(manager, size);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new TaskJsonWriter(out, manager.snapshot()).writeAll(manager.snapshot().getTasks()).flush();
+            encoded = ByteBuffer.wrap(out.toByteArray());
+        }
+
+        @Override
+        public void operation() throws IOException {
+            new TaskJsonReader(encoded.duplicate()).readArray(TaskType.TASK, task -> sum += task.getId());
+            Blackhole.consume(sum);
+        }
+
+        @Override
+        public boolean isSlow(int size) {
+            return size >= 100_000;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+// Отчёт в формате, близком к JSON-выводу JMH, чтобы прогоны можно было сравнивать теми же инструментами
+public final class JsonReport {
+    private JsonReport() {
+    }
+
+    public static void write(Path file, List<BenchmarkResult> results) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("[\n");
+            for (int i = 0; i < results.size(); i++) {
+                BenchmarkResult result = results.get(i);
+                writer.write("  {\n");
+                writer.write("    \"benchmark\": \"" + result.getBenchmark() + "\",\n");
+                writer.write("    \"mode\": \"avgt\",\n");
+                writer.write("    \"params\": {\"size\": \"" + result.getSize() + "\"},\n");
+                writer.write("    \"primaryMetric\": {\n");
+                writer.write("      \"score\": " + number(result.getScore()) + ",\n");
+                writer.write("      \"scoreError\": " + number(result.getScoreError()) + ",\n");
+                writer.write("      \"scoreUnit\": \"us/op\",\n");
+                writer.write("      \"rawData\": [[");
+                double[] raw = result.getRawData();
+                for (int j = 0; j < raw.length; j++) {
+                    if (j > 0) {
+                        writer.write(", ");
+                    }
+                    writer.write(number(raw[j]));
+                }
+                writer.write("]]\n");
+                // Как у JMH с -prof gc
+                writer.write("    },\n");
+                writer.write("    \"secondaryMetrics\": {\n");
+                if (!Double.isNaN(result.getBytesPerOp())) {
+                    writer.write("      \"·gc.alloc.rate.norm\": {\"score\": " + number(result.getBytesPerOp())
+                            + ", \"scoreUnit\": \"B/op\"},\n");
+                }
+                if (result.getOutputBytes() >= 0) {
+                    writer.write("      \"·output.bytes\": {\"score\": " + result.getOutputBytes()
+                            + ", \"scoreUnit\": \"B\"},\n");
+                }
+                writer.write("      \"·gc.count\": {\"score\": " + result.getGcCount()
+                        + ", \"scoreUnit\": \"counts\"},\n");
+                writer.write("      \"·gc.time\": {\"score\": " + result.getGcMillis()
+                        + ", \"scoreUnit\": \"ms\"},\n");
+                writer.write("      \"·gc.full.time\": {\"score\": " + result.getFullGcMillis()
+                        + ", \"scoreUnit\": \"ms\"}\n");
+                writer.write("    }\n");
+                writer.write(i + 1 < results.size() ? "  },\n" : "  }\n");
+            }
+            writer.write("]\n");
+        }
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,124 @@
+package bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Точка сравнения для потокового кодировщика: обобщённый маппер в духе Jackson/Gson.
+// Свойства находит по публичным геттерам (с кешем на класс), строит дерево из словарей и списков,
+// затем печатает его в строку и кодирует в UTF-8. Геттеры вызываются все, включая вычисляемые.
+public final class ReflectionJsonMapper {
+    private final Map<Class<?>, List<Property>> properties = new ConcurrentHashMap<>();
+
+    private record Property(String name, Method getter) {
+    }
+
+    public void writeValue(OutputStream out, Object value) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        print(sb, toTree(value));
+        out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object toTree(Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean || value instanceof String) {
+            return value;
+        }
+        if (value instanceof Enum<?> || value instanceof TemporalAccessor || value instanceof java.time.Duration) {
+            return value.toString();
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> list = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                list.add(toTree(element));
+            }
+            return list;
+        }
+        Map<String, Object> node = new LinkedHashMap<>();
+        for (Property property : propertiesOf(value.getClass())) {
+            try {
+                node.put(property.name(), toTree(property.getter().invoke(value)));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Не удалось прочитать свойство " + property.name(), e);
+            }
+        }
+        return node;
+    }
+
+    private List<Property> propertiesOf(Class<?> type) {
+        return properties.computeIfAbsent(type, key -> {
+            List<Property> result = new ArrayList<>();
+            for (Method method : key.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+                        || method.getDeclaringClass() == Object.class) {
+                    continue;
+                }
+                String name = method.getName();
+                if (name.startsWith("get") && name.length() > 3) {
+                    result.add(new Property(Character.toLowerCase(name.charAt(3)) + name.substring(4), method));
+                } else if (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class) {
+                    result.add(new Property(Character.toLowerCase(name.charAt(2)) + name.substring(3), method));
+                }
+            }
+            result.sort((first, second) -> first.name().compareTo(second.name()));
+            return result;
+        });
+    }
+
+    private static void print(StringBuilder sb, Object node) {
+        if (node == null) {
+            sb.append("null");
+        } else if (node instanceof String string) {
+            sb.append('"');
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    default -> {
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                    }
+                }
+            }
+            sb.append('"');
+        } else if (node instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                print(sb, entry.getKey());
+                sb.append(':');
+                print(sb, entry.getValue());
+                first = false;
+            }
+            sb.append('}');
+        } else if (node instanceof List<?> list) {
+            sb.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                print(sb, list.get(i));
+            }
+            sb.append(']');
+        } else {
+            sb.append(node);
+        }
+    }
+}
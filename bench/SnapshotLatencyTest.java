@@ -0,0 +1,143 @@
+package bench;
+
+import manager.InMemoryTaskManager;
+import manager.SnapshotSaver;
+import metrics.LatencyHistogram;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Задержка писателя во время сохранения: java -Xmx4g -cp out/src:out/bench bench.SnapshotLatencyTest
+//     --size=1000000 --history=500000 --rate=5000 --pause=200 --time=10000
+// Писатель под замком обновляет случайные задачи с постоянной частотой rate, второй поток сохраняет доску
+// через pause мс после окончания прошлого сохранения. Задержка считается от момента, когда обновление
+// должно было начаться по расписанию, — иначе обновления, не дождавшиеся замка, не попали бы в замер.
+// idle — без сохранения; blocking — замок держится всю запись файла, как при обычном save();
+// background — под замком только берётся срез (SnapshotSaver), запись идёт без замка.
+// Перед замером просматривается history задач, чтобы срез истории брался с длинной истории.
+// Печатает перцентили задержки одного обновления вместе с ожиданием замка и число сохранений.
+public final class SnapshotLatencyTest {
+    private int size = 1_000_000;
+    private int history = 500_000;
+    private int rate = 5_000;
+    private long pauseMillis = 200;
+    private long durationMillis = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        SnapshotLatencyTest test = new SnapshotLatencyTest();
+        test.parse(args);
+        test.run();
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Ожидался аргумент вида --ключ=значение: " + arg);
+            }
+            switch (parts[0]) {
+                case "--size" -> size = Integer.parseInt(parts[1]);
+                case "--history" -> history = Integer.parseInt(parts[1]);
+                case "--rate" -> rate = Integer.parseInt(parts[1]);
+                case "--pause" -> pauseMillis = Long.parseLong(parts[1]);
+                case "--time" -> durationMillis = Long.parseLong(parts[1]);
+                default -> throw new IllegalArgumentException("Неизвестный аргумент: " + parts[0]);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Boards.fill(manager, size);
+        for (int id = 1; id <= Math.min(history, size / 2); id++) {
+            manager.getTaskById(id);
+        }
+        ReentrantLock lock = new ReentrantLock();
+        File file = File.createTempFile("snapshot-latency", ".csv");
+        try (SnapshotSaver saver = new SnapshotSaver(file)) {
+            // Прогрев: писатель и одно сохранение
+            phase("warmup", manager, lock, saver, Mode.BACKGROUND);
+            phase("idle", manager, lock, saver, Mode.IDLE);
+            phase("blocking", manager, lock, saver, Mode.BLOCKING);
+            phase("background", manager, lock, saver, Mode.BACKGROUND);
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private enum Mode {
+        IDLE, BLOCKING, BACKGROUND
+    }
+
+    private void phase(String name, InMemoryTaskManager manager, ReentrantLock lock, SnapshotSaver saver,
+                       Mode mode) throws Exception {
+        // Мусор прошлой фазы не должен собираться во время этой
+        System.gc();
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong saves = new AtomicLong();
+        Thread saving = Thread.ofPlatform().name("saving").start(() -> {
+            try {
+                while (running.get() && mode != Mode.IDLE) {
+                    Thread.sleep(pauseMillis);
+                    Future<?> saved;
+                    lock.lock();
+                    try {
+                        saved = saver.save(manager);
+                        if (mode == Mode.BLOCKING) {
+                            // Срез пишется, пока замок занят: так ждут писатели обычного save()
+                            saved.get();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    saved.get();
+                    saves.incrementAndGet();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        int taskCount = size / 2;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long interval = 1_000_000_000L / rate;
+        long begin = System.nanoTime();
+        long deadline = begin + durationMillis * 1_000_000;
+        for (long n = 0; ; n++) {
+            long start = begin + n * interval;
+            if (start >= deadline) {
+                break;
+            }
+            long ahead = start - System.nanoTime();
+            if (ahead > 0) {
+                LockSupport.parkNanos(ahead);
+            }
+            lock.lock();
+            try {
+                Task task = manager.getTask(1 + random.nextInt(taskCount));
+                task.setStatus(task.getStatus() == TaskStatus.DONE ? TaskStatus.NEW : TaskStatus.DONE);
+                manager.updateTask(task);
+            } finally {
+                lock.unlock();
+            }
+            latency.record(System.nanoTime() - start);
+        }
+        running.set(false);
+        saving.join();
+        System.out.printf(Locale.ROOT, "%-12s size=%d history=%d rate=%d  p50=%.3f ms  p99=%.3f ms  p99.9=%.3f ms"
+                        + "  max=%.3f ms  saves=%d%n",
+                name, size, manager.getHistory().size(), rate, latency.getValueAtQuantile(0.50) / 1e6,
+                latency.getValueAtQuantile(0.99) / 1e6, latency.getValueAtQuantile(0.999) / 1e6, latency.getMax() / 1e6,
+                saves.get());
+    }
+}
@@ -0,0 +1,58 @@
+package bench;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Прежний построчный кодек FileBackedTaskManager (String.format и String.split) — база для сравнения
+// в CsvBenchmarks. Отличие одно: у подзадачи пишется эпик, иначе прежний разбор не прочитал бы строку.
+final class SplitCsvCodec {
+    private SplitCsvCodec() {
+    }
+
+    static String toString(Task task) {
+        String startTimeStr = task.getStartTime() != null ? task.getStartTime().toString() : "";
+        String durationStr = task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes()) : "0";
+
+        String statusStr = task.getStatus() != null ? task.getStatus().toString() : TaskStatus.NEW.toString();
+
+        String line = String.format("%d,%s,%s,%s,%s,%s,%s",
+                task.getId(),
+                task.getClass().getSimpleName().toUpperCase(),
+                task.getName(),
+                statusStr,
+                task.getDescription(),
+                startTimeStr,
+                durationStr
+        );
+        return task instanceof Subtask subtask ? line + "," + subtask.getEpicId() : line;
+    }
+
+    static Task fromString(String value) {
+        String[] parts = value.split(",");
+        int id = Integer.parseInt(parts[0]);
+        String type = parts[1];
+        String name = parts[2];
+        TaskStatus status = parts[3].equals("null") ? TaskStatus.NEW : TaskStatus.valueOf(parts[3]);
+        String description = parts[4];
+
+        LocalDateTime startTime = parts[5].isEmpty() ? null : LocalDateTime.parse(parts[5]);
+        Duration duration = parts[6].isEmpty() ? Duration.ZERO : Duration.ofMinutes(Long.parseLong(parts[6]));
+
+        Task task = switch (TaskType.valueOf(type)) {
+            case TASK -> new Task(name, description);
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> new Subtask(name, description, Integer.parseInt(parts[7]));
+        };
+        task.setId(id);
+        task.setStatus(status);
+        task.setStartTime(startTime);
+        task.setDuration(duration);
+        return task;
+    }
+}
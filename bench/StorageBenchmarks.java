@@ -0,0 +1,157 @@
+package bench;
+
+import manager.FileBackedTaskManager;
+import manager.InMemoryTaskManager;
+import manager.JdbcTaskManager;
+import manager.OffHeapTaskManager;
+import manager.PagedFileTaskManager;
+import manager.TaskManager;
+import task.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Хранилища доски на одних и тех же операциях: InMemoryTaskManager (объекты в куче),
+// OffHeapTaskManager (записи вне кучи), FileBackedTaskManager, PagedFileTaskManager и JdbcTaskManager.
+// Паузы сборщика для куча/вне кучи видны в колонках gc отчёта.
+// JDBC-сценарии включаются свойством -Dbench.jdbc.url=jdbc:h2:mem:bench (драйвер — в classpath);
+// перед каждым размером база очищается и заполняется заново
+public final class StorageBenchmarks {
+    private static final String JDBC_URL = System.getProperty("bench.jdbc.url");
+
+    private StorageBenchmarks() {
+    }
+
+    public static List<Benchmark> all() {
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (Storage storage : Storage.values()) {
+            if (storage == Storage.JDBC && JDBC_URL == null) {
+                continue;
+            }
+            benchmarks.add(new CreateTask(storage));
+            benchmarks.add(new GetTaskById(storage));
+        }
+        return benchmarks;
+    }
+
+    enum Storage {
+        IN_MEMORY("inMemory"),
+        OFF_HEAP("offHeap"),
+        FILE_BACKED("fileBacked"),
+        PAGED("paged"),
+        JDBC("jdbc");
+
+        final String label;
+
+        Storage(String label) {
+            this.label = label;
+        }
+    }
+
+    abstract static class StorageBenchmark extends Benchmark {
+        private final Storage storage;
+        protected TaskManager manager;
+        private File file;
+
+        StorageBenchmark(Storage storage, String operation) {
+            super("storage." + storage.label + "." + operation);
+            this.storage = storage;
+        }
+
+        @Override
+        public void setUp(int size) throws IOException {
+            switch (storage) {
+                case IN_MEMORY -> {
+                    manager = new InMemoryTaskManager();
+                    Boards.fill(manager, size);
+                }
+                case OFF_HEAP -> {
+                    manager = new OffHeapTaskManager();
+                    Boards.fill(manager, size);
+                }
+                case FILE_BACKED -> {
+                    file = Files.createTempFile("bench", ".csv").toFile();
+                    Boards.writeCsv(file.toPath(), size);
+                    manager = FileBackedTaskManager.loadFromFile(file);
+                }
+                case PAGED -> {
+                    file = Files.createTempFile("bench", ".pages").toFile();
+                    manager = new PagedFileTaskManager(file.toPath());
+                    Boards.fill(manager, size);
+                }
+                case JDBC -> {
+                    manager = new JdbcTaskManager(JDBC_URL);
+                    manager.deleteAllTasks();
+                    manager.deleteAllEpics();
+                    Boards.fill(manager, size);
+                }
+            }
+        }
+
+        @Override
+        public void tearDown() {
+            if (manager instanceof JdbcTaskManager jdbc) {
+                jdbc.close();
+            } else if (manager instanceof PagedFileTaskManager paged) {
+                paged.close();
+            }
+            // Доска прошлого прогона не должна оставаться живой во время замеров следующего
+            manager = null;
+            if (file != null) {
+                file.delete();
+            }
+        }
+
+        // Файл переписывается целиком на каждое изменение и каждый просмотр
+        @Override
+        public boolean isSlow(int size) {
+            return storage == Storage.FILE_BACKED && size >= 100_000;
+        }
+    }
+
+    // Создание задачи со временем (с проверкой пересечений) и её удаление, чтобы размер доски не рос
+    static final class CreateTask extends StorageBenchmark {
+        private long nextSlot;
+
+        CreateTask(Storage storage) {
+            super(storage, "createTask");
+        }
+
+        @Override
+        public void setUp(int size) throws IOException {
+            super.setUp(size);
+            nextSlot = size;
+        }
+
+        @Override
+        public void operation() {
+            Task task = new Task("Новая", "Описание", Boards.SLOT, Boards.slot(nextSlot++));
+            manager.createTask(task);
+            manager.deleteTaskById(task.getId());
+        }
+    }
+
+    // Чтение по id вместе с записью в историю; у JDBC и вне кучи часть чтений проходит мимо кеша
+    static final class GetTaskById extends StorageBenchmark {
+        private int taskCount;
+
+        GetTaskById(Storage storage) {
+            super(storage, "getTaskById");
+        }
+
+        @Override
+        public void setUp(int size) throws IOException {
+            super.setUp(size);
+            taskCount = size / 2;
+        }
+
+        @Override
+        public void operation() {
+            Blackhole.consume(manager.getTaskById(1 + ThreadLocalRandom.current().nextInt(taskCount)));
+        }
+    }
+}
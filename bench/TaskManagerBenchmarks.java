@@ -0,0 +1,316 @@
+package bench;
+
+import manager.InMemoryTaskManager;
+import manager.StatusLog;
+import manager.StreamPublisher;
+import metrics.JmxManagerMetrics;
+import metrics.LatencyHistogram;
+import metrics.ManagerMetrics;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Горячие пути InMemoryTaskManager и истории просмотров
+public final class TaskManagerBenchmarks {
+    private TaskManagerBenchmarks() {
+    }
+
+    public static List<Benchmark> all() {
+        return List.of(new CreateTask(false), new CreateTask(true), new CreateSubtask(), new GetTaskById(false),
+                new GetTaskById(true), new PrioritizedTasks(false), new PrioritizedTasks(true),
+                new AllTasks(Read.LIST), new AllTasks(Read.STREAM), new AllTasks(Read.PUBLISHER),
+                new UpdateEpicStatus(), new UpdateStatus(false), new UpdateStatus(true), new LeadTimeQuantile(false),
+                new LeadTimeQuantile(true));
+    }
+
+    // Создание задачи со временем (с проверкой пересечений) и её удаление, чтобы размер доски не рос.
+    // Вариант metered показывает цену включённых метрик
+    static final class CreateTask extends Benchmark {
+        private final boolean metered;
+        private InMemoryTaskManager manager;
+        private long nextSlot;
+
+        CreateTask(boolean metered) {
+            super(metered ? "taskManager.createTask.metered" : "taskManager.createTask");
+            this.metered = metered;
+        }
+
+        @Override
+        public void setUp(int size) {
+            manager = new InMemoryTaskManager(metered ? new JmxManagerMetrics() : ManagerMetrics.disabled());
+            Boards.fill(manager, size);
+            nextSlot = size;
+        }
+
+        @Override
+        public void operation() {
+            Task task = new Task("Новая", "Описание", Boards.SLOT, Boards.slot(nextSlot++));
+            manager.createTask(task);
+            manager.deleteTaskById(task.getId());
+        }
+    }
+
+    static final class CreateSubtask extends Benchmark {
+        private InMemoryTaskManager manager;
+        private Epic epic;
+        private long nextSlot;
+
+        CreateSubtask() {
+            super("taskManager.createSubtask");
+        }
+
+        @Override
+        public void setUp(int size) {
+            manager = new InMemoryTaskManager();
+            Boards.fill(manager, size);
+            epic = new Epic("Эпик", "Описание");
+            manager.createEpic(epic);
+            nextSlot = size;
+        }
+
+        @Override
+        public void operation() {
+            Subtask subtask = new Subtask("Новая", "Описание", epic.getId(), Boards.SLOT, Boards.slot(nextSlot++));
+            manager.createSubtask(subtask);
+            manager.deleteSubtaskById(subtask.getId());
+        }
+    }
+
+    // Чтение по id вместе с записью в историю. Вариант hot ещё считает просмотры для самых просматриваемых
+    // задач; равномерный выбор из size / 2 задач — худший случай, счётчики вытесняются почти на каждом чтении
+    static final class GetTaskById extends Benchmark {
+        private final boolean hot;
+        private InMemoryTaskManager manager;
+        private int taskCount;
+
+        GetTaskById(boolean hot) {
+            super(hot ? "taskManager.getTaskById.hot" : "taskManager.getTaskById");
+            this.hot = hot;
+        }
+
+        @Override
+        public void setUp(int size) {
+            manager = new InMemoryTaskManager();
+            Boards.fill(manager, size);
+            if (hot) {
+                manager.enableHotTasks(100, Duration.ofHours(1));
+            }
+            taskCount = size / 2;
+        }
+
+        @Override
+        public void operation() {
+            Blackhole.consume(manager.getTaskById(1 + ThreadLocalRandom.current().nextInt(taskCount)));
+        }
+    }
+
+    // Вариант streamed идёт по временному индексу вместо сортировки и обходит задачи без списка
+    static final class PrioritizedTasks extends Benchmark {
+        private final boolean streamed;
+        private InMemoryTaskManager manager;
+
+        PrioritizedTasks(boolean streamed) {
+            super(streamed ? "taskManager.streamPrioritizedTasks" : "taskManager.getPrioritizedTasks");
+            this.streamed = streamed;
+        }
+
+        @Override
+        public void setUp(int size) {
+            manager = new InMemoryTaskManager();
+            Boards.fill(manager, size);
+        }
+
+        @Override
+        public void operation() {
+            if (streamed) {
+                Blackhole.consume(manager.streamPrioritizedTasks().mapToLong(Task::getId).sum());
+            } else {
+                Blackhole.consume(manager.getPrioritizedTasks().stream().mapToLong(Task::getId).sum());
+            }
+        }
+    }
+
+    private enum Read {
+        LIST, STREAM, PUBLISHER
+    }
+
+    // Обход всех задач: списком, ленивым потоком и подписчиком, который запрашивает по PAGE штук.
+    // Разница видна в колонке B/op
+    static final class AllTasks extends Benchmark {
+        private static final int PAGE = 256;
+        private final Read read;
+        private InMemoryTaskManager manager;
+        private StreamPublisher<Task> publisher;
+
+        AllTasks(Read read) {
+            super(switch (read) {
+                case LIST -> "taskManager.getAllTasks";
+                case STREAM -> "taskManager.streamAllTasks";
+                case PUBLISHER -> "taskManager.publishAllTasks";
+            });
+            this.read = read;
+        }
+
+        @Override
+        public void setUp(int size) {
+            manager = new InMemoryTaskManager();
+            Boards.fill(manager, size);
+            publisher = new StreamPublisher<>(manager::streamAllTasks);
+        }
+
+        @Override
+        public void operation() {
+            switch (read) {
+                case LIST -> Blackhole.consume(manager.getAllTasks().stream().mapToLong(Task::getId).sum());
+                case STREAM -> Blackhole.consume(manager.streamAllTasks().mapToLong(Task::getId).sum());
+                case PUBLISHER -> publisher.subscribe(new Flow.Subscriber<>() {
+                    private Flow.Subscription subscription;
+                    private long sum;
+                    private int left;
+
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        this.subscription = subscription;
+                        left = PAGE;
+                        subscription.request(PAGE);
+                    }
+
+                    @Override
+                    public void onNext(Task item) {
+                        sum += item.getId();
+                        if (--left == 0) {
+                            left = PAGE;
+                            subscription.request(PAGE);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        throw new IllegalStateException(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        Blackhole.consume(sum);
+                    }
+                });
+            }
+        }
+    }
+
+    // Пересчёт статуса эпика, у которого size подзадач
+    static final class UpdateEpicStatus extends Benchmark {
+        private InMemoryTaskManager manager;
+        private Epic epic;
+
+        UpdateEpicStatus() {
+            super("taskManager.updateEpicStatus");
+        }
+
+        @Override
+        public void setUp(int size) {
+            manager = new InMemoryTaskManager();
+            epic = new Epic("Большой эпик", "Описание");
+            manager.createEpic(epic);
+            for (int i = 0; i < size; i++) {
+                Subtask subtask = new Subtask("Подзадача " + i, "Описание", epic.getId());
+                subtask.setStatus(i == size - 1 ? TaskStatus.IN_PROGRESS : TaskStatus.DONE);
+                manager.createSubtask(subtask);
+            }
+        }
+
+        @Override
+        public void operation() {
+            manager.updateEpicStatus(epic);
+            Blackhole.consume(epic.getStatus());
+        }
+    }
+
+    // Смена статуса случайной задачи; вариант tracked показывает цену журнала статусов
+    static final class UpdateStatus extends Benchmark {
+        private final boolean tracked;
+        private InMemoryTaskManager manager;
+        private int[] ids;
+
+        UpdateStatus(boolean tracked) {
+            super(tracked ? "taskManager.updateStatus.tracked" : "taskManager.updateStatus");
+            this.tracked = tracked;
+        }
+
+        @Override
+        public void setUp(int size) {
+            manager = new InMemoryTaskManager();
+            Boards.fill(manager, size);
+            if (tracked) {
+                manager.enableStatusLog();
+            }
+            ids = manager.streamAllTasks().mapToInt(Task::getId).toArray();
+        }
+
+        @Override
+        public void operation() {
+            Task task = manager.getTask(ids[ThreadLocalRandom.current().nextInt(ids.length)]).copy();
+            task.setStatus(TaskStatus.values()[(task.getStatus().ordinal() + 1) % TaskStatus.values().length]);
+            manager.updateTask(task);
+        }
+    }
+
+    // p90 lead time по доске, где каждая задача прошла NEW -> IN_PROGRESS -> DONE: из готовой сводки
+    // или пересчётом по журналу смен, как пришлось бы делать без сводок
+    static final class LeadTimeQuantile extends Benchmark {
+        private final boolean replay;
+        private StatusLog log;
+
+        LeadTimeQuantile(boolean replay) {
+            super(replay ? "taskManager.leadTime.replay" : "taskManager.leadTime");
+            this.replay = replay;
+        }
+
+        @Override
+        public void setUp(int size) {
+            InMemoryTaskManager manager = new InMemoryTaskManager();
+            log = manager.enableStatusLog();
+            Boards.fill(manager, size);
+            for (TaskStatus status : List.of(TaskStatus.IN_PROGRESS, TaskStatus.DONE)) {
+                for (Task stored : manager.getAllTasks()) {
+                    Task task = stored.copy();
+                    task.setStatus(status);
+                    manager.updateTask(task);
+                }
+            }
+        }
+
+        @Override
+        public void operation() {
+            if (!replay) {
+                Blackhole.consume(log.getLeadTime().getValueAtQuantile(0.9));
+                return;
+            }
+            Map<Integer, Long> created = new HashMap<>();
+            LatencyHistogram leadTime = new LatencyHistogram();
+            for (int i = 0; i < log.size(); i++) {
+                StatusLog.Transition transition = log.get(i);
+                long time = transition.time().toEpochMilli();
+                if (transition.from() == null) {
+                    created.put(transition.taskId(), time);
+                } else if (transition.to() == TaskStatus.DONE && created.containsKey(transition.taskId())) {
+                    leadTime.record(time - created.remove(transition.taskId()));
+                }
+            }
+            Blackhole.consume(leadTime.getValueAtQuantile(0.9));
+        }
+
+        @Override
+        public boolean isSlow(int size) {
+            return replay && size >= 100_000;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package bench;
+
+import manager.InMemoryTaskManager;
+import task.Task;
+import task.TaskStatus;
+
+import java.lang.ref.Reference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Память под хранимые версии доски: java -Xmx2g -cp out/src:out/bench bench.VersionMemoryTest
+//     --size=100000 --versions=10000
+// На доске из size задач включаются retainVersions и enableUndo на versions операций, после чего выполняется
+// versions обновлений случайных задач. Прирост кучи после сборки мусора, делённый на число версий, —
+// цена одной версии; для сравнения печатается цена одной полной копии доски. Затем все операции
+// отменяются и повторяются — время undo/redo не должно зависеть от размера доски.
+public final class VersionMemoryTest {
+    private int size = 100_000;
+    private int versions = 10_000;
+
+    public static void main(String[] args) {
+        VersionMemoryTest test = new VersionMemoryTest();
+        test.parse(args);
+        test.run();
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Ожидался аргумент вида --ключ=значение: " + arg);
+            }
+            switch (parts[0]) {
+                case "--size" -> size = Integer.parseInt(parts[1]);
+                case "--versions" -> versions = Integer.parseInt(parts[1]);
+                default -> throw new IllegalArgumentException("Неизвестный аргумент: " + parts[0]);
+            }
+        }
+    }
+
+    private void run() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Boards.fill(manager, size);
+        // Первая сборка после заполнения ещё освобождает мусор загрузки, по ней не меряем
+        usedHeap();
+        long base = usedHeap();
+
+        // Полная копия всех задач — столько стоила бы версия без общих частей
+        List<Task> copy = new ArrayList<>();
+        manager.snapshot().getTasks().forEach(task -> copy.add(task.copy()));
+        manager.snapshot().getEpics().forEach(epic -> copy.add(epic.copy()));
+        manager.snapshot().getSubtasks().forEach(subtask -> copy.add(subtask.copy()));
+        long fullCopy = usedHeap() - base;
+        Reference.reachabilityFence(copy);
+        copy.clear();
+        base = usedHeap();
+
+        manager.retainVersions(Duration.ofDays(1), versions + 1);
+        manager.enableUndo(versions);
+        // Только id: список самих задач удерживал бы заменённые объекты и попал бы в замер
+        int[] ids = manager.streamAllTasks().mapToInt(Task::getId).toArray();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < versions; i++) {
+            Task task = manager.getTask(ids[random.nextInt(ids.length)]).copy();
+            task.setStatus(TaskStatus.values()[i % 3]);
+            manager.updateTask(task);
+        }
+        long retained = usedHeap() - base;
+
+        long start = System.nanoTime();
+        int undone = 0;
+        while (manager.undo()) {
+            undone++;
+        }
+        long undoNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        while (manager.redo()) {
+            undone--;
+        }
+        long redoNanos = System.nanoTime() - start;
+        if (undone != 0) {
+            throw new IllegalStateException("Повторено не столько операций, сколько отменено");
+        }
+
+        System.out.printf(Locale.ROOT, "size=%d versions=%d%n", size, versions);
+        System.out.printf(Locale.ROOT, "full copy        %12d B%n", fullCopy);
+        System.out.printf(Locale.ROOT, "per version      %12d B  (%.4f%% of full copy)%n",
+                retained / versions, 100.0 * retained / versions / fullCopy);
+        System.out.printf(Locale.ROOT, "undo             %12.2f us/op%n", undoNanos / 1000.0 / versions);
+        System.out.printf(Locale.ROOT, "redo             %12.2f us/op%n", redoNanos / 1000.0 / versions);
+        Reference.reachabilityFence(manager);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,7 @@
+package event;
+
+public interface Subscription extends AutoCloseable {
+    // Отписывает слушателя; события, уже взятые из буфера, ещё могут быть доставлены
+    @Override
+    void close();
+}
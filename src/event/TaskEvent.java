@@ -0,0 +1,63 @@
+package event;
+
+import task.Task;
+import task.TaskType;
+
+// Событие об изменении задачи. task — копия состояния на момент события (null для DELETED и VIEWED).
+// boardVersion — версия среза доски, в которой это изменение уже учтено
+public class TaskEvent {
+    private final long sequence;
+    private final TaskEventType type;
+    private final TaskType taskType;
+    private final int taskId;
+    private final Task task;
+    private final long boardVersion;
+
+    public TaskEvent(long sequence, TaskEventType type, TaskType taskType, int taskId, Task task) {
+        this(sequence, type, taskType, taskId, task, 0);
+    }
+
+    public TaskEvent(long sequence, TaskEventType type, TaskType taskType, int taskId, Task task,
+                     long boardVersion) {
+        this.sequence = sequence;
+        this.type = type;
+        this.taskType = taskType;
+        this.taskId = taskId;
+        this.task = task;
+        this.boardVersion = boardVersion;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public TaskEventType getType() {
+        return type;
+    }
+
+    public TaskType getTaskType() {
+        return taskType;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public long getBoardVersion() {
+        return boardVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", taskType=" + taskType +
+                ", taskId=" + taskId +
+                '}';
+    }
+}
@@ -0,0 +1,193 @@
+package event;
+
+import task.Task;
+import task.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Лента изменений на кольцевом буфере фиксированного размера.
+// У каждого подписчика свой курсор и свой поток доставки. Если самый медленный подписчик
+// отстал на весь буфер, publish ждёт его (обратное давление), а не теряет события.
+// Слушатель, который сам публикует в эту ленту (например, меняет задачи через менеджер),
+// при заполненном буфере ждал бы сам себя, поэтому publish из потока доставки в этом случае
+// сразу бросает IllegalStateException. Исключения слушателей не останавливают доставку:
+// они считаются в getFailureCount(), последнее доступно через getLastFailure().
+public class TaskEventBus {
+    private final TaskEvent[] ring;
+    private final int capacity;
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition notEmpty = lock.newCondition();
+    // Номер следующего публикуемого события; номера начинаются с 1
+    private long nextSequence = 1;
+    private final AtomicLong failureCount = new AtomicLong();
+    private volatile RuntimeException lastFailure;
+
+    public TaskEventBus(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер буфера событий должен быть положительным");
+        }
+        this.capacity = capacity;
+        this.ring = new TaskEvent[capacity];
+    }
+
+    public boolean hasSubscribers() {
+        return !consumers.isEmpty();
+    }
+
+    // Слушатель получает только события, опубликованные после подписки, в порядке их номеров
+    public Subscription subscribe(TaskEventListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Слушатель не может быть null");
+        }
+        Consumer consumer;
+        lock.lock();
+        try {
+            consumer = new Consumer(listener, nextSequence);
+            consumers.add(consumer);
+        } finally {
+            lock.unlock();
+        }
+        Thread thread = new Thread(consumer::run, "task-events-" + consumer.hashCode());
+        thread.setDaemon(true);
+        consumer.thread = thread;
+        thread.start();
+        return consumer;
+    }
+
+    // Сколько раз слушатели завершились исключением
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    // task должен быть копией, которую больше никто не меняет: подписчики читают её из других потоков
+    public void publish(TaskEventType type, Task task) {
+        publish(type, task, 0);
+    }
+
+    public void publish(TaskEventType type, Task task, long boardVersion) {
+        publish(type, task.getType(), task.getId(), task, boardVersion);
+    }
+
+    public void publishDeleted(TaskType taskType, int taskId) {
+        publishDeleted(taskType, taskId, 0);
+    }
+
+    public void publishDeleted(TaskType taskType, int taskId, long boardVersion) {
+        publish(TaskEventType.DELETED, taskType, taskId, null, boardVersion);
+    }
+
+    public void publishViewed(TaskType taskType, int taskId, long boardVersion) {
+        publish(TaskEventType.VIEWED, taskType, taskId, null, boardVersion);
+    }
+
+    private void publish(TaskEventType type, TaskType taskType, int taskId, Task task, long boardVersion) {
+        lock.lock();
+        try {
+            if (consumers.isEmpty()) {
+                return;
+            }
+            while (nextSequence - slowestCursor() >= capacity) {
+                if (isDeliveryThread()) {
+                    throw new IllegalStateException("Буфер событий заполнен, а публикует слушатель этой же ленты: "
+                            + "ожидание места привело бы к взаимной блокировке");
+                }
+                notFull.awaitUninterruptibly();
+            }
+            long sequence = nextSequence++;
+            ring[(int) (sequence % capacity)] = new TaskEvent(sequence, type, taskType, taskId, task, boardVersion);
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isDeliveryThread() {
+        Thread current = Thread.currentThread();
+        for (Consumer consumer : consumers) {
+            if (consumer.thread == current) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long slowestCursor() {
+        long slowest = nextSequence;
+        for (Consumer consumer : consumers) {
+            slowest = Math.min(slowest, consumer.cursor);
+        }
+        return slowest;
+    }
+
+    private final class Consumer implements Subscription {
+        private final TaskEventListener listener;
+        // Номер следующего события, которое получит подписчик; меняется только под lock
+        private long cursor;
+        private volatile boolean closed;
+        private volatile Thread thread;
+
+        Consumer(TaskEventListener listener, long cursor) {
+            this.listener = listener;
+            this.cursor = cursor;
+        }
+
+        void run() {
+            List<TaskEvent> batch = new ArrayList<>();
+            while (true) {
+                lock.lock();
+                try {
+                    while (!closed && cursor == nextSequence) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    // Забираем всё накопленное разом и сразу освобождаем место в буфере
+                    for (; cursor < nextSequence; cursor++) {
+                        batch.add(ring[(int) (cursor % capacity)]);
+                    }
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                for (TaskEvent event : batch) {
+                    if (closed) {
+                        return;
+                    }
+                    try {
+                        listener.onEvent(event);
+                    } catch (RuntimeException e) {
+                        // Ошибка одного слушателя не должна останавливать ленту
+                        lastFailure = e;
+                        failureCount.incrementAndGet();
+                    }
+                }
+                batch.clear();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+                consumers.remove(this);
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
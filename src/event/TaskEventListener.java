@@ -0,0 +1,5 @@
+package event;
+
+public interface TaskEventListener {
+    void onEvent(TaskEvent event);
+}
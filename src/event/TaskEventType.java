@@ -0,0 +1,11 @@
+package event;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    DELETED,
+    STATUS_CHANGED,
+    EPIC_RECOMPUTED,
+    // Просмотр по id: задача попала в историю
+    VIEWED
+}
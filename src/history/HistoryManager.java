@@ -2,6 +2,7 @@ package history;
 
 import task.Task;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface HistoryManager {
     void add(Task task);
@@ -9,4 +10,14 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    // Та же история без промежуточного списка; дочитывается до следующего изменения истории
+    Stream<Task> stream();
+
+    int size();
+
+    // Срез истории для чтения из другого потока; здесь — копия id за O(size()), InMemoryHistoryManager — за O(1)
+    default HistorySnapshot snapshot() {
+        return HistorySnapshot.of(stream().mapToInt(Task::getId).toArray());
+    }
 }
\ No newline at end of file
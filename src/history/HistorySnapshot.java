@@ -0,0 +1,57 @@
+package history;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Неизменяемый срез истории просмотров. Срез — начало журнала, в который история только дописывает:
+// id просмотренной задачи или ~id задачи, убранной из истории. Сам срез берётся за O(1), а порядок
+// восстанавливается при чтении getIds обходом журнала с конца: решает последняя запись каждого id.
+// Читать срез можно из любого потока.
+public final class HistorySnapshot {
+    private static final HistorySnapshot EMPTY = new HistorySnapshot(new int[0], 0);
+
+    private final int[] log;
+    private final int length;
+
+    HistorySnapshot(int[] log, int length) {
+        this.log = log;
+        this.length = length;
+    }
+
+    public static HistorySnapshot empty() {
+        return EMPTY;
+    }
+
+    // Срез из готового списка id без повторов, от давнего просмотра к последнему
+    public static HistorySnapshot of(int[] ids) {
+        for (int id : ids) {
+            if (id < 0) {
+                throw new IllegalArgumentException("id в истории не может быть отрицательным: " + id);
+            }
+        }
+        return new HistorySnapshot(ids.clone(), ids.length);
+    }
+
+    // id истории от давнего просмотра к последнему
+    public int[] getIds() {
+        BitSet seen = new BitSet();
+        int[] ids = new int[length];
+        int count = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            int entry = log[i];
+            int id = entry < 0 ? ~entry : entry;
+            if (!seen.get(id)) {
+                seen.set(id);
+                if (entry >= 0) {
+                    ids[count++] = id;
+                }
+            }
+        }
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+}
@@ -0,0 +1,242 @@
+package history;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Самые просматриваемые задачи в постоянной памяти: алгоритм Space-Saving на capacity счётчиков.
+// Пока разных id не больше capacity, счёт точный; дальше новый id занимает счётчик самого редкого
+// и наследует его значение как погрешность, так что частые задачи не теряются, а оценка завышена
+// не больше чем на error. Просмотры стареют экспоненциально с периодом полураспада halfLife: вес
+// просмотра растёт со временем (2^(t / halfLife)), поэтому старые счётчики не нужно пересчитывать,
+// а порядок в куче не меняется. Счётчики лежат в мин-куче на массивах, индекс по id — открытая адресация
+// на массивах int, так что просмотр — O(log capacity) без выделения памяти.
+public class HotTaskTracker {
+    // Задача с оценкой числа просмотров на текущий момент; настоящее значение не меньше views - error
+    public record HotTask(int taskId, double views, double error) {
+    }
+
+    // При таком показателе веса все счётчики делятся на вес, чтобы не переполнить double
+    private static final double RESCALE_EXPONENT = 64;
+
+    private final Clock clock;
+    private final double halfLifeMillis;
+    // Мин-куча по counts
+    private final int[] ids;
+    private final double[] counts;
+    private final double[] errors;
+    private int size;
+    // id -> индекс в куче + 1 (0 — ячейка свободна), линейное пробирование
+    private final int[] keys;
+    private final int[] positions;
+    private final int mask;
+    // Момент, от которого отсчитывается вес просмотра
+    private long landmark;
+    // Вес, посчитанный для момента weightTime: просмотры в одну миллисекунду не зовут Math.pow
+    private long weightTime = Long.MIN_VALUE;
+    private double cachedWeight;
+
+    public HotTaskTracker(int capacity, Duration halfLife) {
+        this(capacity, halfLife, Clock.systemUTC());
+    }
+
+    public HotTaskTracker(int capacity, Duration halfLife, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Число счётчиков должно быть положительным");
+        }
+        if (halfLife == null || halfLife.isZero() || halfLife.isNegative()) {
+            throw new IllegalArgumentException("Период полураспада должен быть положительным");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Часы не могут быть null");
+        }
+        this.clock = clock;
+        this.halfLifeMillis = halfLife.toMillis();
+        this.ids = new int[capacity];
+        this.counts = new double[capacity];
+        this.errors = new double[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) << 1;
+        this.keys = new int[tableSize];
+        this.positions = new int[tableSize];
+        this.mask = tableSize - 1;
+        this.landmark = clock.millis();
+    }
+
+    public synchronized void record(int taskId) {
+        double weight = weight(clock.millis());
+        int position = positionOf(taskId);
+        if (position >= 0) {
+            counts[position] += weight;
+            siftDown(position);
+        } else if (size < ids.length) {
+            ids[size] = taskId;
+            counts[size] = weight;
+            errors[size] = 0;
+            place(taskId, size);
+            siftUp(size++);
+        } else {
+            // Вытесняем самый редкий: его счёт переходит новому id как погрешность
+            unplace(ids[0]);
+            errors[0] = counts[0];
+            counts[0] += weight;
+            ids[0] = taskId;
+            place(taskId, 0);
+            siftDown(0);
+        }
+    }
+
+    // Задача удалена: её счётчик освобождается
+    public synchronized void remove(int taskId) {
+        int position = positionOf(taskId);
+        if (position < 0) {
+            return;
+        }
+        unplace(taskId);
+        int last = --size;
+        if (position != last) {
+            move(last, position);
+            siftDown(position);
+            siftUp(position);
+        }
+    }
+
+    // До limit самых просматриваемых задач по убыванию оценки
+    public synchronized List<HotTask> getTop(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Размер выборки не может быть отрицательным");
+        }
+        double decay = 1 / weight(clock.millis());
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> counts[i]).reversed());
+        List<HotTask> top = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < Math.min(limit, size); i++) {
+            int index = order[i];
+            top.add(new HotTask(ids[index], counts[index] * decay, errors[index] * decay));
+        }
+        return top;
+    }
+
+    // Оценка просмотров задачи на текущий момент; 0 — задача не среди отслеживаемых
+    public synchronized double getViews(int taskId) {
+        int position = positionOf(taskId);
+        return position < 0 ? 0 : counts[position] / weight(clock.millis());
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Вес просмотра в момент now относительно landmark; при большом показателе все счётчики
+    // переводятся на новую точку отсчёта — порядок от этого не меняется
+    private double weight(long now) {
+        if (now == weightTime) {
+            return cachedWeight;
+        }
+        double exponent = (now - landmark) / halfLifeMillis;
+        if (exponent > RESCALE_EXPONENT) {
+            double scale = Math.pow(2, -exponent);
+            for (int i = 0; i < size; i++) {
+                counts[i] *= scale;
+                errors[i] *= scale;
+            }
+            landmark = now;
+            exponent = 0;
+        }
+        weightTime = now;
+        cachedWeight = Math.pow(2, exponent);
+        return cachedWeight;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (counts[parent] <= counts[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        double count = counts[a];
+        double error = errors[a];
+        move(b, a);
+        ids[b] = id;
+        counts[b] = count;
+        errors[b] = error;
+        place(id, b);
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        counts[to] = counts[from];
+        errors[to] = errors[from];
+        place(ids[to], to);
+    }
+
+    private int slotOf(int taskId) {
+        int hash = taskId * 0x9E3779B9;
+        for (int slot = (hash ^ (hash >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+            if (positions[slot] == 0 || keys[slot] == taskId) {
+                return slot;
+            }
+        }
+    }
+
+    private int positionOf(int taskId) {
+        return positions[slotOf(taskId)] - 1;
+    }
+
+    private void place(int taskId, int position) {
+        int slot = slotOf(taskId);
+        keys[slot] = taskId;
+        positions[slot] = position + 1;
+    }
+
+    // Удаление без надгробий: следующие записи цепочки сдвигаются на освободившееся место
+    private void unplace(int taskId) {
+        int free = slotOf(taskId);
+        if (positions[free] == 0) {
+            return;
+        }
+        positions[free] = 0;
+        for (int slot = (free + 1) & mask; positions[slot] != 0; slot = (slot + 1) & mask) {
+            int hash = keys[slot] * 0x9E3779B9;
+            int home = (hash ^ (hash >>> 16)) & mask;
+            // Запись можно сдвинуть, если её домашняя ячейка не лежит между free и slot
+            if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                keys[free] = keys[slot];
+                positions[free] = positions[slot];
+                positions[slot] = 0;
+                free = slot;
+            }
+        }
+    }
+}
@@ -2,9 +2,15 @@ package history;
 
 import task.Task;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InMemoryHistoryManager implements HistoryManager {
     private static class Node {
@@ -20,12 +26,19 @@ public class InMemoryHistoryManager implements HistoryManager {
     private final Map<Integer, Node> nodeMap = new HashMap<>();
     private Node head;
     private Node tail;
+    // Сколько записей вытеснено из истории: повторным просмотром или удалением задачи
+    private long evictions;
+    // Журнал для snapshot(): id просмотренной задачи или ~id убранной. Только дописывается; когда место
+    // кончается, переписывается в новый массив, а старый остаётся взятым из него срезам
+    private int[] log = new int[16];
+    private int logSize;
 
     @Override
     public void add(Task task) {
         if (task == null) return;
-        remove(task.getId());
+        removeNode(nodeMap.get(task.getId()));
         linkLast(task.copy()); // Добавляем копию задачи
+        append(task.getId());
     }
 
     private void linkLast(Task task) {
@@ -56,12 +69,49 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
 
         nodeMap.remove(node.currentTask.getId());
+        evictions++;
     }
 
     @Override
     public void remove(int id) {
         Node node = nodeMap.get(id);
-        removeNode(node);
+        if (node != null) {
+            removeNode(node);
+            append(~id);
+        }
+    }
+
+    // Если живых записей не больше половины журнала, он переписывается из списка, иначе растёт вдвое;
+    // так на одно изменение истории приходится O(1) работы
+    private void append(int entry) {
+        if (logSize == log.length) {
+            if (nodeMap.size() * 2 <= log.length) {
+                int[] compacted = new int[log.length];
+                logSize = 0;
+                for (Node node = head; node != null; node = node.nextTask) {
+                    compacted[logSize++] = node.currentTask.getId();
+                }
+                log = compacted;
+            } else {
+                log = Arrays.copyOf(log, log.length * 2);
+            }
+        }
+        log[logSize++] = entry;
+    }
+
+    @Override
+    public int size() {
+        return nodeMap.size();
+    }
+
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    // Срез за O(1): начало журнала, которое уже не меняется
+    @Override
+    public HistorySnapshot snapshot() {
+        return new HistorySnapshot(log, logSize);
     }
 
     @Override
@@ -74,4 +124,24 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
         return history;
     }
+
+    // Идёт по связному списку с головы, не копируя его
+    @Override
+    public Stream<Task> stream() {
+        Spliterator<Task> nodes = new Spliterators.AbstractSpliterator<>(nodeMap.size(),
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Node current = head;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Task> action) {
+                if (current == null) {
+                    return false;
+                }
+                action.accept(current.currentTask);
+                current = current.nextTask;
+                return true;
+            }
+        };
+        return StreamSupport.stream(nodes, false);
+    }
 }
\ No newline at end of file
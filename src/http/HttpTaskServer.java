@@ -0,0 +1,394 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import manager.BoardSnapshot;
+import manager.Managers;
+import manager.TaskManager;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// HTTP API поверх любого TaskManager. Каждый запрос обслуживается в своём виртуальном потоке.
+//   GET    /tasks, /epics, /subtasks            — списки
+//   GET    /tasks/{id}, /epics/{id}, ...        — по id (попадает в историю)
+//   GET    /epics/{id}/subtasks                 — подзадачи эпика
+//   POST   /tasks, /epics, /subtasks            — создание (без id) или обновление (с id)
+//   DELETE /tasks/{id}, ... и /tasks, ...       — удаление одной или всех
+//   GET    /history, /prioritized
+// Списки отдаются из среза доски и кодируются потоком прямо в ответ. Опубликованный срез
+// (isSnapshotLockFree) берётся без блокировки, собираемый по запросу — под ней, а пишется уже без неё.
+// Остальные вызовы менеджера (не потокобезопасного) идут под одной блокировкой.
+// Берём ReentrantLock, а не synchronized: виртуальный поток в synchronized прикрепляется к носителю.
+// Без TCP_NODELAY ответ на keep-alive соединении ждёт отложенного ACK клиента (~40 мс на запрос).
+// Это настройка всей JVM, которая читается при первом создании любого HttpServer, поэтому сервер
+// её не трогает: main выставляет её сам, а встраивающее приложение запускается с флагом
+// -Dsun.net.httpserver.nodelay=true.
+public class HttpTaskServer {
+    public static final int DEFAULT_PORT = 8080;
+    public static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private static final int OK = 200;
+    private static final int CREATED = 201;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int NOT_ACCEPTABLE = 406;
+    private static final int INTERNAL_ERROR = 500;
+    private static final String CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final byte[] EMPTY_OBJECT = {'{', '}'};
+
+    private final TaskManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public HttpTaskServer(TaskManager manager) throws IOException {
+        this(manager, DEFAULT_PORT);
+    }
+
+    // port == 0 — взять свободный порт, узнать его можно через getPort()
+    public HttpTaskServer(TaskManager manager, int port) throws IOException {
+        if (manager == null) {
+            throw new IllegalArgumentException("Менеджер не может быть null");
+        }
+        this.manager = manager;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/tasks", exchange -> handle(exchange, TaskType.TASK));
+        server.createContext("/epics", exchange -> handle(exchange, TaskType.EPIC));
+        server.createContext("/subtasks", exchange -> handle(exchange, TaskType.SUBTASK));
+        server.createContext("/history", exchange -> handleList(exchange, manager::getHistory));
+        server.createContext("/prioritized", exchange -> handleList(exchange, manager::getPrioritizedTasks));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange, TaskType type) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            // path[0] — пустая строка перед первым слешем, path[1] — имя коллекции
+            Integer id = path.length > 2 ? parseId(path[2]) : null;
+            if (path.length > 4 || (path.length > 2 && id == null)) {
+                sendError(exchange, NOT_FOUND, "Нет такого пути");
+                return;
+            }
+            boolean epicSubtasks = path.length == 4;
+            if (epicSubtasks && (type != TaskType.EPIC || !path[3].equals("subtasks"))) {
+                sendError(exchange, NOT_FOUND, "Нет такого пути");
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "GET" -> {
+                    if (epicSubtasks) {
+                        handleEpicSubtasks(exchange, id);
+                    } else if (id == null) {
+                        handleGetAll(exchange, type);
+                    } else {
+                        handleGet(exchange, type, id);
+                    }
+                }
+                case "POST" -> {
+                    if (id != null) {
+                        sendError(exchange, METHOD_NOT_ALLOWED, "POST принимается только на коллекцию");
+                    } else {
+                        handlePost(exchange, type);
+                    }
+                }
+                case "DELETE" -> {
+                    if (epicSubtasks) {
+                        sendError(exchange, METHOD_NOT_ALLOWED, "Метод не поддерживается");
+                    } else {
+                        handleDelete(exchange, type, id);
+                    }
+                }
+                default -> sendError(exchange, METHOD_NOT_ALLOWED, "Метод не поддерживается");
+            }
+        } catch (RuntimeException e) {
+            sendQuietly(exchange, INTERNAL_ERROR, "Внутренняя ошибка сервера");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleList(HttpExchange exchange, Supplier<List<Task>> source) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, METHOD_NOT_ALLOWED, "Метод не поддерживается");
+                return;
+            }
+            byte[] body;
+            lock.lock();
+            try {
+                List<Task> tasks = source.get();
+                body = encode(boardFor(tasks), writer -> writer.writeAll(tasks));
+            } finally {
+                lock.unlock();
+            }
+            send(exchange, OK, body);
+        } catch (RuntimeException e) {
+            sendQuietly(exchange, INTERNAL_ERROR, "Внутренняя ошибка сервера");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Списки читаются из среза и пишутся в ответ по мере обхода
+    private void handleGetAll(HttpExchange exchange, TaskType type) throws IOException {
+        BoardSnapshot board = snapshot();
+        Collection<? extends Task> tasks = switch (type) {
+            case TASK -> board.getTasks();
+            case EPIC -> board.getEpics();
+            case SUBTASK -> board.getSubtasks();
+        };
+        stream(exchange, board, writer -> writer.writeAll(tasks));
+    }
+
+    private void handleGet(HttpExchange exchange, TaskType type, int id) throws IOException {
+        byte[] body = null;
+        lock.lock();
+        try {
+            Task task = switch (type) {
+                case TASK -> manager.getTaskById(id);
+                case EPIC -> manager.getEpicById(id);
+                case SUBTASK -> manager.getSubtaskById(id);
+            };
+            if (task != null) {
+                body = encode(boardFor(List.of(task)), writer -> writer.write(task));
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (body == null) {
+            sendError(exchange, NOT_FOUND, "Задача с id " + id + " не найдена");
+        } else {
+            send(exchange, OK, body);
+        }
+    }
+
+    private void handleEpicSubtasks(HttpExchange exchange, int epicId) throws IOException {
+        BoardSnapshot board = snapshot();
+        if (board.getEpic(epicId) == null) {
+            sendError(exchange, NOT_FOUND, "Эпик с id " + epicId + " не найден");
+        } else {
+            stream(exchange, board, writer -> writer.writeAll(board.getEpicSubtasks(epicId)));
+        }
+    }
+
+    private void handlePost(HttpExchange exchange, TaskType type) throws IOException {
+        Task task;
+        try (InputStream in = exchange.getRequestBody()) {
+            TaskJsonReader reader = new TaskJsonReader(in);
+            task = reader.read(type);
+            reader.expectEnd();
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, BAD_REQUEST, e.getMessage());
+            return;
+        }
+        int status;
+        byte[] body;
+        lock.lock();
+        try {
+            boolean update = task.getId() != 0;
+            if (update && !manager.contains(type, task.getId())) {
+                status = NOT_FOUND;
+                body = error("Задача с id " + task.getId() + " не найдена");
+            } else if (task instanceof Subtask subtask && !manager.contains(TaskType.EPIC, subtask.getEpicId())) {
+                status = NOT_FOUND;
+                body = error("Эпик с id " + subtask.getEpicId() + " не найден");
+            } else {
+                save(task, update);
+                status = update ? OK : CREATED;
+                body = encode(boardFor(List.of(task)), writer -> writer.write(task));
+            }
+        } catch (IllegalStateException e) {
+            // Пересечение по времени
+            status = NOT_ACCEPTABLE;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = BAD_REQUEST;
+            body = error(e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+        send(exchange, status, body);
+    }
+
+    private void handleDelete(HttpExchange exchange, TaskType type, Integer id) throws IOException {
+        boolean found = true;
+        lock.lock();
+        try {
+            if (id == null) {
+                switch (type) {
+                    case TASK -> manager.deleteAllTasks();
+                    case EPIC -> manager.deleteAllEpics();
+                    case SUBTASK -> manager.deleteAllSubtasks();
+                }
+            } else if (manager.contains(type, id)) {
+                switch (type) {
+                    case TASK -> manager.deleteTaskById(id);
+                    case EPIC -> manager.deleteEpicById(id);
+                    case SUBTASK -> manager.deleteSubtaskById(id);
+                }
+            } else {
+                found = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (found) {
+            send(exchange, OK, EMPTY_OBJECT);
+        } else {
+            sendError(exchange, NOT_FOUND, "Задача с id " + id + " не найдена");
+        }
+    }
+
+    // Срез неизменяем, поэтому блокировка нужна только на время его сборки
+    private BoardSnapshot snapshot() {
+        if (manager.isSnapshotLockFree()) {
+            return manager.snapshot();
+        }
+        lock.lock();
+        try {
+            return manager.snapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Срез для кодировщика под блокировкой: опубликованный берётся целиком за O(1), а собирать весь срез
+    // по запросу ради нескольких задач незачем — кодировщику нужны только подзадачи эпиков
+    private BoardSnapshot boardFor(Collection<? extends Task> tasks) {
+        if (manager.isSnapshotLockFree()) {
+            return manager.snapshot();
+        }
+        List<Subtask> subtasks = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task instanceof Epic epic) {
+                subtasks.addAll(manager.getEpicSubtasks(epic.getId()));
+            }
+        }
+        return BoardSnapshot.ofSubtasks(subtasks);
+    }
+
+    private void save(Task task, boolean update) {
+        if (task instanceof Epic epic) {
+            if (update) {
+                manager.updateEpic(epic);
+            } else {
+                manager.createEpic(epic);
+            }
+        } else if (task instanceof Subtask subtask) {
+            if (update) {
+                manager.updateSubtask(subtask);
+            } else {
+                manager.createSubtask(subtask);
+            }
+        } else if (update) {
+            manager.updateTask(task);
+        } else {
+            manager.createTask(task);
+        }
+    }
+
+    private static Integer parseId(String value) {
+        try {
+            int id = Integer.parseInt(value);
+            return id > 0 ? id : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void writeTo(TaskJsonWriter writer) throws IOException;
+    }
+
+    // Для ответов, собираемых под блокировкой: живые объекты менеджера кодируются в память,
+    // а медленный клиент получает байты уже после снятия блокировки
+    private static byte[] encode(BoardSnapshot board, JsonBody body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            TaskJsonWriter writer = new TaskJsonWriter(bytes, board);
+            body.writeTo(writer);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] error(String message) {
+        return encode(null, writer -> writer.writeError(message));
+    }
+
+    // Ответ неизвестной длины: кодировщик пишет прямо в тело, сервер отдаёт его чанками
+    private static void stream(HttpExchange exchange, BoardSnapshot board, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(OK, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            TaskJsonWriter writer = new TaskJsonWriter(out, board);
+            body.writeTo(writer);
+            writer.flush();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, error(message));
+    }
+
+    // Заголовки могли уже уйти — тогда ответить нечем, просто закрываем обмен
+    private static void sendQuietly(HttpExchange exchange, int status, String message) {
+        try {
+            sendError(exchange, status, message);
+        } catch (IOException | RuntimeException ignored) {
+            // соединение уже непригодно
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        HttpTaskServer server = new HttpTaskServer(Managers.getDefault(), port);
+        server.start();
+        System.out.println("HTTP-сервер запущен на порту " + server.getPort());
+    }
+}
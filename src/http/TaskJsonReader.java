@@ -0,0 +1,391 @@
+package http;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.function.Consumer;
+
+// Потоковый JSON-декодер задач: читает UTF-8 прямо из InputStream или ByteBuffer
+// и заполняет поля задачи по ходу разбора, без промежуточного дерева или словаря.
+// Неизвестные поля (в том числе type, subtaskIds, endTime из ответа сервера) пропускаются.
+// Ошибки формата — IllegalArgumentException с позицией в байтах.
+public final class TaskJsonReader {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final ByteBuffer source;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    // Сколько байт прочитано до начала текущего буфера — для сообщений об ошибках
+    private long consumed;
+    // Общий буфер для ключей и строковых значений
+    private final StringBuilder text = new StringBuilder(64);
+
+    public TaskJsonReader(InputStream in) {
+        if (in == null) {
+            throw new IllegalArgumentException("Поток не может быть null");
+        }
+        this.in = in;
+        this.source = null;
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    public TaskJsonReader(ByteBuffer source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Буфер не может быть null");
+        }
+        this.in = null;
+        this.source = source;
+        this.buffer = null;
+    }
+
+    // Читает один объект; id == 0, если его нет (новая задача)
+    public Task read(TaskType type) throws IOException {
+        String name = null;
+        String description = null;
+        TaskStatus status = null;
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        Integer id = null;
+        Integer epicId = null;
+
+        expect('{');
+        if (skipSpacesAndPeek() == '}') {
+            next();
+        } else {
+            while (true) {
+                skipSpacesAndPeek();
+                readString();
+                expectAfterSpaces(':');
+                int first = skipSpacesAndPeek();
+                if (first == 'n') {
+                    expectLiteral("null");
+                } else if (keyIs("name")) {
+                    name = readStringValue();
+                } else if (keyIs("description")) {
+                    description = readStringValue();
+                } else if (keyIs("status")) {
+                    status = readStatus();
+                } else if (keyIs("id")) {
+                    id = toInt(readLong());
+                } else if (keyIs("epicId")) {
+                    epicId = toInt(readLong());
+                } else if (keyIs("startTime") && type != TaskType.EPIC) {
+                    startTime = readDateTime();
+                } else if (keyIs("duration") && type != TaskType.EPIC) {
+                    duration = Duration.ofMinutes(readLong());
+                } else {
+                    skipValue();
+                }
+                int separator = skipSpacesAndPeek();
+                next();
+                if (separator == '}') {
+                    break;
+                }
+                if (separator != ',') {
+                    throw error("ожидалась ',' или '}'");
+                }
+            }
+        }
+
+        if (name == null) {
+            throw new IllegalArgumentException("Не задано название задачи");
+        }
+        Task task = switch (type) {
+            case TASK -> new Task(name, description);
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> {
+                if (epicId == null) {
+                    throw new IllegalArgumentException("Не задан epicId подзадачи");
+                }
+                yield new Subtask(name, description, epicId);
+            }
+        };
+        if (id != null) {
+            task.setId(id);
+        }
+        if (status != null) {
+            task.setStatus(status);
+        }
+        task.setStartTime(startTime);
+        task.setDuration(duration);
+        return task;
+    }
+
+    // Читает массив объектов, передавая задачи по одной, не собирая список
+    public void readArray(TaskType type, Consumer<? super Task> consumer) throws IOException {
+        expectAfterSpaces('[');
+        if (skipSpacesAndPeek() == ']') {
+            next();
+            return;
+        }
+        while (true) {
+            skipSpacesAndPeek();
+            consumer.accept(read(type));
+            int separator = skipSpacesAndPeek();
+            next();
+            if (separator == ']') {
+                return;
+            }
+            if (separator != ',') {
+                throw error("ожидалась ',' или ']'");
+            }
+        }
+    }
+
+    // После документа допустимы только пробельные символы
+    public void expectEnd() throws IOException {
+        if (skipSpacesAndPeek() != -1) {
+            throw error("лишние символы после объекта");
+        }
+    }
+
+    private boolean keyIs(String key) {
+        return key.contentEquals(text);
+    }
+
+    private String readStringValue() throws IOException {
+        if (peek() != '"') {
+            throw error("значение поля должно быть строкой");
+        }
+        readString();
+        return text.toString();
+    }
+
+    private TaskStatus readStatus() throws IOException {
+        if (peek() != '"') {
+            throw error("статус должен быть строкой");
+        }
+        readString();
+        for (TaskStatus status : TaskStatus.values()) {
+            if (status.name().contentEquals(text)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный статус: " + text);
+    }
+
+    private LocalDateTime readDateTime() throws IOException {
+        if (peek() != '"') {
+            throw error("время должно быть строкой");
+        }
+        readString();
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректное время начала: " + text);
+        }
+    }
+
+    private long readLong() throws IOException {
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            next();
+        }
+        int c = peek();
+        if (c < '0' || c > '9') {
+            throw error("ожидалось целое число");
+        }
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            next();
+            if (value > (Long.MAX_VALUE - (c - '0')) / 10) {
+                throw error("число слишком велико");
+            }
+            value = value * 10 + (c - '0');
+            c = peek();
+        }
+        if (c == '.' || c == 'e' || c == 'E') {
+            throw error("ожидалось целое число");
+        }
+        return negative ? -value : value;
+    }
+
+    // Читает строку в text; текущий символ — открывающая кавычка
+    private void readString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            int b = next();
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                readEscape();
+            } else if (b < 0x80) {
+                if (b < 0x20) {
+                    throw error("управляющий символ в строке");
+                }
+                text.append((char) b);
+            } else if ((b & 0xE0) == 0xC0) {
+                text.append((char) (((b & 0x1F) << 6) | continuation()));
+            } else if ((b & 0xF0) == 0xE0) {
+                int high = (b & 0x0F) << 12;
+                text.append((char) (high | (continuation() << 6) | continuation()));
+            } else if ((b & 0xF8) == 0xF0) {
+                int codePoint = ((b & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+                text.appendCodePoint(codePoint);
+            } else {
+                throw error("некорректная последовательность UTF-8");
+            }
+        }
+    }
+
+    private int continuation() throws IOException {
+        int b = next();
+        if ((b & 0xC0) != 0x80) {
+            throw error("некорректная последовательность UTF-8");
+        }
+        return b & 0x3F;
+    }
+
+    private void readEscape() throws IOException {
+        int escaped = next();
+        switch (escaped) {
+            case '"', '\\', '/' -> text.append((char) escaped);
+            case 'n' -> text.append('\n');
+            case 'r' -> text.append('\r');
+            case 't' -> text.append('\t');
+            case 'b' -> text.append('\b');
+            case 'f' -> text.append('\f');
+            case 'u' -> {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next(), 16);
+                    if (digit < 0) {
+                        throw error("некорректная escape-последовательность");
+                    }
+                    value = value * 16 + digit;
+                }
+                text.append((char) value);
+            }
+            default -> throw error("некорректная escape-последовательность");
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '"' -> readString();
+            case '{' -> skipContainer('{', '}');
+            case '[' -> skipContainer('[', ']');
+            case 't' -> expectLiteral("true");
+            case 'f' -> expectLiteral("false");
+            case 'n' -> expectLiteral("null");
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readLong();
+                } else {
+                    throw error("неожиданный символ");
+                }
+            }
+        }
+    }
+
+    private void skipContainer(char open, char close) throws IOException {
+        expect(open);
+        if (skipSpacesAndPeek() == close) {
+            next();
+            return;
+        }
+        while (true) {
+            if (open == '{') {
+                skipSpacesAndPeek();
+                readString();
+                expectAfterSpaces(':');
+            }
+            skipSpacesAndPeek();
+            skipValue();
+            int separator = skipSpacesAndPeek();
+            next();
+            if (separator == close) {
+                return;
+            }
+            if (separator != ',') {
+                throw error("ожидалась ',' или '" + close + "'");
+            }
+        }
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (next() != literal.charAt(i)) {
+                throw error("ожидалось " + literal);
+            }
+        }
+    }
+
+    private void expectAfterSpaces(char expected) throws IOException {
+        skipSpacesAndPeek();
+        expect(expected);
+    }
+
+    private void expect(char expected) throws IOException {
+        if (next() != expected) {
+            throw error("ожидался '" + expected + "'");
+        }
+    }
+
+    private int skipSpacesAndPeek() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            next();
+            c = peek();
+        }
+        return c;
+    }
+
+    // -1 — конец входа
+    private int peek() throws IOException {
+        if (source != null) {
+            return source.hasRemaining() ? source.get(source.position()) & 0xFF : -1;
+        }
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int next() throws IOException {
+        if (source != null) {
+            if (!source.hasRemaining()) {
+                throw error("неожиданный конец");
+            }
+            return source.get() & 0xFF;
+        }
+        if (position == limit && !fill()) {
+            throw error("неожиданный конец");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        position = 0;
+        limit = Math.max(in.read(buffer), 0);
+        return limit > 0;
+    }
+
+    private static int toInt(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Число вне диапазона: " + value);
+        }
+        return (int) value;
+    }
+
+    private IllegalArgumentException error(String message) {
+        long offset = source != null ? source.position() : consumed + position;
+        return new IllegalArgumentException("Некорректный JSON в позиции " + offset + ": " + message);
+    }
+}
@@ -0,0 +1,335 @@
+package http;
+
+import manager.BoardSnapshot;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+
+// Потоковый JSON-кодировщик задач: пишет UTF-8 прямо в OutputStream или ByteBuffer
+// через собственный буфер, без промежуточных строк, списков и деревьев.
+// Время эпика (начало, длительность, конец) считается по подзадачам из среза доски,
+// а не через Epic.getStartTime()/getDuration(). Без среза эти поля эпика пишутся как null.
+public final class TaskJsonWriter {
+    private static final int BUFFER_SIZE = 8192;
+    // Самая длинная запись одного символа — \\u00XX
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final ByteBuffer target;
+    private final BoardSnapshot board;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    // Нужна ли запятая перед следующим элементом массива
+    private boolean needsComma;
+
+    public TaskJsonWriter(OutputStream out, BoardSnapshot board) {
+        if (out == null) {
+            throw new IllegalArgumentException("Поток не может быть null");
+        }
+        this.out = out;
+        this.target = null;
+        this.board = board;
+    }
+
+    // Если JSON не помещается в target, flush бросит BufferOverflowException
+    public TaskJsonWriter(ByteBuffer target, BoardSnapshot board) {
+        if (target == null) {
+            throw new IllegalArgumentException("Буфер не может быть null");
+        }
+        this.out = null;
+        this.target = target;
+        this.board = board;
+    }
+
+    public TaskJsonWriter beginArray() throws IOException {
+        writeByte('[');
+        needsComma = false;
+        return this;
+    }
+
+    public TaskJsonWriter endArray() throws IOException {
+        writeByte(']');
+        needsComma = true;
+        return this;
+    }
+
+    public TaskJsonWriter writeAll(Iterable<? extends Task> tasks) throws IOException {
+        beginArray();
+        for (Task task : tasks) {
+            write(task);
+        }
+        return endArray();
+    }
+
+    public TaskJsonWriter write(Task task) throws IOException {
+        if (needsComma) {
+            writeByte(',');
+        }
+        writeAscii("{\"id\":");
+        writeLong(task.getId());
+        writeAscii(",\"type\":\"");
+        writeAscii(task.getType().name());
+        writeAscii("\",\"name\":");
+        writeString(task.getName());
+        writeAscii(",\"description\":");
+        writeString(task.getDescription());
+        writeAscii(",\"status\":");
+        if (task.getStatus() != null) {
+            writeByte('"');
+            writeAscii(task.getStatus().name());
+            writeByte('"');
+        } else {
+            writeAscii("null");
+        }
+        if (task instanceof Epic epic) {
+            writeEpicTail(epic);
+        } else {
+            writeAscii(",\"startTime\":");
+            writeDateTime(task.getStartTime());
+            writeAscii(",\"duration\":");
+            writeMinutes(task.getDuration());
+            if (task instanceof Subtask subtask) {
+                writeAscii(",\"epicId\":");
+                writeLong(subtask.getEpicId());
+            }
+        }
+        writeByte('}');
+        needsComma = true;
+        return this;
+    }
+
+    public TaskJsonWriter writeError(String message) throws IOException {
+        writeAscii("{\"error\":");
+        writeString(message);
+        writeByte('}');
+        return this;
+    }
+
+    // Сбрасывает накопленное в поток или буфер; сам поток не закрывает
+    public void flush() throws IOException {
+        drain();
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    private void writeEpicTail(Epic epic) throws IOException {
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        long minutes = 0;
+        writeAscii(",\"subtaskIds\":[");
+        boolean first = true;
+        for (Integer subtaskId : epic.getSubtaskIds()) {
+            if (!first) {
+                writeByte(',');
+            }
+            writeLong(subtaskId);
+            first = false;
+            Subtask subtask = board != null ? board.getSubtask(subtaskId) : null;
+            if (subtask == null || subtask.getStartTime() == null) {
+                continue;
+            }
+            LocalDateTime subtaskStart = subtask.getStartTime();
+            if (start == null || subtaskStart.isBefore(start)) {
+                start = subtaskStart;
+            }
+            if (subtask.getDuration() != null) {
+                minutes += subtask.getDuration().toMinutes();
+                LocalDateTime subtaskEnd = subtaskStart.plus(subtask.getDuration());
+                if (end == null || subtaskEnd.isAfter(end)) {
+                    end = subtaskEnd;
+                }
+            }
+        }
+        writeAscii("],\"startTime\":");
+        writeDateTime(start);
+        writeAscii(",\"duration\":");
+        if (board != null) {
+            writeLong(minutes);
+        } else {
+            writeAscii("null");
+        }
+        writeAscii(",\"endTime\":");
+        writeDateTime(end);
+    }
+
+    private void writeMinutes(Duration duration) throws IOException {
+        if (duration == null) {
+            writeAscii("null");
+        } else {
+            writeLong(duration.toMinutes());
+        }
+    }
+
+    // Тот же вид, что у LocalDateTime.toString(): секунды и доли пишутся, только если они не нулевые
+    private void writeDateTime(LocalDateTime value) throws IOException {
+        if (value == null) {
+            writeAscii("null");
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            writeByte('"');
+            writeAscii(value.toString());
+            writeByte('"');
+            return;
+        }
+        ensure(32);
+        buffer[position++] = '"';
+        digits(year, 4);
+        buffer[position++] = '-';
+        digits(value.getMonthValue(), 2);
+        buffer[position++] = '-';
+        digits(value.getDayOfMonth(), 2);
+        buffer[position++] = 'T';
+        digits(value.getHour(), 2);
+        buffer[position++] = ':';
+        digits(value.getMinute(), 2);
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second > 0 || nano > 0) {
+            buffer[position++] = ':';
+            digits(second, 2);
+            if (nano > 0) {
+                buffer[position++] = '.';
+                if (nano % 1_000_000 == 0) {
+                    digits(nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    digits(nano / 1_000, 6);
+                } else {
+                    digits(nano, 9);
+                }
+            }
+        }
+        buffer[position++] = '"';
+    }
+
+    // Место в буфере должно быть обеспечено вызывающим
+    private void digits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int length = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            length++;
+        }
+        for (int i = position + length - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += length;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeAscii("null");
+            return;
+        }
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            ensure(MAX_CHAR_BYTES);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x80) {
+                writeEscape(c);
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Непарный суррогат в UTF-8 не кодируется — заменяем, как это делает String.getBytes
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeEscape(char c) {
+        buffer[position++] = '\\';
+        switch (c) {
+            case '"' -> buffer[position++] = '"';
+            case '\\' -> buffer[position++] = '\\';
+            case '\n' -> buffer[position++] = 'n';
+            case '\r' -> buffer[position++] = 'r';
+            case '\t' -> buffer[position++] = 't';
+            default -> {
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xF];
+            }
+        }
+    }
+
+    // Только для строк из ASCII: имён полей, констант и имён перечислений
+    private void writeAscii(String value) throws IOException {
+        int length = value.length();
+        for (int offset = 0; offset < length; ) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int chunk = Math.min(length - offset, buffer.length - position);
+            for (int i = 0; i < chunk; i++) {
+                buffer[position++] = (byte) value.charAt(offset + i);
+            }
+            offset += chunk;
+        }
+    }
+
+    private void writeByte(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        if (out != null) {
+            out.write(buffer, 0, position);
+        } else {
+            target.put(buffer, 0, position);
+        }
+        position = 0;
+    }
+}
@@ -0,0 +1,96 @@
+package manager;
+
+import event.Subscription;
+import event.TaskEventListener;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// TaskManager без ожидания: каждая операция сразу возвращает future, который завершится её результатом
+// или исключением, которое бросил бы синхронный метод. Изменения выполняются в порядке вызова;
+// чтение видит по меньшей мере все изменения, чьи future уже завершились.
+// Задачи в результатах — копии; чтобы изменить задачу, её передают в update*.
+public interface AsyncTaskManager {
+    CompletableFuture<Integer> generateId();
+
+    CompletableFuture<List<Task>> getAllTasks();
+
+    CompletableFuture<List<Epic>> getAllEpics();
+
+    CompletableFuture<List<Subtask>> getAllSubtasks();
+
+    CompletableFuture<Void> createTask(Task task);
+
+    CompletableFuture<Void> createEpic(Epic epic);
+
+    CompletableFuture<Void> createSubtask(Subtask subtask);
+
+    CompletableFuture<Void> updateTask(Task task);
+
+    CompletableFuture<Void> updateEpic(Epic epic);
+
+    CompletableFuture<Void> updateSubtask(Subtask subtask);
+
+    CompletableFuture<Void> deleteTaskById(int id);
+
+    CompletableFuture<Void> deleteEpicById(int id);
+
+    CompletableFuture<Void> updateEpicStatus(Epic epic);
+
+    CompletableFuture<Void> deleteSubtaskById(int id);
+
+    CompletableFuture<Void> deleteAllTasks();
+
+    CompletableFuture<Void> deleteAllEpics();
+
+    CompletableFuture<Void> deleteAllSubtasks();
+
+    CompletableFuture<Task> getTaskById(int id);
+
+    CompletableFuture<Epic> getEpicById(int id);
+
+    CompletableFuture<Subtask> getSubtaskById(int id);
+
+    CompletableFuture<List<Subtask>> getEpicSubtasks(int epicId);
+
+    CompletableFuture<List<Task>> getHistory();
+
+    CompletableFuture<Task> getTask(int id);
+
+    CompletableFuture<List<Task>> getPrioritizedTasks();
+
+    CompletableFuture<List<Task>> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    CompletableFuture<LocalDateTime> getNextFreeSlot(Duration duration, LocalDateTime after);
+
+    CompletableFuture<Map<LocalDate, List<Task>>> getTasksByDay(LocalDate from, LocalDate to);
+
+    CompletableFuture<List<Task>> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from,
+                                                      LocalDateTime to);
+
+    CompletableFuture<List<Task>> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from,
+                                                      LocalDateTime to, Comparator<? super Task> priority);
+
+    CompletableFuture<Void> addDependency(int taskId, int dependsOnId);
+
+    CompletableFuture<Void> removeDependency(int taskId, int dependsOnId);
+
+    CompletableFuture<List<Integer>> getDependencies(int taskId);
+
+    CompletableFuture<List<Subtask>> getEpicSubtasksInOrder(int epicId);
+
+    CompletableFuture<Duration> getCriticalPath(int epicId);
+
+    // Подписка и опубликованный срез (isSnapshotLockFree у менеджера) не ждут ничего и возвращаются сразу
+    Subscription subscribe(TaskEventListener listener);
+
+    BoardSnapshot snapshot();
+}
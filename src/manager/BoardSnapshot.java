@@ -0,0 +1,232 @@
+package manager;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+// Неизменяемый срез всей доски на момент вызова snapshot().
+// Хранит собственные копии задач в постоянных словарях, поэтому получение среза — O(1),
+// а читать его можно из любых потоков без блокировок и копирования.
+// Объекты задач в срезе общие для всех читателей: изменять их нельзя.
+public final class BoardSnapshot {
+    private static final BoardSnapshot EMPTY = new BoardSnapshot(0, PersistentIntMap.empty(),
+            PersistentIntMap.empty(), PersistentIntMap.empty());
+
+    private final long version;
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<Subtask> subtasks;
+    // Срез ShardedTaskManager: по срезу на раздел, раздел id — (id - 1) % parts.length
+    private final BoardSnapshot[] parts;
+
+    private BoardSnapshot(long version, PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                          PersistentIntMap<Subtask> subtasks) {
+        this.version = version;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.parts = null;
+    }
+
+    private BoardSnapshot(BoardSnapshot[] parts) {
+        long total = 0;
+        for (BoardSnapshot part : parts) {
+            total += part.version;
+        }
+        this.version = total;
+        this.tasks = null;
+        this.epics = null;
+        this.subtasks = null;
+        this.parts = parts;
+    }
+
+    public static BoardSnapshot empty() {
+        return EMPTY;
+    }
+
+    // Каждый раздел согласован сам по себе; эпик и его подзадачи всегда лежат в одном разделе.
+    // Только для чтения: with*/without* у такого среза не вызываются
+    static BoardSnapshot sharded(BoardSnapshot[] parts) {
+        return new BoardSnapshot(parts.clone());
+    }
+
+    // Срез, собранный целиком за один проход (менеджер без среза в памяти); задачи уже скопированы вызывающим
+    static BoardSnapshot of(long version, Collection<Task> tasks, Collection<Epic> epics,
+                            Collection<Subtask> subtasks) {
+        PersistentIntMap<Task> taskMap = PersistentIntMap.empty();
+        for (Task task : tasks) {
+            taskMap = taskMap.put(task.getId(), task);
+        }
+        PersistentIntMap<Epic> epicMap = PersistentIntMap.empty();
+        for (Epic epic : epics) {
+            epicMap = epicMap.put(epic.getId(), epic);
+        }
+        PersistentIntMap<Subtask> subtaskMap = PersistentIntMap.empty();
+        for (Subtask subtask : subtasks) {
+            subtaskMap = subtaskMap.put(subtask.getId(), subtask);
+        }
+        return new BoardSnapshot(version, taskMap, epicMap, subtaskMap);
+    }
+
+    // Срез из одних подзадач — чтобы закодировать несколько эпиков, не собирая всю доску.
+    // Подзадачи не копируются: такой срез живёт, пока вызывающий держит замок менеджера
+    public static BoardSnapshot ofSubtasks(Collection<Subtask> subtasks) {
+        return of(0, List.of(), List.of(), subtasks);
+    }
+
+    // Номер версии доски: растёт с каждым изменением
+    public long getVersion() {
+        return version;
+    }
+
+    public Collection<Task> getTasks() {
+        return parts == null ? view(tasks) : concat(BoardSnapshot::getTasks);
+    }
+
+    public Collection<Epic> getEpics() {
+        return parts == null ? view(epics) : concat(BoardSnapshot::getEpics);
+    }
+
+    public Collection<Subtask> getSubtasks() {
+        return parts == null ? view(subtasks) : concat(BoardSnapshot::getSubtasks);
+    }
+
+    public Task getTask(int id) {
+        if (parts != null) {
+            return id > 0 ? part(id).getTask(id) : null;
+        }
+        return tasks.get(id);
+    }
+
+    public Epic getEpic(int id) {
+        if (parts != null) {
+            return id > 0 ? part(id).getEpic(id) : null;
+        }
+        return epics.get(id);
+    }
+
+    public Subtask getSubtask(int id) {
+        if (parts != null) {
+            return id > 0 ? part(id).getSubtask(id) : null;
+        }
+        return subtasks.get(id);
+    }
+
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        if (parts != null) {
+            return epicId > 0 ? part(epicId).getEpicSubtasks(epicId) : new ArrayList<>();
+        }
+        List<Subtask> result = new ArrayList<>();
+        Epic epic = epics.get(epicId);
+        if (epic != null) {
+            for (Integer subtaskId : epic.getSubtaskIds()) {
+                Subtask subtask = subtasks.get(subtaskId);
+                if (subtask != null) {
+                    result.add(subtask);
+                }
+            }
+        }
+        return result;
+    }
+
+    BoardSnapshot withTask(Task task) {
+        return new BoardSnapshot(version + 1, tasks.put(task.getId(), task), epics, subtasks);
+    }
+
+    BoardSnapshot withEpic(Epic epic) {
+        return new BoardSnapshot(version + 1, tasks, epics.put(epic.getId(), epic), subtasks);
+    }
+
+    BoardSnapshot withSubtask(Subtask subtask) {
+        return new BoardSnapshot(version + 1, tasks, epics, subtasks.put(subtask.getId(), subtask));
+    }
+
+    BoardSnapshot withoutTask(int id) {
+        return new BoardSnapshot(version + 1, tasks.remove(id), epics, subtasks);
+    }
+
+    BoardSnapshot withoutEpic(int id) {
+        return new BoardSnapshot(version + 1, tasks, epics.remove(id), subtasks);
+    }
+
+    BoardSnapshot withoutSubtask(int id) {
+        return new BoardSnapshot(version + 1, tasks, epics, subtasks.remove(id));
+    }
+
+    BoardSnapshot withoutAllTasks() {
+        return new BoardSnapshot(version + 1, PersistentIntMap.empty(), epics, subtasks);
+    }
+
+    BoardSnapshot withoutAllEpics() {
+        return new BoardSnapshot(version + 1, tasks, PersistentIntMap.empty(), PersistentIntMap.empty());
+    }
+
+    BoardSnapshot withoutAllSubtasks() {
+        return new BoardSnapshot(version + 1, tasks, epics, PersistentIntMap.empty());
+    }
+
+    // id, у которых копия в other другая или есть только в одном из срезов; общие части деревьев
+    // не обходятся, поэтому для среза и его прямого предшественника это дёшево.
+    // Только для несекционированных срезов
+    void forEachChangedTask(BoardSnapshot other, IntConsumer action) {
+        tasks.forEachChangedKey(other.tasks, action);
+    }
+
+    void forEachChangedEpic(BoardSnapshot other, IntConsumer action) {
+        epics.forEachChangedKey(other.epics, action);
+    }
+
+    void forEachChangedSubtask(BoardSnapshot other, IntConsumer action) {
+        subtasks.forEachChangedKey(other.subtasks, action);
+    }
+
+    private BoardSnapshot part(int id) {
+        return parts[(id - 1) % parts.length];
+    }
+
+    // Разделы подряд, без копирования
+    private <T> Collection<T> concat(Function<BoardSnapshot, Collection<T>> collection) {
+        List<Collection<T>> views = new ArrayList<>(parts.length);
+        int size = 0;
+        for (BoardSnapshot part : parts) {
+            Collection<T> view = collection.apply(part);
+            views.add(view);
+            size += view.size();
+        }
+        int total = size;
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return views.stream().flatMap(Collection::stream).iterator();
+            }
+
+            @Override
+            public int size() {
+                return total;
+            }
+        };
+    }
+
+    // Представление без копирования: обход идёт прямо по дереву
+    private static <T> Collection<T> view(PersistentIntMap<T> map) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return map.iterator();
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,311 @@
+package manager;
+
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+// Рабочий файл для холодных задач и подзадач: записи дописываются в конец, id -> смещение записи
+// держится в плоском массиве long, поэтому задача читается одним позиционным чтением.
+// Перезаписанные и удалённые записи остаются в файле мусором; когда мусора становится больше
+// живых данных, файл переписывается заново. Файл принадлежит хранилищу и удаляется в close().
+// Эпики сюда не попадают. Не потокобезопасно.
+public class ColdTaskStore implements AutoCloseable {
+    // Мелкие файлы не уплотняем: переписывать их дороже, чем держать мусор
+    private static final long COMPACT_MIN_BYTES = 1 << 20;
+    private static final int HEADER = 4;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final Path file;
+    private FileChannel channel;
+    // id -> смещение записи + 1; 0 — записи нет
+    private long[] offsets = new long[1024];
+    // id -> тип записи, чтобы перечислять задачи по типу, не читая файл
+    private byte[] types = new byte[1024];
+    private int size;
+    private long fileBytes;
+    private long liveBytes;
+
+    public ColdTaskStore(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Файл не может быть null");
+        }
+        this.file = file;
+        this.channel = open(file);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getFileBytes() {
+        return fileBytes;
+    }
+
+    public boolean contains(int id) {
+        return id > 0 && id < offsets.length && offsets[id] != 0;
+    }
+
+    public TaskType typeOf(int id) {
+        return contains(id) ? TYPES[types[id]] : null;
+    }
+
+    // Записывает задачу или подзадачу поверх прежней записи с тем же id
+    public void write(Task task) {
+        if (task.getType() == TaskType.EPIC) {
+            throw new IllegalArgumentException("Эпики в холодное хранилище не выгружаются");
+        }
+        int id = task.getId();
+        if (id <= 0) {
+            throw new IllegalArgumentException("У задачи должен быть положительный id");
+        }
+        ByteBuffer record = encode(task);
+        int length = record.remaining();
+        forget(id);
+        try {
+            long position = fileBytes;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать задачу " + id + " в " + file, e);
+        }
+        if (id >= offsets.length) {
+            int capacity = Math.max(offsets.length * 2, id + 1);
+            offsets = Arrays.copyOf(offsets, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        offsets[id] = fileBytes + 1;
+        types[id] = (byte) task.getType().ordinal();
+        fileBytes += length;
+        liveBytes += length;
+        size++;
+        compactIfWasteful();
+    }
+
+    // Новый объект задачи из файла; null, если записи нет
+    public Task read(int id) {
+        if (!contains(id)) {
+            return null;
+        }
+        try {
+            ByteBuffer record = readRecord(offsets[id] - 1);
+            return decode(id, record);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось прочитать задачу " + id + " из " + file, e);
+        }
+    }
+
+    public void remove(int id) {
+        forget(id);
+        compactIfWasteful();
+    }
+
+    public void clear() {
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось очистить " + file, e);
+        }
+        Arrays.fill(offsets, 0);
+        size = 0;
+        fileBytes = 0;
+        liveBytes = 0;
+    }
+
+    // id записей данного типа в порядке возрастания
+    public void forEach(TaskType type, IntConsumer action) {
+        for (int id = 1; id < offsets.length; id++) {
+            if (offsets[id] != 0 && TYPES[types[id]] == type) {
+                action.accept(id);
+            }
+        }
+    }
+
+    // Как forEach, но лениво: id выдаются по мере чтения потока
+    public IntStream ids(TaskType type) {
+        return IntStream.range(1, offsets.length).filter(id -> offsets[id] != 0 && TYPES[types[id]] == type);
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось удалить " + file, e);
+        }
+    }
+
+    // Запись становится мусором; место в файле освобождается только уплотнением
+    private void forget(int id) {
+        if (!contains(id)) {
+            return;
+        }
+        try {
+            liveBytes -= HEADER + readLength(offsets[id] - 1);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось прочитать задачу " + id + " из " + file, e);
+        }
+        offsets[id] = 0;
+        size--;
+    }
+
+    private void compactIfWasteful() {
+        if (fileBytes >= COMPACT_MIN_BYTES && fileBytes - liveBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    // Живые записи переписываются подряд в новый файл, который затем занимает место старого
+    private void compact() {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        FileChannel target = open(compacted);
+        try {
+            long position = 0;
+            for (int id = 1; id < offsets.length; id++) {
+                if (offsets[id] == 0) {
+                    continue;
+                }
+                long from = offsets[id] - 1;
+                long length = HEADER + readLength(from);
+                long copied = 0;
+                while (copied < length) {
+                    copied += channel.transferTo(from + copied, length - copied, target);
+                }
+                offsets[id] = position + 1;
+                position += length;
+            }
+            channel.close();
+            target.close();
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING);
+            channel = open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            fileBytes = position;
+            liveBytes = position;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось уплотнить " + file, e);
+        }
+    }
+
+    private static FileChannel open(Path file) {
+        return open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    private static FileChannel open(Path file, StandardOpenOption... options) {
+        try {
+            return FileChannel.open(file, options);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось открыть " + file, e);
+        }
+    }
+
+    private int readLength(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        readFully(header, position);
+        return header.getInt(0);
+    }
+
+    private ByteBuffer readRecord(long position) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(readLength(position));
+        readFully(record, position + HEADER);
+        return record.flip();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Запись обрывается на смещении " + position);
+            }
+            position += read;
+        }
+    }
+
+    // Длина, тип, эпик, статус, флаги наличия времени, начало, длительность, имя, описание
+    private static ByteBuffer encode(Task task) {
+        byte[] name = bytesOf(task.getName());
+        byte[] description = bytesOf(task.getDescription());
+        int length = 1 + 4 + 1 + 1 + 12 + 12 + 4 + lengthOf(name) + 4 + lengthOf(description);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + length);
+        buffer.putInt(length);
+        buffer.put((byte) task.getType().ordinal());
+        buffer.putInt(task instanceof Subtask subtask ? subtask.getEpicId() : 0);
+        buffer.put((byte) (task.getStatus() != null ? task.getStatus() : TaskStatus.NEW).ordinal());
+        LocalDateTime start = task.getStartTime();
+        Duration duration = task.getDuration();
+        buffer.put((byte) ((start != null ? 1 : 0) | (duration != null ? 2 : 0)));
+        buffer.putLong(start != null ? start.toEpochSecond(ZoneOffset.UTC) : 0);
+        buffer.putInt(start != null ? start.getNano() : 0);
+        buffer.putLong(duration != null ? duration.getSeconds() : 0);
+        buffer.putInt(duration != null ? duration.getNano() : 0);
+        putBytes(buffer, name);
+        putBytes(buffer, description);
+        return buffer.flip();
+    }
+
+    private static Task decode(int id, ByteBuffer buffer) {
+        TaskType type = TYPES[buffer.get()];
+        int epicId = buffer.getInt();
+        TaskStatus status = STATUSES[buffer.get()];
+        byte flags = buffer.get();
+        long startSeconds = buffer.getLong();
+        int startNanos = buffer.getInt();
+        long durationSeconds = buffer.getLong();
+        int durationNanos = buffer.getInt();
+        LocalDateTime start = (flags & 1) != 0
+                ? LocalDateTime.ofEpochSecond(startSeconds, startNanos, ZoneOffset.UTC) : null;
+        Duration duration = (flags & 2) != 0 ? Duration.ofSeconds(durationSeconds, durationNanos) : null;
+        String name = getString(buffer);
+        String description = getString(buffer);
+        Task task = type == TaskType.SUBTASK
+                ? new Subtask(name, description, epicId, duration, start)
+                : new Task(name, description, duration, start);
+        task.setId(id);
+        task.setStatus(status);
+        return task;
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    // Длина -1 — null
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes != null ? bytes.length : -1);
+        if (bytes != null) {
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
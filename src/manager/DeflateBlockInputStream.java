@@ -0,0 +1,184 @@
+package manager;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+// Читает поток DeflateBlockOutputStream. Блоки независимы, поэтому при parallelism > 1 следующие
+// parallelism блоков читаются с диска заранее и распаковываются в общем пуле потоков, пока вызывающий
+// разбирает текущий; байты отдаются в исходном порядке. Каждый блок проверяется по crc32.
+public final class DeflateBlockInputStream extends InputStream {
+    // Защита от мусора вместо заголовка блока
+    private static final int MAX_BLOCK = 1 << 30;
+
+    private final InputStream in;
+    private final int parallelism;
+    private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private byte[] current = new byte[0];
+    private int position;
+    private boolean eof;
+
+    public DeflateBlockInputStream(InputStream in) throws IOException {
+        this(in, 1);
+    }
+
+    public DeflateBlockInputStream(InputStream in, int parallelism) throws IOException {
+        if (in == null) {
+            throw new IllegalArgumentException("Поток не может быть null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным");
+        }
+        this.in = in;
+        this.parallelism = parallelism;
+        byte[] magic = in.readNBytes(4);
+        if (magic.length < 4 || getInt(magic, 0) != DeflateBlockOutputStream.MAGIC) {
+            throw new ZipException("Поток не сжат блоками");
+        }
+    }
+
+    // Начинается ли файл с сигнатуры DeflateBlockOutputStream
+    public static boolean isCompressed(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && getInt(magic, 0) == DeflateBlockOutputStream.MAGIC;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    // Ещё не начатая распаковка заранее прочитанных блоков отменяется
+    @Override
+    public void close() throws IOException {
+        for (CompletableFuture<byte[]> block : pending) {
+            block.cancel(false);
+        }
+        pending.clear();
+        in.close();
+    }
+
+    private boolean ensureData() throws IOException {
+        while (position == current.length) {
+            while (!eof && pending.size() < parallelism) {
+                readBlock();
+            }
+            CompletableFuture<byte[]> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            current = join(next);
+            position = 0;
+        }
+        return true;
+    }
+
+    private void readBlock() throws IOException {
+        byte[] header = in.readNBytes(DeflateBlockOutputStream.BLOCK_HEADER);
+        if (header.length == 0) {
+            eof = true;
+            return;
+        }
+        if (header.length < DeflateBlockOutputStream.BLOCK_HEADER) {
+            throw new EOFException("Заголовок блока оборван");
+        }
+        int rawLength = getInt(header, 0);
+        int compressedLength = getInt(header, 4);
+        int crc = getInt(header, 8);
+        if (rawLength <= 0 || rawLength > MAX_BLOCK || compressedLength <= 0 || compressedLength > MAX_BLOCK) {
+            throw new ZipException("Некорректный заголовок блока");
+        }
+        byte[] compressed = in.readNBytes(compressedLength);
+        if (compressed.length < compressedLength) {
+            throw new EOFException("Блок оборван");
+        }
+        if (parallelism == 1) {
+            pending.add(CompletableFuture.completedFuture(inflate(compressed, rawLength, crc)));
+        } else {
+            pending.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return inflate(compressed, rawLength, crc);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> block) throws IOException {
+        try {
+            return block.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException("Не удалось распаковать блок", e.getCause());
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength, int crc) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength) {
+                int count = inflater.inflate(raw, offset, rawLength - offset);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException("Блок короче заявленного");
+                }
+                offset += count;
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(raw);
+            if ((int) checksum.getValue() != crc) {
+                throw new ZipException("Неверная контрольная сумма блока");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new ZipException("Повреждённый блок: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8 | bytes[offset + 3] & 0xFF;
+    }
+}
@@ -0,0 +1,124 @@
+package manager;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Сжимает поток независимыми блоками: каждый блок — отдельный поток Deflate без словаря предыдущих,
+// поэтому его можно распаковать сам по себе, в любом порядке и параллельно с соседними.
+// Формат: MAGIC, затем блоки [длина исходных байт][длина сжатых][crc32 исходных][сжатые байты].
+// Блок кончается на flush() и close(): вызывающий сам решает, где границы, например между записями,
+// чтобы каждый блок читался без соседних. Размер блока ничем не ограничен, кроме частоты flush().
+public final class DeflateBlockOutputStream extends FilterOutputStream {
+    // "DFB1"
+    public static final int MAGIC = 0x44464231;
+    static final int BLOCK_HEADER = 12;
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private byte[] block = new byte[64 * 1024];
+    private int length;
+    private byte[] compressed = new byte[BLOCK_HEADER + 1024];
+    private long blocks;
+    private boolean closed;
+
+    // level — уровень Deflater: от 0 (без сжатия) до 9 или Deflater.DEFAULT_COMPRESSION
+    public DeflateBlockOutputStream(OutputStream out, int level) throws IOException {
+        super(out);
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION
+                || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Некорректный уровень сжатия: " + level);
+        }
+        this.deflater = new Deflater(level, true);
+        byte[] magic = new byte[4];
+        putInt(magic, 0, MAGIC);
+        out.write(magic);
+    }
+
+    // Число записанных блоков
+    public long getBlockCount() {
+        return blocks;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (length == block.length) {
+            block = Arrays.copyOf(block, length * 2);
+        }
+        block[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (length + len > block.length) {
+            block = Arrays.copyOf(block, Math.max(block.length * 2, length + len));
+        }
+        System.arraycopy(b, off, block, length, len);
+        length += len;
+    }
+
+    // Завершает текущий блок; пустой блок не пишется
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            writeBlock();
+            out.flush();
+        } finally {
+            closed = true;
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (length == 0) {
+            return;
+        }
+        crc.reset();
+        crc.update(block, 0, length);
+        deflater.reset();
+        deflater.setInput(block, 0, length);
+        deflater.finish();
+        int size = BLOCK_HEADER;
+        while (!deflater.finished()) {
+            if (size == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            size += deflater.deflate(compressed, size, compressed.length - size);
+        }
+        putInt(compressed, 0, length);
+        putInt(compressed, 4, size - BLOCK_HEADER);
+        putInt(compressed, 8, (int) crc.getValue());
+        out.write(compressed, 0, size);
+        length = 0;
+        blocks++;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Поток закрыт");
+        }
+    }
+
+    static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,391 @@
+package manager;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Граф зависимостей между задачами и подзадачами. Ребро from -> to означает,
+// что to нельзя начать, пока не закончена from.
+// Топологический порядок поддерживается инкрементально (алгоритм Пирса — Келли):
+// при добавлении ребра переупорядочивается только затронутый участок.
+// finish узла — длина самой длинной цепочки работ, заканчивающейся на нём;
+// при изменении веса пересчитываются только узлы, у которых finish действительно меняется.
+// Узел без рёбер — а таких на доске большинство — хранится в массивах примитивов: объект Node
+// создаётся, когда у задачи появляется первое ребро, и убирается вместе с последним.
+public class DependencyGraph {
+    private static final class Node {
+        final int id;
+        final int epicId;
+        int order;
+        long weight;
+        long finish;
+        boolean queued;
+        final Set<Node> predecessors = new LinkedHashSet<>();
+        final Set<Node> successors = new LinkedHashSet<>();
+
+        Node(int id, int epicId, int order, long weight) {
+            this.id = id;
+            this.epicId = epicId;
+            this.order = order;
+            this.weight = weight;
+            this.finish = weight;
+        }
+    }
+
+    private static final Comparator<Node> BY_ORDER = Comparator.comparingInt(node -> node.order);
+
+    // Узлы с рёбрами
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    // Узлы без рёбер: у них finish совпадает с весом
+    private final IdSlots isolated = new IdSlots();
+    private int[] isolatedEpicIds = new int[16];
+    private int[] isolatedOrders = new int[16];
+    private long[] isolatedWeights = new long[16];
+    // Для каждого эпика — мультимножество finish его подзадач, чтобы максимум брался за O(log n)
+    private final Map<Integer, TreeMap<Long, Integer>> epicFinishes = new HashMap<>();
+    // Зависимости каждой задачи, у которой они есть, в постоянном словаре: getAllDependencies отдаёт его за O(1)
+    private PersistentIntMap<Map.Entry<Integer, List<Integer>>> frozen = PersistentIntMap.empty();
+    private int nextOrder;
+
+    // epicId == 0 — обычная задача без эпика
+    public void addNode(int id, int epicId, long weight) {
+        if (contains(id)) {
+            setWeight(id, weight);
+            return;
+        }
+        isolate(id, epicId, nextOrder++, weight);
+        addFinish(epicId, weight);
+    }
+
+    public void removeNode(int id) {
+        int slot = isolated.remove(id);
+        if (slot >= 0) {
+            removeFinish(isolatedEpicIds[slot], isolatedWeights[slot]);
+            return;
+        }
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return;
+        }
+        removeFinish(node.epicId, node.finish);
+        for (Node predecessor : node.predecessors) {
+            predecessor.successors.remove(node);
+        }
+        frozen = frozen.remove(id);
+        List<Node> affected = new ArrayList<>(node.successors);
+        for (Node successor : affected) {
+            successor.predecessors.remove(node);
+            freeze(successor);
+        }
+        propagate(affected);
+        for (Node predecessor : node.predecessors) {
+            isolateIfFree(predecessor);
+        }
+        for (Node successor : affected) {
+            isolateIfFree(successor);
+        }
+    }
+
+    public void clear() {
+        nodes.clear();
+        isolated.clear();
+        epicFinishes.clear();
+        frozen = PersistentIntMap.empty();
+    }
+
+    public boolean contains(int id) {
+        return isolated.get(id) >= 0 || nodes.containsKey(id);
+    }
+
+    public void setWeight(int id, long weight) {
+        int slot = isolated.get(id);
+        if (slot >= 0) {
+            removeFinish(isolatedEpicIds[slot], isolatedWeights[slot]);
+            isolatedWeights[slot] = weight;
+            addFinish(isolatedEpicIds[slot], weight);
+            return;
+        }
+        Node node = nodes.get(id);
+        if (node == null || node.weight == weight) {
+            return;
+        }
+        node.weight = weight;
+        propagate(List.of(node));
+    }
+
+    public void addEdge(int from, int to) {
+        Node source = require(from);
+        Node target = require(to);
+        if (source == target) {
+            throw new IllegalStateException("Задача не может зависеть от самой себя");
+        }
+        if (source.successors.contains(target)) {
+            return;
+        }
+        if (target.order < source.order) {
+            reorder(source, target);
+        }
+        source.successors.add(target);
+        target.predecessors.add(source);
+        freeze(target);
+        propagate(List.of(target));
+    }
+
+    public void removeEdge(int from, int to) {
+        Node source = nodes.get(from);
+        Node target = nodes.get(to);
+        if (source == null || target == null || !source.successors.remove(target)) {
+            return;
+        }
+        target.predecessors.remove(source);
+        freeze(target);
+        propagate(List.of(target));
+        isolateIfFree(source);
+        isolateIfFree(target);
+    }
+
+    // Все рёбра: id задачи -> id задач, от которых она зависит, по возрастанию id; задачи без зависимостей
+    // не входят. Неизменяемый срез за O(1): последующие изменения графа в нём не видны
+    public Map<Integer, List<Integer>> getAllDependencies() {
+        PersistentIntMap<Map.Entry<Integer, List<Integer>>> dependencies = frozen;
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<Integer, List<Integer>>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<Integer, List<Integer>>> iterator() {
+                        return dependencies.iterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return dependencies.size();
+                    }
+                };
+            }
+
+            @Override
+            public List<Integer> get(Object key) {
+                Entry<Integer, List<Integer>> entry = key instanceof Integer id ? dependencies.get(id) : null;
+                return entry != null ? entry.getValue() : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+        };
+    }
+
+    private void freeze(Node node) {
+        if (node.predecessors.isEmpty()) {
+            frozen = frozen.remove(node.id);
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(node.predecessors.size());
+        for (Node predecessor : node.predecessors) {
+            ids.add(predecessor.id);
+        }
+        frozen = frozen.put(node.id, Map.entry(node.id, List.copyOf(ids)));
+    }
+
+    public List<Integer> getDependencies(int id) {
+        Node node = nodes.get(id);
+        List<Integer> result = new ArrayList<>();
+        if (node != null) {
+            for (Node predecessor : node.predecessors) {
+                result.add(predecessor.id);
+            }
+        }
+        return result;
+    }
+
+    // Длина критического пути эпика: самая длинная цепочка работ, заканчивающаяся на одной из его подзадач
+    public long getCriticalPath(int epicId) {
+        TreeMap<Long, Integer> finishes = epicFinishes.get(epicId);
+        return finishes == null || finishes.isEmpty() ? 0 : finishes.lastKey();
+    }
+
+    public long getFinish(int id) {
+        int slot = isolated.get(id);
+        if (slot >= 0) {
+            return isolatedWeights[slot];
+        }
+        Node node = nodes.get(id);
+        return node == null ? 0 : node.finish;
+    }
+
+    // Сортирует id в топологическом порядке; неизвестные id отбрасываются
+    public List<Integer> order(Collection<Integer> ids) {
+        // Порядок в старших 32 битах, id — в младших
+        long[] known = new long[ids.size()];
+        int count = 0;
+        for (Integer id : ids) {
+            int slot = isolated.get(id);
+            if (slot >= 0) {
+                known[count++] = (long) isolatedOrders[slot] << 32 | id;
+            } else {
+                Node node = nodes.get(id);
+                if (node != null) {
+                    known[count++] = (long) node.order << 32 | id;
+                }
+            }
+        }
+        Arrays.sort(known, 0, count);
+        List<Integer> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add((int) known[i]);
+        }
+        return result;
+    }
+
+    // Узел для ребра: узел без рёбер получает объект Node с прежним порядком
+    private Node require(int id) {
+        int slot = isolated.remove(id);
+        if (slot >= 0) {
+            Node node = new Node(id, isolatedEpicIds[slot], isolatedOrders[slot], isolatedWeights[slot]);
+            nodes.put(id, node);
+            return node;
+        }
+        Node node = nodes.get(id);
+        if (node == null) {
+            throw new IllegalArgumentException("Задача с id " + id + " не найдена в графе зависимостей");
+        }
+        return node;
+    }
+
+    // Узел, у которого не осталось рёбер, возвращается в массивы; его finish уже равен весу
+    private void isolateIfFree(Node node) {
+        if (!node.predecessors.isEmpty() || !node.successors.isEmpty() || nodes.get(node.id) != node) {
+            return;
+        }
+        nodes.remove(node.id);
+        isolate(node.id, node.epicId, node.order, node.weight);
+    }
+
+    private void isolate(int id, int epicId, int order, long weight) {
+        int slot = isolated.add(id);
+        if (slot >= isolatedEpicIds.length) {
+            int capacity = Math.max(isolatedEpicIds.length * 2, slot + 1);
+            isolatedEpicIds = Arrays.copyOf(isolatedEpicIds, capacity);
+            isolatedOrders = Arrays.copyOf(isolatedOrders, capacity);
+            isolatedWeights = Arrays.copyOf(isolatedWeights, capacity);
+        }
+        isolatedEpicIds[slot] = epicId;
+        isolatedOrders[slot] = order;
+        isolatedWeights[slot] = weight;
+    }
+
+    // Новое ребро source -> target нарушает порядок: сдвигаем затронутые узлы между target и source
+    private void reorder(Node source, Node target) {
+        int lowerBound = target.order;
+        int upperBound = source.order;
+
+        List<Node> forward = new ArrayList<>();
+        Set<Node> visited = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(target);
+        visited.add(target);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            forward.add(node);
+            for (Node successor : node.successors) {
+                if (successor == source) {
+                    throw new IllegalStateException("Зависимость " + source.id + " -> " + target.id
+                            + " образует цикл");
+                }
+                if (successor.order < upperBound && visited.add(successor)) {
+                    stack.push(successor);
+                }
+            }
+        }
+
+        List<Node> backward = new ArrayList<>();
+        stack.push(source);
+        visited.add(source);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            backward.add(node);
+            for (Node predecessor : node.predecessors) {
+                if (predecessor.order > lowerBound && visited.add(predecessor)) {
+                    stack.push(predecessor);
+                }
+            }
+        }
+
+        backward.sort(BY_ORDER);
+        forward.sort(BY_ORDER);
+        List<Node> reordered = new ArrayList<>(backward.size() + forward.size());
+        reordered.addAll(backward);
+        reordered.addAll(forward);
+        int[] orders = new int[reordered.size()];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = reordered.get(i).order;
+        }
+        Arrays.sort(orders);
+        for (int i = 0; i < orders.length; i++) {
+            reordered.get(i).order = orders[i];
+        }
+    }
+
+    // Пересчёт finish в топологическом порядке, начиная с изменившихся узлов
+    private void propagate(Collection<Node> changed) {
+        PriorityQueue<Node> queue = new PriorityQueue<>(BY_ORDER);
+        for (Node node : changed) {
+            node.queued = true;
+            queue.add(node);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            node.queued = false;
+            long start = 0;
+            for (Node predecessor : node.predecessors) {
+                start = Math.max(start, predecessor.finish);
+            }
+            long finish = start + node.weight;
+            if (finish == node.finish) {
+                continue;
+            }
+            removeFinish(node.epicId, node.finish);
+            node.finish = finish;
+            addFinish(node.epicId, node.finish);
+            for (Node successor : node.successors) {
+                if (!successor.queued) {
+                    successor.queued = true;
+                    queue.add(successor);
+                }
+            }
+        }
+    }
+
+    private void addFinish(int epicId, long finish) {
+        if (epicId != 0) {
+            epicFinishes.computeIfAbsent(epicId, key -> new TreeMap<>()).merge(finish, 1, Integer::sum);
+        }
+    }
+
+    private void removeFinish(int epicId, long finish) {
+        TreeMap<Long, Integer> finishes = epicFinishes.get(epicId);
+        if (finishes == null) {
+            return;
+        }
+        finishes.computeIfPresent(finish, (key, count) -> count == 1 ? null : count - 1);
+        if (finishes.isEmpty()) {
+            epicFinishes.remove(epicId);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package manager;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+// Архив завершённых эпиков вместе с подзадачами. Файл состоит из блоков [длина][gzip]; каждый прогон
+// архивации дописывает один блок, поэтому уже записанные данные не переписываются никогда.
+// В памяти держится только id эпика -> смещение его блока; сами эпики читаются из файла по запросу.
+// Недописанный хвост (сбой посреди записи) при открытии отрезается. Методы можно вызывать из любых потоков.
+public class EpicArchive implements AutoCloseable {
+    private static final int HEADER = 4;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    // id эпика -> смещение блока, в котором он лежит
+    private final Map<Integer, Long> blockByEpic = new HashMap<>();
+    // id архивных подзадач -> id эпика
+    private final Map<Integer, Integer> epicBySubtask = new HashMap<>();
+    private long fileBytes;
+    private int maxId;
+
+    // Открывает существующий архив или создаёт пустой
+    public EpicArchive(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Файл архива не может быть null");
+        }
+        this.file = file;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось открыть архив " + file, e);
+        }
+        try {
+            loadIndex();
+        } catch (IOException | RuntimeException e) {
+            closeQuietly();
+            throw e instanceof ManagerSaveException saveException ? saveException
+                    : new ManagerSaveException("Не удалось прочитать архив " + file, e);
+        }
+    }
+
+    // Дописывает эпики одним блоком; блок сброшен на диск до возврата, так что после этого
+    // эпики можно убирать из рабочего набора. Ключ — эпик, значение — его подзадачи
+    public void append(Map<Epic, List<Subtask>> epics) {
+        if (epics.isEmpty()) {
+            return;
+        }
+        byte[] block = encode(epics);
+        lock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER + block.length);
+            buffer.putInt(block.length).put(block).flip();
+            long position = fileBytes;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+            for (Map.Entry<Epic, List<Subtask>> entry : epics.entrySet()) {
+                index(fileBytes, entry.getKey().getId(), entry.getValue().stream().map(Task::getId).toList());
+            }
+            fileBytes = position;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось дописать архив " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(int epicId) {
+        lock.lock();
+        try {
+            return blockByEpic.containsKey(epicId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Число эпиков в архиве
+    public int size() {
+        lock.lock();
+        try {
+            return blockByEpic.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Наибольший id среди архивных эпиков и подзадач; менеджер не должен выдавать эти id повторно
+    public int getMaxId() {
+        lock.lock();
+        try {
+            return maxId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getFileBytes() {
+        lock.lock();
+        try {
+            return fileBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Архивный эпик со списком подзадач; null, если такого эпика в архиве нет
+    public Epic getEpic(int epicId) {
+        ArchivedEpic archived = read(epicId);
+        return archived != null ? archived.epic : null;
+    }
+
+    // Подзадачи архивного эпика в исходном порядке; пустой список, если эпика в архиве нет
+    public List<Subtask> getSubtasks(int epicId) {
+        ArchivedEpic archived = read(epicId);
+        return archived != null ? archived.subtasks : new ArrayList<>();
+    }
+
+    // Архивная подзадача по её собственному id
+    public Subtask getSubtask(int subtaskId) {
+        Integer epicId;
+        lock.lock();
+        try {
+            epicId = epicBySubtask.get(subtaskId);
+        } finally {
+            lock.unlock();
+        }
+        if (epicId == null) {
+            return null;
+        }
+        for (Subtask subtask : getSubtasks(epicId)) {
+            if (subtask.getId() == subtaskId) {
+                return subtask;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось закрыть архив " + file, e);
+        }
+    }
+
+    private record ArchivedEpic(Epic epic, List<Subtask> subtasks) {
+    }
+
+    private ArchivedEpic read(int epicId) {
+        byte[] block;
+        lock.lock();
+        try {
+            Long offset = blockByEpic.get(epicId);
+            if (offset == null) {
+                return null;
+            }
+            block = readBlock(offset);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось прочитать архив " + file, e);
+        } finally {
+            lock.unlock();
+        }
+        // Распаковка идёт без замка: блок уже прочитан и больше не меняется
+        try (DataInputStream in = inflate(block)) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                ArchivedEpic archived = readEpic(in);
+                if (archived.epic.getId() == epicId) {
+                    return archived;
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Архив " + file + " повреждён", e);
+        }
+        return null;
+    }
+
+    // Проходит все блоки и строит индекс; битый хвост отрезается
+    private void loadIndex() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            List<ArchivedEpic> epics;
+            try {
+                epics = readAll(readBlock(position));
+            } catch (EOFException | ZipException e) {
+                break;
+            }
+            for (ArchivedEpic archived : epics) {
+                index(position, archived.epic.getId(), archived.epic.getSubtaskIds());
+            }
+            position += HEADER + readLength(position);
+        }
+        if (position < size) {
+            channel.truncate(position);
+        }
+        fileBytes = position;
+    }
+
+    private void index(long offset, int epicId, List<Integer> subtaskIds) {
+        blockByEpic.put(epicId, offset);
+        maxId = Math.max(maxId, epicId);
+        for (int subtaskId : subtaskIds) {
+            epicBySubtask.put(subtaskId, epicId);
+            maxId = Math.max(maxId, subtaskId);
+        }
+    }
+
+    private int readLength(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        readFully(header, position);
+        return header.getInt(0);
+    }
+
+    private byte[] readBlock(long position) throws IOException {
+        int length = readLength(position);
+        if (length < 0 || position + HEADER + length > channel.size()) {
+            throw new EOFException("Блок архива обрывается на смещении " + position);
+        }
+        ByteBuffer block = ByteBuffer.allocate(length);
+        readFully(block, position + HEADER);
+        return block.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Архив обрывается на смещении " + position);
+            }
+            position += read;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Исходная ошибка важнее
+        }
+    }
+
+    private static List<ArchivedEpic> readAll(byte[] block) throws IOException {
+        try (DataInputStream in = inflate(block)) {
+            int count = in.readInt();
+            List<ArchivedEpic> epics = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                epics.add(readEpic(in));
+            }
+            return epics;
+        }
+    }
+
+    private static DataInputStream inflate(byte[] block) throws IOException {
+        return new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(block)));
+    }
+
+    // Число эпиков, затем каждый эпик и его подзадачи
+    private static byte[] encode(Map<Epic, List<Subtask>> epics) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(epics.size());
+            for (Map.Entry<Epic, List<Subtask>> entry : epics.entrySet()) {
+                writeTask(out, entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Subtask subtask : entry.getValue()) {
+                    writeTask(out, subtask);
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось сжать эпики для архива", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ArchivedEpic readEpic(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        Epic epic = new Epic(readString(in), readString(in));
+        epic.setId(id);
+        epic.setStatus(STATUSES[in.readByte()]);
+        int count = in.readInt();
+        List<Subtask> subtasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Subtask subtask = readSubtask(in, id);
+            subtasks.add(subtask);
+            epic.addSubtaskId(subtask.getId());
+        }
+        return new ArchivedEpic(epic, subtasks);
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeInt(task.getId());
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+        out.writeByte((task.getStatus() != null ? task.getStatus() : TaskStatus.NEW).ordinal());
+        if (task instanceof Epic) {
+            return;
+        }
+        LocalDateTime start = task.getStartTime();
+        out.writeBoolean(start != null);
+        if (start != null) {
+            out.writeLong(start.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(start.getNano());
+        }
+        Duration duration = task.getDuration();
+        out.writeBoolean(duration != null);
+        if (duration != null) {
+            out.writeLong(duration.getSeconds());
+            out.writeInt(duration.getNano());
+        }
+    }
+
+    private static Subtask readSubtask(DataInputStream in, int epicId) throws IOException {
+        int id = in.readInt();
+        String name = readString(in);
+        String description = readString(in);
+        TaskStatus status = STATUSES[in.readByte()];
+        LocalDateTime start = in.readBoolean()
+                ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+        Duration duration = in.readBoolean() ? Duration.ofSeconds(in.readLong(), in.readInt()) : null;
+        Subtask subtask = new Subtask(name, description, epicId, duration, start);
+        subtask.setId(id);
+        subtask.setStatus(status);
+        return subtask;
+    }
+
+    // Длина -1 — null; writeUTF не подходит из-за предела в 64 КБ
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,416 @@
+package manager;
+
+import event.Subscription;
+import event.TaskEventListener;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// AsyncTaskManager поверх обычного менеджера. Все операции, которые меняют доску или трогают её индексы
+// и историю, выполняет один поток-цикл по очереди без блокировок, так что сам менеджер остаётся
+// однопоточным. Цикл забирает из очереди всё, что накопилось, выполняет подряд и только потом сохраняет:
+// FileBackedTaskManager и PagedFileTaskManager пишут файл один раз на пачку, а не на каждую операцию.
+// Future операций завершаются после сохранения пачки и не в потоке цикла, чтобы продолжения вызывающих
+// не задерживали следующие пачки. Чтения, которым хватает среза доски (getAll*, getTask, getEpicSubtasks),
+// идут мимо цикла в пуле читателей параллельно друг с другом и с записью — если менеджер публикует срез
+// (isSnapshotLockFree). Менеджер со своим хранилищем (база, память вне кучи, диск) собирает срез из хранилища,
+// которое трогать можно только из цикла, поэтому у него и эти чтения, и snapshot() выполняет цикл.
+// Переданные задачи менеджер копирует при вызове, так что дальнейшие правки вызывающего в операцию
+// не попадают; id и версия записываются обратно в них до завершения future.
+// close() дожидается уже принятых операций; сам менеджер не закрывается.
+// Класс final: поток цикла запускается в конструкторе и не должен увидеть недостроенный подкласс.
+public final class EventLoopTaskManager implements AsyncTaskManager, AutoCloseable {
+    // Больше операций в одну пачку не берётся, чтобы первые не ждали сохранения слишком долго
+    private static final int MAX_BATCH = 1024;
+
+    private final InMemoryTaskManager manager;
+    private final Executor readers;
+    private final Queue<Command<?>> queue = new ConcurrentLinkedQueue<>();
+    private final Thread loop;
+    private volatile boolean closed;
+    private volatile long batchCount;
+
+    public EventLoopTaskManager(InMemoryTaskManager manager) {
+        this(manager, ForkJoinPool.commonPool());
+    }
+
+    // readers выполняет чтения по срезу и завершает future операций
+    public EventLoopTaskManager(InMemoryTaskManager manager, Executor readers) {
+        if (manager == null) {
+            throw new IllegalArgumentException("Менеджер не может быть null");
+        }
+        if (readers == null) {
+            throw new IllegalArgumentException("Пул читателей не может быть null");
+        }
+        this.manager = manager;
+        this.readers = readers;
+        this.loop = Thread.ofPlatform().name("task-event-loop").daemon().start(this::runLoop);
+    }
+
+    // Операция в очереди цикла и её итог; поля итога трогает только поток цикла до завершения future
+    private static final class Command<T> {
+        final Function<InMemoryTaskManager, T> operation;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+        RuntimeException failure;
+
+        Command(Function<InMemoryTaskManager, T> operation) {
+            this.operation = operation;
+        }
+
+        void run(InMemoryTaskManager manager) {
+            try {
+                result = operation.apply(manager);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        void complete(RuntimeException saveFailure) {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else if (saveFailure != null) {
+                future.completeExceptionally(saveFailure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    // Сколько пачек выполнил цикл; при многих одновременных операциях заметно меньше их числа
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    private <T> CompletableFuture<T> submit(Function<InMemoryTaskManager, T> operation) {
+        Command<T> command = new Command<>(operation);
+        if (closed) {
+            command.future.completeExceptionally(new IllegalStateException("Менеджер закрыт"));
+            return command.future;
+        }
+        queue.add(command);
+        // close() мог успеть между проверкой и добавлением: тогда цикл операцию уже не возьмёт
+        if (closed && queue.remove(command)) {
+            command.future.completeExceptionally(new IllegalStateException("Менеджер закрыт"));
+            return command.future;
+        }
+        LockSupport.unpark(loop);
+        return command.future;
+    }
+
+    private CompletableFuture<Void> submitVoid(Consumer<InMemoryTaskManager> operation) {
+        return submit(manager -> {
+            operation.accept(manager);
+            return null;
+        });
+    }
+
+    // Менеджер получает копию задачи на момент вызова, а вызывающему по завершении возвращаются
+    // присвоенные id и версия
+    private <T extends Task> CompletableFuture<Void> submitStore(T task, BiConsumer<InMemoryTaskManager, T> store) {
+        if (task == null) {
+            throw new IllegalArgumentException("Задача не может быть null");
+        }
+        T stored = copyOf(task);
+        return submitVoid(manager -> store.accept(manager, stored)).thenRun(() -> {
+            task.setId(stored.getId());
+            task.setVersion(stored.getVersion());
+        });
+    }
+
+    // query читает опубликованный срез в пуле читателей; без такого среза цикл выполняет direct
+    private <T> CompletableFuture<T> read(Function<BoardSnapshot, T> query, Function<InMemoryTaskManager, T> direct) {
+        if (!manager.isSnapshotLockFree()) {
+            return submit(direct);
+        }
+        return CompletableFuture.supplyAsync(() -> query.apply(manager.snapshot()), readers);
+    }
+
+    private void runLoop() {
+        List<Command<?>> batch = new ArrayList<>();
+        while (true) {
+            Command<?> command;
+            while (batch.size() < MAX_BATCH && (command = queue.poll()) != null) {
+                batch.add(command);
+            }
+            if (batch.isEmpty()) {
+                if (closed) {
+                    return;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+            RuntimeException saveFailure = null;
+            try {
+                manager.runBatch(() -> {
+                    for (Command<?> next : batch) {
+                        next.run(manager);
+                    }
+                });
+            } catch (RuntimeException e) {
+                saveFailure = e;
+            }
+            batchCount++;
+            completeAll(List.copyOf(batch), saveFailure);
+            batch.clear();
+        }
+    }
+
+    private void completeAll(List<Command<?>> batch, RuntimeException saveFailure) {
+        Runnable completion = () -> {
+            for (Command<?> command : batch) {
+                command.complete(saveFailure);
+            }
+        };
+        try {
+            readers.execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> T copyOf(T task) {
+        return task == null ? null : (T) task.copy();
+    }
+
+    private static <T extends Task> List<T> copies(Collection<T> tasks) {
+        List<T> result = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            result.add(copyOf(task));
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Integer> generateId() {
+        return submit(InMemoryTaskManager::generateId);
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> getAllTasks() {
+        return read(board -> copies(board.getTasks()), manager -> copies(manager.getAllTasks()));
+    }
+
+    @Override
+    public CompletableFuture<List<Epic>> getAllEpics() {
+        return read(board -> copies(board.getEpics()), manager -> copies(manager.getAllEpics()));
+    }
+
+    @Override
+    public CompletableFuture<List<Subtask>> getAllSubtasks() {
+        return read(board -> copies(board.getSubtasks()), manager -> copies(manager.getAllSubtasks()));
+    }
+
+    @Override
+    public CompletableFuture<Void> createTask(Task task) {
+        return submitStore(task, InMemoryTaskManager::createTask);
+    }
+
+    @Override
+    public CompletableFuture<Void> createEpic(Epic epic) {
+        return submitStore(epic, InMemoryTaskManager::createEpic);
+    }
+
+    @Override
+    public CompletableFuture<Void> createSubtask(Subtask subtask) {
+        return submitStore(subtask, InMemoryTaskManager::createSubtask);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateTask(Task task) {
+        return submitStore(task, InMemoryTaskManager::updateTask);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateEpic(Epic epic) {
+        return submitStore(epic, InMemoryTaskManager::updateEpic);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateSubtask(Subtask subtask) {
+        return submitStore(subtask, InMemoryTaskManager::updateSubtask);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTaskById(int id) {
+        return submitVoid(manager -> manager.deleteTaskById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteEpicById(int id) {
+        return submitVoid(manager -> manager.deleteEpicById(id));
+    }
+
+    // Пересчитывается сохранённый эпик с тем же id: переданный объект у менеджера не хранится
+    @Override
+    public CompletableFuture<Void> updateEpicStatus(Epic epic) {
+        return submitVoid(manager -> {
+            Epic stored = manager.epics.get(epic.getId());
+            if (stored != null) {
+                manager.updateEpicStatus(stored);
+                epic.setStatus(stored.getStatus());
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteSubtaskById(int id) {
+        return submitVoid(manager -> manager.deleteSubtaskById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllTasks() {
+        return submitVoid(InMemoryTaskManager::deleteAllTasks);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllEpics() {
+        return submitVoid(InMemoryTaskManager::deleteAllEpics);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllSubtasks() {
+        return submitVoid(InMemoryTaskManager::deleteAllSubtasks);
+    }
+
+    // Просмотр меняет историю, поэтому идёт через цикл
+    @Override
+    public CompletableFuture<Task> getTaskById(int id) {
+        return submit(manager -> copyOf(manager.getTaskById(id)));
+    }
+
+    @Override
+    public CompletableFuture<Epic> getEpicById(int id) {
+        return submit(manager -> copyOf(manager.getEpicById(id)));
+    }
+
+    @Override
+    public CompletableFuture<Subtask> getSubtaskById(int id) {
+        return submit(manager -> copyOf(manager.getSubtaskById(id)));
+    }
+
+    @Override
+    public CompletableFuture<List<Subtask>> getEpicSubtasks(int epicId) {
+        return read(board -> copies(board.getEpicSubtasks(epicId)),
+                manager -> copies(manager.getEpicSubtasks(epicId)));
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> getHistory() {
+        return submit(manager -> copies(manager.getHistory()));
+    }
+
+    @Override
+    public CompletableFuture<Task> getTask(int id) {
+        return read(board -> copyOf(board.getTask(id)), manager -> copyOf(manager.getTask(id)));
+    }
+
+    // Запросы по индексу времени и графу зависимостей — в цикле: эти структуры однопоточные
+    @Override
+    public CompletableFuture<List<Task>> getPrioritizedTasks() {
+        return submit(manager -> copies(manager.getPrioritizedTasks()));
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return submit(manager -> copies(manager.getTasksBetween(from, to)));
+    }
+
+    @Override
+    public CompletableFuture<LocalDateTime> getNextFreeSlot(Duration duration, LocalDateTime after) {
+        return submit(manager -> manager.getNextFreeSlot(duration, after));
+    }
+
+    @Override
+    public CompletableFuture<Map<LocalDate, List<Task>>> getTasksByDay(LocalDate from, LocalDate to) {
+        return submit(manager -> {
+            Map<LocalDate, List<Task>> result = new LinkedHashMap<>();
+            manager.getTasksByDay(from, to).forEach((day, tasks) -> result.put(day, copies(tasks)));
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from,
+                                                             LocalDateTime to) {
+        return submit(manager -> copies(manager.scheduleUnscheduled(workingHours, from, to)));
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from,
+                                                             LocalDateTime to, Comparator<? super Task> priority) {
+        return submit(manager -> copies(manager.scheduleUnscheduled(workingHours, from, to, priority)));
+    }
+
+    @Override
+    public CompletableFuture<Void> addDependency(int taskId, int dependsOnId) {
+        return submitVoid(manager -> manager.addDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeDependency(int taskId, int dependsOnId) {
+        return submitVoid(manager -> manager.removeDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public CompletableFuture<List<Integer>> getDependencies(int taskId) {
+        return submit(manager -> new ArrayList<>(manager.getDependencies(taskId)));
+    }
+
+    @Override
+    public CompletableFuture<List<Subtask>> getEpicSubtasksInOrder(int epicId) {
+        return submit(manager -> copies(manager.getEpicSubtasksInOrder(epicId)));
+    }
+
+    @Override
+    public CompletableFuture<Duration> getCriticalPath(int epicId) {
+        return submit(manager -> manager.getCriticalPath(epicId));
+    }
+
+    @Override
+    public Subscription subscribe(TaskEventListener listener) {
+        return manager.subscribe(listener);
+    }
+
+    // Срез, который собирается из хранилища, берёт цикл, а вызывающий ждёт его очереди
+    @Override
+    public BoardSnapshot snapshot() {
+        if (manager.isSnapshotLockFree() || Thread.currentThread() == loop) {
+            return manager.snapshot();
+        }
+        return submit(InMemoryTaskManager::snapshot).join();
+    }
+
+    // Новые операции отклоняются, принятые выполняются и сохраняются
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(loop);
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,27 +1,56 @@
 package manager;
 
+import metrics.ManagerMetrics;
 import task.*;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.time.LocalDateTime;
 import java.time.Duration;
+import java.util.zip.Deflater;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
+    // Уровень сжатия "файл пишется обычным CSV"
+    public static final int PLAIN_TEXT = -2;
+    // Строк CSV в одном сжатом блоке: блок распаковывается и разбирается независимо от соседних
+    private static final int ROWS_PER_BLOCK = 512;
+
     private final File file;
+    private final int compressionLevel;
+    // Внутри runBatch save() только отмечает, что сохранить нужно, а пишет файл один раз в конце
+    private int batchDepth;
+    private boolean savePending;
 
     public FileBackedTaskManager(File file) {
+        this(file, ManagerMetrics.disabled());
+    }
+
+    public FileBackedTaskManager(File file, ManagerMetrics metrics) {
+        this(file, metrics, PLAIN_TEXT);
+    }
+
+    // compressionLevel — уровень Deflater (0..9, Deflater.DEFAULT_COMPRESSION) или PLAIN_TEXT
+    public FileBackedTaskManager(File file, ManagerMetrics metrics, int compressionLevel) {
+        super(metrics);
         if (file == null) {
             throw new IllegalArgumentException("Файл не может быть пустой.");
         }
+        checkCompressionLevel(compressionLevel);
         this.file = file;
+        this.compressionLevel = compressionLevel;
 
         // Создаем файл и записываем заголовок, если файл не существует
         if (!file.exists()) {
             try {
                 file.createNewFile();
                 // Записываем заголовок в новый файл
-                try (Writer writer = new FileWriter(file)) {
-                    writer.write("id,type,name,status,description,epic\n");
+                OutputStream out = encode(new FileOutputStream(file), compressionLevel);
+                try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+                    new TaskCsvWriter(writer).writeHeader().flush();
                 }
             } catch (IOException e) {
                 throw new ManagerSaveException("Ошибка при создании файла", e);
@@ -29,107 +58,147 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
+    static void checkCompressionLevel(int compressionLevel) {
+        if (compressionLevel != PLAIN_TEXT && compressionLevel != Deflater.DEFAULT_COMPRESSION
+                && (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Некорректный уровень сжатия: " + compressionLevel);
+        }
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
     public void save() {
+        if (batchDepth > 0) {
+            savePending = true;
+            return;
+        }
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        long bytes;
         try {
             File parent = file.getParentFile();
             if (parent != null && !parent.exists()) {
                 parent.mkdirs();
             }
+            bytes = writeBoard(file, compressionLevel, getAllTasks(), getAllEpics(), getAllSubtasks(), getHistory(),
+                    dependencyGraph.getAllDependencies());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении в файл", e);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordSave(bytes, System.nanoTime() - start);
+        }
+    }
 
-            try (Writer writer = new FileWriter(file)) {
-                // Записываем заголовок
-                writer.write("id,type,name,status,description,epic\n");
-
-                // Сохраняем задачи
-                for (Task task : getAllTasks()) {
-                    writer.write(toString(task) + "\n");
-                }
-
-                // Сохраняем эпики
-                for (Epic epic : getAllEpics()) {
-                    writer.write(toString(epic) + "\n");
-                }
+    @Override
+    void runBatch(Runnable operations) {
+        batchDepth++;
+        try {
+            operations.run();
+        } finally {
+            if (--batchDepth == 0 && savePending) {
+                savePending = false;
+                save();
+            }
+        }
+    }
 
-                // Сохраняем подзадачи
-                for (Subtask subtask : getAllSubtasks()) {
-                    writer.write(toString(subtask) + "\n");
+    // Пишет доску в файл целиком; возвращает число записанных байт (после сжатия).
+    // Задачи, эпики, подзадачи — эпик раньше своих подзадач, как того требует загрузка
+    static long writeBoard(File file, int compressionLevel, Collection<? extends Task> tasks,
+                           Collection<? extends Task> epics, Collection<? extends Task> subtasks,
+                           Iterable<? extends Task> history, Map<Integer, List<Integer>> dependencies)
+            throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(new FileOutputStream(file));
+        try (Writer writer = new OutputStreamWriter(encode(counter, compressionLevel), StandardCharsets.UTF_8)) {
+            TaskCsvWriter csv = new TaskCsvWriter(writer).writeHeader();
+            int rows = 0;
+            for (Collection<? extends Task> group : List.of(tasks, epics, subtasks)) {
+                for (Task task : group) {
+                    csv.write(task);
+                    // flush() сжатого потока закрывает блок — так блоки кончаются на границе строк
+                    if (++rows % ROWS_PER_BLOCK == 0 && compressionLevel != PLAIN_TEXT) {
+                        csv.flush();
+                    }
                 }
-
-                // Сохраняем историю
-                writer.write("\n");
-                writer.write(historyToString()); // Убрали передачу аргумента
             }
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при сохранении в файл", e);
+            csv.writeHistory(history).writeDependencies(dependencies).flush();
         }
+        return counter.count;
     }
 
-    private String toString(Task task) {
-        String startTimeStr = task.getStartTime() != null ? task.getStartTime().toString() : "";
-        String durationStr = task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes()) : "0";
+    private static OutputStream encode(OutputStream out, int compressionLevel) throws IOException {
+        return compressionLevel == PLAIN_TEXT ? out : new DeflateBlockOutputStream(out, compressionLevel);
+    }
 
-        String statusStr = task.getStatus() != null ? task.getStatus().toString() : TaskStatus.NEW.toString();
+    // Считает записанные байты, чтобы метрики видели реальный размер файла
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
 
-        return String.format("%d,%s,%s,%s,%s,%s,%s",
-            task.getId(),
-            task.getClass().getSimpleName().toUpperCase(),
-            task.getName(),
-            statusStr,
-            task.getDescription(),
-            startTimeStr,
-            durationStr
-        );
-    }
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
 
-    private String historyToString() {
-        List<Task> history = getHistory();
-        if (history.isEmpty()) {
-            return "";
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
         }
-        StringBuilder sb = new StringBuilder();
-        for (Task task : history) {
-            sb.append(task.getId()).append(",");
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
         }
-        return sb.substring(0, sb.length() - 1);
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        if (file == null) {
-            throw new IllegalArgumentException("Файл не может быть null");
-        }
-
-        if (!file.exists()) {
-            throw new ManagerSaveException("Файл не найден: " + file.getPath(), null);
-        }
+        return loadFromFile(file, ManagerMetrics.disabled());
+    }
 
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+    // Сжатый файл и дальше сохраняется сжатым, с уровнем по умолчанию
+    public static FileBackedTaskManager loadFromFile(File file, ManagerMetrics metrics) {
+        return loadFromFile(file, metrics, isCompressed(file) ? Deflater.DEFAULT_COMPRESSION : PLAIN_TEXT);
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line = reader.readLine(); // Пропускаем заголовок
-            if (line == null || !line.equals("id,type,name,status,description,epic")) {
-                throw new ManagerSaveException("Некорректный формат файла", null);
+    // Читает файл в любом виде, сжатом или обычном, а сохраняет с уровнем compressionLevel
+    public static FileBackedTaskManager loadFromFile(File file, ManagerMetrics metrics, int compressionLevel) {
+        boolean compressed = isCompressed(file);
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, metrics, compressionLevel);
+
+        // Файл старой версии читается как есть и переписывается в текущей при первом сохранении.
+        // Блоки сжатого файла распаковываются параллельно, пока разбираются предыдущие
+        try (InputStream in = compressed
+                ? new DeflateBlockInputStream(new FileInputStream(file), Runtime.getRuntime().availableProcessors())
+                : new FileInputStream(file);
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            TaskCsvReader csv = new TaskCsvReader(reader);
+            csv.readHeader();
+            List<Task> loaded = new ArrayList<>();
+            Task task;
+            while ((task = csv.readTask()) != null) {
+                loaded.add(task);
             }
+            manager.restoreTasks(loaded);
 
-            while ((line = reader.readLine()) != null && !line.isBlank()) {
-                Task task = fromString(line);
-                if (task instanceof Epic) {
-                    manager.epics.put(task.getId(), (Epic) task);
-                } else if (task instanceof Subtask subtask) {
-                    manager.subtasks.put(task.getId(), subtask);
-                    Epic epic = manager.epics.get(subtask.getEpicId());
-                    if (epic != null) {
-                        epic.addSubtaskId(subtask.getId());
+            List<Integer> history = csv.readHistory();
+
+            // Рёбра — в граф напрямую и раньше истории: просмотры ниже сохраняют файл, и в нём должны быть
+            Map<Integer, List<Integer>> dependencies = csv.readDependencies();
+            try {
+                for (Map.Entry<Integer, List<Integer>> entry : dependencies.entrySet()) {
+                    for (int dependsOnId : entry.getValue()) {
+                        manager.dependencyGraph.addEdge(dependsOnId, entry.getKey());
                     }
-                } else {
-                    manager.tasks.put(task.getId(), task);
                 }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                throw new ManagerSaveException("Некорректные зависимости в файле: " + e.getMessage(), e);
             }
 
-            // Восстанавливаем историю
-            String historyLine = reader.readLine();
-            if (historyLine != null && !historyLine.isEmpty()) {
-                for (String id : historyLine.split(",")) {
-                    int taskId = Integer.parseInt(id);
+            // Восстанавливаем историю; просмотры сохраняют файл, поэтому одним save() в конце
+            manager.runBatch(() -> {
+                for (int taskId : history) {
                     if (manager.tasks.containsKey(taskId)) {
                         manager.getTaskById(taskId);
                     } else if (manager.epics.containsKey(taskId)) {
@@ -138,51 +207,28 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                         manager.getSubtaskById(taskId);
                     }
                 }
-            }
+            });
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка при чтении файла", e);
-        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-            throw new ManagerSaveException("Некорректные данные в файле", e);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new ManagerSaveException("Некорректные данные в файле: " + e.getMessage(), e);
         }
 
         return manager;
     }
 
-    private static Task fromString(String value) {
-        String[] parts = value.split(",");
-        int id = Integer.parseInt(parts[0]);
-        String type = parts[1];
-        String name = parts[2];
-        TaskStatus status = parts[3].equals("null") ? TaskStatus.NEW : TaskStatus.valueOf(parts[3]);
-        String description = parts[4];
-
-        // Парсим время и продолжительность
-        LocalDateTime startTime = parts[5].isEmpty() ? null : LocalDateTime.parse(parts[5]);
-        Duration duration = parts[6].isEmpty() ? Duration.ZERO : Duration.ofMinutes(Long.parseLong(parts[6]));
-
-        Task task;
-        TaskType taskType = TaskType.valueOf(type);
-        switch (taskType) {
-            case TASK:
-                task = new Task(name, description);
-                break;
-            case EPIC:
-                task = new Epic(name, description);
-                break;
-            case SUBTASK:
-                int epicId = Integer.parseInt(parts[7]);
-                task = new Subtask(name, description, epicId);
-                break;
-            default:
-                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+    private static boolean isCompressed(File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Файл не может быть null");
+        }
+        if (!file.exists()) {
+            throw new ManagerSaveException("Файл не найден: " + file.getPath(), null);
+        }
+        try {
+            return DeflateBlockInputStream.isCompressed(file.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении файла", e);
         }
-
-        task.setId(id);
-        task.setStatus(status);
-        task.setStartTime(startTime);
-        task.setDuration(duration);
-
-        return task;
     }
 
     @Override
@@ -259,6 +305,54 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         save();
     }
 
+    // Файл переписывается только если что-то ушло в архив
+    @Override
+    public int archiveDoneEpics(EpicArchive archive, Duration retention) {
+        int archived = super.archiveDoneEpics(archive, retention);
+        if (archived > 0) {
+            save();
+        }
+        return archived;
+    }
+
+    @Override
+    public boolean undo() {
+        boolean undone = super.undo();
+        if (undone) {
+            save();
+        }
+        return undone;
+    }
+
+    @Override
+    public boolean redo() {
+        boolean redone = super.redo();
+        if (redone) {
+            save();
+        }
+        return redone;
+    }
+
+    @Override
+    public List<Task> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from, LocalDateTime to,
+                                          Comparator<? super Task> priority) {
+        List<Task> placed = super.scheduleUnscheduled(workingHours, from, to, priority);
+        save();
+        return placed;
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        super.addDependency(taskId, dependsOnId);
+        save();
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        super.removeDependency(taskId, dependsOnId);
+        save();
+    }
+
     @Override
     public Task getTaskById(int id) {
         Task task = super.getTaskById(id);
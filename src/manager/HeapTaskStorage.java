@@ -0,0 +1,40 @@
+package manager;
+
+import task.Task;
+import task.TaskType;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Хранилище InMemoryTaskManager по умолчанию: объекты задач в хеш-таблицах, по одной на тип
+class HeapTaskStorage implements TaskStorage {
+    private final Map<TaskType, Map<Integer, Task>> tables = new EnumMap<>(TaskType.class);
+
+    HeapTaskStorage() {
+        for (TaskType type : TaskType.values()) {
+            tables.put(type, new HashMap<>());
+        }
+    }
+
+    @Override
+    public Task get(TaskType type, int id) {
+        return tables.get(type).get(id);
+    }
+
+    @Override
+    public void put(Task task) {
+        tables.get(task.getType()).put(task.getId(), task);
+    }
+
+    @Override
+    public void remove(TaskType type, int id) {
+        tables.get(type).remove(id);
+    }
+
+    @Override
+    public Stream<Task> stream(TaskType type) {
+        return tables.get(type).values().stream();
+    }
+}
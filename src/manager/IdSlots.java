@@ -0,0 +1,124 @@
+package manager;
+
+import java.util.Arrays;
+
+// id -> плотный номер ячейки без объекта на запись: открытая адресация на массивах int с линейным
+// пробированием. Номера освободившихся ячеек выдаются снова, поэтому поля записей вызывающий держит
+// в своих массивах примитивов длиной не меньше limit().
+final class IdSlots {
+    private int[] keys = new int[16];
+    // Номер ячейки + 1; 0 — место в таблице свободно
+    private int[] values = new int[16];
+    private int mask = 15;
+    private int size;
+    // id по номеру ячейки
+    private int[] ids = new int[8];
+    private int[] free = new int[8];
+    private int freeCount;
+    // Сколько номеров выдано за всё время: все они меньше limit
+    private int limit;
+
+    int size() {
+        return size;
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    // Номер ячейки id или -1, если id нет
+    int get(int id) {
+        return values[find(id)] - 1;
+    }
+
+    // Номер ячейки id; новый, если id ещё нет
+    int add(int id) {
+        int position = find(id);
+        if (values[position] != 0) {
+            return values[position] - 1;
+        }
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            slot = limit++;
+            if (slot == ids.length) {
+                ids = Arrays.copyOf(ids, slot * 2);
+            }
+        }
+        ids[slot] = id;
+        keys[position] = id;
+        values[position] = slot + 1;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+        return slot;
+    }
+
+    // Освобождает ячейку id и возвращает её номер; -1, если id не было
+    int remove(int id) {
+        int position = find(id);
+        int slot = values[position] - 1;
+        if (slot < 0) {
+            return -1;
+        }
+        values[position] = 0;
+        // Удаление без надгробий: следующие записи цепочки сдвигаются на освободившееся место
+        for (int next = (position + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+            int home = home(keys[next]);
+            if (((next - home) & mask) >= ((next - position) & mask)) {
+                keys[position] = keys[next];
+                values[position] = values[next];
+                values[next] = 0;
+                position = next;
+            }
+        }
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = slot;
+        size--;
+        return slot;
+    }
+
+    int idAt(int slot) {
+        return ids[slot];
+    }
+
+    void clear() {
+        keys = new int[16];
+        values = new int[16];
+        mask = 15;
+        size = 0;
+        freeCount = 0;
+        limit = 0;
+    }
+
+    private int find(int id) {
+        for (int position = home(id); ; position = (position + 1) & mask) {
+            if (values[position] == 0 || keys[position] == id) {
+                return position;
+            }
+        }
+    }
+
+    private int home(int id) {
+        int hash = id * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int position = find(oldKeys[i]);
+                keys[position] = oldKeys[i];
+                values[position] = oldValues[i];
+            }
+        }
+    }
+}
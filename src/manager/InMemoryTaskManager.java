@@ -1,318 +1,658 @@
 package manager;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
+import event.Subscription;
+import event.TaskEventBus;
+import event.TaskEventListener;
+import event.TaskEventType;
 import history.HistoryManager;
+import history.HistorySnapshot;
+import history.HotTaskTracker;
+import history.InMemoryHistoryManager;
+import metrics.ManagerMetrics;
+import metrics.Operation;
 import task.Epic;
 import task.Subtask;
 import task.Task;
 import task.TaskStatus;
+import task.TaskType;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+// Вся логика доски. Задачи лежат в TaskStorage: по умолчанию это объекты в памяти и срез доски
+// с копиями для snapshot(), undo и asOf. Менеджеры со своим хранилищем (база, память вне кучи, диск)
+// наследуют ту же логику и реализуют только хранилище; в памяти у них остаются компактные индексы —
+// таблица id, время начала, граф зависимостей, — а срез собирается из хранилища по запросу
+// и без блокировок не читается (isSnapshotLockFree).
 public class InMemoryTaskManager implements TaskManager {
-    private int nextId = 1;
-    protected Map<Integer, Task> tasks;
-    protected Map<Integer, Epic> epics;
-    protected Map<Integer, Subtask> subtasks;
+    private int nextId;
+    private final int idStep;
+    private final TaskStorage storage;
+    // Тип, статус и версия каждой задачи без обращения к хранилищу
+    private final TaskTable table = new TaskTable();
+    // Только для чтения: менять задачи можно лишь операциями менеджера
+    protected final Map<Integer, Task> tasks = new StorageView<>(TaskType.TASK, Task.class);
+    protected final Map<Integer, Epic> epics = new StorageView<>(TaskType.EPIC, Epic.class);
+    protected final Map<Integer, Subtask> subtasks = new StorageView<>(TaskType.SUBTASK, Subtask.class);
     private final HistoryManager historyManager;
+    // Замеры операций; по умолчанию выключены и ничего не стоят
+    protected final ManagerMetrics metrics;
+    // Часы для сроков хранения; в тестах подменяются
+    private final Clock clock;
+    // id эпика -> момент, с которого он в статусе DONE
+    private final Map<Integer, Instant> doneSince = new HashMap<>();
 
     public InMemoryTaskManager() {
-        tasks = new HashMap<>();
-        epics = new HashMap<>();
-        subtasks = new HashMap<>();
-        historyManager = Managers.getDefaultHistory();
+        this(ManagerMetrics.disabled());
     }
 
-    private final Set<Task> prioritizedTasks = new TreeSet<>((task, taskToCompare) -> {
-        if (task.getStartTime() == null && taskToCompare.getStartTime() == null) return 0;
-        if (task.getStartTime() == null) return 1;
-        if (taskToCompare.getStartTime() == null) return -1;
-        return task.getStartTime().compareTo(taskToCompare.getStartTime());
-    });
+    public InMemoryTaskManager(ManagerMetrics metrics) {
+        this(metrics, Clock.systemUTC());
+    }
+
+    public InMemoryTaskManager(ManagerMetrics metrics, Clock clock) {
+        this(metrics, clock, Managers.getDefaultHistory(), new TaskEventBus(EVENT_BUFFER_SIZE), 1, 1, null);
+    }
+
+    // Для разделов ShardedTaskManager: общие история и лента событий, id вида firstId + k * idStep
+    InMemoryTaskManager(ManagerMetrics metrics, HistoryManager historyManager, TaskEventBus eventBus, int firstId,
+                        int idStep) {
+        this(metrics, Clock.systemUTC(), historyManager, eventBus, firstId, idStep, null);
+    }
+
+    // Для менеджеров со своим хранилищем. Хранилище может быть непустым, например база с прошлого
+    // запуска: индексы строятся по нему заново. Среза доски в памяти нет, поэтому нет и undo и asOf
+    protected InMemoryTaskManager(TaskStorage storage, HistoryManager historyManager, ManagerMetrics metrics) {
+        this(metrics, Clock.systemUTC(), historyManager, new TaskEventBus(EVENT_BUFFER_SIZE), 1, 1,
+                requireStorage(storage));
+        indexStorage();
+    }
+
+    private static TaskStorage requireStorage(TaskStorage storage) {
+        if (storage == null) {
+            throw new IllegalArgumentException("Хранилище не может быть null");
+        }
+        return storage;
+    }
+
+    // storage == null — задачи в памяти вместе со срезом доски
+    private InMemoryTaskManager(ManagerMetrics metrics, Clock clock, HistoryManager historyManager,
+                                TaskEventBus eventBus, int firstId, int idStep, TaskStorage storage) {
+        if (historyManager == null) {
+            throw new IllegalArgumentException("История не может быть null");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Метрики не могут быть null");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Часы не могут быть null");
+        }
+        if (firstId <= 0 || idStep <= 0) {
+            throw new IllegalArgumentException("Первый id и шаг id должны быть положительными");
+        }
+        this.storage = storage != null ? storage : new HeapTaskStorage();
+        this.board = storage != null ? null : BoardSnapshot.empty();
+        this.publishedBoard = board;
+        this.historyManager = historyManager;
+        this.eventBus = eventBus;
+        this.metrics = metrics;
+        this.clock = clock;
+        this.nextId = firstId;
+        this.idStep = idStep;
+        registerGauges();
+    }
+
+    // Задачи и подзадачи со временем начала, упорядоченные по времени; сами задачи берутся из хранилища
+    protected final TimeIndex timeIndex = new TimeIndex(this::resolve);
+    // Зависимости между задачами и подзадачами, критический путь эпиков
+    protected final DependencyGraph dependencyGraph = new DependencyGraph();
+    // Лента изменений для подписчиков
+    private final TaskEventBus eventBus;
+    // Рабочая версия среза доски с копиями задач; меняется вместе с хранилищем.
+    // null — своё хранилище без среза в памяти: тогда версию доски считает version
+    private BoardSnapshot board;
+    // Срез, который видят читатели: публикуется только после завершения операции целиком
+    private volatile BoardSnapshot publishedBoard;
+    private long version;
+    // Собранный из хранилища срез для менеджера без среза в памяти; годен, пока не сменилась версия
+    private BoardSnapshot collected;
+
+    // Журнал версий для asOf; null — версии не хранятся
+    private VersionLog versions;
+    // Сколько последних операций можно отменить; 0 — отмена выключена
+    private int undoDepth;
+    // Операции, которые откатывают undo и redo; последняя — ближайшая
+    private final Deque<Transaction> undoStates = new ArrayDeque<>();
+    private final Deque<Transaction> redoStates = new ArrayDeque<>();
+    // Идёт undo или redo: их публикация сама не становится отменяемой операцией
+    private boolean restoring;
+    // Журнал смен статуса и сводки потока; null — не ведётся
+    private StatusLog statusLog;
+    // Счётчики просмотров для самых просматриваемых задач; null — не ведутся
+    private HotTaskTracker hotTasks;
+
+    static final int EVENT_BUFFER_SIZE = 1024;
+
+    private void registerGauges() {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        metrics.registerGauge("tasks", () -> table.size(TaskType.TASK));
+        metrics.registerGauge("epics", () -> table.size(TaskType.EPIC));
+        metrics.registerGauge("subtasks", () -> table.size(TaskType.SUBTASK));
+        metrics.registerGauge("history.size", historyManager::size);
+        if (historyManager instanceof InMemoryHistoryManager history) {
+            metrics.registerGauge("history.evictions", history::getEvictionCount);
+        }
+        metrics.registerGauge("index.time.size", timeIndex::size);
+        metrics.registerGauge("index.time.comparisons", timeIndex::getComparisons);
+        metrics.registerGauge("events.listenerFailures", eventBus::getFailureCount);
+    }
+
+    // Без включённых метрик не трогаем часы вовсе
+    private long startTimer() {
+        return metrics.isEnabled() ? System.nanoTime() : 0;
+    }
+
+    private void stopTimer(Operation operation, long start) {
+        if (metrics.isEnabled()) {
+            metrics.recordOperation(operation, System.nanoTime() - start);
+        }
+    }
 
     // Присвоим айди следующей задаче, увеличенной на +1
     public int generateId() {
-        return nextId++;
+        int id = nextId;
+        nextId += idStep;
+        return id;
     }
 
     // Получим все задачи, эпики, подзадачи
     @Override
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks.values());
+        return list(TaskType.TASK, Task.class);
     }
 
     @Override
     public List<Epic> getAllEpics() {
-        return new ArrayList<>(epics.values());
+        return list(TaskType.EPIC, Epic.class);
     }
 
     @Override
     public List<Subtask> getAllSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return list(TaskType.SUBTASK, Subtask.class);
+    }
+
+    // Все задачи типа по возрастанию id; прочитанное не вытесняет из кеша хранилища горячие задачи
+    private <T extends Task> List<T> list(TaskType type, Class<T> kind) {
+        List<T> result;
+        try (Stream<Task> stored = storage.stream(type)) {
+            result = stored.map(kind::cast).collect(Collectors.toCollection(ArrayList::new));
+        }
+        result.sort(Comparator.comparingInt(Task::getId));
+        return result;
     }
 
     @Override
     public void createTask(Task task) {
-        // Проверяем пересечения со всеми существующими задачами
-        boolean hasOverlap = prioritizedTasks.stream()
-                .anyMatch(existingTask -> checkTasksOverlap(task, existingTask));
-
-        if (hasOverlap) {
+        long start = startTimer();
+        // Проверяем пересечения по временному индексу
+        if (timeIndex.overlaps(task)) {
             throw new IllegalStateException("Задача пересекается по времени с существующей задачей");
         }
 
         int id = generateId();
         task.setId(id);
-        tasks.put(id, task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        Task frozen = freeze(task);
+        storage.put(task);
+        timeIndex.add(task);
+        dependencyGraph.addNode(id, 0, remainingMinutes(task));
+        publish(TaskEventType.CREATED, frozen);
+        trackCreated(task);
+        commitBoard();
+        stopTimer(Operation.CREATE_TASK, start);
     }
 
     public void createEpic(Epic epic) {
+        long start = startTimer();
         epic.setId(generateId());
-        epics.put(epic.getId(), epic);
+        Task frozen = freeze(epic);
+        storage.put(epic);
+        publish(TaskEventType.CREATED, frozen);
+        commitBoard();
+        stopTimer(Operation.CREATE_EPIC, start);
     }
 
     @Override
     public void createSubtask(Subtask subtask) {
-        Epic epic = epics.get(subtask.getEpicId());
+        long start = startTimer();
+        Epic epic = (Epic) find(TaskType.EPIC, subtask.getEpicId());
         if (epic == null) {
             return;
         }
 
         // Проверяем пересечения
-        boolean hasOverlap = prioritizedTasks.stream()
-                .anyMatch(existingTask -> checkTasksOverlap(subtask, existingTask));
-
-        if (hasOverlap) {
+        if (timeIndex.overlaps(subtask)) {
             throw new IllegalStateException("Подзадача пересекается по времени с существующей задачей");
         }
 
         int id = generateId();
         subtask.setId(id);
-        subtasks.put(id, subtask);
+        Task frozen = freeze(subtask);
+        storage.put(subtask);
         epic.addSubtaskId(id);
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
-        }
-        updateEpicStatus(epic);
+        timeIndex.add(subtask);
+        dependencyGraph.addNode(id, epic.getId(), remainingMinutes(subtask));
+        publish(TaskEventType.CREATED, frozen);
+        trackCreated(subtask);
+        recalculateEpicStatus(epic);
+        commitBoard();
+        stopTimer(Operation.CREATE_SUBTASK, start);
     }
 
     @Override
     public void updateTask(Task task) {
-        if (!tasks.containsKey(task.getId())) {
+        long start = startTimer();
+        if (!table.contains(task.getId(), TaskType.TASK)) {
             return;
         }
 
-        // Удаляем старую версию из приоритетного списка
-        prioritizedTasks.remove(tasks.get(task.getId()));
-
-        // Проверяем пересечения с другими задачами
-        boolean hasOverlap = prioritizedTasks.stream()
-                .anyMatch(existingTask -> checkTasksOverlap(task, existingTask));
-
-        if (hasOverlap) {
-            // Возвращаем старую версию обратно
-            if (tasks.get(task.getId()).getStartTime() != null) {
-                prioritizedTasks.add(tasks.get(task.getId()));
-            }
+        // Проверяем пересечения с другими задачами (старая версия самой задачи не учитывается)
+        if (timeIndex.overlaps(task)) {
             throw new IllegalStateException("Задача пересекается по времени с существующей задачей");
         }
 
-        tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        TaskStatus previous = table.statusOf(task.getId());
+        Task frozen = freeze(task);
+        storage.put(task);
+        timeIndex.add(task);
+        dependencyGraph.setWeight(task.getId(), remainingMinutes(task));
+        publishUpdate(previous, frozen);
+        commitBoard();
+        stopTimer(Operation.UPDATE_TASK, start);
     }
 
     public void updateEpic(Epic epic) {
-        if (epics.containsKey(epic.getId())) {
+        long start = startTimer();
+        if (table.contains(epic.getId(), TaskType.EPIC)) {
             // Сохраняем список подзадач старого эпика
-            List<Integer> subtaskIds = new ArrayList<>(epics.get(epic.getId()).getSubtaskIds());
+            List<Integer> subtaskIds = new ArrayList<>(storage.get(TaskType.EPIC, epic.getId()) instanceof Epic stored
+                    ? stored.getSubtaskIds() : List.of());
 
             epic.getSubtaskIds().clear();
             epic.getSubtaskIds().addAll(subtaskIds);
-            epics.put(epic.getId(), epic);
-            updateEpicStatus(epic);
+            Task frozen = freeze(epic);
+            storage.put(epic);
+            publish(TaskEventType.UPDATED, frozen);
+            recalculateEpicStatus(epic);
+            commitBoard();
         }
+        stopTimer(Operation.UPDATE_EPIC, start);
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        if (!subtasks.containsKey(subtask.getId())) {
+        long start = startTimer();
+        if (!table.contains(subtask.getId(), TaskType.SUBTASK)) {
             return;
         }
 
-        Epic epic = epics.get(subtask.getEpicId());
+        Epic epic = (Epic) find(TaskType.EPIC, subtask.getEpicId());
         if (epic == null) {
             return;
         }
 
-        // Удаляем старую версию из приоритетного списка
-        prioritizedTasks.remove(subtasks.get(subtask.getId()));
-
-        // Проверяем пересечения
-        boolean hasOverlap = prioritizedTasks.stream()
-                .anyMatch(existingTask -> checkTasksOverlap(subtask, existingTask));
-
-        if (hasOverlap) {
-            // Возвращаем старую версию обратно
-            if (subtasks.get(subtask.getId()).getStartTime() != null) {
-                prioritizedTasks.add(subtasks.get(subtask.getId()));
-            }
+        // Проверяем пересечения (старая версия самой подзадачи не учитывается)
+        if (timeIndex.overlaps(subtask)) {
             throw new IllegalStateException("Подзадача пересекается по времени с существующей задачей");
         }
 
-        subtasks.put(subtask.getId(), subtask);
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
+        TaskStatus previous = table.statusOf(subtask.getId());
+        Task frozen = freeze(subtask);
+        storage.put(subtask);
+        timeIndex.add(subtask);
+        dependencyGraph.setWeight(subtask.getId(), remainingMinutes(subtask));
+        publishUpdate(previous, frozen);
+        recalculateEpicStatus(epic);
+        commitBoard();
+        stopTimer(Operation.UPDATE_SUBTASK, start);
+    }
+
+    // Оптимистичное обновление: задача, эпик или подзадача заменяются, только если сохранённая копия
+    // всё ещё имеет версию expectedVersion. Иначе кто-то успел записать раньше — возвращается false,
+    // и вызывающий перечитывает задачу и повторяет. При успехе у task уже новая версия
+    public boolean compareAndUpdate(Task task, long expectedVersion) {
+        if (task == null) {
+            throw new IllegalArgumentException("Задача не может быть null");
+        }
+        int id = task.getId();
+        if (!table.contains(id, task.getType()) || table.versionOf(id) != expectedVersion) {
+            return false;
+        }
+        if (task instanceof Epic epic) {
+            updateEpic(epic);
+        } else if (task instanceof Subtask subtask) {
+            updateSubtask(subtask);
+        } else {
+            updateTask(task);
         }
-        updateEpicStatus(epic);
+        // Обновление могло ничего не изменить, например у подзадачи без эпика
+        return table.versionOf(id) != expectedVersion;
     }
 
     @Override
     public void deleteTaskById(int id) {
-        Task task = tasks.remove(id);
-        if (task != null) {
-            prioritizedTasks.remove(task);
+        long start = startTimer();
+        if (table.contains(id, TaskType.TASK)) {
+            storage.remove(TaskType.TASK, id);
+            timeIndex.remove(id);
+            dependencyGraph.removeNode(id);
+            forget(TaskType.TASK, id);
+            publishDeleted(TaskType.TASK, id);
+            commitBoard();
         }
         historyManager.remove(id);
+        stopTimer(Operation.DELETE_TASK, start);
     }
 
     public void deleteEpicById(int id) {
-        Epic epic = epics.remove(id);
-        if (epic != null) {
-            for (Integer subtaskId : epic.getSubtaskIds()) {
-                subtasks.remove(subtaskId);
-                historyManager.remove(subtaskId); // Удаляем подзадачи из истории
+        long start = startTimer();
+        if (removeEpic(id)) {
+            commitBoard();
+        }
+        stopTimer(Operation.DELETE_EPIC, start);
+    }
+
+    // Убирает эпик с подзадачами из хранилища, индексов и истории; срез публикует вызывающий
+    private boolean removeEpic(int id) {
+        if (!table.contains(id, TaskType.EPIC)) {
+            return false;
+        }
+        Epic epic = (Epic) storage.get(TaskType.EPIC, id);
+        for (Integer subtaskId : new ArrayList<>(epic.getSubtaskIds())) {
+            if (table.contains(subtaskId, TaskType.SUBTASK)) {
+                storage.remove(TaskType.SUBTASK, subtaskId);
+                timeIndex.remove(subtaskId);
+                dependencyGraph.removeNode(subtaskId);
+                forget(TaskType.SUBTASK, subtaskId);
+            }
+            historyManager.remove(subtaskId); // Удаляем подзадачи из истории
+            publishDeleted(TaskType.SUBTASK, subtaskId);
+        }
+        storage.remove(TaskType.EPIC, id);
+        historyManager.remove(id); // Удаляем эпик из истории
+        doneSince.remove(id);
+        forget(TaskType.EPIC, id);
+        publishDeleted(TaskType.EPIC, id);
+        return true;
+    }
+
+    // Переносит в архив эпики, которые завершены дольше retention, вместе с подзадачами.
+    // Эпики сначала надёжно дописываются в архив и только потом уходят из рабочего набора;
+    // для подписчиков это удаление. Возвращает число перенесённых эпиков
+    public int archiveDoneEpics(EpicArchive archive, Duration retention) {
+        if (archive == null || retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Нужны архив и неотрицательный срок хранения");
+        }
+        // Архивные id больше не выдаются, даже если менеджер загружен заново без них
+        reserveIds(archive.getMaxId());
+        Instant threshold = clock.instant().minus(retention);
+        Map<Epic, List<Subtask>> expired = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Instant> entry : doneSince.entrySet()) {
+            if (!entry.getValue().isAfter(threshold)) {
+                Epic epic = (Epic) storage.get(TaskType.EPIC, entry.getKey());
+                expired.put(epic, getEpicSubtasks(epic.getId()));
             }
-            historyManager.remove(id); // Удаляем эпик из истории
         }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        archive.append(expired);
+        for (Epic epic : expired.keySet()) {
+            removeEpic(epic.getId());
+        }
+        commitBoard();
+        // Отмена вернула бы в работу эпики, которые уже лежат в архиве
+        undoStates.clear();
+        redoStates.clear();
+        return expired.size();
     }
 
-    // Обновим статусы NEW, DONE, IN_PROGRESS
+    // Следующий id будет больше maxId
+    private void reserveIds(int maxId) {
+        while (nextId <= maxId) {
+            nextId += idStep;
+        }
+    }
+
+    // Обновим статусы NEW, DONE, IN_PROGRESS. Эпик не из менеджера только получает вычисленный статус
     public void updateEpicStatus(Epic epic) {
+        if (table.contains(epic.getId(), TaskType.EPIC) && storage.get(TaskType.EPIC, epic.getId()) == epic) {
+            recalculateEpicStatus(epic);
+            commitBoard();
+        } else {
+            epic.setStatus(calculateEpicStatus(epic));
+        }
+    }
+
+    // Пересчёт хранимого эпика без публикации среза: вызывающий сам завершает операцию через commitBoard().
+    // Эпик записывается в хранилище всегда: вызывающий мог поменять и список его подзадач
+    private void recalculateEpicStatus(Epic epic) {
+        TaskStatus previous = epic.getStatus();
+        epic.setStatus(calculateEpicStatus(epic));
+        trackDone(epic);
+        Task frozen = freeze(epic);
+        storage.put(epic);
+        if (previous != epic.getStatus()) {
+            publish(TaskEventType.STATUS_CHANGED, frozen);
+        }
+        publish(TaskEventType.EPIC_RECOMPUTED, frozen);
+    }
+
+    // Момент завершения запоминается при первом переходе в DONE и сбрасывается при выходе из него
+    private void trackDone(Epic epic) {
+        if (epic.getStatus() == TaskStatus.DONE) {
+            doneSince.putIfAbsent(epic.getId(), clock.instant());
+        } else {
+            doneSince.remove(epic.getId());
+        }
+    }
+
+    // Статусы подзадач берутся из таблицы менеджера, без чтения самих подзадач из хранилища
+    private TaskStatus calculateEpicStatus(Epic epic) {
         if (epic.getSubtaskIds().isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            return;
+            return TaskStatus.NEW;
         }
 
         boolean allNew = true;
         boolean allDone = true;
 
         for (Integer subtaskId : epic.getSubtaskIds()) {
-            Subtask subtask = subtasks.get(subtaskId);
-            if (subtask == null) continue;
+            if (!table.contains(subtaskId, TaskType.SUBTASK)) continue;
+            TaskStatus status = table.statusOf(subtaskId);
 
-            if (subtask.getStatus() != TaskStatus.NEW) {
+            if (status != TaskStatus.NEW) {
                 allNew = false;
             }
-            if (subtask.getStatus() != TaskStatus.DONE) {
+            if (status != TaskStatus.DONE) {
                 allDone = false;
             }
         }
 
         if (allNew) {
-            epic.setStatus(TaskStatus.NEW);
+            return TaskStatus.NEW;
         } else if (allDone) {
-            epic.setStatus(TaskStatus.DONE);
+            return TaskStatus.DONE;
         } else {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
+            return TaskStatus.IN_PROGRESS;
         }
     }
 
     @Override
     public void deleteSubtaskById(int id) {
-        Subtask subtask = subtasks.remove(id);
-        if (subtask != null) {
-            Epic epic = epics.get(subtask.getEpicId());
+        long start = startTimer();
+        if (table.contains(id, TaskType.SUBTASK)) {
+            Subtask subtask = (Subtask) storage.read(TaskType.SUBTASK, id);
+            storage.remove(TaskType.SUBTASK, id);
+            forget(TaskType.SUBTASK, id);
+            publishDeleted(TaskType.SUBTASK, id);
+            Epic epic = (Epic) find(TaskType.EPIC, subtask.getEpicId());
             if (epic != null) {
                 epic.removeSubtaskId(id);
-                updateEpicStatus(epic);
+                recalculateEpicStatus(epic);
             }
-            prioritizedTasks.remove(subtask);
+            timeIndex.remove(id);
+            dependencyGraph.removeNode(id);
+            commitBoard();
         }
         historyManager.remove(id);
+        stopTimer(Operation.DELETE_SUBTASK, start);
     }
 
     @Override
     public void deleteAllTasks() {
-        for (Integer id : tasks.keySet()) {
+        int[] ids = table.ids(TaskType.TASK);
+        forgetAll(TaskType.TASK);
+        for (int id : ids) {
+            storage.remove(TaskType.TASK, id);
+            table.remove(id);
             historyManager.remove(id);
+            timeIndex.remove(id);
+            dependencyGraph.removeNode(id);
+            publishDeleted(TaskType.TASK, id);
         }
-        tasks.clear();
+        commitBoard();
     }
 
     @Override
     public void deleteAllEpics() {
-        List<Integer> epicIds = new ArrayList<>(epics.keySet());
-        List<Integer> subtaskIds = new ArrayList<>(subtasks.keySet());
+        int[] epicIds = table.ids(TaskType.EPIC);
+        int[] subtaskIds = table.ids(TaskType.SUBTASK);
+        forgetAll(TaskType.EPIC);
 
-        for (Integer id : epicIds) {
+        // Подзадачи удаляются раньше своих эпиков
+        for (int id : subtaskIds) {
+            storage.remove(TaskType.SUBTASK, id);
+            table.remove(id);
             historyManager.remove(id);
+            timeIndex.remove(id);
+            dependencyGraph.removeNode(id);
+            publishDeleted(TaskType.SUBTASK, id);
         }
-        for (Integer id : subtaskIds) {
+        for (int id : epicIds) {
+            storage.remove(TaskType.EPIC, id);
+            table.remove(id);
             historyManager.remove(id);
+            publishDeleted(TaskType.EPIC, id);
         }
 
-        subtasks.clear();
-        epics.clear();
+        doneSince.clear();
+        commitBoard();
     }
 
     @Override
     public void deleteAllSubtasks() {
-        List<Integer> subtaskIds = new ArrayList<>(subtasks.keySet());
-        for (Integer id : subtaskIds) {
+        int[] subtaskIds = table.ids(TaskType.SUBTASK);
+        forgetAll(TaskType.SUBTASK);
+        for (int id : subtaskIds) {
+            storage.remove(TaskType.SUBTASK, id);
+            table.remove(id);
             historyManager.remove(id);
+            timeIndex.remove(id);
+            dependencyGraph.removeNode(id);
+            publishDeleted(TaskType.SUBTASK, id);
         }
-        subtasks.clear();
-        for (Epic epic : epics.values()) {
+        for (int id : table.ids(TaskType.EPIC)) {
+            Epic epic = (Epic) storage.get(TaskType.EPIC, id);
             epic.getSubtaskIds().clear();
-            updateEpicStatus(epic);
+            recalculateEpicStatus(epic);
         }
+        commitBoard();
     }
 
     @Override
     public Task getTaskById(int id) {
-        Task task = tasks.get(id);
+        long start = startTimer();
+        Task task = find(TaskType.TASK, id);
         if (task != null) {
             historyManager.add(task);
+            recordView(id);
+            publishViewed(task);
         }
+        stopTimer(Operation.GET_TASK, start);
         return task;
     }
 
     @Override
     public Epic getEpicById(int id) {
-        Epic epic = epics.get(id);
+        long start = startTimer();
+        Epic epic = (Epic) find(TaskType.EPIC, id);
         if (epic != null) {
             historyManager.add(epic);
+            recordView(id);
+            publishViewed(epic);
         }
+        stopTimer(Operation.GET_EPIC, start);
         return epic;
     }
 
     @Override
     public Subtask getSubtaskById(int id) {
-        Subtask subtask = subtasks.get(id);
+        long start = startTimer();
+        Subtask subtask = (Subtask) find(TaskType.SUBTASK, id);
         if (subtask != null) {
             historyManager.add(subtask);
+            recordView(id);
+            publishViewed(subtask);
         }
+        stopTimer(Operation.GET_SUBTASK, start);
         return subtask;
     }
 
+    // Задача данного типа из хранилища; null, если такой нет
+    private Task find(TaskType type, int id) {
+        return table.contains(id, type) ? storage.get(type, id) : null;
+    }
+
+    // Задача для индекса времени: чтение ради обхода, без записи в кеш хранилища
+    private Task resolve(int id) {
+        TaskType type = table.typeOf(id);
+        return type != null ? storage.read(type, id) : null;
+    }
+
+    private void recordView(int id) {
+        if (hotTasks != null) {
+            hotTasks.record(id);
+        }
+    }
+
+    // Начинает считать просмотры через getTaskById, getEpicById и getSubtaskById для виджета самых
+    // просматриваемых задач. Память — capacity счётчиков, сколько бы ни было просмотров; просмотры
+    // стареют вдвое за halfLife. Повторный вызов начинает счёт заново
+    public HotTaskTracker enableHotTasks(int capacity, Duration halfLife) {
+        hotTasks = new HotTaskTracker(capacity, halfLife, clock);
+        return hotTasks;
+    }
+
     @Override
     public List<Subtask> getEpicSubtasks(int epicId) {
         List<Subtask> epicSubtasks = new ArrayList<>();
-        Epic epic = epics.get(epicId);
+        Epic epic = (Epic) find(TaskType.EPIC, epicId);
         if (epic != null) {
             for (Integer subtaskId : epic.getSubtaskIds()) {
-                Subtask subtask = subtasks.get(subtaskId);
+                Subtask subtask = (Subtask) find(TaskType.SUBTASK, subtaskId);
                 if (subtask != null) {
                     epicSubtasks.add(subtask);
                 }
@@ -321,39 +661,666 @@ public class InMemoryTaskManager implements TaskManager {
         return epicSubtasks;
     }
 
+    @Override
+    public Stream<Task> streamAllTasks() {
+        return storage.stream(TaskType.TASK);
+    }
+
+    @Override
+    public Stream<Subtask> streamAllSubtasks() {
+        return storage.stream(TaskType.SUBTASK).map(Subtask.class::cast);
+    }
+
+    @Override
+    public Stream<Task> streamHistory() {
+        return historyManager.stream();
+    }
+
+    @Override
+    public HistorySnapshot historySnapshot() {
+        return historyManager.snapshot();
+    }
+
+    // Идёт по временному индексу, который уже упорядочен, поэтому ничего не сортирует
+    @Override
+    public Stream<Task> streamPrioritizedTasks() {
+        return timeIndex.ids().filter(id -> table.contains(id, TaskType.TASK))
+                .mapToObj(id -> storage.read(TaskType.TASK, id));
+    }
+
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory();
     }
 
-    private boolean checkTasksOverlap(Task task1, Task task2) {
-        if (task1.getStartTime() == null || task2.getStartTime() == null
-                || task1.getEndTime() == null || task2.getEndTime() == null) {
-            return false;
+    @Override
+    public Task getTask(int id) {
+        return find(TaskType.TASK, id);
+    }
+
+    // По таблице id: ни хранилище, ни срез доски не читаются
+    @Override
+    public boolean contains(TaskType type, int id) {
+        return table.contains(id, type);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        long start = startTimer();
+        List<Task> prioritized = streamPrioritizedTasks().collect(Collectors.toList());
+        stopTimer(Operation.GET_PRIORITIZED, start);
+        return prioritized;
+    }
+
+    // Задачи и подзадачи, пересекающиеся с периодом [from, to)
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return timeIndex.between(from, to);
+    }
+
+    @Override
+    public LocalDateTime getNextFreeSlot(Duration duration, LocalDateTime after) {
+        return timeIndex.nextFreeSlot(duration, after);
+    }
+
+    @Override
+    public Map<LocalDate, List<Task>> getTasksByDay(LocalDate from, LocalDate to) {
+        return timeIndex.byDay(from, to);
+    }
+
+    @Override
+    public List<Task> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from, LocalDateTime to) {
+        return scheduleUnscheduled(workingHours, from, to, Comparator.comparingInt(Task::getId));
+    }
+
+    // Задачи и подзадачи с длительностью, но без времени начала, размещаются в порядке priority
+    // в первые подходящие свободные промежутки; возвращаются только размещённые
+    @Override
+    public List<Task> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from, LocalDateTime to,
+                                          Comparator<? super Task> priority) {
+        List<Task> unscheduled = collectUnscheduled();
+        unscheduled.sort(priority);
+
+        TaskScheduler scheduler = new TaskScheduler(timeIndex, workingHours, from, to);
+        List<Task> placed = new ArrayList<>();
+        for (Task task : unscheduled) {
+            LocalDateTime startTime = scheduler.place(task.getDuration());
+            if (startTime != null) {
+                place(task, startTime);
+                placed.add(task);
+            }
+        }
+        commitBoard();
+        return placed;
+    }
+
+    // Задачи и подзадачи с длительностью, но без времени начала. Те, что есть во временном индексе,
+    // время начала уже имеют, поэтому из хранилища читаются только остальные
+    List<Task> collectUnscheduled() {
+        List<Task> unscheduled = new ArrayList<>();
+        for (TaskType type : List.of(TaskType.TASK, TaskType.SUBTASK)) {
+            for (int id : table.ids(type)) {
+                if (timeIndex.contains(id)) {
+                    continue;
+                }
+                Task task = storage.read(type, id);
+                if (isUnscheduled(task)) {
+                    unscheduled.add(task);
+                }
+            }
         }
+        return unscheduled;
+    }
 
-        LocalDateTime start1 = task1.getStartTime();
-        LocalDateTime end1 = task1.getEndTime();
-        LocalDateTime start2 = task2.getStartTime();
-        LocalDateTime end2 = task2.getEndTime();
+    // Назначает время найденному планировщиком промежутку; срез публикует вызывающий через commitBoard()
+    void place(Task task, LocalDateTime startTime) {
+        task.setStartTime(startTime);
+        Task frozen = freeze(task);
+        storage.put(task);
+        timeIndex.add(task);
+        publish(TaskEventType.UPDATED, frozen);
+    }
 
-        return !end1.isBefore(start2) && !end2.isBefore(start1);
+    private static boolean isUnscheduled(Task task) {
+        return task.getStartTime() == null && task.getDuration() != null
+                && !task.getDuration().isZero() && !task.getDuration().isNegative();
     }
 
+    // taskId нельзя начать, пока не завершена dependsOnId; цикл приводит к IllegalStateException
     @Override
-    public Task getTask(int id) {
-        return tasks.get(id);
+    public void addDependency(int taskId, int dependsOnId) {
+        if (!isSchedulable(taskId) || !isSchedulable(dependsOnId)) {
+            throw new IllegalArgumentException("Зависимости возможны только между задачами и подзадачами");
+        }
+        dependencyGraph.addEdge(dependsOnId, taskId);
+        storage.addDependency(taskId, dependsOnId);
+        storage.commit();
     }
 
     @Override
-    public List<Task> getPrioritizedTasks() {
-        return tasks.values().stream()
-                .filter(task -> task.getStartTime() != null)
-                .sorted(Comparator.comparing(Task::getStartTime))
-                .collect(Collectors.toList());
+    public void removeDependency(int taskId, int dependsOnId) {
+        dependencyGraph.removeEdge(dependsOnId, taskId);
+        storage.removeDependency(taskId, dependsOnId);
+        storage.commit();
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        return dependencyGraph.getDependencies(taskId);
+    }
+
+    @Override
+    public Map<Integer, List<Integer>> getAllDependencies() {
+        return dependencyGraph.getAllDependencies();
+    }
+
+    // Подзадачи эпика в порядке, допустимом с учётом зависимостей
+    @Override
+    public List<Subtask> getEpicSubtasksInOrder(int epicId) {
+        List<Subtask> ordered = new ArrayList<>();
+        Epic epic = (Epic) find(TaskType.EPIC, epicId);
+        if (epic != null) {
+            for (Integer subtaskId : dependencyGraph.order(epic.getSubtaskIds())) {
+                ordered.add((Subtask) find(TaskType.SUBTASK, subtaskId));
+            }
+        }
+        return ordered;
+    }
+
+    // Оставшаяся работа по самой длинной цепочке зависимостей, ведущей к подзадачам эпика
+    @Override
+    public Duration getCriticalPath(int epicId) {
+        return Duration.ofMinutes(dependencyGraph.getCriticalPath(epicId));
+    }
+
+    private boolean isSchedulable(int id) {
+        TaskType type = table.typeOf(id);
+        return type == TaskType.TASK || type == TaskType.SUBTASK;
+    }
+
+    // Вес узла в графе зависимостей: выполненная работа уже не лежит на критическом пути
+    private static long remainingMinutes(Task task) {
+        if (task.getStatus() == TaskStatus.DONE || task.getDuration() == null) {
+            return 0;
+        }
+        return task.getDuration().toMinutes();
+    }
+
+    // Индексы по задачам, которые уже лежат в хранилище; события не публикуются
+    private void indexStorage() {
+        for (TaskType type : TaskType.values()) {
+            try (Stream<Task> stored = storage.stream(type)) {
+                stored.forEach(task -> {
+                    int id = task.getId();
+                    reserveIds(id);
+                    table.put(id, type, task.getStatus(), task.getVersion());
+                    if (task instanceof Epic epic) {
+                        trackDone(epic);
+                    } else {
+                        timeIndex.add(task);
+                        int epicId = task instanceof Subtask subtask ? subtask.getEpicId() : 0;
+                        dependencyGraph.addNode(id, epicId, remainingMinutes(task));
+                    }
+                });
+            }
+        }
+        for (int[] dependency : storage.loadDependencies()) {
+            dependencyGraph.addEdge(dependency[1], dependency[0]);
+        }
+    }
+
+    // Кладёт задачу с уже назначенным id в хранилище и индексы (используется при загрузке)
+    protected void restoreTask(Task task) {
+        Epic epic = place(task);
+        if (epic != null) {
+            freeze(epic);
+            storage.put(epic);
+        }
+        commitBoard();
+    }
+
+    // Загрузка доски целиком, эпики раньше своих подзадач. Эпик попадает в срез один раз, уже со всеми
+    // подзадачами, и срез публикуется одной версией: по одной задаче эпик копировался бы на каждую подзадачу
+    protected void restoreTasks(Iterable<? extends Task> loaded) {
+        Set<Epic> linked = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Task task : loaded) {
+            Epic epic = place(task);
+            if (epic != null) {
+                linked.add(epic);
+            }
+        }
+        for (Epic epic : linked) {
+            freeze(epic);
+            storage.put(epic);
+        }
+        commitBoard();
+    }
+
+    // Возвращает эпик, к которому привязана подзадача: его копию в срезе и в хранилище нужно обновить
+    private Epic place(Task task) {
+        int id = task.getId();
+        if (id >= nextId) {
+            nextId = id + idStep;
+        }
+        freeze(task);
+        storage.put(task);
+        if (task instanceof Epic epic) {
+            // Момент завершения в файле не хранится: срок хранения отсчитывается от загрузки
+            trackDone(epic);
+            return null;
+        }
+        timeIndex.add(task);
+        if (task instanceof Subtask subtask) {
+            dependencyGraph.addNode(id, subtask.getEpicId(), remainingMinutes(subtask));
+            Epic epic = (Epic) find(TaskType.EPIC, subtask.getEpicId());
+            if (epic != null) {
+                epic.addSubtaskId(id);
+            }
+            return epic;
+        }
+        dependencyGraph.addNode(id, 0, remainingMinutes(task));
+        return null;
+    }
+
+    // Подписка на ленту изменений; события доставляются в отдельном потоке
+    @Override
+    public Subscription subscribe(TaskEventListener listener) {
+        return eventBus.subscribe(listener);
+    }
+
+    // События несут версию рабочего среза: изменение к этому моменту уже в нём
+    private void publish(TaskEventType type, Task task) {
+        if (eventBus.hasSubscribers()) {
+            eventBus.publish(type, task, currentVersion());
+        }
+    }
+
+    private void publishDeleted(TaskType taskType, int id) {
+        if (statusLog != null && taskType != TaskType.EPIC) {
+            statusLog.removed(id);
+        }
+        if (hotTasks != null) {
+            hotTasks.remove(id);
+        }
+        if (eventBus.hasSubscribers()) {
+            eventBus.publishDeleted(taskType, id, currentVersion());
+        }
+    }
+
+    private void publishViewed(Task task) {
+        if (eventBus.hasSubscribers()) {
+            eventBus.publishViewed(task.getType(), task.getId(), currentVersion());
+        }
+    }
+
+    // UPDATED, а если по сравнению с прошлой записью сменился статус — ещё и STATUS_CHANGED
+    private void publishUpdate(TaskStatus previous, Task frozen) {
+        publish(TaskEventType.UPDATED, frozen);
+        if (previous != frozen.getStatus()) {
+            publish(TaskEventType.STATUS_CHANGED, frozen);
+            if (statusLog != null && frozen.getType() != TaskType.EPIC) {
+                statusLog.changed(frozen.getId(), frozen.getStatus());
+            }
+        }
+    }
+
+    private void trackCreated(Task task) {
+        if (statusLog != null && task.getType() != TaskType.EPIC) {
+            statusLog.created(task.getId(), task.getStatus());
+        }
+    }
+
+    // Включает журнал смен статуса задач и подзадач со сводками lead/cycle time и WIP.
+    // Задачи, которые уже на доске, сразу входят в WIP, но их время создания неизвестно
+    public StatusLog enableStatusLog() {
+        if (statusLog == null) {
+            statusLog = new StatusLog(clock);
+            for (TaskType type : List.of(TaskType.TASK, TaskType.SUBTASK)) {
+                for (int id : table.ids(type)) {
+                    statusLog.seed(id, table.statusOf(id));
+                }
+            }
+        }
+        return statusLog;
+    }
+
+    // Согласованный срез всей доски. Со срезом в памяти — за O(1), читать его можно из любых потоков
+    // без блокировок. Менеджер со своим хранилищем собирает срез из хранилища за O(n) и отдаёт тот же,
+    // пока доска не изменится; хранилище не потокобезопасно, поэтому такой срез берут в том же потоке
+    // или под тем же замком, что и изменения
+    @Override
+    public BoardSnapshot snapshot() {
+        if (board != null) {
+            return publishedBoard;
+        }
+        if (collected == null || collected.getVersion() != version) {
+            List<Task> taskCopies = new ArrayList<>();
+            getAllTasks().forEach(task -> taskCopies.add(task.copy()));
+            List<Epic> epicCopies = new ArrayList<>();
+            getAllEpics().forEach(epic -> epicCopies.add(epic.copy()));
+            List<Subtask> subtaskCopies = new ArrayList<>();
+            getAllSubtasks().forEach(subtask -> subtaskCopies.add(subtask.copy()));
+            collected = BoardSnapshot.of(version, taskCopies, epicCopies, subtaskCopies);
+        }
+        return collected;
+    }
+
+    // Без блокировок срез можно брать только у менеджера со срезом доски в памяти
+    @Override
+    public boolean isSnapshotLockFree() {
+        return board != null;
+    }
+
+    private long currentVersion() {
+        return board != null ? board.getVersion() : version;
+    }
+
+    // Кладёт в рабочий срез свежую копию задачи и возвращает её. Версия задачи — версия среза,
+    // в который попала копия, поэтому растёт с каждым изменением и не повторяется после удаления.
+    // Без среза в памяти версия только считается, а копия делается лишь для подписчиков
+    private Task freeze(Task task) {
+        long next = currentVersion() + 1;
+        task.setVersion(next);
+        table.put(task.getId(), task.getType(), task.getStatus(), next);
+        if (board == null) {
+            version = next;
+            return eventBus.hasSubscribers() ? task.copy() : task;
+        }
+        Task copy = task.copy();
+        if (copy instanceof Epic epic) {
+            board = board.withEpic(epic);
+        } else if (copy instanceof Subtask subtask) {
+            board = board.withSubtask(subtask);
+        } else {
+            board = board.withTask(copy);
+        }
+        return copy;
+    }
+
+    // Убирает задачу из таблицы и рабочего среза
+    private void forget(TaskType type, int id) {
+        table.remove(id);
+        if (board == null) {
+            version++;
+        } else if (type == TaskType.EPIC) {
+            board = board.withoutEpic(id);
+        } else if (type == TaskType.SUBTASK) {
+            board = board.withoutSubtask(id);
+        } else {
+            board = board.withoutTask(id);
+        }
+    }
+
+    // Убирает из рабочего среза все задачи типа; эпики — вместе с подзадачами. Таблицу чистит вызывающий
+    private void forgetAll(TaskType type) {
+        if (board == null) {
+            version++;
+        } else if (type == TaskType.EPIC) {
+            board = board.withoutAllEpics();
+        } else if (type == TaskType.SUBTASK) {
+            board = board.withoutAllSubtasks();
+        } else {
+            board = board.withoutAllTasks();
+        }
+    }
+
+    // Завершает операцию: публикует рабочий срез и фиксирует изменения в хранилище
+    void commitBoard() {
+        if (board != null) {
+            if (board != publishedBoard) {
+                recordVersion();
+            }
+            publishedBoard = board;
+        }
+        storage.commit();
+    }
+
+    private void recordVersion() {
+        if (versions != null) {
+            versions.add(clock.instant(), board);
+        }
+        if (undoDepth > 0 && !restoring) {
+            undoStates.addLast(Transaction.between(publishedBoard, board));
+            if (undoStates.size() > undoDepth) {
+                undoStates.removeFirst();
+            }
+            redoStates.clear();
+        }
+    }
+
+    private void requireBoard() {
+        if (board == null) {
+            throw new IllegalStateException("Версии доски хранит только менеджер со срезом доски в памяти");
+        }
+    }
+
+    // Хранит опубликованные срезы доски для asOf: не больше maxVersions и не старше retention.
+    // Срезы делят неизменённые части, так что версия стоит порядка изменённых ею задач, а не всей доски
+    public void retainVersions(Duration retention, int maxVersions) {
+        requireBoard();
+        versions = new VersionLog(retention, maxVersions);
+        versions.add(clock.instant(), publishedBoard);
+    }
+
+    // Доска в том виде, в каком она была в момент time; null, если эта версия уже не хранится
+    public BoardSnapshot asOf(Instant time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Момент времени не может быть null");
+        }
+        if (versions == null) {
+            throw new IllegalStateException("Хранение версий не включено");
+        }
+        return versions.asOf(time);
+    }
+
+    // Включает отмену последних depth операций, изменивших доску. Операция — один вызов create*, update*,
+    // delete* и т.п.; просмотры, история и зависимости между задачами не отменяются
+    public void enableUndo(int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Глубина отмены должна быть положительной");
+        }
+        requireBoard();
+        undoDepth = depth;
+        while (undoStates.size() > depth) {
+            undoStates.removeFirst();
+        }
+    }
+
+    // Возвращает доску к состоянию до последней операции. Стоимость пропорциональна числу задач,
+    // которые операция изменила, а не размеру доски: копии всей доски нет.
+    // Восстановленные задачи получают новые версии и приходят подписчикам как обычные изменения
+    public boolean undo() {
+        Transaction transaction = undoStates.pollLast();
+        if (transaction == null) {
+            return false;
+        }
+        redoStates.addLast(transaction.returningTo(publishedBoard));
+        restore(transaction);
+        return true;
+    }
+
+    // Повторяет последнюю отменённую операцию; любая новая операция очищает список повторов
+    public boolean redo() {
+        Transaction transaction = redoStates.pollLast();
+        if (transaction == null) {
+            return false;
+        }
+        undoStates.addLast(transaction.returningTo(publishedBoard));
+        restore(transaction);
+        return true;
+    }
+
+    // Операция для undo/redo: срез, к которому она возвращает доску, и id, которые при этом меняются.
+    // Набор id один и тот же для отмены и повтора, поэтому считается один раз — при публикации операции
+    private record Transaction(BoardSnapshot board, int[] taskIds, int[] epicIds, int[] subtaskIds) {
+
+        // Сравнение соседних срезов: after получен из before, и общие части деревьев не обходятся
+        static Transaction between(BoardSnapshot before, BoardSnapshot after) {
+            IntStream.Builder taskIds = IntStream.builder();
+            IntStream.Builder epicIds = IntStream.builder();
+            IntStream.Builder subtaskIds = IntStream.builder();
+            after.forEachChangedTask(before, taskIds::add);
+            after.forEachChangedEpic(before, epicIds::add);
+            after.forEachChangedSubtask(before, subtaskIds::add);
+            return new Transaction(before, taskIds.build().toArray(), epicIds.build().toArray(),
+                    subtaskIds.build().toArray());
+        }
+
+        Transaction returningTo(BoardSnapshot other) {
+            return new Transaction(other, taskIds, epicIds, subtaskIds);
+        }
+    }
+
+    // Переносит в хранилище и индексы копии задач операции из её среза
+    private void restore(Transaction transaction) {
+        BoardSnapshot target = transaction.board();
+        restoring = true;
+        try {
+            // Эпики раньше подзадач, чтобы подзадача попадала в граф уже при своём эпике
+            for (int id : transaction.epicIds()) {
+                revertEpic(id, target.getEpic(id));
+            }
+            for (int id : transaction.subtaskIds()) {
+                revertSubtask(id, target.getSubtask(id));
+            }
+            for (int id : transaction.taskIds()) {
+                revertTask(id, target.getTask(id));
+            }
+            commitBoard();
+        } finally {
+            restoring = false;
+        }
+    }
+
+    private void revertTask(int id, Task target) {
+        if (target == null) {
+            if (table.contains(id, TaskType.TASK)) {
+                storage.remove(TaskType.TASK, id);
+            }
+            timeIndex.remove(id);
+            dependencyGraph.removeNode(id);
+            historyManager.remove(id);
+            forget(TaskType.TASK, id);
+            publishDeleted(TaskType.TASK, id);
+        } else {
+            // Копии в срезе общие для читателей, в хранилище кладём свою
+            Task task = target.copy();
+            TaskStatus previous = table.statusOf(id);
+            Task frozen = freeze(task);
+            storage.put(task);
+            timeIndex.add(task);
+            dependencyGraph.addNode(id, 0, remainingMinutes(task));
+            publishRestored(previous, frozen);
+        }
+        versionRestored(id);
+    }
+
+    private void revertEpic(int id, Epic target) {
+        if (target == null) {
+            if (table.contains(id, TaskType.EPIC)) {
+                storage.remove(TaskType.EPIC, id);
+            }
+            doneSince.remove(id);
+            historyManager.remove(id);
+            forget(TaskType.EPIC, id);
+            publishDeleted(TaskType.EPIC, id);
+        } else {
+            Epic epic = target.copy();
+            TaskStatus previous = table.statusOf(id);
+            trackDone(epic);
+            Task frozen = freeze(epic);
+            storage.put(epic);
+            publishRestored(previous, frozen);
+        }
+        versionRestored(id);
+    }
+
+    private void revertSubtask(int id, Subtask target) {
+        if (target == null) {
+            if (table.contains(id, TaskType.SUBTASK)) {
+                storage.remove(TaskType.SUBTASK, id);
+            }
+            timeIndex.remove(id);
+            dependencyGraph.removeNode(id);
+            historyManager.remove(id);
+            forget(TaskType.SUBTASK, id);
+            publishDeleted(TaskType.SUBTASK, id);
+        } else {
+            Subtask subtask = target.copy();
+            TaskStatus previous = table.statusOf(id);
+            Task frozen = freeze(subtask);
+            storage.put(subtask);
+            timeIndex.add(subtask);
+            dependencyGraph.addNode(id, subtask.getEpicId(), remainingMinutes(subtask));
+            publishRestored(previous, frozen);
+        }
+        versionRestored(id);
+    }
+
+    // previous == null — задачи до восстановления не было
+    private void publishRestored(TaskStatus previous, Task frozen) {
+        if (previous == null) {
+            publish(TaskEventType.CREATED, frozen);
+            trackCreated(frozen);
+        } else {
+            publishUpdate(previous, frozen);
+        }
+    }
+
+    // Вызывается для каждого id, который undo или redo вернули, изменили или удалили
+    protected void versionRestored(int id) {
+    }
+
+    // Выполняет несколько операций подряд; менеджеры с файлом переопределяют, чтобы сохранить их один раз
+    void runBatch(Runnable operations) {
+        operations.run();
     }
 
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return list(TaskType.SUBTASK, Subtask.class);
+    }
+
+    // Задачи типа для наследников в виде Map: id берутся из таблицы, сами задачи — из хранилища
+    private final class StorageView<T extends Task> extends AbstractMap<Integer, T> {
+        private final TaskType type;
+        private final Class<T> kind;
+
+        StorageView(TaskType type, Class<T> kind) {
+            this.type = type;
+            this.kind = kind;
+        }
+
+        @Override
+        public int size() {
+            return table.size(type);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer id && table.contains(id, type);
+        }
+
+        @Override
+        public T get(Object key) {
+            return containsKey(key) ? kind.cast(storage.get(type, (Integer) key)) : null;
+        }
+
+        @Override
+        public Set<Integer> keySet() {
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (int id : table.ids(type)) {
+                ids.add(id);
+            }
+            return Collections.unmodifiableSet(ids);
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, T>> entrySet() {
+            Set<Map.Entry<Integer, T>> entries = new LinkedHashSet<>();
+            for (int id : table.ids(type)) {
+                entries.add(new SimpleImmutableEntry<>(id, kind.cast(storage.read(type, id))));
+            }
+            return Collections.unmodifiableSet(entries);
+        }
     }
 }
@@ -0,0 +1,55 @@
+package manager;
+
+import metrics.ManagerMetrics;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+// Менеджер поверх встроенной SQL-базы (H2, Derby, SQLite — драйвер выбирается по JDBC URL
+// и должен лежать в classpath). Вся логика — от InMemoryTaskManager; задачи, эпики, подзадачи,
+// история и зависимости хранит JdbcTaskStorage в своих таблицах, поэтому доска не обязана помещаться
+// в память: в ней остаются только компактные индексы, которые строятся по базе при открытии.
+// Каждая операция — одна транзакция. Горячие задачи держатся в LRU-кеше: пока задача в кеше, менеджер
+// отдаёт и меняет тот же объект, что и InMemoryTaskManager. Изменения задач операции и просмотры пишутся
+// в базу пачками.
+// snapshot() собирается из базы за O(n) и без блокировок не читается; undo и asOf недоступны.
+// После ошибки базы транзакция откатывается, но индексы в памяти могут с ней разойтись — такой менеджер
+// нужно открыть заново.
+// Как и InMemoryTaskManager, не потокобезопасен.
+public class JdbcTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final JdbcTaskStorage storage;
+
+    public JdbcTaskManager(String url) {
+        this(open(url), DEFAULT_CACHE_SIZE);
+    }
+
+    // Менеджер забирает соединение себе и закрывает его в close()
+    public JdbcTaskManager(Connection connection, int cacheSize) {
+        this(new JdbcTaskStorage(connection, cacheSize));
+    }
+
+    private JdbcTaskManager(JdbcTaskStorage storage) {
+        super(storage, storage.history(), ManagerMetrics.disabled());
+        this.storage = storage;
+    }
+
+    private static Connection open(String url) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("Не задан JDBC URL");
+        }
+        try {
+            return DriverManager.getConnection(url);
+        } catch (SQLException e) {
+            throw new ManagerSaveException("Не удалось подключиться к базе " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Дописывает отложенные просмотры и закрывает соединение
+    @Override
+    public void close() {
+        storage.close();
+    }
+}
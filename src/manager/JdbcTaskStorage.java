@@ -0,0 +1,717 @@
+package manager;
+
+import history.HistoryManager;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Хранилище JdbcTaskManager: задачи, эпики, подзадачи, история и зависимости в таблицах встроенной
+// SQL-базы. Изменения операции менеджера копятся в транзакции и фиксируются в commit(); задачи, эпики
+// и подзадачи, положенные за операцию, пишутся туда же пачками — по одной на запрос и тип.
+// Горячие задачи держатся в LRU-кеше: пока задача в кеше, менеджер отдаёт и меняет тот же объект.
+// Список подзадач эпика отдельно не хранится — он собирается по epic_id подзадач.
+class JdbcTaskStorage implements TaskStorage {
+    // Сколько просмотров копится перед записью в историю
+    private static final int HISTORY_BATCH = 256;
+    // Строк за одно обращение к базе при чтении потоком
+    private static final int STREAM_FETCH_SIZE = 1024;
+    private static final String TEXT = "VARCHAR(32672)";
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE tasks (id INT PRIMARY KEY, name " + TEXT + ", description " + TEXT
+                    + ", status VARCHAR(16) NOT NULL, start_time TIMESTAMP, end_time TIMESTAMP"
+                    + ", duration_seconds BIGINT)",
+            "CREATE INDEX tasks_start ON tasks (start_time, id)",
+            "CREATE INDEX tasks_end ON tasks (end_time)",
+            "CREATE TABLE epics (id INT PRIMARY KEY, name " + TEXT + ", description " + TEXT
+                    + ", status VARCHAR(16) NOT NULL)",
+            "CREATE TABLE subtasks (id INT PRIMARY KEY, name " + TEXT + ", description " + TEXT
+                    + ", status VARCHAR(16) NOT NULL, start_time TIMESTAMP, end_time TIMESTAMP, duration_seconds BIGINT"
+                    + ", epic_id INT NOT NULL)",
+            "CREATE INDEX subtasks_epic ON subtasks (epic_id)",
+            "CREATE INDEX subtasks_start ON subtasks (start_time, id)",
+            "CREATE INDEX subtasks_end ON subtasks (end_time)",
+            "CREATE TABLE history (task_id INT PRIMARY KEY, viewed_order BIGINT NOT NULL, type VARCHAR(16) NOT NULL"
+                    + ", name " + TEXT + ", description " + TEXT + ", status VARCHAR(16) NOT NULL"
+                    + ", start_time TIMESTAMP, duration_seconds BIGINT, epic_id INT, subtask_ids " + TEXT + ")",
+            "CREATE INDEX history_order ON history (viewed_order)",
+            "CREATE TABLE dependencies (task_id INT NOT NULL, depends_on_id INT NOT NULL"
+                    + ", PRIMARY KEY (task_id, depends_on_id))",
+            "CREATE INDEX dependencies_source ON dependencies (depends_on_id)"
+    };
+
+    // Одинаковый набор столбцов для задач и подзадач, чтобы их можно было читать одним кодом
+    private static final String TASK_ROW = "id, name, description, status, start_time, duration_seconds, 0 AS epic_id";
+    private static final String SUBTASK_ROW = "id, name, description, status, start_time, duration_seconds, epic_id";
+    private static final String ROW_UPDATE = "SET name = ?, description = ?, status = ?, start_time = ?, end_time = ?"
+            + ", duration_seconds = ? WHERE id = ?";
+    private static final String ROW_INSERT = "(name, description, status, start_time, end_time, duration_seconds, id";
+
+    private static final String INSERT_TASK = "INSERT INTO tasks " + ROW_INSERT + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SUBTASK = "INSERT INTO subtasks " + ROW_INSERT
+            + ", epic_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_EPIC = "INSERT INTO epics (name, description, status, id) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_TASK = "UPDATE tasks " + ROW_UPDATE;
+    private static final String UPDATE_SUBTASK = "UPDATE subtasks " + ROW_UPDATE;
+    private static final String UPDATE_EPIC = "UPDATE epics SET name = ?, description = ?, status = ? WHERE id = ?";
+
+    private static final String SELECT_TASK = "SELECT " + TASK_ROW + " FROM tasks WHERE id = ?";
+    private static final String SELECT_SUBTASK = "SELECT " + SUBTASK_ROW + " FROM subtasks WHERE id = ?";
+    private static final String SELECT_EPIC = "SELECT id, name, description, status FROM epics WHERE id = ?";
+    private static final String SELECT_ALL_TASKS = "SELECT " + TASK_ROW + " FROM tasks ORDER BY id";
+    private static final String SELECT_ALL_SUBTASKS = "SELECT " + SUBTASK_ROW + " FROM subtasks ORDER BY id";
+    private static final String SELECT_ALL_EPICS = "SELECT id, name, description, status FROM epics ORDER BY id";
+    private static final String SELECT_EPIC_SUBTASK_IDS = "SELECT id FROM subtasks WHERE epic_id = ? ORDER BY id";
+    private static final String SELECT_ALL_SUBTASK_IDS = "SELECT id, epic_id FROM subtasks ORDER BY id";
+
+    private static final String DELETE_TASK = "DELETE FROM tasks WHERE id = ?";
+    private static final String DELETE_SUBTASK = "DELETE FROM subtasks WHERE id = ?";
+    private static final String DELETE_EPIC = "DELETE FROM epics WHERE id = ?";
+
+    private static final String SELECT_HISTORY = "SELECT task_id, type, name, description, status, start_time"
+            + ", duration_seconds, epic_id, subtask_ids FROM history ORDER BY viewed_order";
+    private static final String COUNT_HISTORY = "SELECT COUNT(*) FROM history";
+    private static final String INSERT_HISTORY = "INSERT INTO history (task_id, viewed_order, type, name, description"
+            + ", status, start_time, duration_seconds, epic_id, subtask_ids) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_HISTORY = "DELETE FROM history WHERE task_id = ?";
+
+    private static final String SELECT_ALL_DEPENDENCIES = "SELECT task_id, depends_on_id FROM dependencies"
+            + " ORDER BY task_id, depends_on_id";
+    private static final String SELECT_DEPENDENCY = "SELECT 1 FROM dependencies WHERE task_id = ?"
+            + " AND depends_on_id = ?";
+    private static final String INSERT_DEPENDENCY = "INSERT INTO dependencies (task_id, depends_on_id) VALUES (?, ?)";
+    private static final String DELETE_DEPENDENCY = "DELETE FROM dependencies WHERE task_id = ? AND depends_on_id = ?";
+    private static final String DELETE_DEPENDENCIES_OF = "DELETE FROM dependencies WHERE task_id = ?"
+            + " OR depends_on_id = ?";
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private final int cacheSize;
+    // Горячие задачи всех типов по id, от давно не читанных к свежим
+    private final LinkedHashMap<Integer, Task> cache;
+    // Положенные за операцию и ещё не записанные задачи: id -> последнее состояние
+    private final LinkedHashMap<Integer, Task> pendingWrites = new LinkedHashMap<>();
+    private final History history = new History();
+
+    // Хранилище забирает соединение себе и закрывает его в close()
+    JdbcTaskStorage(Connection connection, int cacheSize) {
+        if (connection == null) {
+            throw new IllegalArgumentException("Соединение не может быть null");
+        }
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Размер кеша не может быть отрицательным");
+        }
+        this.connection = connection;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > JdbcTaskStorage.this.cacheSize;
+            }
+        };
+        try {
+            connection.setAutoCommit(false);
+            createSchema();
+            history.lastViewOrder = maxOf("SELECT MAX(viewed_order) FROM history");
+            connection.commit();
+        } catch (SQLException e) {
+            throw new ManagerSaveException("Не удалось подготовить базу данных: " + e.getMessage(), e);
+        }
+    }
+
+    // Схема создаётся один раз; таблицы ищем через метаданные, так как CREATE TABLE IF NOT EXISTS есть не везде
+    private void createSchema() throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(null, null, "%", new String[]{"TABLE"})) {
+            while (tables.next()) {
+                if ("tasks".equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.executeUpdate(sql);
+            }
+        }
+    }
+
+    private long maxOf(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            return result.next() ? result.getLong(1) : 0;
+        }
+    }
+
+    // История просмотров в таблице history
+    HistoryManager history() {
+        return history;
+    }
+
+    @FunctionalInterface
+    private interface SqlQuery<R> {
+        R run() throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    private <R> R query(SqlQuery<R> action) {
+        try {
+            return action.run();
+        } catch (SQLException e) {
+            throw failed(e);
+        }
+    }
+
+    private void update(SqlAction action) {
+        query(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Транзакция откатывается вместе с кешем и неотправленными записями: объекты в них могли поменяться
+    // вместе с ней
+    private ManagerSaveException failed(SQLException e) {
+        cache.clear();
+        pendingWrites.clear();
+        try {
+            for (PreparedStatement statement : statements.values()) {
+                statement.clearBatch();
+            }
+            connection.rollback();
+        } catch (SQLException ignored) {
+            // Исходная ошибка важнее
+        }
+        return new ManagerSaveException("Ошибка базы данных: " + e.getMessage(), e);
+    }
+
+    private PreparedStatement statement(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    // Задача из кеша, иначе из базы с записью в кеш
+    @Override
+    public Task get(TaskType type, int id) {
+        Task cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        Task pending = pendingWrites.get(id);
+        if (pending != null) {
+            return pending;
+        }
+        Task loaded = read(type, id);
+        if (loaded != null && cacheSize > 0) {
+            cache.put(id, loaded);
+        }
+        return loaded;
+    }
+
+    // Задача из кеша, иначе из базы; прочитанная в кеш не кладётся, чтобы обход не вытеснил горячие задачи.
+    // Перед чтением из базы туда уходят неотправленные записи: список подзадач эпика собирается по таблице
+    @Override
+    public Task read(TaskType type, int id) {
+        Task cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        Task pending = pendingWrites.get(id);
+        if (pending != null) {
+            return pending;
+        }
+        return query(() -> {
+            flushWrites();
+            PreparedStatement statement = statement(type == TaskType.EPIC ? SELECT_EPIC
+                    : type == TaskType.SUBTASK ? SELECT_SUBTASK : SELECT_TASK);
+            statement.setInt(1, id);
+            Task task;
+            try (ResultSet row = statement.executeQuery()) {
+                if (!row.next()) {
+                    return null;
+                }
+                task = type == TaskType.EPIC ? readEpic(row) : readTimed(row, type == TaskType.SUBTASK);
+            }
+            if (task instanceof Epic epic) {
+                PreparedStatement subtaskIds = statement(SELECT_EPIC_SUBTASK_IDS);
+                subtaskIds.setInt(1, id);
+                try (ResultSet rows = subtaskIds.executeQuery()) {
+                    while (rows.next()) {
+                        epic.addSubtaskId(rows.getInt(1));
+                    }
+                }
+            }
+            return task;
+        });
+    }
+
+    // В базу задача уходит в commit(); положенная за операцию несколько раз пишется один раз
+    @Override
+    public void put(Task task) {
+        pendingWrites.put(task.getId(), task);
+        if (cacheSize > 0) {
+            cache.put(task.getId(), task);
+        }
+    }
+
+    // Неотправленные записи пачками: сначала UPDATE всех задач типа — менеджер кладёт задачу после каждого
+    // изменения, а новые задачи реже, — затем INSERT тех, чьих строк ещё нет
+    private void flushWrites() throws SQLException {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+        for (TaskType type : TaskType.values()) {
+            List<Task> batch = new ArrayList<>();
+            for (Task task : pendingWrites.values()) {
+                if (task.getType() == type) {
+                    batch.add(task);
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            PreparedStatement update = statement(type == TaskType.EPIC ? UPDATE_EPIC
+                    : type == TaskType.SUBTASK ? UPDATE_SUBTASK : UPDATE_TASK);
+            for (Task task : batch) {
+                bind(update, task);
+                update.addBatch();
+            }
+            int[] updated = update.executeBatch();
+            PreparedStatement insert = statement(type == TaskType.EPIC ? INSERT_EPIC
+                    : type == TaskType.SUBTASK ? INSERT_SUBTASK : INSERT_TASK);
+            boolean inserting = false;
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    Task task = batch.get(i);
+                    bind(insert, task);
+                    if (task instanceof Subtask subtask) {
+                        insert.setInt(8, subtask.getEpicId());
+                    }
+                    insert.addBatch();
+                    inserting = true;
+                }
+            }
+            if (inserting) {
+                insert.executeBatch();
+            }
+        }
+        pendingWrites.clear();
+    }
+
+    // Вместе с задачей уходят её зависимости
+    @Override
+    public void remove(TaskType type, int id) {
+        cache.remove(id);
+        pendingWrites.remove(id);
+        update(() -> {
+            PreparedStatement statement = statement(type == TaskType.EPIC ? DELETE_EPIC
+                    : type == TaskType.SUBTASK ? DELETE_SUBTASK : DELETE_TASK);
+            statement.setInt(1, id);
+            statement.executeUpdate();
+            if (type != TaskType.EPIC) {
+                PreparedStatement dependencies = statement(DELETE_DEPENDENCIES_OF);
+                dependencies.setInt(1, id);
+                dependencies.setInt(2, id);
+                dependencies.executeUpdate();
+            }
+        });
+    }
+
+    // Задачи и подзадачи читаются курсором по мере обхода, эпики — списком вместе с id подзадач
+    @Override
+    public Stream<Task> stream(TaskType type) {
+        update(this::flushWrites);
+        if (type == TaskType.EPIC) {
+            return query(this::selectAllEpics).stream().map(this::cached);
+        }
+        boolean subtask = type == TaskType.SUBTASK;
+        return streamRows(subtask ? SELECT_ALL_SUBTASKS : SELECT_ALL_TASKS, row -> cached(readTimed(row, subtask)));
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        update(() -> {
+            PreparedStatement select = statement(SELECT_DEPENDENCY);
+            select.setInt(1, taskId);
+            select.setInt(2, dependsOnId);
+            try (ResultSet row = select.executeQuery()) {
+                if (row.next()) {
+                    return;
+                }
+            }
+            PreparedStatement insert = statement(INSERT_DEPENDENCY);
+            insert.setInt(1, taskId);
+            insert.setInt(2, dependsOnId);
+            insert.executeUpdate();
+        });
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        update(() -> {
+            PreparedStatement statement = statement(DELETE_DEPENDENCY);
+            statement.setInt(1, taskId);
+            statement.setInt(2, dependsOnId);
+            statement.executeUpdate();
+        });
+    }
+
+    @Override
+    public List<int[]> loadDependencies() {
+        return query(() -> {
+            List<int[]> dependencies = new ArrayList<>();
+            try (ResultSet rows = statement(SELECT_ALL_DEPENDENCIES).executeQuery()) {
+                while (rows.next()) {
+                    dependencies.add(new int[]{rows.getInt(1), rows.getInt(2)});
+                }
+            }
+            return dependencies;
+        });
+    }
+
+    @Override
+    public void commit() {
+        update(() -> {
+            flushWrites();
+            connection.commit();
+        });
+    }
+
+    // Дописывает отложенные просмотры и закрывает соединение
+    @Override
+    public void close() {
+        try {
+            update(() -> {
+                flushWrites();
+                history.flush();
+                connection.commit();
+            });
+        } finally {
+            try {
+                for (PreparedStatement statement : statements.values()) {
+                    statement.close();
+                }
+                statements.clear();
+                connection.close();
+            } catch (SQLException e) {
+                throw new ManagerSaveException("Ошибка при закрытии базы данных: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Объект из кеша вместо только что прочитанного, если он там есть; в кеш прочитанное не кладётся
+    private Task cached(Task loaded) {
+        Task cached = cache.get(loaded.getId());
+        return cached != null && cached.getType() == loaded.getType() ? cached : loaded;
+    }
+
+    private List<Epic> selectAllEpics() throws SQLException {
+        Map<Integer, Epic> epics = new LinkedHashMap<>();
+        try (ResultSet rows = statement(SELECT_ALL_EPICS).executeQuery()) {
+            while (rows.next()) {
+                Epic epic = readEpic(rows);
+                epics.put(epic.getId(), epic);
+            }
+        }
+        try (ResultSet rows = statement(SELECT_ALL_SUBTASK_IDS).executeQuery()) {
+            while (rows.next()) {
+                Epic epic = epics.get(rows.getInt(2));
+                if (epic != null) {
+                    epic.addSubtaskId(rows.getInt(1));
+                }
+            }
+        }
+        return new ArrayList<>(epics.values());
+    }
+
+    @FunctionalInterface
+    private interface RowReader<T> {
+        T read(ResultSet row) throws SQLException;
+    }
+
+    // Строки запроса по мере чтения потока. У потока свой курсор: он переживает commit соседних операций,
+    // а база отдаёт строки порциями по STREAM_FETCH_SIZE. Закрытие потока закрывает курсор
+    private <T> Stream<T> streamRows(String sql, RowReader<T> reader) {
+        PreparedStatement statement = null;
+        ResultSet rows;
+        try {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY,
+                    ResultSet.HOLD_CURSORS_OVER_COMMIT);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            rows = statement.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            throw new ManagerSaveException("Ошибка базы данных: " + e.getMessage(), e);
+        }
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rows.next()) {
+                        return false;
+                    }
+                    action.accept(reader.read(rows));
+                    return true;
+                } catch (SQLException e) {
+                    throw new ManagerSaveException("Ошибка базы данных: " + e.getMessage(), e);
+                }
+            }
+        };
+        PreparedStatement opened = statement;
+        return StreamSupport.stream(spliterator, false).onClose(() -> closeQuietly(opened));
+    }
+
+    private static void closeQuietly(Statement statement) {
+        if (statement == null) {
+            return;
+        }
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // Курсор только для чтения: закрыть его не удалось — данным это не вредит
+        }
+    }
+
+    // История просмотров: копии на момент просмотра копятся и пишутся в базу пачками по HISTORY_BATCH
+    private final class History implements HistoryManager {
+        // Просмотры, ещё не записанные в историю: id -> копия на момент просмотра, от давних к свежим
+        private final LinkedHashMap<Integer, Task> pendingViews = new LinkedHashMap<>();
+        private long lastViewOrder;
+
+        @Override
+        public void add(Task task) {
+            if (task == null) {
+                return;
+            }
+            pendingViews.remove(task.getId());
+            pendingViews.put(task.getId(), task.copy());
+            if (pendingViews.size() >= HISTORY_BATCH) {
+                update(() -> {
+                    flush();
+                    connection.commit();
+                });
+            }
+        }
+
+        // Строка удаляется в транзакции операции менеджера, которая удалила задачу
+        @Override
+        public void remove(int id) {
+            pendingViews.remove(id);
+            update(() -> {
+                PreparedStatement statement = statement(DELETE_HISTORY);
+                statement.setInt(1, id);
+                statement.executeUpdate();
+            });
+        }
+
+        @Override
+        public List<Task> getHistory() {
+            try (Stream<Task> history = stream()) {
+                return history.collect(Collectors.toList());
+            }
+        }
+
+        @Override
+        public Stream<Task> stream() {
+            update(() -> {
+                flush();
+                connection.commit();
+            });
+            return streamRows(SELECT_HISTORY, JdbcTaskStorage::readHistory);
+        }
+
+        @Override
+        public int size() {
+            return query(() -> {
+                flush();
+                connection.commit();
+                try (ResultSet row = statement(COUNT_HISTORY).executeQuery()) {
+                    return row.next() ? row.getInt(1) : 0;
+                }
+            });
+        }
+
+        private void flush() throws SQLException {
+            if (pendingViews.isEmpty()) {
+                return;
+            }
+            PreparedStatement delete = statement(DELETE_HISTORY);
+            for (Integer id : pendingViews.keySet()) {
+                delete.setInt(1, id);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+            PreparedStatement insert = statement(INSERT_HISTORY);
+            for (Task task : pendingViews.values()) {
+                insert.setInt(1, task.getId());
+                insert.setLong(2, ++lastViewOrder);
+                insert.setString(3, task.getType().name());
+                insert.setString(4, task.getName());
+                insert.setString(5, task.getDescription());
+                insert.setString(6, statusOf(task).name());
+                if (task instanceof Epic epic) {
+                    setTime(insert, 7, null);
+                    insert.setNull(8, Types.BIGINT);
+                    insert.setNull(9, Types.INTEGER);
+                    insert.setString(10, joinIds(epic.getSubtaskIds()));
+                } else {
+                    setTime(insert, 7, task.getStartTime());
+                    setSeconds(insert, 8, task.getDuration());
+                    if (task instanceof Subtask subtask) {
+                        insert.setInt(9, subtask.getEpicId());
+                    } else {
+                        insert.setNull(9, Types.INTEGER);
+                    }
+                    insert.setNull(10, Types.VARCHAR);
+                }
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            pendingViews.clear();
+        }
+    }
+
+    // Столбцы 1-7 запросов INSERT_TASK/UPDATE_TASK и их аналогов для подзадач
+    private static void bindRow(PreparedStatement statement, Task task) throws SQLException {
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        statement.setString(1, task.getName());
+        statement.setString(2, task.getDescription());
+        statement.setString(3, statusOf(task).name());
+        setTime(statement, 4, start);
+        // У задачи без длительности интервал вырожден: конец совпадает с началом
+        setTime(statement, 5, end != null ? end : start);
+        setSeconds(statement, 6, task.getDuration());
+        statement.setInt(7, task.getId());
+    }
+
+    // Общие столбцы INSERT и UPDATE задачи её типа; epic_id подзадачи в INSERT_SUBTASK ставит вызывающий
+    private static void bind(PreparedStatement statement, Task task) throws SQLException {
+        if (task.getType() == TaskType.EPIC) {
+            bindEpic(statement, task);
+        } else {
+            bindRow(statement, task);
+        }
+    }
+
+    // Столбцы INSERT_EPIC/UPDATE_EPIC
+    private static void bindEpic(PreparedStatement statement, Task epic) throws SQLException {
+        statement.setString(1, epic.getName());
+        statement.setString(2, epic.getDescription());
+        statement.setString(3, statusOf(epic).name());
+        statement.setInt(4, epic.getId());
+    }
+
+    private static Task readTimed(ResultSet row, boolean subtask) throws SQLException {
+        Duration duration = getSeconds(row, 6);
+        Task task = subtask
+                ? new Subtask(row.getString(2), row.getString(3), row.getInt(7), duration, getTime(row, 5))
+                : new Task(row.getString(2), row.getString(3), duration, getTime(row, 5));
+        task.setId(row.getInt(1));
+        task.setStatus(TaskStatus.valueOf(row.getString(4)));
+        return task;
+    }
+
+    private static Epic readEpic(ResultSet row) throws SQLException {
+        Epic epic = new Epic(row.getString(2), row.getString(3));
+        epic.setId(row.getInt(1));
+        epic.setStatus(TaskStatus.valueOf(row.getString(4)));
+        return epic;
+    }
+
+    private static Task readHistory(ResultSet row) throws SQLException {
+        TaskType type = TaskType.valueOf(row.getString(2));
+        Task task;
+        if (type == TaskType.EPIC) {
+            Epic epic = new Epic(row.getString(3), row.getString(4));
+            String subtaskIds = row.getString(9);
+            if (subtaskIds != null && !subtaskIds.isEmpty()) {
+                for (String id : subtaskIds.split(",")) {
+                    epic.addSubtaskId(Integer.parseInt(id));
+                }
+            }
+            task = epic;
+        } else if (type == TaskType.SUBTASK) {
+            task = new Subtask(row.getString(3), row.getString(4), row.getInt(8), getSeconds(row, 7),
+                    getTime(row, 6));
+        } else {
+            task = new Task(row.getString(3), row.getString(4), getSeconds(row, 7), getTime(row, 6));
+        }
+        task.setId(row.getInt(1));
+        task.setStatus(TaskStatus.valueOf(row.getString(5)));
+        return task;
+    }
+
+    private static TaskStatus statusOf(Task task) {
+        return task.getStatus() != null ? task.getStatus() : TaskStatus.NEW;
+    }
+
+    private static String joinIds(List<Integer> ids) {
+        StringBuilder builder = new StringBuilder();
+        for (Integer id : ids) {
+            if (!builder.isEmpty()) {
+                builder.append(',');
+            }
+            builder.append(id);
+        }
+        return builder.toString();
+    }
+
+    private static void setTime(PreparedStatement statement, int index, LocalDateTime time) throws SQLException {
+        if (time == null) {
+            statement.setNull(index, Types.TIMESTAMP);
+        } else {
+            statement.setTimestamp(index, Timestamp.valueOf(time));
+        }
+    }
+
+    private static LocalDateTime getTime(ResultSet row, int index) throws SQLException {
+        Timestamp timestamp = row.getTimestamp(index);
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static void setSeconds(PreparedStatement statement, int index, Duration duration) throws SQLException {
+        if (duration == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, duration.getSeconds());
+        }
+    }
+
+    private static Duration getSeconds(ResultSet row, int index) throws SQLException {
+        long seconds = row.getLong(index);
+        return row.wasNull() ? null : Duration.ofSeconds(seconds);
+    }
+}
@@ -2,6 +2,9 @@ package manager;
 
 import history.HistoryManager;
 import history.InMemoryHistoryManager;
+import metrics.ManagerMetrics;
+
+import java.nio.file.Path;
 
 public final class Managers {
 
@@ -9,6 +12,30 @@ public final class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getDefault(ManagerMetrics metrics) {
+        return new InMemoryTaskManager(metrics);
+    }
+
+    // Хранилище во встроенной базе; драйвер (H2, Derby, SQLite) должен быть в classpath
+    public static JdbcTaskManager getJdbc(String url) {
+        return new JdbcTaskManager(url);
+    }
+
+    // Задачи вне кучи — для досок на миллионы задач
+    public static OffHeapTaskManager getOffHeap() {
+        return new OffHeapTaskManager();
+    }
+
+    // Завершённые задачи выгружаются в рабочий файл coldFile
+    public static TieredTaskManager getTiered(Path coldFile) {
+        return new TieredTaskManager(coldFile);
+    }
+
+    // Доска в страничном файле; сохраняются только изменённые записи
+    public static PagedFileTaskManager getPaged(Path file) {
+        return new PagedFileTaskManager(file);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
@@ -0,0 +1,34 @@
+package manager;
+
+import metrics.ManagerMetrics;
+
+// Менеджер для очень больших досок. Вся логика — от InMemoryTaskManager, а задачи лежат вне кучи
+// в OffHeapTaskStore; индексы менеджера — таблица id, время начала, зависимости — построены на массивах
+// примитивов, так что миллионы задач почти не удлиняют паузы сборщика. Объекты Task собираются
+// из записей при чтении; горячие держатся в LRU-кеше, и пока задача в кеше, менеджер отдаёт и меняет
+// тот же объект, что и InMemoryTaskManager. В куче остаются история просмотров (копии, как
+// у InMemoryTaskManager) и узлы графа только у задач, где заданы зависимости. snapshot() собирается
+// из записей за O(n) и без блокировок не читается; undo и asOf недоступны. Не потокобезопасен.
+public class OffHeapTaskManager extends InMemoryTaskManager {
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private final OffHeapTaskStorage storage;
+
+    public OffHeapTaskManager() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public OffHeapTaskManager(int cacheSize) {
+        this(new OffHeapTaskStorage(cacheSize));
+    }
+
+    private OffHeapTaskManager(OffHeapTaskStorage storage) {
+        super(storage, Managers.getDefaultHistory(), ManagerMetrics.disabled());
+        this.storage = storage;
+    }
+
+    // Память вне кучи, занятая записями и строками
+    public long getOffHeapBytes() {
+        return storage.offHeapBytes();
+    }
+}
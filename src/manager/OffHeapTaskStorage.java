@@ -0,0 +1,77 @@
+package manager;
+
+import task.Task;
+import task.TaskType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Хранилище OffHeapTaskManager: записи вне кучи в OffHeapTaskStore и LRU-кеш горячих задач.
+// Пока задача в кеше, менеджер отдаёт и меняет тот же объект; остальные собираются из записей заново.
+// Список подзадач эпика отдельно не хранится — его держит связка записей подзадач в хранилище.
+class OffHeapTaskStorage implements TaskStorage {
+    private final OffHeapTaskStore store = new OffHeapTaskStore();
+    private final int cacheSize;
+    // Горячие задачи всех типов по id, от давно не читанных к свежим
+    private final LinkedHashMap<Integer, Task> cache;
+
+    OffHeapTaskStorage(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Размер кеша не может быть отрицательным");
+        }
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > OffHeapTaskStorage.this.cacheSize;
+            }
+        };
+    }
+
+    // Память вне кучи, занятая записями и строками
+    long offHeapBytes() {
+        return store.offHeapBytes();
+    }
+
+    @Override
+    public Task get(TaskType type, int id) {
+        Task cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        return remember(store.get(id));
+    }
+
+    // Прочитанная при обходе задача в кеш не кладётся, чтобы не вытеснить горячие
+    @Override
+    public Task read(TaskType type, int id) {
+        Task cached = cache.get(id);
+        return cached != null ? cached : store.get(id);
+    }
+
+    @Override
+    public void put(Task task) {
+        store.put(task);
+        remember(task);
+    }
+
+    // Подзадачи эпика менеджер удаляет раньше него, как того требует OffHeapTaskStore
+    @Override
+    public void remove(TaskType type, int id) {
+        cache.remove(id);
+        store.remove(id);
+    }
+
+    @Override
+    public Stream<Task> stream(TaskType type) {
+        return store.ids(type).mapToObj(id -> read(type, id));
+    }
+
+    private Task remember(Task task) {
+        if (task != null && cacheSize > 0) {
+            cache.put(task.getId(), task);
+        }
+        return task;
+    }
+}
@@ -0,0 +1,625 @@
+package manager;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+// Хранилище задач вне кучи: каждая задача — запись фиксированного размера в прямых буферах,
+// строки лежат в общем пуле без повторов, id -> номер записи — плоский массив int.
+// В куче остаются только массивы примитивов и сами буферы, поэтому миллионы задач почти
+// не нагружают сборщик мусора. Объекты Task создаются заново при каждом чтении.
+// Подзадачи эпика связаны в двусвязный список через свои записи, а эпик хранит счётчики статусов,
+// поэтому статус эпика считается за O(1). Не потокобезопасно.
+public class OffHeapTaskStore {
+    // Раскладка записи
+    private static final int RECORD_SIZE = 64;
+    private static final int ID = 0;
+    private static final int TYPE = 4;
+    private static final int STATUS = 5;
+    private static final int FLAGS = 6;
+    // Эпик подзадачи; у эпика — число подзадач
+    private static final int EPIC = 8;
+    private static final int NAME = 12;
+    private static final int DESCRIPTION = 16;
+    private static final int START_NANOS = 20;
+    private static final int START_SECONDS = 24;
+    private static final int DURATION_SECONDS = 32;
+    private static final int DURATION_NANOS = 40;
+    // Соседи подзадачи в списке эпика; у эпика — первая и последняя подзадачи
+    private static final int PREVIOUS = 44;
+    private static final int NEXT = 48;
+    // Только у эпика: сколько подзадач в статусах NEW и DONE
+    private static final int NEW_COUNT = 52;
+    private static final int DONE_COUNT = 56;
+
+    private static final byte HAS_START = 1;
+    private static final byte HAS_DURATION = 2;
+
+    private static final int RECORDS_PER_CHUNK_BITS = 14;
+    private static final int RECORDS_PER_CHUNK = 1 << RECORDS_PER_CHUNK_BITS;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final List<ByteBuffer> records = new ArrayList<>();
+    private final StringPool strings = new StringPool();
+    // id -> номер записи + 1; 0 — задачи нет
+    private int[] slotById = new int[1024];
+    // Освободившиеся номера записей
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int slotCount;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return slot(id) >= 0;
+    }
+
+    // Тип задачи с данным id или null, если её нет
+    public TaskType typeOf(int id) {
+        int slot = slot(id);
+        return slot < 0 ? null : TYPES[buffer(slot).get(offset(slot) + TYPE)];
+    }
+
+    // Байты вне кучи, занятые записями и пулом строк
+    public long offHeapBytes() {
+        return (long) records.size() * RECORDS_PER_CHUNK * RECORD_SIZE + strings.capacity();
+    }
+
+    // Кладёт задачу с назначенным id: новую или поверх прежней записи того же типа.
+    // Подзадача встаёт в конец списка своего эпика, который уже должен быть в хранилище
+    public void put(Task task) {
+        int id = task.getId();
+        if (id <= 0) {
+            throw new IllegalArgumentException("У задачи должен быть положительный id");
+        }
+        TaskType type = task.getType();
+        int slot = slot(id);
+        if (slot >= 0 && typeOf(id) != type) {
+            throw new IllegalStateException("id " + id + " уже занят задачей другого типа");
+        }
+        boolean created = slot < 0;
+        if (created) {
+            slot = allocateSlot(id);
+        }
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        TaskStatus previousStatus = created ? null : STATUSES[buffer.get(offset + STATUS)];
+        if (!created) {
+            strings.release(buffer.getInt(offset + NAME));
+            strings.release(buffer.getInt(offset + DESCRIPTION));
+        }
+
+        buffer.putInt(offset + ID, id);
+        buffer.put(offset + TYPE, (byte) type.ordinal());
+        buffer.put(offset + STATUS, (byte) statusOf(task).ordinal());
+        buffer.putInt(offset + NAME, strings.intern(task.getName()));
+        buffer.putInt(offset + DESCRIPTION, strings.intern(task.getDescription()));
+        byte flags = 0;
+        if (type != TaskType.EPIC) {
+            LocalDateTime start = task.getStartTime();
+            Duration duration = task.getDuration();
+            if (start != null) {
+                flags |= HAS_START;
+                buffer.putLong(offset + START_SECONDS, start.toEpochSecond(ZoneOffset.UTC));
+                buffer.putInt(offset + START_NANOS, start.getNano());
+            }
+            if (duration != null) {
+                flags |= HAS_DURATION;
+                buffer.putLong(offset + DURATION_SECONDS, duration.getSeconds());
+                buffer.putInt(offset + DURATION_NANOS, duration.getNano());
+            }
+        }
+        buffer.put(offset + FLAGS, flags);
+
+        if (created) {
+            buffer.putInt(offset + EPIC, 0);
+            buffer.putInt(offset + PREVIOUS, 0);
+            buffer.putInt(offset + NEXT, 0);
+            buffer.putInt(offset + NEW_COUNT, 0);
+            buffer.putInt(offset + DONE_COUNT, 0);
+        }
+        if (task instanceof Subtask subtask) {
+            if (created) {
+                link(slot, subtask.getEpicId());
+            }
+            countStatus(buffer.getInt(offset + EPIC), previousStatus, -1);
+            countStatus(buffer.getInt(offset + EPIC), statusOf(task), 1);
+        }
+    }
+
+    public void setStatus(int id, TaskStatus status) {
+        int slot = require(id);
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        if (TYPES[buffer.get(offset + TYPE)] == TaskType.SUBTASK) {
+            int epicId = buffer.getInt(offset + EPIC);
+            countStatus(epicId, STATUSES[buffer.get(offset + STATUS)], -1);
+            countStatus(epicId, status, 1);
+        }
+        buffer.put(offset + STATUS, (byte) status.ordinal());
+    }
+
+    public void setStartTime(int id, LocalDateTime start) {
+        int slot = require(id);
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        byte flags = buffer.get(offset + FLAGS);
+        if (start == null) {
+            buffer.put(offset + FLAGS, (byte) (flags & ~HAS_START));
+            return;
+        }
+        buffer.putLong(offset + START_SECONDS, start.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(offset + START_NANOS, start.getNano());
+        buffer.put(offset + FLAGS, (byte) (flags | HAS_START));
+    }
+
+    // Удаляет задачу; подзадачи удаляемого эпика вызывающий удаляет раньше него
+    public void remove(int id) {
+        int slot = slot(id);
+        if (slot < 0) {
+            return;
+        }
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        if (TYPES[buffer.get(offset + TYPE)] == TaskType.SUBTASK) {
+            countStatus(buffer.getInt(offset + EPIC), STATUSES[buffer.get(offset + STATUS)], -1);
+            unlink(slot);
+        }
+        strings.release(buffer.getInt(offset + NAME));
+        strings.release(buffer.getInt(offset + DESCRIPTION));
+        slotById[id] = 0;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    public void clear() {
+        records.clear();
+        strings.clear();
+        slotById = new int[1024];
+        freeCount = 0;
+        slotCount = 0;
+        size = 0;
+    }
+
+    // Новый объект задачи из записи; null, если задачи нет
+    public Task get(int id) {
+        int slot = slot(id);
+        if (slot < 0) {
+            return null;
+        }
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        String name = strings.read(buffer.getInt(offset + NAME));
+        String description = strings.read(buffer.getInt(offset + DESCRIPTION));
+        Task task = switch (TYPES[buffer.get(offset + TYPE)]) {
+            case EPIC -> {
+                Epic epic = new Epic(name, description);
+                forEachSubtask(id, epic::addSubtaskId);
+                yield epic;
+            }
+            case SUBTASK -> new Subtask(name, description, buffer.getInt(offset + EPIC), durationOf(buffer, offset),
+                    startOf(buffer, offset));
+            case TASK -> new Task(name, description, durationOf(buffer, offset), startOf(buffer, offset));
+        };
+        task.setId(id);
+        task.setStatus(STATUSES[buffer.get(offset + STATUS)]);
+        return task;
+    }
+
+    // Поля записи без создания объекта задачи
+    public TaskStatus getStatus(int id) {
+        int slot = require(id);
+        return STATUSES[buffer(slot).get(offset(slot) + STATUS)];
+    }
+
+    public int getEpicId(int id) {
+        int slot = require(id);
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        return TYPES[buffer.get(offset + TYPE)] == TaskType.SUBTASK ? buffer.getInt(offset + EPIC) : 0;
+    }
+
+    public LocalDateTime getStartTime(int id) {
+        int slot = require(id);
+        return startOf(buffer(slot), offset(slot));
+    }
+
+    public Duration getDuration(int id) {
+        int slot = require(id);
+        return durationOf(buffer(slot), offset(slot));
+    }
+
+    public LocalDateTime getEndTime(int id) {
+        int slot = require(id);
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        LocalDateTime start = startOf(buffer, offset);
+        Duration duration = durationOf(buffer, offset);
+        return start == null || duration == null ? null : start.plus(duration);
+    }
+
+    public int getSubtaskCount(int epicId) {
+        int slot = require(epicId);
+        return buffer(slot).getInt(offset(slot) + EPIC);
+    }
+
+    // Статус эпика по счётчикам его подзадач — то же правило, что у InMemoryTaskManager
+    public TaskStatus calculateEpicStatus(int epicId) {
+        int slot = require(epicId);
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        int total = buffer.getInt(offset + EPIC);
+        if (total == buffer.getInt(offset + NEW_COUNT)) {
+            return TaskStatus.NEW;
+        }
+        if (total == buffer.getInt(offset + DONE_COUNT)) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    // Подзадачи эпика в порядке добавления
+    public void forEachSubtask(int epicId, IntConsumer action) {
+        int slot = slot(epicId);
+        if (slot < 0) {
+            return;
+        }
+        int id = buffer(slot).getInt(offset(slot) + PREVIOUS);
+        while (id != 0) {
+            action.accept(id);
+            int next = slot(id);
+            id = buffer(next).getInt(offset(next) + NEXT);
+        }
+    }
+
+    // Задачи данного типа в порядке возрастания id
+    public void forEach(TaskType type, IntConsumer action) {
+        for (int id = 1; id < slotById.length; id++) {
+            int slot = slotById[id] - 1;
+            if (slot >= 0 && TYPES[buffer(slot).get(offset(slot) + TYPE)] == type) {
+                action.accept(id);
+            }
+        }
+    }
+
+    // Как forEach, но лениво: id выдаются по мере чтения потока
+    public IntStream ids(TaskType type) {
+        return IntStream.range(1, slotById.length).filter(id -> {
+            int slot = slotById[id] - 1;
+            return slot >= 0 && TYPES[buffer(slot).get(offset(slot) + TYPE)] == type;
+        });
+    }
+
+    private void link(int slot, int epicId) {
+        int epicSlot = slot(epicId);
+        if (epicSlot < 0 || typeOf(epicId) != TaskType.EPIC) {
+            throw new IllegalStateException("Эпик " + epicId + " не найден");
+        }
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        ByteBuffer epic = buffer(epicSlot);
+        int epicOffset = offset(epicSlot);
+        int id = buffer.getInt(offset + ID);
+        int last = epic.getInt(epicOffset + NEXT);
+        buffer.putInt(offset + EPIC, epicId);
+        buffer.putInt(offset + PREVIOUS, last);
+        buffer.putInt(offset + NEXT, 0);
+        if (last == 0) {
+            epic.putInt(epicOffset + PREVIOUS, id);
+        } else {
+            int lastSlot = slot(last);
+            buffer(lastSlot).putInt(offset(lastSlot) + NEXT, id);
+        }
+        epic.putInt(epicOffset + NEXT, id);
+        epic.putInt(epicOffset + EPIC, epic.getInt(epicOffset + EPIC) + 1);
+    }
+
+    private void unlink(int slot) {
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        int epicSlot = slot(buffer.getInt(offset + EPIC));
+        if (epicSlot < 0) {
+            return;
+        }
+        ByteBuffer epic = buffer(epicSlot);
+        int epicOffset = offset(epicSlot);
+        int previous = buffer.getInt(offset + PREVIOUS);
+        int next = buffer.getInt(offset + NEXT);
+        if (previous == 0) {
+            epic.putInt(epicOffset + PREVIOUS, next);
+        } else {
+            int previousSlot = slot(previous);
+            buffer(previousSlot).putInt(offset(previousSlot) + NEXT, next);
+        }
+        if (next == 0) {
+            epic.putInt(epicOffset + NEXT, previous);
+        } else {
+            int nextSlot = slot(next);
+            buffer(nextSlot).putInt(offset(nextSlot) + PREVIOUS, previous);
+        }
+        epic.putInt(epicOffset + EPIC, epic.getInt(epicOffset + EPIC) - 1);
+    }
+
+    private void countStatus(int epicId, TaskStatus status, int delta) {
+        int slot = slot(epicId);
+        if (slot < 0 || status == null) {
+            return;
+        }
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        if (status == TaskStatus.NEW) {
+            buffer.putInt(offset + NEW_COUNT, buffer.getInt(offset + NEW_COUNT) + delta);
+        } else if (status == TaskStatus.DONE) {
+            buffer.putInt(offset + DONE_COUNT, buffer.getInt(offset + DONE_COUNT) + delta);
+        }
+    }
+
+    private int allocateSlot(int id) {
+        if (id >= slotById.length) {
+            slotById = Arrays.copyOf(slotById, Math.max(slotById.length * 2, id + 1));
+        }
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            if (slot >>> RECORDS_PER_CHUNK_BITS == records.size()) {
+                records.add(ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * RECORD_SIZE));
+            }
+        }
+        slotById[id] = slot + 1;
+        size++;
+        return slot;
+    }
+
+    private int slot(int id) {
+        return id > 0 && id < slotById.length ? slotById[id] - 1 : -1;
+    }
+
+    private int require(int id) {
+        int slot = slot(id);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Задача " + id + " не найдена");
+        }
+        return slot;
+    }
+
+    private ByteBuffer buffer(int slot) {
+        return records.get(slot >>> RECORDS_PER_CHUNK_BITS);
+    }
+
+    private static int offset(int slot) {
+        return (slot & (RECORDS_PER_CHUNK - 1)) * RECORD_SIZE;
+    }
+
+    private static LocalDateTime startOf(ByteBuffer buffer, int offset) {
+        if ((buffer.get(offset + FLAGS) & HAS_START) == 0) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(buffer.getLong(offset + START_SECONDS), buffer.getInt(offset + START_NANOS),
+                ZoneOffset.UTC);
+    }
+
+    private static Duration durationOf(ByteBuffer buffer, int offset) {
+        if ((buffer.get(offset + FLAGS) & HAS_DURATION) == 0) {
+            return null;
+        }
+        return Duration.ofSeconds(buffer.getLong(offset + DURATION_SECONDS), buffer.getInt(offset + DURATION_NANOS));
+    }
+
+    private static TaskStatus statusOf(Task task) {
+        return task.getStatus() != null ? task.getStatus() : TaskStatus.NEW;
+    }
+
+    // Пул строк со счётчиком ссылок: одинаковые имена и описания хранятся один раз.
+    // Запись строки: счётчик ссылок, хеш, длина в байтах, UTF-8. Место выделяется блоками
+    // степени двойки; освобождённые блоки переиспользуются для строк того же размера.
+    // Ссылка — номер буфера и смещение в нём в единицах по 16 байт; -1 — null
+    private static final class StringPool {
+        private static final int CHUNK_BITS = 22;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+        private static final int UNIT_BITS = 4;
+        private static final int OFFSET_BITS = CHUNK_BITS - UNIT_BITS;
+        private static final int HEADER = 12;
+
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private int position = CHUNK_SIZE;
+        // Головы списков свободных блоков по степени двойки размера (ссылка + 1)
+        private final int[] freeBlocks = new int[32];
+        // Открытая адресация по хешу строки; ссылка + 1, 0 — пусто
+        private int[] table = new int[1024];
+        private int count;
+        private long capacity;
+
+        long capacity() {
+            return capacity;
+        }
+
+        void clear() {
+            chunks.clear();
+            position = CHUNK_SIZE;
+            Arrays.fill(freeBlocks, 0);
+            table = new int[1024];
+            count = 0;
+            capacity = 0;
+        }
+
+        int intern(String value) {
+            if (value == null) {
+                return -1;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int hash = Arrays.hashCode(bytes);
+            int mask = table.length - 1;
+            for (int index = home(hash, mask); table[index] != 0; index = (index + 1) & mask) {
+                int ref = table[index] - 1;
+                if (equalTo(ref, hash, bytes)) {
+                    ByteBuffer buffer = chunk(ref);
+                    int offset = offset(ref);
+                    buffer.putInt(offset, buffer.getInt(offset) + 1);
+                    return ref;
+                }
+            }
+            int ref = allocate(HEADER + bytes.length);
+            ByteBuffer buffer = chunk(ref);
+            int offset = offset(ref);
+            buffer.putInt(offset, 1);
+            buffer.putInt(offset + 4, hash);
+            buffer.putInt(offset + 8, bytes.length);
+            buffer.put(offset + HEADER, bytes);
+            if (++count * 2 > table.length) {
+                resize();
+            }
+            insert(ref, hash);
+            return ref;
+        }
+
+        String read(int ref) {
+            if (ref < 0) {
+                return null;
+            }
+            ByteBuffer buffer = chunk(ref);
+            int offset = offset(ref);
+            byte[] bytes = new byte[buffer.getInt(offset + 8)];
+            buffer.get(offset + HEADER, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void release(int ref) {
+            if (ref < 0) {
+                return;
+            }
+            ByteBuffer buffer = chunk(ref);
+            int offset = offset(ref);
+            int references = buffer.getInt(offset) - 1;
+            buffer.putInt(offset, references);
+            if (references > 0) {
+                return;
+            }
+            remove(ref, buffer.getInt(offset + 4));
+            count--;
+            int bucket = bucket(HEADER + buffer.getInt(offset + 8));
+            buffer.putInt(offset, freeBlocks[bucket]);
+            freeBlocks[bucket] = ref + 1;
+        }
+
+        private boolean equalTo(int ref, int hash, byte[] bytes) {
+            ByteBuffer buffer = chunk(ref);
+            int offset = offset(ref);
+            if (buffer.getInt(offset + 4) != hash || buffer.getInt(offset + 8) != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (buffer.get(offset + HEADER + i) != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int allocate(int length) {
+            int bucket = bucket(length);
+            if (freeBlocks[bucket] != 0) {
+                int ref = freeBlocks[bucket] - 1;
+                freeBlocks[bucket] = chunk(ref).getInt(offset(ref));
+                return ref;
+            }
+            int blockSize = 1 << bucket;
+            if (blockSize > CHUNK_SIZE) {
+                // Очень длинная строка получает собственный буфер; следующий короткий блок
+                // не должен попасть в него, поэтому текущий кусок считается заполненным
+                chunks.add(ByteBuffer.allocateDirect(blockSize));
+                capacity += blockSize;
+                position = CHUNK_SIZE;
+                return (chunks.size() - 1) << OFFSET_BITS;
+            }
+            if (position + blockSize > CHUNK_SIZE) {
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+                capacity += CHUNK_SIZE;
+                position = 0;
+            }
+            int ref = (chunks.size() - 1) << OFFSET_BITS | position >>> UNIT_BITS;
+            position += blockSize;
+            return ref;
+        }
+
+        // Блоки не меньше 16 байт, чтобы смещение делилось на единицу адресации
+        private static int bucket(int length) {
+            return Math.max(UNIT_BITS, 32 - Integer.numberOfLeadingZeros(length - 1));
+        }
+
+        private void insert(int ref, int hash) {
+            int mask = table.length - 1;
+            int index = home(hash, mask);
+            while (table[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            table[index] = ref + 1;
+        }
+
+        // Удаление со сдвигом назад, чтобы цепочки проб не рвались
+        private void remove(int ref, int hash) {
+            int mask = table.length - 1;
+            int index = home(hash, mask);
+            while (table[index] != ref + 1) {
+                index = (index + 1) & mask;
+            }
+            int next = (index + 1) & mask;
+            while (table[next] != 0) {
+                int home = home(chunk(table[next] - 1).getInt(offset(table[next] - 1) + 4), mask);
+                // Запись можно сдвинуть в дыру, если её цепочка проходит через дыру
+                if (((next - home) & mask) >= ((next - index) & mask)) {
+                    table[index] = table[next];
+                    index = next;
+                }
+                next = (next + 1) & mask;
+            }
+            table[index] = 0;
+        }
+
+        // Хеши похожих строк ("Задача 1", "Задача 2") идут подряд; перемешиваем, чтобы цепочки проб не слипались
+        private static int home(int hash, int mask) {
+            int mixed = hash * 0x9E3779B9;
+            return (mixed ^ (mixed >>> 16)) & mask;
+        }
+
+        private void resize() {
+            int[] old = table;
+            table = new int[old.length * 2];
+            for (int entry : old) {
+                if (entry != 0) {
+                    insert(entry - 1, chunk(entry - 1).getInt(offset(entry - 1) + 4));
+                }
+            }
+        }
+
+        private ByteBuffer chunk(int ref) {
+            return chunks.get(ref >>> OFFSET_BITS);
+        }
+
+        private static int offset(int ref) {
+            return (ref & ((1 << OFFSET_BITS) - 1)) << UNIT_BITS;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package manager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+// Упорядоченный по (время начала, id) набор id на массивах примитивов — без объекта на запись.
+// Ключи лежат отсортированными блоками по BLOCK_SIZE: вставка и удаление сдвигают только один блок,
+// а нужный блок ищется двоичным поиском. Сами интервалы индекс не хранит: концы вызывающий
+// берёт из своего хранилища. Время переводится в секунды и наносекунды без учёта часового пояса.
+public class PackedTimeIndex {
+    private static final int BLOCK_SIZE = 256;
+
+    private static final class Block {
+        final long[] seconds = new long[BLOCK_SIZE];
+        final int[] nanos = new int[BLOCK_SIZE];
+        final int[] ids = new int[BLOCK_SIZE];
+        int size;
+
+        int compare(int index, long keySeconds, int keyNanos, int keyId) {
+            int result = Long.compare(seconds[index], keySeconds);
+            if (result == 0) {
+                result = Integer.compare(nanos[index], keyNanos);
+            }
+            return result != 0 ? result : Integer.compare(ids[index], keyId);
+        }
+
+        // Первая позиция с ключом не меньше заданного
+        int lowerBound(long keySeconds, int keyNanos, int keyId) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(middle, keySeconds, keyNanos, keyId) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final List<Block> blocks = new ArrayList<>();
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        blocks.clear();
+        size = 0;
+    }
+
+    public void add(int id, LocalDateTime start) {
+        long seconds = start.toEpochSecond(ZoneOffset.UTC);
+        int nanos = start.getNano();
+        if (blocks.isEmpty()) {
+            Block block = new Block();
+            block.seconds[0] = seconds;
+            block.nanos[0] = nanos;
+            block.ids[0] = id;
+            block.size = 1;
+            blocks.add(block);
+            size++;
+            return;
+        }
+        int blockIndex = Math.min(blockFor(seconds, nanos, id), blocks.size() - 1);
+        Block block = blocks.get(blockIndex);
+        int position = block.lowerBound(seconds, nanos, id);
+        if (position < block.size && block.compare(position, seconds, nanos, id) == 0) {
+            return;
+        }
+        if (block.size == BLOCK_SIZE) {
+            // Полный блок делится пополам, ключ уходит в ту половину, куда попадает по порядку
+            Block upper = new Block();
+            int half = BLOCK_SIZE / 2;
+            System.arraycopy(block.seconds, half, upper.seconds, 0, half);
+            System.arraycopy(block.nanos, half, upper.nanos, 0, half);
+            System.arraycopy(block.ids, half, upper.ids, 0, half);
+            upper.size = half;
+            block.size = half;
+            blocks.add(blockIndex + 1, upper);
+            if (position > half) {
+                block = upper;
+                position -= half;
+            }
+        }
+        int tail = block.size - position;
+        System.arraycopy(block.seconds, position, block.seconds, position + 1, tail);
+        System.arraycopy(block.nanos, position, block.nanos, position + 1, tail);
+        System.arraycopy(block.ids, position, block.ids, position + 1, tail);
+        block.seconds[position] = seconds;
+        block.nanos[position] = nanos;
+        block.ids[position] = id;
+        block.size++;
+        size++;
+    }
+
+    // Ключ ищется по прежнему времени начала, поэтому вызывающий удаляет запись до изменения задачи
+    public boolean remove(int id, LocalDateTime start) {
+        long seconds = start.toEpochSecond(ZoneOffset.UTC);
+        int nanos = start.getNano();
+        int blockIndex = blockFor(seconds, nanos, id);
+        if (blockIndex == blocks.size()) {
+            return false;
+        }
+        Block block = blocks.get(blockIndex);
+        int position = block.lowerBound(seconds, nanos, id);
+        if (position == block.size || block.compare(position, seconds, nanos, id) != 0) {
+            return false;
+        }
+        int tail = block.size - position - 1;
+        System.arraycopy(block.seconds, position + 1, block.seconds, position, tail);
+        System.arraycopy(block.nanos, position + 1, block.nanos, position, tail);
+        System.arraycopy(block.ids, position + 1, block.ids, position, tail);
+        block.size--;
+        if (block.size == 0) {
+            blocks.remove(blockIndex);
+        }
+        size--;
+        return true;
+    }
+
+    // id в порядке времени начала, начиная с from включительно, пока action возвращает true
+    public void forEachFrom(LocalDateTime from, IntPredicate action) {
+        scan(from, null, action);
+    }
+
+    // id, начинающиеся в [from, to), в порядке времени начала
+    public void forEachBetween(LocalDateTime from, LocalDateTime to, IntPredicate action) {
+        scan(from, to, action);
+    }
+
+    // id, начавшиеся строго раньше before, от поздних к ранним, пока action возвращает true
+    public void forEachBefore(LocalDateTime before, IntPredicate action) {
+        long seconds = before.toEpochSecond(ZoneOffset.UTC);
+        int nanos = before.getNano();
+        int blockIndex = Math.min(blockFor(seconds, nanos, Integer.MIN_VALUE), blocks.size() - 1);
+        if (blockIndex < 0) {
+            return;
+        }
+        int position = blocks.get(blockIndex).lowerBound(seconds, nanos, Integer.MIN_VALUE) - 1;
+        for (; blockIndex >= 0; blockIndex--) {
+            Block block = blocks.get(blockIndex);
+            if (position >= block.size) {
+                position = block.size - 1;
+            }
+            for (; position >= 0; position--) {
+                if (!action.test(block.ids[position])) {
+                    return;
+                }
+            }
+            position = BLOCK_SIZE;
+        }
+    }
+
+    // Все id в порядке времени начала
+    public void forEach(IntPredicate action) {
+        for (Block block : blocks) {
+            for (int i = 0; i < block.size; i++) {
+                if (!action.test(block.ids[i])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Все id в порядке времени начала, лениво; дочитывается до следующего изменения индекса
+    public IntStream ids() {
+        return blocks.stream().flatMapToInt(block -> Arrays.stream(block.ids, 0, block.size));
+    }
+
+    private void scan(LocalDateTime from, LocalDateTime to, IntPredicate action) {
+        long seconds = from.toEpochSecond(ZoneOffset.UTC);
+        int nanos = from.getNano();
+        long toSeconds = to != null ? to.toEpochSecond(ZoneOffset.UTC) : Long.MAX_VALUE;
+        int toNanos = to != null ? to.getNano() : Integer.MAX_VALUE;
+        int blockIndex = blockFor(seconds, nanos, Integer.MIN_VALUE);
+        if (blockIndex == blocks.size()) {
+            return;
+        }
+        int position = blocks.get(blockIndex).lowerBound(seconds, nanos, Integer.MIN_VALUE);
+        for (; blockIndex < blocks.size(); blockIndex++) {
+            Block block = blocks.get(blockIndex);
+            for (; position < block.size; position++) {
+                if (block.compare(position, toSeconds, toNanos, Integer.MIN_VALUE) >= 0) {
+                    return;
+                }
+                if (!action.test(block.ids[position])) {
+                    return;
+                }
+            }
+            position = 0;
+        }
+    }
+
+    // Первый блок, последний ключ которого не меньше заданного; blocks.size(), если такого нет
+    private int blockFor(long seconds, int nanos, int id) {
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            Block block = blocks.get(middle);
+            if (block.compare(block.size - 1, seconds, nanos, id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,359 @@
+package manager;
+
+import metrics.ManagerMetrics;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Как FileBackedTaskManager сохраняется после каждой операции, но пишет не всю доску, а только
+// изменённые с прошлого сохранения записи — в страничный файл PagedTaskStore. Стоимость сохранения
+// пропорциональна числу изменений, а не размеру доски. История хранится не списком, а номером
+// последнего просмотра в записи самой задачи, поэтому просмотр тоже переписывает одну запись;
+// зависимости задачи — тоже в её записи. Класс закрыт для наследования: конструктор загружает доску
+// через методы, которые подкласс мог бы переопределить.
+public final class PagedFileTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private final PagedTaskStore store;
+    // id, изменённые с прошлого сохранения; отсутствующие в менеджере удаляются из файла
+    private final Set<Integer> dirty = new HashSet<>();
+    // id -> номер последнего просмотра
+    private final Map<Integer, Long> viewStamps = new HashMap<>();
+    private long lastViewStamp;
+    // Во время загрузки просмотры восстанавливают историю и ничего не пишут
+    private boolean loading;
+    // Внутри runBatch изменения копятся в dirty и пишутся одним save() в конце
+    private int batchDepth;
+
+    public PagedFileTaskManager(Path file) {
+        this(file, ManagerMetrics.disabled());
+    }
+
+    // Открывает файл и загружает из него доску; файла нет — доска пуста
+    public PagedFileTaskManager(Path file, ManagerMetrics metrics) {
+        super(metrics);
+        this.store = new PagedTaskStore(file);
+        load();
+        if (metrics.isEnabled()) {
+            metrics.registerGauge("file.bytes", store::getFileBytes);
+            metrics.registerGauge("file.liveBytes", store::getLiveBytes);
+            metrics.registerGauge("file.compactions", store::getCompactionCount);
+        }
+    }
+
+    private void load() {
+        loading = true;
+        try {
+            List<Task> loadedTasks = new ArrayList<>();
+            List<Subtask> loadedSubtasks = new ArrayList<>();
+            List<PagedTaskStore.Stored> viewed = new ArrayList<>();
+            List<PagedTaskStore.Stored> dependent = new ArrayList<>();
+            store.forEachId(id -> {
+                PagedTaskStore.Stored stored = store.read(id);
+                if (!stored.dependencies().isEmpty()) {
+                    dependent.add(stored);
+                }
+                if (stored.task() instanceof Subtask subtask) {
+                    loadedSubtasks.add(subtask);
+                } else {
+                    loadedTasks.add(stored.task());
+                }
+                if (stored.viewStamp() > 0) {
+                    viewed.add(stored);
+                }
+            });
+            // Эпик должен быть восстановлен раньше своих подзадач
+            loadedTasks.addAll(loadedSubtasks);
+            restoreTasks(loadedTasks);
+            // Запись зависимой задачи не переписывается при удалении той, от которой она зависела:
+            // такие id пропускаются
+            for (PagedTaskStore.Stored stored : dependent) {
+                for (int dependsOnId : stored.dependencies()) {
+                    if (stored(dependsOnId) != null) {
+                        dependencyGraph.addEdge(dependsOnId, stored.task().getId());
+                    }
+                }
+            }
+            viewed.sort(Comparator.comparingLong(PagedTaskStore.Stored::viewStamp));
+            for (PagedTaskStore.Stored stored : viewed) {
+                int id = stored.task().getId();
+                switch (stored.task().getType()) {
+                    case TASK -> super.getTaskById(id);
+                    case EPIC -> super.getEpicById(id);
+                    case SUBTASK -> super.getSubtaskById(id);
+                }
+                viewStamps.put(id, stored.viewStamp());
+                lastViewStamp = stored.viewStamp();
+            }
+        } finally {
+            loading = false;
+        }
+    }
+
+    // Записывает изменённые с прошлого вызова записи
+    public void save() {
+        if (dirty.isEmpty() || batchDepth > 0) {
+            return;
+        }
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        long before = store.getBytesWritten();
+        for (int id : dirty) {
+            Task task = stored(id);
+            if (task != null) {
+                store.write(task, viewStamps.getOrDefault(id, 0L), dependencyGraph.getDependencies(id));
+            } else {
+                store.remove(id);
+                viewStamps.remove(id);
+            }
+        }
+        dirty.clear();
+        store.maybeCompact();
+        if (metrics.isEnabled()) {
+            metrics.recordSave(store.getBytesWritten() - before, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    void runBatch(Runnable operations) {
+        batchDepth++;
+        try {
+            operations.run();
+        } finally {
+            if (--batchDepth == 0) {
+                save();
+            }
+        }
+    }
+
+    // Число записей в файле и его размер — для тестов и метрик
+    public int getStoredCount() {
+        return store.size();
+    }
+
+    public long getFileBytes() {
+        return store.getFileBytes();
+    }
+
+    public long getBytesWritten() {
+        return store.getBytesWritten();
+    }
+
+    // Сохраняет несохранённое, дожидается фонового уплотнения и закрывает файл
+    @Override
+    public void close() {
+        try {
+            save();
+        } finally {
+            store.close();
+        }
+    }
+
+    private Task stored(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    private void markViewed(Task task) {
+        if (task == null || loading) {
+            return;
+        }
+        viewStamps.put(task.getId(), ++lastViewStamp);
+        dirty.add(task.getId());
+        save();
+    }
+
+    @Override
+    public void createTask(Task task) {
+        super.createTask(task);
+        dirty.add(task.getId());
+        save();
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        super.createEpic(epic);
+        dirty.add(epic.getId());
+        save();
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        super.createSubtask(subtask);
+        if (subtasks.get(subtask.getId()) == subtask) {
+            dirty.add(subtask.getId());
+            dirty.add(subtask.getEpicId());
+        }
+        save();
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        super.updateTask(task);
+        dirty.add(task.getId());
+        save();
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        super.updateEpic(epic);
+        dirty.add(epic.getId());
+        save();
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        super.updateSubtask(subtask);
+        dirty.add(subtask.getId());
+        dirty.add(subtask.getEpicId());
+        save();
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        super.deleteTaskById(id);
+        dirty.add(id);
+        save();
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        Epic epic = epics.get(id);
+        if (epic != null) {
+            dirty.addAll(epic.getSubtaskIds());
+        }
+        super.deleteEpicById(id);
+        dirty.add(id);
+        save();
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            dirty.add(subtask.getEpicId());
+        }
+        super.deleteSubtaskById(id);
+        dirty.add(id);
+        save();
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        dirty.addAll(tasks.keySet());
+        super.deleteAllTasks();
+        save();
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        dirty.addAll(epics.keySet());
+        dirty.addAll(subtasks.keySet());
+        super.deleteAllEpics();
+        save();
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        dirty.addAll(subtasks.keySet());
+        dirty.addAll(epics.keySet());
+        super.deleteAllSubtasks();
+        save();
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        super.addDependency(taskId, dependsOnId);
+        dirty.add(taskId);
+        save();
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        super.removeDependency(taskId, dependsOnId);
+        dirty.add(taskId);
+        save();
+    }
+
+    @Override
+    public List<Task> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from, LocalDateTime to,
+                                          Comparator<? super Task> priority) {
+        List<Task> placed = super.scheduleUnscheduled(workingHours, from, to, priority);
+        for (Task task : placed) {
+            dirty.add(task.getId());
+        }
+        save();
+        return placed;
+    }
+
+    @Override
+    public boolean undo() {
+        boolean undone = super.undo();
+        save();
+        return undone;
+    }
+
+    @Override
+    public boolean redo() {
+        boolean redone = super.redo();
+        save();
+        return redone;
+    }
+
+    // undo и redo сообщают о каждом затронутом id: переписываются только они
+    @Override
+    protected void versionRestored(int id) {
+        dirty.add(id);
+    }
+
+    @Override
+    public int archiveDoneEpics(EpicArchive archive, Duration retention) {
+        List<Integer> before = new ArrayList<>(epics.keySet());
+        before.addAll(subtasks.keySet());
+        int archived = super.archiveDoneEpics(archive, retention);
+        if (archived > 0) {
+            for (int id : before) {
+                if (!epics.containsKey(id) && !subtasks.containsKey(id)) {
+                    dirty.add(id);
+                }
+            }
+            save();
+        }
+        return archived;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = super.getTaskById(id);
+        markViewed(task);
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = super.getEpicById(id);
+        markViewed(epic);
+        return epic;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = super.getSubtaskById(id);
+        markViewed(subtask);
+        return subtask;
+    }
+}
@@ -0,0 +1,574 @@
+package manager;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+// Файл доски из страниц по PAGE_SIZE байт, разбитых на ячейки; в ячейке одна запись задачи.
+// Заголовок ячейки: [вместимость][длина записи, -1 — ячейка свободна][id][crc32][номер записи].
+// Запись меньше PAGE_SIZE не пересекает границу страницы. id -> смещение ячейки держится в памяти
+// и при открытии строится проходом по файлу: из нескольких ячеек одного id побеждает с большим номером,
+// ячейки с неверной crc (оборванная запись) пропускаются. Изменённая запись переписывается на месте,
+// если помещается в свою ячейку, иначе дописывается в новую в конце файла, а старая освобождается.
+// Когда свободного места больше, чем живого, фоновый поток переносит живые ячейки в новый файл;
+// записи, изменённые за время переноса, досылаются в него при завершении, и новый файл занимает
+// место старого. Кроме фонового переноса, методы вызываются из одного потока.
+public class PagedTaskStore implements AutoCloseable {
+    public static final int PAGE_SIZE = 4096;
+    // Мелкие файлы не уплотняем: переписывать их дороже, чем держать свободные ячейки
+    private static final long COMPACT_MIN_BYTES = 1 << 20;
+    private static final int HEADER = 24;
+    private static final int ALIGNMENT = 16;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    // Запись вместе с порядковым номером просмотра (0 — задачу не просматривали) и id задач,
+    // от которых она зависит
+    public record Stored(Task task, long viewStamp, List<Integer> dependencies) {
+    }
+
+    // Положение живых ячеек: id -> смещение + 1 и вместимость
+    private static final class Layout {
+        long[] offsets = new long[1024];
+        int[] capacities = new int[1024];
+        long fileBytes;
+        long liveBytes;
+        int size;
+
+        boolean contains(int id) {
+            return id > 0 && id < offsets.length && offsets[id] != 0;
+        }
+
+        void put(int id, long offset, int capacity) {
+            if (id >= offsets.length) {
+                int length = Math.max(offsets.length * 2, id + 1);
+                offsets = Arrays.copyOf(offsets, length);
+                capacities = Arrays.copyOf(capacities, length);
+            }
+            if (offsets[id] == 0) {
+                size++;
+            } else {
+                liveBytes -= HEADER + capacities[id];
+            }
+            offsets[id] = offset + 1;
+            capacities[id] = capacity;
+            liveBytes += HEADER + capacity;
+        }
+
+        void remove(int id) {
+            if (contains(id)) {
+                liveBytes -= HEADER + capacities[id];
+                offsets[id] = 0;
+                size--;
+            }
+        }
+
+        Layout copy() {
+            Layout copy = new Layout();
+            copy.offsets = offsets.clone();
+            copy.capacities = capacities.clone();
+            copy.fileBytes = fileBytes;
+            copy.liveBytes = liveBytes;
+            copy.size = size;
+            return copy;
+        }
+    }
+
+    private final Path file;
+    private FileChannel channel;
+    private Layout layout = new Layout();
+    private long sequence;
+    private long bytesWritten;
+    private int compactions;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("page-compactor").daemon().factory());
+    private Future<Compaction> compaction;
+    // id, изменённые после начала фонового переноса
+    private final Set<Integer> touched = new HashSet<>();
+
+    // Открывает существующий файл или создаёт пустой
+    public PagedTaskStore(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Файл не может быть null");
+        }
+        this.file = file;
+        this.channel = open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            scan();
+        } catch (IOException | RuntimeException e) {
+            compactor.shutdownNow();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Исходная ошибка важнее
+            }
+            throw e instanceof ManagerSaveException saveException ? saveException
+                    : new ManagerSaveException("Не удалось прочитать " + file, e);
+        }
+    }
+
+    public int size() {
+        return layout.size;
+    }
+
+    public long getFileBytes() {
+        return layout.fileBytes;
+    }
+
+    public long getLiveBytes() {
+        return layout.liveBytes;
+    }
+
+    // Сколько байт записано в файл с момента открытия — мера стоимости сохранений
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public int getCompactionCount() {
+        return compactions;
+    }
+
+    public boolean contains(int id) {
+        return layout.contains(id);
+    }
+
+    // id записей в порядке возрастания
+    public void forEachId(IntConsumer action) {
+        for (int id = 1; id < layout.offsets.length; id++) {
+            if (layout.offsets[id] != 0) {
+                action.accept(id);
+            }
+        }
+    }
+
+    public Stored read(int id) {
+        if (!contains(id)) {
+            return null;
+        }
+        try {
+            ByteBuffer slot = readSlot(channel, layout.offsets[id] - 1);
+            if (slot == null) {
+                throw new ManagerSaveException("Запись " + id + " в " + file + " повреждена", null);
+            }
+            return decode(id, slot.position(HEADER));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось прочитать задачу " + id + " из " + file, e);
+        }
+    }
+
+    public void write(Task task, long viewStamp) {
+        write(task, viewStamp, List.of());
+    }
+
+    public void write(Task task, long viewStamp, Collection<Integer> dependencies) {
+        int id = task.getId();
+        if (id <= 0) {
+            throw new IllegalArgumentException("У задачи должен быть положительный id");
+        }
+        try {
+            writeRecord(channel, layout, id, encode(task, viewStamp, dependencies));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать задачу " + id + " в " + file, e);
+        }
+        if (compaction != null) {
+            touched.add(id);
+        }
+    }
+
+    public void remove(int id) {
+        if (!contains(id)) {
+            return;
+        }
+        try {
+            free(channel, layout, id);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось удалить задачу " + id + " из " + file, e);
+        }
+        if (compaction != null) {
+            touched.add(id);
+        }
+    }
+
+    // Вызывается после каждой пачки изменений: завершает готовый перенос или начинает новый
+    public void maybeCompact() {
+        if (compaction != null) {
+            if (compaction.isDone()) {
+                finishCompaction();
+            }
+            return;
+        }
+        if (layout.fileBytes >= COMPACT_MIN_BYTES && layout.fileBytes - layout.liveBytes > layout.liveBytes) {
+            startCompaction();
+        }
+    }
+
+    // Дожидается фонового переноса, если он идёт, и закрывает файл
+    @Override
+    public void close() {
+        try {
+            if (compaction != null) {
+                finishCompaction();
+            }
+        } finally {
+            compactor.shutdown();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Не удалось закрыть " + file, e);
+            }
+        }
+    }
+
+    private record Compaction(FileChannel target, Layout layout) {
+    }
+
+    private Path compactFile() {
+        return file.resolveSibling(file.getFileName() + ".compact");
+    }
+
+    private void startCompaction() {
+        Layout snapshot = layout.copy();
+        FileChannel source = channel;
+        Path target = compactFile();
+        touched.clear();
+        compaction = compactor.submit(() -> copyLive(source, snapshot, target));
+    }
+
+    // Фоновая часть: живые ячейки по снимку положения переписываются подряд в новый файл.
+    // Ячейки, которые основной поток меняет в это время, могут прочитаться рваными — такие
+    // пропускаются: их id уже в touched, и при завершении они будут досланы заново
+    private static Compaction copyLive(FileChannel source, Layout snapshot, Path target) throws IOException {
+        FileChannel channel = open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Layout compacted = new Layout();
+            for (int id = 1; id < snapshot.offsets.length; id++) {
+                if (snapshot.offsets[id] == 0) {
+                    continue;
+                }
+                ByteBuffer slot = readSlot(source, snapshot.offsets[id] - 1);
+                if (slot == null || slot.getInt(8) != id) {
+                    continue;
+                }
+                byte[] record = new byte[slot.getInt(4)];
+                slot.get(HEADER, record);
+                append(channel, compacted, id, record, slot.getLong(16));
+            }
+            return new Compaction(channel, compacted);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Досылает изменённые за время переноса записи и подменяет файл
+    private void finishCompaction() {
+        Future<Compaction> pending = compaction;
+        compaction = null;
+        Compaction result;
+        try {
+            result = pending.get();
+        } catch (ExecutionException e) {
+            deleteQuietly(compactFile());
+            throw new ManagerSaveException("Не удалось уплотнить " + file, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteQuietly(compactFile());
+            throw new ManagerSaveException("Уплотнение " + file + " прервано", e);
+        }
+        try {
+            for (int id : touched) {
+                if (layout.contains(id)) {
+                    ByteBuffer slot = readSlot(channel, layout.offsets[id] - 1);
+                    if (slot == null) {
+                        throw new IOException("Запись " + id + " повреждена");
+                    }
+                    byte[] record = new byte[slot.getInt(4)];
+                    slot.get(HEADER, record);
+                    writeRecord(result.target, result.layout, id, record);
+                } else if (result.layout.contains(id)) {
+                    free(result.target, result.layout, id);
+                }
+            }
+            touched.clear();
+            Files.move(compactFile(), file, StandardCopyOption.REPLACE_EXISTING);
+            channel.close();
+        } catch (IOException e) {
+            try {
+                result.target.close();
+            } catch (IOException ignored) {
+                // Исходная ошибка важнее
+            }
+            deleteQuietly(compactFile());
+            throw new ManagerSaveException("Не удалось уплотнить " + file, e);
+        }
+        channel = result.target;
+        layout = result.layout;
+        compactions++;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Останется мусором до следующего уплотнения
+        }
+    }
+
+    // На месте, если запись помещается в ячейку; иначе в новую ячейку в конце и освобождение старой
+    private void writeRecord(FileChannel target, Layout into, int id, byte[] record) throws IOException {
+        long stamp = ++sequence;
+        if (into.contains(id) && into.capacities[id] >= record.length) {
+            long offset = into.offsets[id] - 1;
+            bytesWritten += writeFully(target, slot(into.capacities[id], id, record, stamp), offset);
+            return;
+        }
+        long previous = into.contains(id) ? into.offsets[id] - 1 : -1;
+        bytesWritten += append(target, into, id, record, stamp);
+        if (previous >= 0) {
+            bytesWritten += writeFully(target, ByteBuffer.allocate(4).putInt(0, -1), previous + 4);
+        }
+    }
+
+    private void free(FileChannel target, Layout from, int id) throws IOException {
+        bytesWritten += writeFully(target, ByteBuffer.allocate(4).putInt(0, -1), from.offsets[id] - 1 + 4);
+        from.remove(id);
+    }
+
+    // Новая ячейка в конце файла; маленькая ячейка, не влезающая в остаток страницы, начинает следующую
+    private static int append(FileChannel target, Layout into, int id, byte[] record, long stamp)
+            throws IOException {
+        int capacity = capacityFor(record.length);
+        long offset = into.fileBytes;
+        int slotBytes = HEADER + capacity;
+        long pageLeft = PAGE_SIZE - offset % PAGE_SIZE;
+        if (slotBytes <= PAGE_SIZE && slotBytes > pageLeft) {
+            offset += pageLeft;
+        }
+        int written = writeFully(target, slot(capacity, id, record, stamp), offset);
+        into.put(id, offset, capacity);
+        into.fileBytes = offset + slotBytes;
+        return written;
+    }
+
+    // Запас в четверть записи, чтобы небольшие правки переписывались на месте
+    private static int capacityFor(int length) {
+        int capacity = length + length / 4;
+        return (capacity + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    // Заголовок и запись; хвост ячейки не пишется
+    private static ByteBuffer slot(int capacity, int id, byte[] record, long stamp) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + record.length);
+        buffer.putInt(capacity).putInt(record.length).putInt(id).putInt((int) crc.getValue()).putLong(stamp);
+        return buffer.put(record).flip();
+    }
+
+    // Заголовок и запись ячейки; null, если ячейка свободна, оборвана или crc не сходится
+    private static ByteBuffer readSlot(FileChannel source, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        if (!readFully(source, header, offset)) {
+            return null;
+        }
+        int capacity = header.getInt(0);
+        int length = header.getInt(4);
+        if (length < 0 || length > capacity) {
+            return null;
+        }
+        ByteBuffer slot = ByteBuffer.allocate(HEADER + length);
+        slot.put(header.flip());
+        if (!readFully(source, slot, offset + HEADER)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(slot.array(), HEADER, length);
+        return (int) crc.getValue() == slot.getInt(12) ? slot.flip() : null;
+    }
+
+    // Проход по ячейкам: свежие версии живых записей попадают в положение; оборванный хвост отрезается
+    private void scan() throws IOException {
+        long size = channel.size();
+        long[] stamps = new long[1024];
+        long offset = 0;
+        long end = 0;
+        while (offset + HEADER <= size) {
+            long pageLeft = PAGE_SIZE - offset % PAGE_SIZE;
+            if (pageLeft < HEADER) {
+                offset += pageLeft;
+                continue;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            readFully(channel, header, offset);
+            int capacity = header.getInt(0);
+            if (capacity <= 0) {
+                // Пустой остаток страницы: ячейка не поместилась и начата со следующей
+                offset += pageLeft;
+                continue;
+            }
+            if (offset + HEADER + capacity > size && offset + HEADER + header.getInt(4) > size) {
+                break;
+            }
+            ByteBuffer slot = readSlot(channel, offset);
+            if (slot != null) {
+                int id = slot.getInt(8);
+                long stamp = slot.getLong(16);
+                if (id >= stamps.length) {
+                    stamps = Arrays.copyOf(stamps, Math.max(stamps.length * 2, id + 1));
+                }
+                if (stamp > stamps[id]) {
+                    layout.put(id, offset, capacity);
+                    stamps[id] = stamp;
+                }
+                sequence = Math.max(sequence, stamp);
+            }
+            offset += HEADER + capacity;
+            end = offset;
+        }
+        if (end < size) {
+            channel.truncate(end);
+        }
+        layout.fileBytes = end;
+    }
+
+    private static FileChannel open(Path file, StandardOpenOption... options) {
+        try {
+            return FileChannel.open(file, options);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось открыть " + file, e);
+        }
+    }
+
+    private static int writeFully(FileChannel target, ByteBuffer buffer, long offset) throws IOException {
+        int written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            offset += target.write(buffer, offset);
+        }
+        return written;
+    }
+
+    // false, если файл кончился раньше
+    private static boolean readFully(FileChannel source, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, offset);
+            if (read < 0) {
+                return false;
+            }
+            offset += read;
+        }
+        return true;
+    }
+
+    // Тип, эпик, статус, флаги наличия времени, начало, длительность, просмотр, имя, описание,
+    // число зависимостей и их id. В записях старого формата зависимостей нет
+    private static byte[] encode(Task task, long viewStamp, Collection<Integer> dependencies) {
+        byte[] name = bytesOf(task.getName());
+        byte[] description = bytesOf(task.getDescription());
+        boolean timed = task.getType() != TaskType.EPIC;
+        LocalDateTime start = timed ? task.getStartTime() : null;
+        Duration duration = timed ? task.getDuration() : null;
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 1 + 1 + 12 + 12 + 8 + 4 + lengthOf(name) + 4
+                + lengthOf(description) + 4 + 4 * dependencies.size());
+        buffer.put((byte) task.getType().ordinal());
+        buffer.putInt(task instanceof Subtask subtask ? subtask.getEpicId() : 0);
+        buffer.put((byte) (task.getStatus() != null ? task.getStatus() : TaskStatus.NEW).ordinal());
+        buffer.put((byte) ((start != null ? 1 : 0) | (duration != null ? 2 : 0)));
+        buffer.putLong(start != null ? start.toEpochSecond(ZoneOffset.UTC) : 0);
+        buffer.putInt(start != null ? start.getNano() : 0);
+        buffer.putLong(duration != null ? duration.getSeconds() : 0);
+        buffer.putInt(duration != null ? duration.getNano() : 0);
+        buffer.putLong(viewStamp);
+        putBytes(buffer, name);
+        putBytes(buffer, description);
+        buffer.putInt(dependencies.size());
+        for (int dependency : dependencies) {
+            buffer.putInt(dependency);
+        }
+        return buffer.array();
+    }
+
+    private static Stored decode(int id, ByteBuffer buffer) {
+        TaskType type = TYPES[buffer.get()];
+        int epicId = buffer.getInt();
+        TaskStatus status = STATUSES[buffer.get()];
+        byte flags = buffer.get();
+        long startSeconds = buffer.getLong();
+        int startNanos = buffer.getInt();
+        long durationSeconds = buffer.getLong();
+        int durationNanos = buffer.getInt();
+        long viewStamp = buffer.getLong();
+        LocalDateTime start = (flags & 1) != 0
+                ? LocalDateTime.ofEpochSecond(startSeconds, startNanos, ZoneOffset.UTC) : null;
+        Duration duration = (flags & 2) != 0 ? Duration.ofSeconds(durationSeconds, durationNanos) : null;
+        String name = getString(buffer);
+        String description = getString(buffer);
+        List<Integer> dependencies = new ArrayList<>();
+        if (buffer.hasRemaining()) {
+            for (int count = buffer.getInt(); count > 0; count--) {
+                dependencies.add(buffer.getInt());
+            }
+        }
+        Task task = switch (type) {
+            case TASK -> new Task(name, description, duration, start);
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> new Subtask(name, description, epicId, duration, start);
+        };
+        task.setId(id);
+        task.setStatus(status);
+        return new Stored(task, viewStamp, dependencies);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    // Длина -1 — null
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes != null ? bytes.length : -1);
+        if (bytes != null) {
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,228 @@
+package manager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+// Неизменяемый словарь с неотрицательными int-ключами: 32-ричное префиксное дерево по битам ключа.
+// put/remove копируют только путь от корня до листа (O(log32 N)), остальное дерево общее
+// со старой версией, поэтому любая версия остаётся доступной и не требует блокировок при чтении.
+// Обход идёт в порядке возрастания ключей.
+public final class PersistentIntMap<V> implements Iterable<V> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0, 0);
+
+    private final Object[] root;
+    private final int shift;
+    private final int size;
+
+    private PersistentIntMap(Object[] root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key < 0 || root == null || !fits(key, shift)) {
+            return null;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(key >>> level) & MASK];
+            if (node == null) {
+                return null;
+            }
+        }
+        return (V) node[key & MASK];
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public PersistentIntMap<V> put(int key, V value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Ключ не может быть отрицательным: " + key);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Значение не может быть null");
+        }
+        Object[] newRoot = root;
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = new Object[WIDTH];
+            newShift = 0;
+        }
+        // Дерево слишком мелкое для ключа — надстраиваем уровни сверху
+        while (!fits(key, newShift)) {
+            Object[] grown = new Object[WIDTH];
+            grown[0] = newRoot;
+            newRoot = grown;
+            newShift += BITS;
+        }
+        boolean existed = get(key) != null;
+        return new PersistentIntMap<>(assoc(newRoot, newShift, key, value), newShift, existed ? size : size + 1);
+    }
+
+    public PersistentIntMap<V> remove(int key) {
+        if (get(key) == null) {
+            return this;
+        }
+        if (size == 1) {
+            return empty();
+        }
+        Object[] newRoot = dissoc(root, shift, key);
+        return new PersistentIntMap<>(newRoot != null ? newRoot : new Object[WIDTH], shift, size - 1);
+    }
+
+    private static Object[] assoc(Object[] node, int level, int key, Object value) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int index = (key >>> level) & MASK;
+        if (level == 0) {
+            copy[index] = value;
+        } else {
+            copy[index] = assoc((Object[]) copy[index], level - BITS, key, value);
+        }
+        return copy;
+    }
+
+    // Возвращает null, если узел опустел, чтобы не копить пустые ветки
+    private static Object[] dissoc(Object[] node, int level, int key) {
+        int index = (key >>> level) & MASK;
+        Object child = level == 0 ? null : dissoc((Object[]) node[index], level - BITS, key);
+        Object[] copy = node.clone();
+        copy[index] = child;
+        for (Object slot : copy) {
+            if (slot != null) {
+                return copy;
+            }
+        }
+        return null;
+    }
+
+    // Ключи, значения которых в other другие (по ссылке) или отсутствуют в одной из версий.
+    // Общие с other поддеревья пропускаются целиком, поэтому для версий, выросших одна из другой,
+    // стоимость пропорциональна числу изменений между ними, а не размеру словаря
+    public void forEachChangedKey(PersistentIntMap<V> other, IntConsumer action) {
+        int level = Math.max(shift, other.shift);
+        diff(lift(root, shift, level), lift(other.root, other.shift, level), level, 0, action);
+    }
+
+    private static void diff(Object[] left, Object[] right, int level, int prefix, IntConsumer action) {
+        if (left == right) {
+            return;
+        }
+        for (int i = 0; i < WIDTH; i++) {
+            Object a = left == null ? null : left[i];
+            Object b = right == null ? null : right[i];
+            if (a == b) {
+                continue;
+            }
+            int key = prefix | (i << level);
+            if (level == 0) {
+                action.accept(key);
+            } else {
+                diff((Object[]) a, (Object[]) b, level - BITS, key, action);
+            }
+        }
+    }
+
+    // Надстраивает над корнем пустые уровни, чтобы сравнивать деревья одной высоты
+    private static Object[] lift(Object[] node, int shift, int level) {
+        if (node == null) {
+            return null;
+        }
+        for (int current = shift; current < level; current += BITS) {
+            Object[] grown = new Object[WIDTH];
+            grown[0] = node;
+            node = grown;
+        }
+        return node;
+    }
+
+    private static boolean fits(int key, int shift) {
+        int bits = shift + BITS;
+        return bits >= Integer.SIZE || (key >>> bits) == 0;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<>() {
+            // Стек позиций: узел и индекс следующего слота в нём
+            private final Deque<Object[]> nodes = new ArrayDeque<>();
+            private final Deque<int[]> positions = new ArrayDeque<>();
+            private final Deque<Integer> levels = new ArrayDeque<>();
+            private V next;
+
+            {
+                if (root != null) {
+                    nodes.push(root);
+                    positions.push(new int[]{0});
+                    levels.push(shift);
+                }
+                advance();
+            }
+
+            @SuppressWarnings("unchecked")
+            private void advance() {
+                next = null;
+                while (!nodes.isEmpty()) {
+                    Object[] node = nodes.peek();
+                    int[] position = positions.peek();
+                    int level = levels.peek();
+                    if (position[0] == WIDTH) {
+                        nodes.pop();
+                        positions.pop();
+                        levels.pop();
+                        continue;
+                    }
+                    Object slot = node[position[0]++];
+                    if (slot == null) {
+                        continue;
+                    }
+                    if (level == 0) {
+                        next = (V) slot;
+                        return;
+                    }
+                    nodes.push((Object[]) slot);
+                    positions.push(new int[]{0});
+                    levels.push(level - BITS);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public V next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                V result = next;
+                advance();
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package manager;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+// Фоновое задание: раз в period переносит в архив эпики, завершённые дольше retention.
+// Менеджер не потокобезопасен, поэтому прогон идёт под тем же замком, под которым приложение
+// вызывает менеджер. Первый прогон — сразу после start(): заодно резервируются архивные id.
+// Ошибка прогона не останавливает задание; последняя доступна через getLastFailure().
+public class RetentionJob implements AutoCloseable {
+    private final InMemoryTaskManager manager;
+    private final EpicArchive archive;
+    private final Duration retention;
+    private final Duration period;
+    private final Lock lock;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong archivedCount = new AtomicLong();
+    private volatile RuntimeException lastFailure;
+
+    public RetentionJob(InMemoryTaskManager manager, EpicArchive archive, Duration retention, Duration period,
+                        Lock lock) {
+        if (manager == null || archive == null || lock == null) {
+            throw new IllegalArgumentException("Менеджер, архив и замок не могут быть null");
+        }
+        if (retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Срок хранения должен быть неотрицательным");
+        }
+        if (period == null || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Период должен быть положительным");
+        }
+        this.manager = manager;
+        this.archive = archive;
+        this.retention = retention;
+        this.period = period;
+        this.lock = lock;
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("retention").daemon().factory());
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::runSafely, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Один прогон в вызывающем потоке; возвращает число перенесённых эпиков
+    public int runOnce() {
+        lock.lock();
+        try {
+            int archived = manager.archiveDoneEpics(archive, retention);
+            archivedCount.addAndGet(archived);
+            return archived;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Всего эпиков, перенесённых этим заданием
+    public long getArchivedCount() {
+        return archivedCount.get();
+    }
+
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    // Дожидается текущего прогона; архив закрывает владелец
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runSafely() {
+        try {
+            runOnce();
+            lastFailure = null;
+        } catch (RuntimeException e) {
+            lastFailure = e;
+        }
+    }
+}
@@ -0,0 +1,625 @@
+package manager;
+
+import event.Subscription;
+import event.TaskEventBus;
+import event.TaskEventListener;
+import history.HistoryManager;
+import history.HistorySnapshot;
+import metrics.ManagerMetrics;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Менеджер, разбитый на N разделов (InMemoryTaskManager), каждый под своей блокировкой чтения/записи.
+// Эпики раскладываются по разделам по кругу, подзадачи живут в разделе своего эпика,
+// обычные задачи — в разделе 0, чтобы зависимости между ними оставались внутри одного графа.
+// Раздел i выдаёт id i + 1, i + 1 + N, ..., поэтому раздел находится по id без таблицы.
+// Запросы по всем разделам выполняются параллельно, упорядоченные результаты сливаются k-путевым слиянием.
+// Пересечения по времени проверяются по всем разделам: добавления интервалов идут под общей блокировкой
+// времени, а сама запись — только под блокировкой своего раздела.
+// Зависимости между задачами из разных разделов не поддерживаются.
+// Разделы публикуют события в одну общую ленту под своей блокировкой записи, поэтому номера событий
+// сквозные, а изменения, сделанные одним потоком в разных разделах, приходят в том же порядке.
+public class ShardedTaskManager implements TaskManager {
+    private static final int TASK_SHARD = 0;
+    private static final Comparator<Task> BY_START = Comparator
+            .comparing(Task::getStartTime)
+            .thenComparingInt(Task::getId);
+    private static final Comparator<Task> BY_ID = Comparator.comparingInt(Task::getId);
+
+    private static final class Shard {
+        final InMemoryTaskManager manager;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        Shard(InMemoryTaskManager manager) {
+            this.manager = manager;
+        }
+    }
+
+    private final Shard[] shards;
+    private final HistoryManager historyManager;
+    private final TaskEventBus eventBus = new TaskEventBus(InMemoryTaskManager.EVENT_BUFFER_SIZE);
+    // Добавление занятого интервала в любой раздел; берётся раньше блокировок разделов
+    private final ReentrantLock timeLock = new ReentrantLock();
+    private final AtomicInteger nextEpicShard = new AtomicInteger();
+
+    public ShardedTaskManager(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Количество разделов должно быть положительным");
+        }
+        historyManager = new LockedHistoryManager(Managers.getDefaultHistory());
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(new InMemoryTaskManager(ManagerMetrics.disabled(), historyManager, eventBus,
+                    i + 1, shardCount));
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Раздел, которому принадлежит id; null для несуществующих id
+    private Shard shardOf(int id) {
+        return id > 0 ? shards[(id - 1) % shards.length] : null;
+    }
+
+    private Shard nextEpicShard() {
+        return shards[Math.floorMod(nextEpicShard.getAndIncrement(), shards.length)];
+    }
+
+    private <R> R read(Shard shard, Function<InMemoryTaskManager, R> query) {
+        Lock lock = shard.lock.readLock();
+        lock.lock();
+        try {
+            return query.apply(shard.manager);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <R> R write(Shard shard, Function<InMemoryTaskManager, R> update) {
+        Lock lock = shard.lock.writeLock();
+        lock.lock();
+        try {
+            return update.apply(shard.manager);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeVoid(Shard shard, Consumer<InMemoryTaskManager> update) {
+        write(shard, manager -> {
+            update.accept(manager);
+            return null;
+        });
+    }
+
+    // Параллельный опрос всех разделов; результаты в порядке номеров разделов
+    private <R> List<R> gather(Function<InMemoryTaskManager, R> query) {
+        return IntStream.range(0, shards.length)
+                .parallel()
+                .mapToObj(i -> read(shards[i], query))
+                .collect(Collectors.toList());
+    }
+
+    private void forEachShard(Consumer<InMemoryTaskManager> update) {
+        IntStream.range(0, shards.length)
+                .parallel()
+                .forEach(i -> writeVoid(shards[i], update));
+    }
+
+    // k-путевое слияние списков, каждый из которых уже упорядочен по order: O(n log k)
+    static <T> List<T> merge(List<? extends List<? extends T>> parts, Comparator<? super T> order) {
+        int size = 0;
+        for (List<? extends T> part : parts) {
+            size += part.size();
+        }
+        List<T> result = new ArrayList<>(size);
+        // Курсор: номер списка и позиция в нём
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, parts.size()),
+                (first, second) -> order.compare(parts.get(first[0]).get(first[1]),
+                        parts.get(second[0]).get(second[1])));
+        for (int i = 0; i < parts.size(); i++) {
+            if (!parts.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<? extends T> part = parts.get(head[0]);
+            result.add(part.get(head[1]));
+            if (++head[1] < part.size()) {
+                heads.add(head);
+            }
+        }
+        return result;
+    }
+
+    // Интервал новой или изменённой задачи не должен пересекаться с задачами других разделов.
+    // Вызывается под timeLock; свой раздел проверяет сам менеджер раздела
+    private void checkOtherShards(Shard own, Task task) {
+        for (Shard shard : shards) {
+            if (shard != own && read(shard, manager -> manager.timeIndex.overlaps(task))) {
+                throw new IllegalStateException("Задача пересекается по времени с существующей задачей");
+            }
+        }
+    }
+
+    // Запись, которая может добавить занятый интервал, идёт под общей блокировкой времени
+    private <R> R writeTimed(Shard shard, Task task, Function<InMemoryTaskManager, R> update) {
+        if (task.getStartTime() == null) {
+            return write(shard, update);
+        }
+        timeLock.lock();
+        try {
+            checkOtherShards(shard, task);
+            return write(shard, update);
+        } finally {
+            timeLock.unlock();
+        }
+    }
+
+    private void writeTimedVoid(Shard shard, Task task, Consumer<InMemoryTaskManager> update) {
+        writeTimed(shard, task, manager -> {
+            update.accept(manager);
+            return null;
+        });
+    }
+
+    @Override
+    public int generateId() {
+        return write(shards[TASK_SHARD], InMemoryTaskManager::generateId);
+    }
+
+    // Каждый раздел отдаёт задачи по возрастанию id, как InMemoryTaskManager; слияние сохраняет этот порядок
+    @Override
+    public List<Task> getAllTasks() {
+        return merge(gather(InMemoryTaskManager::getAllTasks), BY_ID);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return merge(gather(InMemoryTaskManager::getAllEpics), BY_ID);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return merge(gather(InMemoryTaskManager::getAllSubtasks), BY_ID);
+    }
+
+    @Override
+    public void createTask(Task task) {
+        writeTimedVoid(shards[TASK_SHARD], task, manager -> manager.createTask(task));
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        writeVoid(nextEpicShard(), manager -> manager.createEpic(epic));
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        Shard shard = shardOf(subtask.getEpicId());
+        if (shard != null) {
+            writeTimedVoid(shard, subtask, manager -> manager.createSubtask(subtask));
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        Shard shard = shardOf(task.getId());
+        if (shard != null) {
+            writeTimedVoid(shard, task, manager -> manager.updateTask(task));
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        Shard shard = shardOf(epic.getId());
+        if (shard != null) {
+            writeVoid(shard, manager -> manager.updateEpic(epic));
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        Shard shard = shardOf(subtask.getId());
+        if (shard != null) {
+            writeTimedVoid(shard, subtask, manager -> manager.updateSubtask(subtask));
+        }
+    }
+
+    // Как InMemoryTaskManager.compareAndUpdate. Устаревшая версия отклоняется по опубликованному срезу
+    // раздела без всяких блокировок; принятая запись держит только блокировку своего раздела и только
+    // на время самой записи, а не всего цикла «прочитать — изменить — записать» у клиента.
+    // Под блокировкой версия сверяется ещё раз: между проверкой и записью мог успеть другой писатель
+    public boolean compareAndUpdate(Task task, long expectedVersion) {
+        if (task == null) {
+            throw new IllegalArgumentException("Задача не может быть null");
+        }
+        Shard shard = shardOf(task.getId());
+        if (shard == null) {
+            return false;
+        }
+        BoardSnapshot published = shard.manager.snapshot();
+        Task current;
+        if (task instanceof Epic) {
+            current = published.getEpic(task.getId());
+        } else if (task instanceof Subtask) {
+            current = published.getSubtask(task.getId());
+        } else {
+            current = published.getTask(task.getId());
+        }
+        if (current == null || current.getVersion() != expectedVersion) {
+            return false;
+        }
+        // Интервал прежний — новых занятых отрезков не появится, и общая блокировка времени не нужна.
+        // Если версия под блокировкой раздела совпадёт, совпадёт и интервал
+        if (task instanceof Epic || Objects.equals(current.getStartTime(), task.getStartTime())
+                && Objects.equals(current.getDuration(), task.getDuration())) {
+            return write(shard, manager -> manager.compareAndUpdate(task, expectedVersion));
+        }
+        return writeTimed(shard, task, manager -> manager.compareAndUpdate(task, expectedVersion));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        Shard shard = shardOf(id);
+        if (shard != null) {
+            writeVoid(shard, manager -> manager.deleteTaskById(id));
+        }
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        Shard shard = shardOf(id);
+        if (shard != null) {
+            writeVoid(shard, manager -> manager.deleteEpicById(id));
+        }
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        Shard shard = shardOf(epic.getId());
+        if (shard != null) {
+            writeVoid(shard, manager -> manager.updateEpicStatus(epic));
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        Shard shard = shardOf(id);
+        if (shard != null) {
+            writeVoid(shard, manager -> manager.deleteSubtaskById(id));
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        forEachShard(InMemoryTaskManager::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        forEachShard(InMemoryTaskManager::deleteAllEpics);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        forEachShard(InMemoryTaskManager::deleteAllSubtasks);
+    }
+
+    // Чтение по id меняет только общую историю, у которой своя блокировка
+    @Override
+    public Task getTaskById(int id) {
+        Shard shard = shardOf(id);
+        return shard != null ? read(shard, manager -> manager.getTaskById(id)) : null;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Shard shard = shardOf(id);
+        return shard != null ? read(shard, manager -> manager.getEpicById(id)) : null;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Shard shard = shardOf(id);
+        return shard != null ? read(shard, manager -> manager.getSubtaskById(id)) : null;
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        Shard shard = shardOf(epicId);
+        return shard != null ? read(shard, manager -> manager.getEpicSubtasks(epicId)) : new ArrayList<>();
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    // Разделы меняются параллельно, поэтому потоки идут по срезу доски: он неизменяем и читается без блокировок
+    @Override
+    public Stream<Task> streamAllTasks() {
+        return snapshot().getTasks().stream();
+    }
+
+    @Override
+    public Stream<Subtask> streamAllSubtasks() {
+        return snapshot().getSubtasks().stream();
+    }
+
+    @Override
+    public Stream<Task> streamHistory() {
+        return historyManager.stream();
+    }
+
+    @Override
+    public HistorySnapshot historySnapshot() {
+        return historyManager.snapshot();
+    }
+
+    // Слияние разделов и так собирает список под их блокировками
+    @Override
+    public Stream<Task> streamPrioritizedTasks() {
+        return getPrioritizedTasks().stream();
+    }
+
+    @Override
+    public Task getTask(int id) {
+        Shard shard = shardOf(id);
+        return shard != null ? read(shard, manager -> manager.getTask(id)) : null;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return merge(gather(InMemoryTaskManager::getPrioritizedTasks), BY_START);
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return merge(gather(manager -> manager.getTasksBetween(from, to)), BY_START);
+    }
+
+    // Самое раннее время, свободное сразу во всех разделах: кандидат сдвигается, пока все разделы не согласятся
+    @Override
+    public LocalDateTime getNextFreeSlot(Duration duration, LocalDateTime after) {
+        timeLock.lock();
+        try {
+            LocalDateTime candidate = after;
+            boolean agreed = false;
+            while (!agreed) {
+                agreed = true;
+                for (Shard shard : shards) {
+                    LocalDateTime start = candidate;
+                    LocalDateTime free = read(shard, manager -> manager.getNextFreeSlot(duration, start));
+                    if (free.isAfter(candidate)) {
+                        candidate = free;
+                        agreed = false;
+                    }
+                }
+            }
+            return candidate;
+        } finally {
+            timeLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<LocalDate, List<Task>> getTasksByDay(LocalDate from, LocalDate to) {
+        List<Map<LocalDate, List<Task>>> parts = gather(manager -> manager.getTasksByDay(from, to));
+        Map<LocalDate, List<Task>> days = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            List<List<Task>> dayParts = new ArrayList<>(parts.size());
+            for (Map<LocalDate, List<Task>> part : parts) {
+                dayParts.add(part.get(day));
+            }
+            days.put(day, merge(dayParts, BY_START));
+        }
+        return days;
+    }
+
+    @Override
+    public List<Task> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from, LocalDateTime to) {
+        return scheduleUnscheduled(workingHours, from, to, Comparator.comparingInt(Task::getId));
+    }
+
+    // Раскладка идёт по общему временному индексу всех разделов; на время раскладки
+    // заблокированы все разделы (по порядку номеров, чтобы не было взаимных блокировок)
+    @Override
+    public List<Task> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from, LocalDateTime to,
+                                          Comparator<? super Task> priority) {
+        timeLock.lock();
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+        }
+        try {
+            TimeIndex combined = new TimeIndex();
+            List<Task> unscheduled = new ArrayList<>();
+            for (Shard shard : shards) {
+                for (Task task : shard.manager.timeIndex.ordered()) {
+                    combined.add(task);
+                }
+                unscheduled.addAll(shard.manager.collectUnscheduled());
+            }
+            unscheduled.sort(priority);
+
+            TaskScheduler scheduler = new TaskScheduler(combined, workingHours, from, to);
+            List<Task> placed = new ArrayList<>();
+            for (Task task : unscheduled) {
+                LocalDateTime startTime = scheduler.place(task.getDuration());
+                if (startTime != null) {
+                    shardOf(task.getId()).manager.place(task, startTime);
+                    placed.add(task);
+                }
+            }
+            for (Shard shard : shards) {
+                shard.manager.commitBoard();
+            }
+            return placed;
+        } finally {
+            for (int i = shards.length - 1; i >= 0; i--) {
+                shards[i].lock.writeLock().unlock();
+            }
+            timeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        Shard shard = shardOf(taskId);
+        if (shard == null || shard != shardOf(dependsOnId)) {
+            throw new IllegalArgumentException("Зависимости возможны только между задачами одного раздела");
+        }
+        writeVoid(shard, manager -> manager.addDependency(taskId, dependsOnId));
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        Shard shard = shardOf(taskId);
+        if (shard != null && shard == shardOf(dependsOnId)) {
+            writeVoid(shard, manager -> manager.removeDependency(taskId, dependsOnId));
+        }
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        Shard shard = shardOf(taskId);
+        return shard != null ? read(shard, manager -> manager.getDependencies(taskId)) : new ArrayList<>();
+    }
+
+    // Копия рёбер всех разделов: стоит порядка числа рёбер, а не размера доски
+    @Override
+    public Map<Integer, List<Integer>> getAllDependencies() {
+        Map<Integer, List<Integer>> result = new TreeMap<>();
+        for (Shard shard : shards) {
+            result.putAll(read(shard, InMemoryTaskManager::getAllDependencies));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasksInOrder(int epicId) {
+        Shard shard = shardOf(epicId);
+        return shard != null ? read(shard, manager -> manager.getEpicSubtasksInOrder(epicId)) : new ArrayList<>();
+    }
+
+    @Override
+    public Duration getCriticalPath(int epicId) {
+        Shard shard = shardOf(epicId);
+        return shard != null ? read(shard, manager -> manager.getCriticalPath(epicId)) : Duration.ZERO;
+    }
+
+    // Одна лента на все разделы: один поток доставки на подписчика и сквозные номера.
+    // boardVersion события — версия среза его раздела
+    @Override
+    public Subscription subscribe(TaskEventListener listener) {
+        return eventBus.subscribe(listener);
+    }
+
+    // Без блокировок: срез каждого раздела публикуется атомарно
+    @Override
+    public BoardSnapshot snapshot() {
+        BoardSnapshot[] parts = new BoardSnapshot[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            parts[i] = shards[i].manager.snapshot();
+        }
+        return BoardSnapshot.sharded(parts);
+    }
+
+    // Разделы — менеджеры со срезом доски в памяти
+    @Override
+    public boolean isSnapshotLockFree() {
+        return true;
+    }
+
+    // Общая история всех разделов; разделы обращаются к ней параллельно
+    private static final class LockedHistoryManager implements HistoryManager {
+        private final HistoryManager delegate;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        LockedHistoryManager(HistoryManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void add(Task task) {
+            lock.lock();
+            try {
+                delegate.add(task);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void remove(int id) {
+            lock.lock();
+            try {
+                delegate.remove(id);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public List<Task> getHistory() {
+            lock.lock();
+            try {
+                return delegate.getHistory();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public HistorySnapshot snapshot() {
+            lock.lock();
+            try {
+                return delegate.snapshot();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Лениво идти по истории под чужими изменениями нельзя: копия снимается под блокировкой
+        @Override
+        public Stream<Task> stream() {
+            return getHistory().stream();
+        }
+
+        @Override
+        public int size() {
+            lock.lock();
+            try {
+                return delegate.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
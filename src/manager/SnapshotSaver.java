@@ -0,0 +1,125 @@
+package manager;
+
+import history.HistorySnapshot;
+import task.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Сохранение доски в фоне. save(manager) берёт неизменяемые срезы доски, истории и зависимостей
+// (у менеджеров, где isSnapshotLockFree, — за O(1)) и сразу возвращается, а в файл их пишет отдельный поток,
+// пока менеджер продолжает меняться.
+// Менеджер не потокобезопасен: save вызывается в том же потоке или под тем же замком, что и изменения,
+// но замок держится только на время взятия среза, а не записи. Файл пишется рядом и подменяет
+// старый целиком, поэтому на диске всегда лежит какой-то один срез. Если к началу записи уже запрошен
+// более свежий срез, старый пропускается. Формат — как у FileBackedTaskManager, читается loadFromFile.
+public class SnapshotSaver implements AutoCloseable {
+    private final File file;
+    private final File tempFile;
+    private final int compressionLevel;
+    private final ExecutorService executor;
+    // Номер последнего запроса save; запись с меньшим номером уже не нужна
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong savedCount = new AtomicLong();
+    private volatile long savedVersion = -1;
+    private volatile IOException lastFailure;
+
+    public SnapshotSaver(File file) {
+        this(file, FileBackedTaskManager.PLAIN_TEXT);
+    }
+
+    // compressionLevel — как у FileBackedTaskManager
+    public SnapshotSaver(File file, int compressionLevel) {
+        if (file == null) {
+            throw new IllegalArgumentException("Файл не может быть null");
+        }
+        FileBackedTaskManager.checkCompressionLevel(compressionLevel);
+        this.file = file;
+        this.tempFile = new File(file.getPath() + ".tmp");
+        this.compressionLevel = compressionLevel;
+        this.executor = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("snapshot-saver").daemon().factory());
+    }
+
+    // Берёт срез и ставит его запись в очередь; future завершается, когда срез записан или пропущен
+    public Future<?> save(TaskManager manager) {
+        BoardSnapshot board = manager.snapshot();
+        HistorySnapshot history = manager.historySnapshot();
+        Map<Integer, List<Integer>> dependencies = manager.getAllDependencies();
+        long request = requests.incrementAndGet();
+        return executor.submit(() -> {
+            if (request < requests.get()) {
+                return;
+            }
+            try {
+                write(board, history, dependencies);
+                savedVersion = board.getVersion();
+                savedCount.incrementAndGet();
+            } catch (IOException e) {
+                lastFailure = e;
+                throw new ManagerSaveException("Не удалось сохранить срез доски в " + file, e);
+            }
+        });
+    }
+
+    // Версия последнего записанного среза; -1, если записей не было
+    public long getSavedVersion() {
+        return savedVersion;
+    }
+
+    // Сколько срезов записано; пропущенные не считаются
+    public long getSavedCount() {
+        return savedCount.get();
+    }
+
+    public IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    // Дописывает уже запрошенные срезы и останавливает поток
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(BoardSnapshot board, HistorySnapshot historySnapshot,
+                       Map<Integer, List<Integer>> dependencies) throws IOException {
+        int[] historyIds = historySnapshot.getIds();
+        List<Task> history = new ArrayList<>(historyIds.length);
+        for (int id : historyIds) {
+            Task task = board.getTask(id);
+            if (task == null) {
+                task = board.getEpic(id);
+            }
+            if (task == null) {
+                task = board.getSubtask(id);
+            }
+            if (task != null) {
+                history.add(task);
+            }
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        FileBackedTaskManager.writeBoard(tempFile, compressionLevel, board.getTasks(), board.getEpics(),
+                board.getSubtasks(), history, dependencies);
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,200 @@
+package manager;
+
+import metrics.LatencyHistogram;
+import task.TaskStatus;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Журнал смен статуса задач и подзадач с отметками времени и сводки потока, которые обновляются
+// на каждой смене: число задач в каждом статусе (WIP), время выполнения от создания до DONE (lead time),
+// от начала работы до DONE (cycle time) и время пребывания в каждом статусе. Времена — в миллисекундах
+// в гистограммах LatencyHistogram: перцентили берутся без обхода журнала, гистограммы разных менеджеров
+// и периодов складываются через add. Статус эпика вычисляется из подзадач, поэтому эпики не учитываются.
+// Журнал — параллельные массивы примитивов, одна смена занимает 14 байт. Пишет только поток менеджера;
+// сводки можно читать из любых потоков, записи журнала — из потока менеджера.
+public class StatusLog {
+    // Смена статуса; from == null — задача создана, to == null — удалена
+    public record Transition(int taskId, TaskStatus from, TaskStatus to, Instant time) {
+    }
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final byte NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Clock clock;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private byte[] from = new byte[INITIAL_CAPACITY];
+    private byte[] to = new byte[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int size;
+
+    // Открытые задачи: текущий статус и моменты, от которых считаются сводки
+    private final Map<Integer, Tracked> tracked = new HashMap<>();
+    private final AtomicIntegerArray wip = new AtomicIntegerArray(STATUSES.length);
+    private final LatencyHistogram leadTime = new LatencyHistogram();
+    private final LatencyHistogram cycleTime = new LatencyHistogram();
+    private final LatencyHistogram[] timeInStatus = new LatencyHistogram[STATUSES.length];
+
+    private static final class Tracked {
+        TaskStatus status;
+        // Момент входа в текущий статус
+        long since;
+        // Создание и начало работы; -1 — неизвестно, например задача была на доске до включения журнала
+        long created;
+        long started;
+        // Уже учтена в lead и cycle time
+        boolean delivered;
+    }
+
+    StatusLog(Clock clock) {
+        this.clock = clock;
+        for (int i = 0; i < STATUSES.length; i++) {
+            timeInStatus[i] = new LatencyHistogram();
+        }
+    }
+
+    // Задача, которая была на доске до включения журнала: попадает в WIP, но не в lead и cycle time
+    void seed(int id, TaskStatus status) {
+        Tracked task = new Tracked();
+        task.status = status;
+        task.since = clock.millis();
+        task.created = -1;
+        task.started = -1;
+        task.delivered = status == TaskStatus.DONE;
+        tracked.put(id, task);
+        wip.incrementAndGet(status.ordinal());
+    }
+
+    void created(int id, TaskStatus status) {
+        long now = clock.millis();
+        append(id, NONE, (byte) status.ordinal(), now);
+        Tracked task = new Tracked();
+        task.status = status;
+        task.since = now;
+        task.created = now;
+        task.started = status == TaskStatus.NEW ? -1 : now;
+        tracked.put(id, task);
+        wip.incrementAndGet(status.ordinal());
+        if (status == TaskStatus.DONE) {
+            completed(task, now);
+        }
+    }
+
+    void changed(int id, TaskStatus status) {
+        Tracked task = tracked.get(id);
+        if (task == null) {
+            created(id, status);
+            return;
+        }
+        if (task.status == status) {
+            return;
+        }
+        long now = clock.millis();
+        append(id, (byte) task.status.ordinal(), (byte) status.ordinal(), now);
+        leave(task, now);
+        task.status = status;
+        task.since = now;
+        wip.incrementAndGet(status.ordinal());
+        if (status == TaskStatus.IN_PROGRESS && task.started < 0 && !task.delivered) {
+            task.started = now;
+        }
+        if (status == TaskStatus.DONE) {
+            completed(task, now);
+        }
+    }
+
+    void removed(int id) {
+        Tracked task = tracked.remove(id);
+        if (task == null) {
+            return;
+        }
+        long now = clock.millis();
+        append(id, (byte) task.status.ordinal(), NONE, now);
+        leave(task, now);
+    }
+
+    private void leave(Tracked task, long now) {
+        wip.decrementAndGet(task.status.ordinal());
+        timeInStatus[task.status.ordinal()].record(now - task.since);
+    }
+
+    // Учитывается первое завершение: повторное открытие и завершение не считаются новой поставкой
+    private void completed(Tracked task, long now) {
+        if (task.delivered) {
+            return;
+        }
+        task.delivered = true;
+        if (task.created >= 0) {
+            leadTime.record(now - task.created);
+        }
+        if (task.started >= 0) {
+            cycleTime.record(now - task.started);
+        }
+    }
+
+    private void append(int id, byte fromStatus, byte toStatus, long time) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+        ids[size] = id;
+        from[size] = fromStatus;
+        to[size] = toStatus;
+        times[size] = time;
+        size++;
+    }
+
+    // Число задач и подзадач в статусе сейчас
+    public int getWip(TaskStatus status) {
+        return wip.get(status.ordinal());
+    }
+
+    public LatencyHistogram getLeadTime() {
+        return leadTime;
+    }
+
+    public LatencyHistogram getCycleTime() {
+        return cycleTime;
+    }
+
+    // Сколько задачи пробыли в статусе до выхода из него
+    public LatencyHistogram getTimeInStatus(TaskStatus status) {
+        return timeInStatus[status.ordinal()];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Transition get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Нет записи " + index + " в журнале из " + size);
+        }
+        return new Transition(ids[index], status(from[index]), status(to[index]), Instant.ofEpochMilli(times[index]));
+    }
+
+    // Смены статуса одной задачи по порядку; обходит весь журнал
+    public List<Transition> getTransitions(int taskId) {
+        List<Transition> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == taskId) {
+                result.add(get(i));
+            }
+        }
+        return result;
+    }
+
+    private static TaskStatus status(byte ordinal) {
+        return ordinal == NONE ? null : STATUSES[ordinal];
+    }
+}
@@ -0,0 +1,142 @@
+package manager;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Flow.Publisher над ленивым потоком, например manager::streamAllTasks. Каждый подписчик получает свой
+// поток, открытый при первом request, и ровно столько элементов, сколько запросил: следующий элемент
+// достаётся из хранилища только под спрос, поэтому медленный подписчик не копит очередь в памяти.
+// Поток закрывается после последнего элемента, ошибки или cancel — у менеджеров с базой это освобождает курсор.
+// Без executor элементы выдаются в потоке, вызвавшем request, — так можно читать однопоточный менеджер.
+// С executor выдача идёт в нём, и источник должен допускать чтение оттуда: срез доски допускает всегда,
+// потоки stream* однопоточных менеджеров — только пока менеджер не меняется.
+public class StreamPublisher<T> implements Flow.Publisher<T> {
+    private final Supplier<? extends Stream<? extends T>> source;
+    private final Executor executor;
+
+    public StreamPublisher(Supplier<? extends Stream<? extends T>> source) {
+        this(source, Runnable::run);
+    }
+
+    public StreamPublisher(Supplier<? extends Stream<? extends T>> source, Executor executor) {
+        if (source == null) {
+            throw new IllegalArgumentException("Источник не может быть null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor не может быть null");
+        }
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Подписчик не может быть null");
+        }
+        StreamSubscription subscription = new StreamSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    // request и cancel только отмечают спрос и будят выдачу; сама выдача идёт одним исполнителем за раз,
+    // поэтому onNext не вызываются параллельно, а request изнутри onNext не уходит в рекурсию
+    private final class StreamSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException badRequest;
+        // Дальше трогаются только внутри run()
+        private Stream<? extends T> stream;
+        private Iterator<? extends T> iterator;
+        private boolean finished;
+
+        StreamSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Запрошено неположительное число элементов: " + n);
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (finished) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (badRequest != null) {
+                finish();
+                subscriber.onError(badRequest);
+                return;
+            }
+            long requested = demand.get();
+            long emitted = 0;
+            try {
+                if (iterator == null && requested > 0) {
+                    stream = source.get();
+                    iterator = stream.iterator();
+                }
+                while (emitted < requested && !cancelled && badRequest == null) {
+                    if (!iterator.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+            } catch (RuntimeException e) {
+                finish();
+                subscriber.onError(e);
+                return;
+            }
+            // Конец потока, совпавший с концом спроса, подписчик узнает при следующем request:
+            // заглядывать вперёд значило бы читать элемент, который ещё не запрошен
+            if (requested != Long.MAX_VALUE) {
+                demand.addAndGet(-emitted);
+            }
+        }
+
+        private void finish() {
+            finished = true;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package manager;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Потоковый CSV-декодер задач по RFC 4180: читает Reader через собственный буфер символов за один проход,
+// без String.split и регулярных выражений. Поле в кавычках может содержать запятые, переводы строк
+// и удвоенные кавычки; кавычка не в начале поля — обычный символ, так читаются и файлы старой версии.
+// Версия формата определяется по заголовку: файлы версии 1 (без строки версии, длительность в минутах)
+// читаются как есть, а при следующем сохранении менеджер перепишет их в текущей версии.
+public final class TaskCsvReader {
+    public static final int VERSION = 2;
+    public static final String VERSION_LINE = "#v" + VERSION;
+    public static final String HEADER = "id,type,name,status,description,start,duration,epic";
+    // Заголовок версии 1: колонки в нём не совпадали с тем, что писалось в строки
+    static final String LEGACY_HEADER = "id,type,name,status,description,epic";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int FIELDS = 8;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    // Символы текущей записи подряд, без кавычек; поле i — [starts[i], ends[i])
+    private char[] chars = new char[256];
+    private int length;
+    private int[] starts = new int[FIELDS + 1];
+    private int[] ends = new int[FIELDS + 1];
+    private boolean[] quoted = new boolean[FIELDS + 1];
+    private int fields;
+    // Номер последней прочитанной строки файла — для сообщений об ошибках
+    private int line;
+    private int version;
+
+    public TaskCsvReader(Reader in) {
+        if (in == null) {
+            throw new IllegalArgumentException("Поток не может быть null");
+        }
+        this.in = in;
+    }
+
+    // Читает строку версии и заголовок; возвращает версию формата файла
+    public int readHeader() throws IOException {
+        if (!readRecord()) {
+            throw error("Файл пуст");
+        }
+        if (fields == 1 && startsWith(0, "#v")) {
+            int fileVersion = (int) parseLong(0, 2);
+            if (fileVersion != VERSION) {
+                throw error("Неподдерживаемая версия формата: " + fileVersion);
+            }
+            if (!readRecord() || !matches(HEADER)) {
+                throw error("Некорректный заголовок");
+            }
+            version = VERSION;
+        } else if (matches(LEGACY_HEADER)) {
+            version = 1;
+        } else {
+            throw error("Некорректный формат файла");
+        }
+        return version;
+    }
+
+    // Следующая задача; null в конце файла или на пустой строке перед историей
+    public Task readTask() throws IOException {
+        if (version == 0) {
+            throw new IllegalStateException("Сначала нужно прочитать заголовок");
+        }
+        if (!readRecord() || isBlank()) {
+            return null;
+        }
+        return version == 1 ? legacyTask() : task();
+    }
+
+    // id задач из строки истории, от давних к свежим
+    public List<Integer> readHistory() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        if (!readRecord() || isBlank()) {
+            return ids;
+        }
+        for (int i = 0; i < fields; i++) {
+            ids.add(id(i));
+        }
+        return ids;
+    }
+
+    // Зависимости после истории: id задачи -> id задач, от которых она зависит.
+    // В файлах, записанных до появления этого раздела, строк нет — зависимостей тоже
+    public Map<Integer, List<Integer>> readDependencies() throws IOException {
+        Map<Integer, List<Integer>> dependencies = new LinkedHashMap<>();
+        while (readRecord()) {
+            if (isBlank()) {
+                continue;
+            }
+            if (fields < 2) {
+                throw error("У задачи в разделе зависимостей не указано, от чего она зависит");
+            }
+            List<Integer> ids = new ArrayList<>(fields - 1);
+            for (int i = 1; i < fields; i++) {
+                ids.add(id(i));
+            }
+            dependencies.put(id(0), ids);
+        }
+        return dependencies;
+    }
+
+    // id,type,name,status,description,start,duration(с[.доли]),epic
+    private Task task() {
+        if (fields != FIELDS) {
+            throw error("Ожидалось " + FIELDS + " полей, а не " + fields);
+        }
+        Task task = create(text(2), text(4));
+        task.setId(id(0));
+        task.setStatus(status(3));
+        if (!(task instanceof Epic)) {
+            task.setStartTime(dateTime(5));
+            task.setDuration(isEmpty(6) ? null : seconds(6));
+        }
+        return task;
+    }
+
+    // id,type,name,status,description,start,duration(мин)[,epic]; null писался словом null
+    private Task legacyTask() {
+        if (fields < 7) {
+            throw error("Ожидалось не меньше 7 полей, а не " + fields);
+        }
+        Task task = create(text(2), text(4));
+        task.setId(id(0));
+        task.setStatus(isText(3, "null") ? TaskStatus.NEW : status(3));
+        if (!(task instanceof Epic)) {
+            task.setStartTime(dateTime(5));
+            task.setDuration(isEmpty(6) ? Duration.ZERO : Duration.ofMinutes(parseLong(6, 0)));
+        }
+        return task;
+    }
+
+    private Task create(String name, String description) {
+        if (isText(1, "TASK")) {
+            return new Task(name, description);
+        } else if (isText(1, "EPIC")) {
+            return new Epic(name, description);
+        } else if (isText(1, "SUBTASK")) {
+            if (fields < FIELDS || isEmpty(7)) {
+                throw error("У подзадачи не указан эпик");
+            }
+            return new Subtask(name, description, id(7));
+        }
+        throw error("Неизвестный тип задачи: " + text(1));
+    }
+
+    private TaskStatus status(int field) {
+        if (isEmpty(field)) {
+            return TaskStatus.NEW;
+        }
+        for (TaskStatus status : TaskStatus.values()) {
+            if (isText(field, status.name())) {
+                return status;
+            }
+        }
+        throw error("Неизвестный статус: " + text(field));
+    }
+
+    // Разбор вида yyyy-MM-ddTHH:mm[:ss] без форматтера; остальное — через LocalDateTime.parse
+    private LocalDateTime dateTime(int field) {
+        if (isEmpty(field)) {
+            return null;
+        }
+        int start = starts[field];
+        int size = ends[field] - start;
+        if ((size == 16 || size == 19) && chars[start + 4] == '-' && chars[start + 7] == '-'
+                && chars[start + 10] == 'T' && chars[start + 13] == ':' && (size == 16 || chars[start + 16] == ':')) {
+            try {
+                return LocalDateTime.of(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2),
+                        digits(start + 11, 2), digits(start + 14, 2), size == 19 ? digits(start + 17, 2) : 0);
+            } catch (DateTimeException e) {
+                throw error("Некорректное время: " + text(field));
+            }
+        }
+        try {
+            return LocalDateTime.parse(text(field));
+        } catch (DateTimeException e) {
+            throw error("Некорректное время: " + text(field));
+        }
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                throw error("Ожидалась цифра, а не '" + c + "'");
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // id задачи: положительное целое, которое помещается в int
+    private int id(int field) {
+        long id = parseLong(field, 0);
+        if (id <= 0 || id > Integer.MAX_VALUE) {
+            throw error("Некорректный id: " + text(field));
+        }
+        return (int) id;
+    }
+
+    // Секунды с необязательными долями после точки, до наносекунд: 90, 90.5, -0.25
+    private Duration seconds(int field) {
+        int from = starts[field];
+        int to = ends[field];
+        int dot = from;
+        while (dot < to && chars[dot] != '.') {
+            dot++;
+        }
+        if (dot == to) {
+            return Duration.ofSeconds(parseLong(field, 0));
+        }
+        boolean negative = chars[from] == '-';
+        int fraction = to - dot - 1;
+        if (dot == from + (negative ? 1 : 0) || fraction < 1 || fraction > 9) {
+            throw error("Некорректная длительность: " + text(field));
+        }
+        long nanos = digits(dot + 1, fraction);
+        for (int i = fraction; i < 9; i++) {
+            nanos *= 10;
+        }
+        Duration magnitude = Duration.ofSeconds(Math.abs(parseLong(field, from, dot)), nanos);
+        return negative ? magnitude.negated() : magnitude;
+    }
+
+    // Целое из поля field, начиная с символа skip
+    private long parseLong(int field, int skip) {
+        return parseLong(field, starts[field] + skip, ends[field]);
+    }
+
+    // Целое из символов [from, to) поля field
+    private long parseLong(int field, int from, int to) {
+        boolean negative = from < to && chars[from] == '-';
+        if (negative) {
+            from++;
+        }
+        if (from == to || to - from > 18) {
+            throw error("Некорректное число: " + text(field));
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                throw error("Некорректное число: " + text(field));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    // Пустое поле без кавычек — null, "" — пустая строка
+    private String text(int field) {
+        if (isEmpty(field) && !quoted[field]) {
+            return null;
+        }
+        return new String(chars, starts[field], ends[field] - starts[field]);
+    }
+
+    private boolean isEmpty(int field) {
+        return starts[field] == ends[field];
+    }
+
+    private boolean isBlank() {
+        return fields == 1 && isEmpty(0) && !quoted[0];
+    }
+
+    private boolean isText(int field, String value) {
+        int start = starts[field];
+        if (ends[field] - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (chars[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(int field, String prefix) {
+        int start = starts[field];
+        if (ends[field] - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Запись целиком совпадает с заголовком
+    private boolean matches(String header) {
+        int field = 0;
+        int from = 0;
+        while (true) {
+            int comma = header.indexOf(',', from);
+            int to = comma < 0 ? header.length() : comma;
+            if (field >= fields || !isText(field, header.substring(from, to))) {
+                return false;
+            }
+            field++;
+            if (comma < 0) {
+                return field == fields;
+            }
+            from = comma + 1;
+        }
+    }
+
+    // Одна запись CSV в chars/starts/ends; false, если файл кончился
+    private boolean readRecord() throws IOException {
+        if (position == limit && !fill()) {
+            return false;
+        }
+        fields = 0;
+        length = 0;
+        line++;
+        startField();
+        boolean inQuotes = false;
+        while (position < limit || fill()) {
+            char c = buffer[position++];
+            if (inQuotes) {
+                if (c != '"') {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append(c);
+                } else if ((position < limit || fill()) && buffer[position] == '"') {
+                    append('"');
+                    position++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == ',') {
+                endField();
+                startField();
+            } else if (c == '\n') {
+                endField();
+                return true;
+            } else if (c == '\r') {
+                if ((position < limit || fill()) && buffer[position] == '\n') {
+                    position++;
+                }
+                endField();
+                return true;
+            } else if (c == '"' && length == starts[fields] && !quoted[fields]) {
+                inQuotes = true;
+                quoted[fields] = true;
+            } else {
+                append(c);
+            }
+        }
+        if (inQuotes) {
+            throw error("Поле в кавычках не закрыто до конца файла");
+        }
+        endField();
+        return true;
+    }
+
+    private void startField() {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+            quoted = Arrays.copyOf(quoted, fields * 2);
+        }
+        starts[fields] = length;
+        quoted[fields] = false;
+    }
+
+    private void endField() {
+        ends[fields++] = length;
+    }
+
+    private void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length++] = c;
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer);
+        if (read <= 0) {
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private ManagerSaveException error(String message) {
+        return new ManagerSaveException(message + " (строка " + line + ")", null);
+    }
+}
@@ -0,0 +1,277 @@
+package manager;
+
+import task.Subtask;
+import task.Task;
+import task.TaskType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+// Потоковый CSV-кодировщик задач по RFC 4180: поля с запятой, кавычкой или переводом строки
+// берутся в кавычки, кавычки внутри удваиваются. Пишет в Writer через собственный буфер символов,
+// без String.format и промежуточных строк. null пишется пустым полем, пустая строка — как "".
+// Формат текущей версии: строка версии, заголовок, задачи, пустая строка, история (id через запятую),
+// затем зависимости — по строке на задачу: её id и id задач, от которых она зависит.
+public final class TaskCsvWriter {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Writer out;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+
+    public TaskCsvWriter(Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Поток не может быть null");
+        }
+        this.out = out;
+    }
+
+    public TaskCsvWriter writeHeader() throws IOException {
+        writeAscii(TaskCsvReader.VERSION_LINE);
+        writeChar('\n');
+        writeAscii(TaskCsvReader.HEADER);
+        writeChar('\n');
+        return this;
+    }
+
+    // id,type,name,status,description,start,duration,epic; длительность — в секундах, доли секунды — после точки
+    public TaskCsvWriter write(Task task) throws IOException {
+        writeLong(task.getId());
+        writeChar(',');
+        writeAscii(task.getType().name());
+        writeChar(',');
+        writeText(task.getName());
+        writeChar(',');
+        if (task.getStatus() != null) {
+            writeAscii(task.getStatus().name());
+        }
+        writeChar(',');
+        writeText(task.getDescription());
+        writeChar(',');
+        // Время эпика вычисляется по подзадачам и не хранится
+        if (task.getType() != TaskType.EPIC) {
+            writeDateTime(task.getStartTime());
+            writeChar(',');
+            writeDuration(task.getDuration());
+        } else {
+            writeChar(',');
+        }
+        writeChar(',');
+        if (task instanceof Subtask subtask) {
+            writeLong(subtask.getEpicId());
+        }
+        writeChar('\n');
+        return this;
+    }
+
+    // Пустая строка-разделитель и строка истории
+    public TaskCsvWriter writeHistory(Iterable<? extends Task> history) throws IOException {
+        writeChar('\n');
+        boolean first = true;
+        for (Task task : history) {
+            if (!first) {
+                writeChar(',');
+            }
+            writeLong(task.getId());
+            first = false;
+        }
+        writeChar('\n');
+        return this;
+    }
+
+    // Строки зависимостей после истории: id задачи, затем id задач, от которых она зависит
+    public TaskCsvWriter writeDependencies(Map<Integer, ? extends Collection<Integer>> dependencies)
+            throws IOException {
+        for (Map.Entry<Integer, ? extends Collection<Integer>> entry : dependencies.entrySet()) {
+            writeLong(entry.getKey());
+            for (int dependsOnId : entry.getValue()) {
+                writeChar(',');
+                writeLong(dependsOnId);
+            }
+            writeChar('\n');
+        }
+        return this;
+    }
+
+    // Сбрасывает накопленное в поток; сам поток не закрывает
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    // Целые секунды — как раньше; доли пишутся после точки по 3, 6 или 9 цифр, как у времени
+    private void writeDuration(Duration duration) throws IOException {
+        if (duration == null) {
+            return;
+        }
+        if (duration.getNano() == 0) {
+            writeLong(duration.getSeconds());
+            return;
+        }
+        // У отрицательной длительности с долями getSeconds() округлён вниз, поэтому пишем модуль со знаком
+        if (duration.isNegative()) {
+            writeChar('-');
+            duration = duration.negated();
+        }
+        writeLong(duration.getSeconds());
+        int nano = duration.getNano();
+        ensure(10);
+        buffer[position++] = '.';
+        if (nano % 1_000_000 == 0) {
+            digits(nano / 1_000_000, 3);
+        } else if (nano % 1_000 == 0) {
+            digits(nano / 1_000, 6);
+        } else {
+            digits(nano, 9);
+        }
+    }
+
+    // Тот же вид, что у LocalDateTime.toString(): секунды и доли пишутся, только если они не нулевые
+    private void writeDateTime(LocalDateTime value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            writeAscii(value.toString());
+            return;
+        }
+        ensure(32);
+        digits(year, 4);
+        buffer[position++] = '-';
+        digits(value.getMonthValue(), 2);
+        buffer[position++] = '-';
+        digits(value.getDayOfMonth(), 2);
+        buffer[position++] = 'T';
+        digits(value.getHour(), 2);
+        buffer[position++] = ':';
+        digits(value.getMinute(), 2);
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second > 0 || nano > 0) {
+            buffer[position++] = ':';
+            digits(second, 2);
+            if (nano > 0) {
+                buffer[position++] = '.';
+                if (nano % 1_000_000 == 0) {
+                    digits(nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    digits(nano / 1_000, 6);
+                } else {
+                    digits(nano, 9);
+                }
+            }
+        }
+    }
+
+    // Место в буфере должно быть обеспечено вызывающим
+    private void digits(int value, int width) {
+        for (int i = position + width - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position += width;
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int length = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            length++;
+        }
+        for (int i = position + length - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position += length;
+    }
+
+    // Кавычки только там, где без них поле прочиталось бы иначе
+    private void writeText(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.isEmpty() || needsQuotes(value)) {
+            writeQuoted(value);
+            return;
+        }
+        int length = value.length();
+        for (int offset = 0; offset < length; ) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int chunk = Math.min(length - offset, buffer.length - position);
+            value.getChars(offset, offset + chunk, buffer, position);
+            position += chunk;
+            offset += chunk;
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeQuoted(String value) throws IOException {
+        writeChar('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            ensure(2);
+            if (c == '"') {
+                buffer[position++] = '"';
+            }
+            buffer[position++] = c;
+        }
+        writeChar('"');
+    }
+
+    // Только для строк без спецсимволов CSV: констант и имён перечислений
+    private void writeAscii(String value) throws IOException {
+        int length = value.length();
+        if (position + length > buffer.length) {
+            drain();
+        }
+        if (length > buffer.length) {
+            out.write(value);
+            return;
+        }
+        value.getChars(0, length, buffer, position);
+        position += length;
+    }
+
+    private void writeChar(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = c;
+    }
+
+    private void ensure(int chars) throws IOException {
+        if (position + chars > buffer.length) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -1,9 +1,21 @@
 package manager;
 
+import event.Subscription;
+import event.TaskEventListener;
+import history.HistorySnapshot;
 import task.Task;
 import task.Epic;
 import task.Subtask;
+import task.TaskType;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 public interface TaskManager {
     int generateId();
@@ -52,6 +64,88 @@ public interface TaskManager {
 
     Task getTask(int id);
 
+    // Есть ли задача типа type с таким id; в историю просмотров не попадает
+    default boolean contains(TaskType type, int id) {
+        BoardSnapshot board = snapshot();
+        return switch (type) {
+            case TASK -> board.getTask(id) != null;
+            case EPIC -> board.getEpic(id) != null;
+            case SUBTASK -> board.getSubtask(id) != null;
+        };
+    }
+
     List<Task> getPrioritizedTasks();
 
+    List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    LocalDateTime getNextFreeSlot(Duration duration, LocalDateTime after);
+
+    Map<LocalDate, List<Task>> getTasksByDay(LocalDate from, LocalDate to);
+
+    List<Task> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from, LocalDateTime to);
+
+    List<Task> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from, LocalDateTime to,
+                                   Comparator<? super Task> priority);
+
+    void addDependency(int taskId, int dependsOnId);
+
+    void removeDependency(int taskId, int dependsOnId);
+
+    List<Integer> getDependencies(int taskId);
+
+    // Все зависимости: id задачи -> id задач, от которых она зависит; задачи без зависимостей не входят.
+    // Неизменяемая копия; InMemoryTaskManager отдаёт срез графа за O(1), здесь — обход всех задач и подзадач
+    default Map<Integer, List<Integer>> getAllDependencies() {
+        Map<Integer, List<Integer>> result = new TreeMap<>();
+        BoardSnapshot board = snapshot();
+        for (Task task : board.getTasks()) {
+            List<Integer> dependencies = getDependencies(task.getId());
+            if (!dependencies.isEmpty()) {
+                result.put(task.getId(), List.copyOf(dependencies));
+            }
+        }
+        for (Subtask subtask : board.getSubtasks()) {
+            List<Integer> dependencies = getDependencies(subtask.getId());
+            if (!dependencies.isEmpty()) {
+                result.put(subtask.getId(), List.copyOf(dependencies));
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    List<Subtask> getEpicSubtasksInOrder(int epicId);
+
+    Duration getCriticalPath(int epicId);
+
+    Subscription subscribe(TaskEventListener listener);
+
+    // Согласованный срез доски. Где isSnapshotLockFree(), он уже опубликован: берётся за O(1) и читается
+    // из любого потока без блокировок. Иначе срез собирается по запросу, и брать его нужно там же, где
+    // идут остальные вызовы: в том же потоке или под тем же замком
+    BoardSnapshot snapshot();
+
+    // Можно ли брать snapshot() без блокировок, параллельно с изменениями доски
+    default boolean isSnapshotLockFree() {
+        return false;
+    }
+
+    // Срез истории к snapshot(): вместе их берут в одном потоке или под одним замком
+    default HistorySnapshot historySnapshot() {
+        try (Stream<Task> history = streamHistory()) {
+            return HistorySnapshot.of(history.mapToInt(Task::getId).toArray());
+        }
+    }
+
+    // Ленивые варианты getAllTasks, getAllSubtasks, getHistory и getPrioritizedTasks: задачи не собираются
+    // в список, а достаются из хранилища по мере чтения потока. Поток дочитывают до следующего изменения
+    // менеджера и в том же потоке (или под тем же замком), что и остальные вызовы; у менеджеров с файлом
+    // или базой он держит курсор, поэтому его закрывают. Для выдачи с обратным давлением — StreamPublisher
+    Stream<Task> streamAllTasks();
+
+    Stream<Subtask> streamAllSubtasks();
+
+    Stream<Task> streamHistory();
+
+    Stream<Task> streamPrioritizedTasks();
+
 }
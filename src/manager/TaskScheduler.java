@@ -0,0 +1,121 @@
+package manager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+// Раскладывает задачи без времени начала по свободным промежуткам рабочего календаря.
+// Промежутки хранятся в дереве отрезков по максимальной длине: первый подходящий
+// находится за O(log G), а размещение в начале промежутка только укорачивает его.
+public class TaskScheduler {
+    private final long[] gapStart;
+    private final long[] gapEnd;
+    private final long[] maxLength;
+    private final int size;
+
+    public TaskScheduler(TimeIndex timeIndex, WorkingHours workingHours, LocalDateTime from, LocalDateTime to) {
+        if (timeIndex == null || workingHours == null || from == null || to == null) {
+            throw new IllegalArgumentException("Параметры планирования не могут быть null");
+        }
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("Конец периода планирования должен быть позже начала");
+        }
+        List<long[]> gaps = new ArrayList<>();
+        for (LocalDateTime[] window : workingHours.windows(from, to)) {
+            long cursor = ceilSeconds(window[0]);
+            long windowEnd = floorSeconds(window[1]);
+            for (LocalDateTime[] interval : timeIndex.busyIntervals(window[0], window[1])) {
+                long busyStart = floorSeconds(interval[0]);
+                if (busyStart > cursor) {
+                    gaps.add(new long[]{cursor, busyStart});
+                }
+                cursor = Math.max(cursor, ceilSeconds(interval[1]));
+            }
+            if (windowEnd > cursor) {
+                gaps.add(new long[]{cursor, windowEnd});
+            }
+        }
+
+        size = gaps.size();
+        gapStart = new long[size];
+        gapEnd = new long[size];
+        for (int i = 0; i < size; i++) {
+            gapStart[i] = gaps.get(i)[0];
+            gapEnd[i] = gaps.get(i)[1];
+        }
+        maxLength = new long[Math.max(1, 4 * size)];
+        if (size > 0) {
+            build(1, 0, size - 1);
+        }
+    }
+
+    // Занимает самый ранний промежуток, куда помещается duration; null, если места нет
+    public LocalDateTime place(Duration duration) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Для планирования нужна положительная длительность");
+        }
+        long length = duration.getSeconds() + (duration.getNano() > 0 ? 1 : 0);
+        if (size == 0 || maxLength[1] < length) {
+            return null;
+        }
+        int index = findFirst(1, 0, size - 1, length);
+        long start = gapStart[index];
+        gapStart[index] += length;
+        update(1, 0, size - 1, index);
+        return LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC);
+    }
+
+    public int getGapCount() {
+        return size;
+    }
+
+    private void build(int node, int left, int right) {
+        if (left == right) {
+            maxLength[node] = gapEnd[left] - gapStart[left];
+            return;
+        }
+        int middle = (left + right) >>> 1;
+        build(2 * node, left, middle);
+        build(2 * node + 1, middle + 1, right);
+        maxLength[node] = Math.max(maxLength[2 * node], maxLength[2 * node + 1]);
+    }
+
+    private int findFirst(int node, int left, int right, long length) {
+        while (left != right) {
+            int middle = (left + right) >>> 1;
+            if (maxLength[2 * node] >= length) {
+                node = 2 * node;
+                right = middle;
+            } else {
+                node = 2 * node + 1;
+                left = middle + 1;
+            }
+        }
+        return left;
+    }
+
+    private void update(int node, int left, int right, int index) {
+        if (left == right) {
+            maxLength[node] = gapEnd[index] - gapStart[index];
+            return;
+        }
+        int middle = (left + right) >>> 1;
+        if (index <= middle) {
+            update(2 * node, left, middle, index);
+        } else {
+            update(2 * node + 1, middle + 1, right, index);
+        }
+        maxLength[node] = Math.max(maxLength[2 * node], maxLength[2 * node + 1]);
+    }
+
+    // Начала свободных промежутков округляем вверх, концы вниз, чтобы доли секунды не давали пересечений
+    private static long ceilSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) + (time.getNano() > 0 ? 1 : 0);
+    }
+
+    private static long floorSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
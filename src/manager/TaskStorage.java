@@ -0,0 +1,50 @@
+package manager;
+
+import task.Task;
+import task.TaskType;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+// Где InMemoryTaskManager держит задачи, эпики и подзадачи. Вся логика доски — id, пересечения по времени,
+// статусы эпиков, история, события, зависимости — остаётся в менеджере; хранилище только кладёт, отдаёт
+// и удаляет записи. Менеджер сам помнит, какие id какого типа существуют, поэтому get и remove
+// вызываются только для существующих задач. Объект, который менеджер поменял, он тут же кладёт
+// обратно через put — хранилище не обязано следить за изменениями отданных объектов.
+public interface TaskStorage extends AutoCloseable {
+    // Задача для работы с ней: хранилище может держать отданный объект в кеше и отдавать его снова
+    Task get(TaskType type, int id);
+
+    // То же для обходов доски: прочитанное не должно вытеснять из кеша горячие задачи
+    default Task read(TaskType type, int id) {
+        return get(type, id);
+    }
+
+    // Новая задача или новое состояние прежней; объект становится хранимым
+    void put(Task task);
+
+    void remove(TaskType type, int id);
+
+    // Все задачи типа в порядке хранилища; поток может держать ресурсы, поэтому вызывающий его закрывает
+    Stream<Task> stream(TaskType type);
+
+    // Зависимости задач — только для хранилищ, которые переживают перезапуск
+    default void addDependency(int taskId, int dependsOnId) {
+    }
+
+    default void removeDependency(int taskId, int dependsOnId) {
+    }
+
+    // Сохранённые зависимости парами {taskId, dependsOnId} — их менеджер читает при открытии
+    default List<int[]> loadDependencies() {
+        return List.of();
+    }
+
+    // Операция менеджера завершена: её изменения можно фиксировать
+    default void commit() {
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,85 @@
+package manager;
+
+import task.TaskStatus;
+import task.TaskType;
+
+import java.util.Arrays;
+
+// Что менеджер помнит о каждой задаче, эпике и подзадаче без обращения к хранилищу: тип, статус
+// и версию последней записи. По таблице проверяется, есть ли задача, берётся прежний статус для
+// STATUS_CHANGED и статусы подзадач для статуса эпика. Около 30 байт на задачу в массивах примитивов.
+final class TaskTable {
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final IdSlots slots = new IdSlots();
+    // Тип + 1; 0 — ячейка свободна
+    private byte[] types = new byte[16];
+    private byte[] statuses = new byte[16];
+    private long[] versions = new long[16];
+    private final int[] counts = new int[TYPES.length];
+
+    // Тип задачи с данным id или null, если её нет
+    TaskType typeOf(int id) {
+        int slot = slots.get(id);
+        return slot < 0 ? null : TYPES[types[slot] - 1];
+    }
+
+    boolean contains(int id, TaskType type) {
+        return typeOf(id) == type;
+    }
+
+    TaskStatus statusOf(int id) {
+        int slot = slots.get(id);
+        return slot < 0 ? null : STATUSES[statuses[slot]];
+    }
+
+    // 0, если задачи нет
+    long versionOf(int id) {
+        int slot = slots.get(id);
+        return slot < 0 ? 0 : versions[slot];
+    }
+
+    int size(TaskType type) {
+        return counts[type.ordinal()];
+    }
+
+    void put(int id, TaskType type, TaskStatus status, long version) {
+        int slot = slots.add(id);
+        if (slot >= types.length) {
+            int capacity = Math.max(types.length * 2, slot + 1);
+            types = Arrays.copyOf(types, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+        if (types[slot] != 0) {
+            counts[types[slot] - 1]--;
+        }
+        types[slot] = (byte) (type.ordinal() + 1);
+        statuses[slot] = (byte) (status != null ? status : TaskStatus.NEW).ordinal();
+        versions[slot] = version;
+        counts[type.ordinal()]++;
+    }
+
+    void remove(int id) {
+        int slot = slots.remove(id);
+        if (slot >= 0) {
+            counts[types[slot] - 1]--;
+            types[slot] = 0;
+        }
+    }
+
+    // id задач типа по возрастанию
+    int[] ids(TaskType type) {
+        int[] ids = new int[size(type)];
+        int count = 0;
+        byte code = (byte) (type.ordinal() + 1);
+        for (int slot = 0; slot < slots.limit(); slot++) {
+            if (types[slot] == code) {
+                ids[count++] = slots.idAt(slot);
+            }
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+}
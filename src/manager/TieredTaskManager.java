@@ -0,0 +1,87 @@
+package manager;
+
+import metrics.ManagerMetrics;
+
+import java.nio.file.Path;
+
+// Менеджер с двумя уровнями хранения. Вся логика — от InMemoryTaskManager, а задачи хранит
+// TieredTaskStorage: эпики и все задачи и подзадачи в статусах NEW и IN_PROGRESS живут в памяти,
+// выполненные (DONE) сразу пишутся в ColdTaskStore на диске и остаются в памяти, только пока они
+// в ограниченном кеше; вытесненные читаются с диска при следующем обращении. Кеш вытесняет давно
+// не читанные (LRU) или давно загруженные (FIFO) задачи. Время начала, статус и зависимости всех задач
+// держат индексы менеджера, поэтому проверка пересечений и статус эпика холодные задачи с диска не читают.
+// История хранит копию задачи на момент просмотра только для задач в памяти; просмотренная выполненная
+// задача остаётся в истории номером и читается с диска, пока её запись там не изменится.
+// snapshot() собирается за O(n) и без блокировок не читается; undo и asOf недоступны. Доля попаданий в кеш
+// и время чтения с диска видны в метриках. Как и InMemoryTaskManager, не потокобезопасен.
+public final class TieredTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    // Какие выполненные задачи кеш отдаёт первыми при переполнении
+    public enum Eviction {
+        // Давно не читанные
+        LRU,
+        // Давно загруженные, независимо от чтений
+        FIFO
+    }
+
+    private final TieredTaskStorage storage;
+
+    public TieredTaskManager(Path coldFile) {
+        this(coldFile, DEFAULT_CACHE_SIZE, Eviction.LRU, ManagerMetrics.disabled());
+    }
+
+    // Файл холодных задач рабочий: содержимое при открытии отбрасывается, в close() файл удаляется
+    public TieredTaskManager(Path coldFile, int cacheSize, Eviction eviction, ManagerMetrics metrics) {
+        this(new TieredTaskStorage(coldFile, cacheSize, eviction, metrics), metrics);
+    }
+
+    private TieredTaskManager(TieredTaskStorage storage, ManagerMetrics metrics) {
+        super(storage, storage.history(), metrics);
+        this.storage = storage;
+        registerGauges();
+    }
+
+    private void registerGauges() {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        metrics.registerGauge("tasks.hot", storage::hotCount);
+        metrics.registerGauge("cold.size", storage::coldCount);
+        metrics.registerGauge("cold.file.bytes", storage::coldFileBytes);
+        metrics.registerGauge("cold.cache.size", storage::cachedCount);
+        metrics.registerGauge("cold.hits", storage::hits);
+        metrics.registerGauge("cold.faults", storage::faults);
+        metrics.registerGauge("cold.hitRate.percent", () -> Math.round(getHitRate() * 100));
+    }
+
+    // Обращения к выполненным задачам, обслуженные кешем без чтения с диска
+    public long getHitCount() {
+        return storage.hits();
+    }
+
+    // Обращения, которым пришлось читать задачу с диска
+    public long getFaultCount() {
+        return storage.faults();
+    }
+
+    public double getHitRate() {
+        long total = storage.hits() + storage.faults();
+        return total == 0 ? 0 : (double) storage.hits() / total;
+    }
+
+    // Сколько выполненных задач и подзадач лежит на диске
+    public int getColdCount() {
+        return storage.coldCount();
+    }
+
+    public int getCachedCount() {
+        return storage.cachedCount();
+    }
+
+    // Удаляет файл выгруженных задач
+    @Override
+    public void close() {
+        storage.close();
+    }
+}
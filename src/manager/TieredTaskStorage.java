@@ -0,0 +1,227 @@
+package manager;
+
+import history.HistoryManager;
+import metrics.ManagerMetrics;
+import metrics.Operation;
+import task.Epic;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Хранилище TieredTaskManager. Эпики и все задачи и подзадачи в статусах NEW и IN_PROGRESS лежат
+// в памяти. Выполненные (DONE) при записи уходят в ColdTaskStore на диске и остаются в памяти, только
+// пока они в ограниченном кеше; вытесненные читаются с диска при следующем обращении.
+class TieredTaskStorage implements TaskStorage {
+    private final Map<Integer, Task> tasks = new HashMap<>();
+    private final Map<Integer, Task> epics = new HashMap<>();
+    private final Map<Integer, Task> subtasks = new HashMap<>();
+    private final ColdTaskStore cold;
+    private final int cacheSize;
+    // Выполненные задачи и подзадачи, которые сейчас в памяти
+    private final LinkedHashMap<Integer, Task> cache;
+    private final ManagerMetrics metrics;
+    private final History history = new History();
+    private long hits;
+    private long faults;
+
+    // Файл холодных задач рабочий: содержимое при открытии отбрасывается, в close() файл удаляется
+    TieredTaskStorage(Path coldFile, int cacheSize, TieredTaskManager.Eviction eviction, ManagerMetrics metrics) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Размер кеша не может быть отрицательным");
+        }
+        if (eviction == null || metrics == null) {
+            throw new IllegalArgumentException("Политика вытеснения и метрики не могут быть null");
+        }
+        this.cold = new ColdTaskStore(coldFile);
+        this.cacheSize = cacheSize;
+        this.metrics = metrics;
+        this.cache = new LinkedHashMap<>(16, 0.75f, eviction == TieredTaskManager.Eviction.LRU) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > TieredTaskStorage.this.cacheSize;
+            }
+        };
+    }
+
+    // История просмотров, которая не держит в памяти копии выполненных задач
+    HistoryManager history() {
+        return history;
+    }
+
+    long hits() {
+        return hits;
+    }
+
+    long faults() {
+        return faults;
+    }
+
+    int hotCount() {
+        return tasks.size() + subtasks.size();
+    }
+
+    int coldCount() {
+        return cold.size();
+    }
+
+    long coldFileBytes() {
+        return cold.getFileBytes();
+    }
+
+    int cachedCount() {
+        return cache.size();
+    }
+
+    // Задача из памяти, из кеша или с диска с занесением в кеш
+    @Override
+    public Task get(TaskType type, int id) {
+        Task task = hot(type, id);
+        if (task != null) {
+            return task;
+        }
+        task = cache.get(id);
+        if (task != null) {
+            hits++;
+            return task;
+        }
+        return remember(faultIn(id));
+    }
+
+    // Как get, но прочитанная с диска задача в кеш не кладётся, чтобы обход доски не вытеснил горячие
+    @Override
+    public Task read(TaskType type, int id) {
+        Task task = hot(type, id);
+        if (task == null) {
+            task = cache.get(id);
+        }
+        return task != null ? task : faultIn(id);
+    }
+
+    // Выполненная задача пишется на диск и остаётся в кеше, остальные держатся в памяти
+    @Override
+    public void put(Task task) {
+        int id = task.getId();
+        if (task instanceof Epic) {
+            epics.put(id, task);
+            return;
+        }
+        Map<Integer, Task> hot = task.getType() == TaskType.SUBTASK ? subtasks : tasks;
+        history.detach(id);
+        if (task.getStatus() == TaskStatus.DONE) {
+            hot.remove(id);
+            cold.write(task);
+            remember(task);
+            return;
+        }
+        cold.remove(id);
+        cache.remove(id);
+        hot.put(id, task);
+    }
+
+    @Override
+    public void remove(TaskType type, int id) {
+        if (type == TaskType.EPIC) {
+            epics.remove(id);
+            return;
+        }
+        (type == TaskType.SUBTASK ? subtasks : tasks).remove(id);
+        cold.remove(id);
+        cache.remove(id);
+    }
+
+    // Сначала задачи в памяти, затем холодные с диска — не по порядку id
+    @Override
+    public Stream<Task> stream(TaskType type) {
+        if (type == TaskType.EPIC) {
+            return epics.values().stream();
+        }
+        Map<Integer, Task> hot = type == TaskType.SUBTASK ? subtasks : tasks;
+        return Stream.concat(hot.values().stream(), cold.ids(type).mapToObj(id -> read(type, id)));
+    }
+
+    // Удаляет файл выгруженных задач
+    @Override
+    public void close() {
+        cold.close();
+    }
+
+    private Task hot(TaskType type, int id) {
+        return (type == TaskType.EPIC ? epics : type == TaskType.SUBTASK ? subtasks : tasks).get(id);
+    }
+
+    private Task faultIn(int id) {
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        Task task = cold.read(id);
+        faults++;
+        if (metrics.isEnabled()) {
+            metrics.recordOperation(Operation.FAULT_IN, System.nanoTime() - start);
+        }
+        return task;
+    }
+
+    private Task remember(Task task) {
+        if (cacheSize > 0) {
+            cache.put(task.getId(), task);
+        }
+        return task;
+    }
+
+    // История хранит копию задачи на момент просмотра только для задач в памяти; просмотренная
+    // выполненная задача остаётся в истории номером и читается с диска, пока её запись там не изменится
+    private final class History implements HistoryManager {
+        // id в порядке просмотра -> задача на момент просмотра; null — та же, что сейчас на диске
+        private final LinkedHashMap<Integer, Task> viewed = new LinkedHashMap<>();
+
+        @Override
+        public void add(Task task) {
+            if (task == null) {
+                return;
+            }
+            viewed.remove(task.getId());
+            viewed.put(task.getId(), cold.contains(task.getId()) ? null : task.copy());
+        }
+
+        @Override
+        public void remove(int id) {
+            viewed.remove(id);
+        }
+
+        @Override
+        public List<Task> getHistory() {
+            List<Task> result = new ArrayList<>(viewed.size());
+            for (Map.Entry<Integer, Task> entry : viewed.entrySet()) {
+                result.add(viewed(entry));
+            }
+            return result;
+        }
+
+        @Override
+        public Stream<Task> stream() {
+            return viewed.entrySet().stream().map(this::viewed);
+        }
+
+        @Override
+        public int size() {
+            return viewed.size();
+        }
+
+        private Task viewed(Map.Entry<Integer, Task> entry) {
+            return entry.getValue() != null ? entry.getValue() : faultIn(entry.getKey());
+        }
+
+        // Запись на диске сейчас изменится или исчезнет: история забирает себе её прежнюю версию
+        void detach(int id) {
+            if (viewed.containsKey(id) && viewed.get(id) == null) {
+                viewed.put(id, faultIn(id));
+            }
+        }
+    }
+}
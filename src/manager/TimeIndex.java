@@ -0,0 +1,262 @@
+package manager;
+
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Упорядоченный по времени начала индекс задач и подзадач.
+// Интервалы считаются полуоткрытыми [start, end): задачи "встык" не пересекаются.
+// Порядок держат два PackedTimeIndex, а начало и конец каждого интервала — массивы примитивов по id,
+// так что на запись не создаётся ни одного объекта. Индекс менеджера хранит только id и берёт сами
+// задачи у менеджера; отдельный индекс, созданный без менеджера, помнит добавленные задачи сам.
+public class TimeIndex {
+    // Все задачи, у которых задано время начала
+    private final PackedTimeIndex entries = new PackedTimeIndex();
+    // Только задачи с положительной длительностью: они не пересекаются, поэтому упорядочены и по концу
+    private final PackedTimeIndex busy = new PackedTimeIndex();
+    // Время запоминаем при добавлении, чтобы удаление работало даже после изменения объекта задачи
+    private final IdSlots slots = new IdSlots();
+    private long[] startSeconds = new long[16];
+    private int[] startNanos = new int[16];
+    private long[] endSeconds = new long[16];
+    private int[] endNanos = new int[16];
+    // id -> задача; null — задачи отдаёт resolver
+    private final Map<Integer, Task> added;
+    private final IntFunction<Task> resolver;
+    // Сколько записей индекса просмотрено проверками пересечений — для метрик
+    private long comparisons;
+
+    public TimeIndex() {
+        this.added = new HashMap<>();
+        this.resolver = added::get;
+    }
+
+    // Индекс менеджера: задачи по id отдаёт resolver
+    TimeIndex(IntFunction<Task> resolver) {
+        this.added = null;
+        this.resolver = resolver;
+    }
+
+    public void add(Task task) {
+        int id = task.getId();
+        remove(id);
+        LocalDateTime start = task.getStartTime();
+        if (start == null) {
+            return;
+        }
+        LocalDateTime end = task.getEndTime();
+        if (end == null) {
+            end = start;
+        }
+        int slot = slots.add(id);
+        if (slot >= startSeconds.length) {
+            int capacity = Math.max(startSeconds.length * 2, slot + 1);
+            startSeconds = Arrays.copyOf(startSeconds, capacity);
+            startNanos = Arrays.copyOf(startNanos, capacity);
+            endSeconds = Arrays.copyOf(endSeconds, capacity);
+            endNanos = Arrays.copyOf(endNanos, capacity);
+        }
+        startSeconds[slot] = start.toEpochSecond(ZoneOffset.UTC);
+        startNanos[slot] = start.getNano();
+        endSeconds[slot] = end.toEpochSecond(ZoneOffset.UTC);
+        endNanos[slot] = end.getNano();
+        entries.add(id, start);
+        if (end.isAfter(start)) {
+            busy.add(id, start);
+        }
+        if (added != null) {
+            added.put(id, task);
+        }
+    }
+
+    public void remove(int id) {
+        int slot = slots.get(id);
+        if (slot < 0) {
+            return;
+        }
+        LocalDateTime start = start(slot);
+        entries.remove(id, start);
+        busy.remove(id, start);
+        slots.remove(id);
+        if (added != null) {
+            added.remove(id);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        busy.clear();
+        slots.clear();
+        if (added != null) {
+            added.clear();
+        }
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public boolean contains(int id) {
+        return slots.get(id) >= 0;
+    }
+
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    // Пересекается ли задача с уже занятым временем (сама задача с тем же id не учитывается)
+    public boolean overlaps(Task task) {
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        if (start == null || end == null || !end.isAfter(start)) {
+            return false;
+        }
+        // Достаточно проверить ближайший интервал, начавшийся раньше конца новой задачи
+        boolean[] overlaps = new boolean[1];
+        busy.forEachBefore(end, id -> {
+            comparisons++;
+            if (id == task.getId()) {
+                return true;
+            }
+            overlaps[0] = end(slots.get(id)).isAfter(start);
+            return false;
+        });
+        return overlaps[0];
+    }
+
+    // Задачи, пересекающиеся с [from, to), в порядке времени начала
+    public List<Task> between(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+        List<Task> result = new ArrayList<>();
+        int previous = busyAt(from);
+        if (previous >= 0) {
+            result.add(resolver.apply(slots.idAt(previous)));
+        }
+        entries.forEachBetween(from, to, id -> result.add(resolver.apply(id)));
+        return result;
+    }
+
+    // Задачи по дням с from по to включительно; задача на несколько дней попадает в каждый из них
+    public Map<LocalDate, List<Task>> byDay(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Границы периода не могут быть null");
+        }
+        Map<LocalDate, List<Task>> days = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.put(day, new ArrayList<>());
+        }
+        for (Task task : between(from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            int slot = slots.get(task.getId());
+            LocalDateTime start = start(slot);
+            LocalDateTime end = end(slot);
+            LocalDate first = start.toLocalDate().isBefore(from) ? from : start.toLocalDate();
+            // Конец интервала не включается: задача, закончившаяся ровно в полночь, следующему дню не принадлежит
+            LocalDate last = end.isAfter(start) ? end.minusNanos(1).toLocalDate() : first;
+            if (last.isAfter(to)) {
+                last = to;
+            }
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                days.get(day).add(task);
+            }
+        }
+        return days;
+    }
+
+    // Самое раннее время не раньше after, с которого свободен промежуток длиной duration
+    public LocalDateTime nextFreeSlot(Duration duration, LocalDateTime after) {
+        if (duration == null || duration.isNegative() || after == null) {
+            throw new IllegalArgumentException("Некорректные параметры поиска свободного времени");
+        }
+        LocalDateTime[] candidate = {after};
+        int previous = busyAt(after);
+        if (previous >= 0) {
+            candidate[0] = end(previous);
+        }
+        busy.forEachFrom(after, id -> {
+            int slot = slots.get(id);
+            if (!candidate[0].plus(duration).isAfter(start(slot))) {
+                return false;
+            }
+            LocalDateTime end = end(slot);
+            if (end.isAfter(candidate[0])) {
+                candidate[0] = end;
+            }
+            return true;
+        });
+        return candidate[0];
+    }
+
+    // Занятые интервалы, пересекающиеся с [from, to), в порядке времени; каждый как пара {начало, конец}
+    public List<LocalDateTime[]> busyIntervals(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+        List<LocalDateTime[]> result = new ArrayList<>();
+        int previous = busyAt(from);
+        if (previous >= 0) {
+            result.add(new LocalDateTime[]{start(previous), end(previous)});
+        }
+        busy.forEachBetween(from, to, id -> {
+            int slot = slots.get(id);
+            return result.add(new LocalDateTime[]{start(slot), end(slot)});
+        });
+        return result;
+    }
+
+    public List<Task> ordered() {
+        List<Task> result = new ArrayList<>(entries.size());
+        entries.forEach(id -> result.add(resolver.apply(id)));
+        return result;
+    }
+
+    // Как ordered(), но без списка: дочитывается до следующего изменения индекса
+    public Stream<Task> stream() {
+        return entries.ids().mapToObj(resolver);
+    }
+
+    // id в порядке времени начала, без обращения к задачам
+    public IntStream ids() {
+        return entries.ids();
+    }
+
+    // Ячейка занятой задачи, начавшейся раньше time и закончившейся позже него; -1 — такой нет.
+    // Занятые интервалы не пересекаются, поэтому достаточно ближайшего
+    private int busyAt(LocalDateTime time) {
+        int[] found = {-1};
+        busy.forEachBefore(time, id -> {
+            int slot = slots.get(id);
+            if (end(slot).isAfter(time)) {
+                found[0] = slot;
+            }
+            return false;
+        });
+        return found[0];
+    }
+
+    private LocalDateTime start(int slot) {
+        return LocalDateTime.ofEpochSecond(startSeconds[slot], startNanos[slot], ZoneOffset.UTC);
+    }
+
+    private LocalDateTime end(int slot) {
+        return LocalDateTime.ofEpochSecond(endSeconds[slot], endNanos[slot], ZoneOffset.UTC);
+    }
+
+    private static void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Границы периода не могут быть null");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Конец периода раньше начала");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package manager;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Кольцевой журнал опубликованных срезов доски с моментами публикации для InMemoryTaskManager.asOf.
+// Срезы делят между собой всё неизменённое, поэтому версия стоит примерно столько, сколько копий задач
+// и путей дерева создала её операция. Старые версии вытесняются по числу и по возрасту,
+// но последняя остаётся всегда: она описывает доску до сих пор
+final class VersionLog {
+    private final Duration retention;
+    private final Instant[] times;
+    private final BoardSnapshot[] boards;
+    // Индекс самой старой версии и число версий
+    private int head;
+    private int size;
+
+    VersionLog(Duration retention, int maxVersions) {
+        if (retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Срок хранения версий должен быть неотрицательным");
+        }
+        if (maxVersions <= 0) {
+            throw new IllegalArgumentException("Число хранимых версий должно быть положительным");
+        }
+        this.retention = retention;
+        this.times = new Instant[maxVersions];
+        this.boards = new BoardSnapshot[maxVersions];
+    }
+
+    void add(Instant time, BoardSnapshot board) {
+        if (size == boards.length) {
+            dropOldest();
+        }
+        int index = (head + size) % boards.length;
+        times[index] = time;
+        boards[index] = board;
+        size++;
+        Instant threshold = time.minus(retention);
+        // Версия перестаёт быть нужной, когда уже следующая за ней старше срока хранения
+        while (size > 1 && !times[(head + 1) % times.length].isAfter(threshold)) {
+            dropOldest();
+        }
+    }
+
+    // Последняя версия, опубликованная не позже time; null, если time раньше самой старой хранимой
+    BoardSnapshot asOf(Instant time) {
+        int low = 0;
+        int high = size - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (times[(head + middle) % times.length].isAfter(time)) {
+                high = middle - 1;
+            } else {
+                found = middle;
+                low = middle + 1;
+            }
+        }
+        return found < 0 ? null : boards[(head + found) % boards.length];
+    }
+
+    private void dropOldest() {
+        times[head] = null;
+        boards[head] = null;
+        head = (head + 1) % boards.length;
+        size--;
+    }
+}
@@ -0,0 +1,88 @@
+package manager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Рабочий календарь: рабочие дни недели и одинаковое для них окно [start, end).
+// Конец LocalTime.MAX означает полночь следующего дня: такие окна соседних рабочих дней
+// сливаются в одно, и задача может идти через полночь
+public class WorkingHours {
+    private final LocalTime start;
+    private final LocalTime end;
+    private final Set<DayOfWeek> workingDays;
+
+    public WorkingHours(LocalTime start, LocalTime end, Set<DayOfWeek> workingDays) {
+        if (start == null || end == null || workingDays == null) {
+            throw new IllegalArgumentException("Рабочее время задано не полностью");
+        }
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Конец рабочего дня должен быть позже начала");
+        }
+        this.start = start;
+        this.end = end;
+        this.workingDays = workingDays.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(workingDays);
+    }
+
+    // Пятидневка с 9:00 до 18:00
+    public static WorkingHours standard() {
+        return new WorkingHours(LocalTime.of(9, 0), LocalTime.of(18, 0),
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+    }
+
+    // Круглосуточно и без выходных
+    public static WorkingHours always() {
+        return new WorkingHours(LocalTime.MIN, LocalTime.MAX, EnumSet.allOf(DayOfWeek.class));
+    }
+
+    public LocalTime getStart() {
+        return start;
+    }
+
+    public LocalTime getEnd() {
+        return end;
+    }
+
+    public Set<DayOfWeek> getWorkingDays() {
+        return EnumSet.copyOf(workingDays);
+    }
+
+    // Рабочие окна, обрезанные по периоду [from, to); каждое как пара {начало, конец}
+    public List<LocalDateTime[]> windows(LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime[]> result = new ArrayList<>();
+        if (workingDays.isEmpty()) {
+            return result;
+        }
+        for (LocalDate day = from.toLocalDate(); day.atTime(start).isBefore(to); day = day.plusDays(1)) {
+            if (!workingDays.contains(day.getDayOfWeek())) {
+                continue;
+            }
+            LocalDateTime windowStart = max(day.atTime(start), from);
+            LocalDateTime dayEnd = end.equals(LocalTime.MAX) ? day.plusDays(1).atStartOfDay() : day.atTime(end);
+            LocalDateTime windowEnd = min(dayEnd, to);
+            if (!windowEnd.isAfter(windowStart)) {
+                continue;
+            }
+            LocalDateTime[] last = result.isEmpty() ? null : result.get(result.size() - 1);
+            if (last != null && last[1].equals(windowStart)) {
+                last[1] = windowEnd;
+            } else {
+                result.add(new LocalDateTime[]{windowStart, windowEnd});
+            }
+        }
+        return result;
+    }
+
+    private static LocalDateTime max(LocalDateTime first, LocalDateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    private static LocalDateTime min(LocalDateTime first, LocalDateTime second) {
+        return first.isBefore(second) ? first : second;
+    }
+}
@@ -0,0 +1,27 @@
+package metrics;
+
+import java.util.function.LongSupplier;
+
+final class DisabledManagerMetrics implements ManagerMetrics {
+    static final DisabledManagerMetrics INSTANCE = new DisabledManagerMetrics();
+
+    private DisabledManagerMetrics() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void recordOperation(Operation operation, long nanos) {
+    }
+
+    @Override
+    public void recordSave(long bytes, long nanos) {
+    }
+
+    @Override
+    public void registerGauge(String name, LongSupplier supplier) {
+    }
+}
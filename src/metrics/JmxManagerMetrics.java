@@ -0,0 +1,139 @@
+package metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Метрики по умолчанию: гистограммы по операциям, публикуемые как MXBean платформы
+public class JmxManagerMetrics implements ManagerMetrics, ManagerMetricsMXBean, AutoCloseable {
+    private static final String DOMAIN = "tracker";
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final LatencyHistogram saveLatency = new LatencyHistogram();
+    private final AtomicLong saveBytes = new AtomicLong();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private ObjectName objectName;
+
+    public JmxManagerMetrics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    // Создаёт метрики и регистрирует их как tracker:type=TaskManager,name=<name>
+    public static JmxManagerMetrics register(String name) {
+        JmxManagerMetrics metrics = new JmxManagerMetrics();
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=TaskManager,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(metrics, objectName);
+            metrics.objectName = objectName;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException("Метрики с именем " + name + " уже зарегистрированы", e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать метрики в JMX", e);
+        }
+        return metrics;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordOperation(Operation operation, long nanos) {
+        latencies.get(operation).record(nanos);
+    }
+
+    @Override
+    public void recordSave(long bytes, long nanos) {
+        saveBytes.addAndGet(bytes);
+        saveLatency.record(nanos);
+        latencies.get(Operation.SAVE).record(nanos);
+    }
+
+    @Override
+    public void registerGauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        latencies.forEach((operation, histogram) -> result.put(operation.name(), histogram.getCount()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getMeanLatencyMicros() {
+        Map<String, Double> result = new TreeMap<>();
+        latencies.forEach((operation, histogram) -> result.put(operation.name(), histogram.getMean() / 1_000.0));
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getP99LatencyMicros() {
+        Map<String, Double> result = new TreeMap<>();
+        latencies.forEach((operation, histogram) ->
+                result.put(operation.name(), histogram.getValueAtQuantile(0.99) / 1_000.0));
+        return result;
+    }
+
+    @Override
+    public long getSaveCount() {
+        return saveLatency.getCount();
+    }
+
+    @Override
+    public long getSaveBytes() {
+        return saveBytes.get();
+    }
+
+    @Override
+    public double getSaveP99Millis() {
+        return saveLatency.getValueAtQuantile(0.99) / 1_000_000.0;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> result = new TreeMap<>();
+        gauges.forEach((name, supplier) -> result.put(name, supplier.getAsLong()));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        latencies.values().forEach(LatencyHistogram::reset);
+        saveLatency.reset();
+        saveBytes.set(0);
+    }
+
+    @Override
+    public void close() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException ignored) {
+            // уже снято с регистрации
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось снять метрики с регистрации", e);
+        }
+        objectName = null;
+    }
+}
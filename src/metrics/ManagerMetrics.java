@@ -0,0 +1,20 @@
+package metrics;
+
+import java.util.function.LongSupplier;
+
+// Точка подключения метрик менеджера. Выключенная реализация сводит цену замера
+// к одной проверке isEnabled(), поэтому её можно оставлять в горячих путях.
+public interface ManagerMetrics {
+    static ManagerMetrics disabled() {
+        return DisabledManagerMetrics.INSTANCE;
+    }
+
+    boolean isEnabled();
+
+    void recordOperation(Operation operation, long nanos);
+
+    void recordSave(long bytes, long nanos);
+
+    // Значение читается только при запросе метрик, а не на каждой операции
+    void registerGauge(String name, LongSupplier supplier);
+}
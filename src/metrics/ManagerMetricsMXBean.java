@@ -0,0 +1,22 @@
+package metrics;
+
+import java.util.Map;
+
+// Атрибуты, которые видны в JConsole/VisualVM; времена в микросекундах, сохранение — в миллисекундах
+public interface ManagerMetricsMXBean {
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Double> getMeanLatencyMicros();
+
+    Map<String, Double> getP99LatencyMicros();
+
+    long getSaveCount();
+
+    long getSaveBytes();
+
+    double getSaveP99Millis();
+
+    Map<String, Long> getGauges();
+
+    void reset();
+}
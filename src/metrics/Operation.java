@@ -0,0 +1,20 @@
+package metrics;
+
+public enum Operation {
+    CREATE_TASK,
+    CREATE_EPIC,
+    CREATE_SUBTASK,
+    UPDATE_TASK,
+    UPDATE_EPIC,
+    UPDATE_SUBTASK,
+    DELETE_TASK,
+    DELETE_EPIC,
+    DELETE_SUBTASK,
+    GET_TASK,
+    GET_EPIC,
+    GET_SUBTASK,
+    GET_PRIORITIZED,
+    SAVE,
+    // Чтение выгруженной задачи с диска (TieredTaskManager)
+    FAULT_IN
+}
@@ -0,0 +1,301 @@
+package replication;
+
+import manager.InMemoryTaskManager;
+import manager.WorkingHours;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Локальная копия доски primary, которую ведёт ReplicationFollower. Только для чтения:
+// изменения приходят из журнала, просмотр по id историю не меняет (история — как у primary).
+// Журнал применяется под блокировкой записи, чтения идут под блокировкой чтения из любых потоков;
+// snapshot() по-прежнему без блокировок.
+public class ReplicaTaskManager extends InMemoryTaskManager {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Эпоха primary и номер последней применённой записи его журнала; 0 — реплика пуста
+    private volatile long epoch;
+    private volatile long appliedSequence;
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    long getEpoch() {
+        return epoch;
+    }
+
+    void setPosition(long epoch, long appliedSequence) {
+        this.epoch = epoch;
+        this.appliedSequence = appliedSequence;
+    }
+
+    // Перед загрузкой среза
+    void clear() {
+        write(() -> {
+            super.deleteAllTasks();
+            super.deleteAllEpics();
+        });
+    }
+
+    // Задачи из среза: эпики раньше своих подзадач
+    void load(List<Task> loaded) {
+        write(() -> restoreTasks(loaded));
+    }
+
+    // Полное состояние задачи из записи журнала: создание или замена
+    void upsert(Task task) {
+        write(() -> {
+            if (task instanceof Epic epic) {
+                if (epics.containsKey(epic.getId())) {
+                    super.updateEpic(epic);
+                } else {
+                    restoreTask(epic);
+                }
+            } else if (task instanceof Subtask subtask) {
+                if (subtasks.containsKey(subtask.getId())) {
+                    super.updateSubtask(subtask);
+                } else if (epics.containsKey(subtask.getEpicId())) {
+                    restoreTask(subtask);
+                }
+            } else if (tasks.containsKey(task.getId())) {
+                super.updateTask(task);
+            } else {
+                restoreTask(task);
+            }
+        });
+    }
+
+    void delete(TaskType type, int id) {
+        write(() -> {
+            switch (type) {
+                case TASK -> super.deleteTaskById(id);
+                case EPIC -> super.deleteEpicById(id);
+                case SUBTASK -> super.deleteSubtaskById(id);
+            }
+        });
+    }
+
+    // Просмотр на primary: задача переезжает в конец истории
+    void view(TaskType type, int id) {
+        write(() -> {
+            switch (type) {
+                case TASK -> super.getTaskById(id);
+                case EPIC -> super.getEpicById(id);
+                case SUBTASK -> super.getSubtaskById(id);
+            }
+        });
+    }
+
+    private void write(Runnable update) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            update.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private <R> R read(Supplier<R> query) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return query.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static IllegalStateException readOnly() {
+        return new IllegalStateException("Реплика доступна только для чтения");
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(super::getAllTasks);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return read(super::getAllEpics);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return read(super::getAllSubtasks);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return read(super::getSubtasks);
+    }
+
+    // По id — без записи в историю
+    @Override
+    public Task getTaskById(int id) {
+        return read(() -> tasks.get(id));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return read(() -> epics.get(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return read(() -> subtasks.get(id));
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return read(() -> super.getTask(id));
+    }
+
+    @Override
+    public boolean contains(TaskType type, int id) {
+        return read(() -> super.contains(type, id));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return read(() -> super.getEpicSubtasks(epicId));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(super::getHistory);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(super::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.getTasksBetween(from, to));
+    }
+
+    @Override
+    public LocalDateTime getNextFreeSlot(Duration duration, LocalDateTime after) {
+        return read(() -> super.getNextFreeSlot(duration, after));
+    }
+
+    @Override
+    public Map<LocalDate, List<Task>> getTasksByDay(LocalDate from, LocalDate to) {
+        return read(() -> super.getTasksByDay(from, to));
+    }
+
+    @Override
+    public List<Integer> getDependencies(int taskId) {
+        return read(() -> super.getDependencies(taskId));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasksInOrder(int epicId) {
+        return read(() -> super.getEpicSubtasksInOrder(epicId));
+    }
+
+    @Override
+    public Duration getCriticalPath(int epicId) {
+        return read(() -> super.getCriticalPath(epicId));
+    }
+
+    // Пересчёт статуса эпика нужен и при применении журнала, поэтому разрешён
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        write(() -> super.updateEpicStatus(epic));
+    }
+
+    @Override
+    public int generateId() {
+        throw readOnly();
+    }
+
+    @Override
+    public void createTask(Task task) {
+        throw readOnly();
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        throw readOnly();
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public List<Task> scheduleUnscheduled(WorkingHours workingHours, LocalDateTime from, LocalDateTime to,
+                                          Comparator<? super Task> priority) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addDependency(int taskId, int dependsOnId) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeDependency(int taskId, int dependsOnId) {
+        throw readOnly();
+    }
+}
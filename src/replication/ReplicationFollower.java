@@ -0,0 +1,232 @@
+package replication;
+
+import replication.ReplicationProtocol.LogEntry;
+import task.Task;
+import task.TaskType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+// Реплика: подключается к ReplicationPrimary, применяет его журнал к ReplicaTaskManager
+// и переподключается при обрывах. После close() и нового start() (или нового follower
+// над той же ReplicaTaskManager) продолжает с последней применённой записи, если она ещё
+// есть в журнале primary, иначе загружает срез и хвост журнала.
+// Пока срез загружается, читатели реплики могут видеть неполную доску.
+public class ReplicationFollower implements AutoCloseable {
+    private static final long RECONNECT_MILLIS = 500;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+
+    private final String host;
+    private final int port;
+    private final ReplicaTaskManager replica;
+    private Thread thread;
+    private volatile Socket socket;
+    private volatile boolean closed;
+    private volatile boolean connected;
+    // Голова журнала primary по последнему HEARTBEAT
+    private volatile long primarySequence;
+    // Время primary (мс), к которому реплика точно видела все его изменения; 0 — ещё ни разу
+    private volatile long syncedAtMillis;
+    private volatile long lastHeartbeatMillis;
+
+    public ReplicationFollower(String host, int port) {
+        this(host, port, new ReplicaTaskManager());
+    }
+
+    public ReplicationFollower(String host, int port, ReplicaTaskManager replica) {
+        if (host == null || host.isBlank()) {
+            throw new IllegalArgumentException("Не задан адрес primary");
+        }
+        if (replica == null) {
+            throw new IllegalArgumentException("Реплика не может быть null");
+        }
+        this.host = host;
+        this.port = port;
+        this.replica = replica;
+    }
+
+    public ReplicaTaskManager getManager() {
+        return replica;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Реплика уже запущена");
+        }
+        closed = false;
+        thread = new Thread(this::run, "replication-follower-" + host + ":" + port);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getAppliedSequence() {
+        return replica.getAppliedSequence();
+    }
+
+    // Сколько записей журнала primary ещё не применено (по последнему HEARTBEAT)
+    public long getLagRecords() {
+        return Math.max(0, primarySequence - replica.getAppliedSequence());
+    }
+
+    // Насколько данные реплики могут отставать от primary, мс; -1 — реплика ещё ни разу его не догоняла.
+    // 0, если при последнем свежем HEARTBEAT реплика была на голове журнала
+    public long getLagMillis() {
+        long synced = syncedAtMillis;
+        if (synced == 0) {
+            return -1;
+        }
+        long now = System.currentTimeMillis();
+        boolean fresh = now - lastHeartbeatMillis <= 3 * ReplicationProtocol.HEARTBEAT_MILLIS;
+        if (connected && fresh && getLagRecords() == 0) {
+            return 0;
+        }
+        return Math.max(0, now - synced);
+    }
+
+    @Override
+    public void close() {
+        Thread current;
+        synchronized (this) {
+            closed = true;
+            current = thread;
+            thread = null;
+        }
+        closeSocket();
+        if (current != null) {
+            current.interrupt();
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true);
+                follow(connection);
+            } catch (IOException e) {
+                // primary недоступен или соединение оборвалось — попробуем снова
+            } catch (RuntimeException e) {
+                // Запись не применилась: копия могла разойтись с primary, загрузим срез заново
+                System.err.println("Ошибка применения журнала репликации: " + e.getMessage());
+                replica.setPosition(0, 0);
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            if (!closed) {
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void follow(Socket connection) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        out.writeByte(ReplicationProtocol.HELLO);
+        out.writeLong(replica.getEpoch());
+        out.writeLong(replica.getAppliedSequence());
+        out.flush();
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), 64 * 1024));
+        connected = true;
+        // Между SNAPSHOT и HISTORY записи применяются без проверки номера: это догрузка среза
+        boolean loading = false;
+        long snapshotEpoch = 0;
+        long snapshotSequence = 0;
+        while (!closed) {
+            byte frame = in.readByte();
+            switch (frame) {
+                case ReplicationProtocol.SNAPSHOT -> {
+                    snapshotEpoch = in.readLong();
+                    snapshotSequence = in.readLong();
+                    in.readLong();
+                    loading = true;
+                    // Пока срез не догружен, продолжать с прежнего номера нельзя
+                    replica.setPosition(0, 0);
+                    replica.clear();
+                    List<Task> loaded = new ArrayList<>();
+                    ReplicationProtocol.decodeAll(TaskType.TASK, ReplicationProtocol.readBytes(in), loaded::add);
+                    ReplicationProtocol.decodeAll(TaskType.EPIC, ReplicationProtocol.readBytes(in), loaded::add);
+                    ReplicationProtocol.decodeAll(TaskType.SUBTASK, ReplicationProtocol.readBytes(in), loaded::add);
+                    replica.load(loaded);
+                }
+                case ReplicationProtocol.RECORD -> {
+                    LogEntry entry = ReplicationProtocol.readRecord(in);
+                    if (loading || entry.sequence() > replica.getAppliedSequence()) {
+                        apply(entry);
+                        if (!loading) {
+                            replica.setPosition(replica.getEpoch(), entry.sequence());
+                        }
+                    }
+                }
+                case ReplicationProtocol.HISTORY -> {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        TaskType type = ReplicationProtocol.readTaskType(in);
+                        replica.view(type, in.readInt());
+                    }
+                    replica.setPosition(snapshotEpoch, snapshotSequence);
+                    loading = false;
+                }
+                case ReplicationProtocol.HEARTBEAT -> {
+                    long sentThrough = in.readLong();
+                    long head = in.readLong();
+                    long time = in.readLong();
+                    if (sentThrough > replica.getAppliedSequence()) {
+                        replica.setPosition(replica.getEpoch(), sentThrough);
+                    }
+                    primarySequence = head;
+                    lastHeartbeatMillis = System.currentTimeMillis();
+                    if (sentThrough >= head) {
+                        syncedAtMillis = time;
+                    }
+                }
+                default -> throw new IOException("Неизвестный кадр репликации: " + frame);
+            }
+        }
+    }
+
+    private void apply(LogEntry entry) throws IOException {
+        switch (entry.type()) {
+            case DELETED -> replica.delete(entry.taskType(), entry.taskId());
+            case VIEWED -> replica.view(entry.taskType(), entry.taskId());
+            default -> {
+                Task task = ReplicationProtocol.decode(entry.taskType(), entry.payload());
+                if (task != null) {
+                    replica.upsert(task);
+                }
+            }
+        }
+    }
+
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // Поток чтения увидит закрытый сокет и завершится
+            }
+        }
+    }
+}
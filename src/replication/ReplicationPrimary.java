@@ -0,0 +1,328 @@
+package replication;
+
+import event.Subscription;
+import event.TaskEvent;
+import event.TaskEventType;
+import manager.BoardSnapshot;
+import manager.InMemoryTaskManager;
+import replication.ReplicationProtocol.LogEntry;
+import task.Task;
+import task.TaskType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ведущий узел репликации: пишет ленту изменений менеджера в журнал в памяти
+// и раздаёт его репликам (ReplicationFollower) по TCP, каждой в своём виртуальном потоке.
+// Реплика, чей номер ещё есть в журнале, получает только хвост; новая или слишком отставшая —
+// срез доски, записи, которых срез не видел, и историю, а затем хвост.
+// Журнал хранит последние logCapacity записей и живёт, пока жив primary: после его перезапуска
+// меняется эпоха, и реплики загружают срез заново.
+// Граф зависимостей в ленту изменений не попадает и не реплицируется.
+// Срез для новой реплики берётся в её потоке, мимо писателей приложения, поэтому менеджер должен публиковать
+// срез без блокировок (isSnapshotLockFree): менеджеры со своим хранилищем не принимаются.
+public class ReplicationPrimary implements AutoCloseable {
+    public static final int DEFAULT_LOG_CAPACITY = 65_536;
+
+    // Сколько записей отправляется реплике за один сброс буфера
+    private static final int MAX_BATCH = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InMemoryTaskManager manager;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final long epoch;
+    private final LogEntry[] log;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    // Номер последней записи журнала; записи нумеруются с 1
+    private long lastSequence;
+    // История просмотров в порядке журнала (id -> тип задачи), от давних к свежим
+    private final Map<Integer, TaskType> history = new LinkedHashMap<>();
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private Subscription subscription;
+    private volatile boolean closed;
+
+    public ReplicationPrimary(InMemoryTaskManager manager, int port) throws IOException {
+        this(manager, port, DEFAULT_LOG_CAPACITY);
+    }
+
+    // port == 0 — взять свободный порт, узнать его можно через getPort()
+    public ReplicationPrimary(InMemoryTaskManager manager, int port, int logCapacity) throws IOException {
+        if (manager == null) {
+            throw new IllegalArgumentException("Менеджер не может быть null");
+        }
+        if (!manager.isSnapshotLockFree()) {
+            throw new IllegalArgumentException("Реплицировать можно только менеджер со срезом доски в памяти");
+        }
+        if (logCapacity <= 0) {
+            throw new IllegalArgumentException("Размер журнала должен быть положительным");
+        }
+        this.manager = manager;
+        this.log = new LogEntry[logCapacity];
+        this.epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        this.serverSocket = new ServerSocket(port);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // Читает историю менеджера, поэтому вызывается там же, где и остальные его методы
+    public void start() {
+        lock.lock();
+        try {
+            if (subscription != null) {
+                throw new IllegalStateException("Primary уже запущен");
+            }
+            for (Task task : manager.getHistory()) {
+                history.put(task.getId(), task.getType());
+            }
+            subscription = manager.subscribe(this::append);
+        } finally {
+            lock.unlock();
+        }
+        executor.execute(this::acceptFollowers);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (subscription != null) {
+            subscription.close();
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // Сокет всё равно больше не нужен
+        }
+        for (Socket socket : followers) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Реплика переподключится к новому primary
+            }
+        }
+        lock.lock();
+        try {
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        executor.shutdownNow();
+    }
+
+    // Вызывается из потока доставки событий: записи журнала идут строго в порядке ленты
+    private void append(TaskEvent event) {
+        // STATUS_CHANGED всегда идёт в паре с UPDATED или EPIC_RECOMPUTED с той же копией задачи
+        if (event.getType() == TaskEventType.STATUS_CHANGED) {
+            return;
+        }
+        byte[] payload;
+        try {
+            payload = ReplicationProtocol.encode(event.getTask());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lock.lock();
+        try {
+            long sequence = ++lastSequence;
+            log[(int) (sequence % log.length)] = new LogEntry(sequence, event.getType(), event.getTaskType(),
+                    event.getTaskId(), event.getBoardVersion(), System.currentTimeMillis(), payload);
+            if (event.getType() == TaskEventType.VIEWED) {
+                history.remove(event.getTaskId());
+                history.put(event.getTaskId(), event.getTaskType());
+            } else if (event.getType() == TaskEventType.DELETED) {
+                history.remove(event.getTaskId());
+            }
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acceptFollowers() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Ошибка при подключении реплики: " + e.getMessage());
+                }
+                continue;
+            }
+            followers.add(socket);
+            executor.execute(() -> serve(socket));
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(),
+                    BUFFER_SIZE));
+            if (in.readByte() != ReplicationProtocol.HELLO) {
+                throw new IOException("Реплика не представилась");
+            }
+            long followerEpoch = in.readLong();
+            long applied = in.readLong();
+
+            Session session = new Session();
+            if (!resume(session, followerEpoch, applied)) {
+                sendSnapshot(session, out);
+            }
+            stream(session, out);
+        } catch (IOException e) {
+            // Реплика отключилась; при переподключении продолжит со своего номера
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    // Что уже отправлено реплике
+    private static final class Session {
+        // Следующий номер журнала к отправке
+        long next;
+        // Изменения с версией среза не больше этой уже есть в загруженном репликой срезе
+        long loadedVersion = -1;
+    }
+
+    private boolean resume(Session session, long followerEpoch, long applied) {
+        lock.lock();
+        try {
+            if (followerEpoch != epoch || applied > lastSequence || applied < lastSequence - log.length) {
+                return false;
+            }
+            session.next = applied + 1;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Срез берётся под той же блокировкой, что и отметка журнала L. Записи до L, которых в срезе ещё нет
+    // (лента отстаёт от публикации среза и наоборот), отбираются по версии среза и уходят сразу за ним
+    private void sendSnapshot(Session session, DataOutputStream out) throws IOException {
+        long mark;
+        BoardSnapshot board;
+        List<LogEntry> pending = new ArrayList<>();
+        List<Map.Entry<Integer, TaskType>> viewed;
+        lock.lock();
+        try {
+            mark = lastSequence;
+            board = manager.snapshot();
+            for (long sequence = Math.max(1, mark - log.length + 1); sequence <= mark; sequence++) {
+                LogEntry entry = log[(int) (sequence % log.length)];
+                if (entry.type() != TaskEventType.VIEWED && entry.boardVersion() > board.getVersion()) {
+                    pending.add(entry);
+                }
+            }
+            viewed = new ArrayList<>(history.size());
+            for (Map.Entry<Integer, TaskType> entry : history.entrySet()) {
+                viewed.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        out.writeByte(ReplicationProtocol.SNAPSHOT);
+        out.writeLong(epoch);
+        out.writeLong(mark);
+        out.writeLong(System.currentTimeMillis());
+        ReplicationProtocol.writeBytes(out, ReplicationProtocol.encodeAll(board.getTasks()));
+        ReplicationProtocol.writeBytes(out, ReplicationProtocol.encodeAll(board.getEpics()));
+        ReplicationProtocol.writeBytes(out, ReplicationProtocol.encodeAll(board.getSubtasks()));
+        for (LogEntry entry : pending) {
+            ReplicationProtocol.writeRecord(out, entry);
+        }
+        out.writeByte(ReplicationProtocol.HISTORY);
+        out.writeInt(viewed.size());
+        for (Map.Entry<Integer, TaskType> entry : viewed) {
+            out.writeByte(entry.getValue().ordinal());
+            out.writeInt(entry.getKey());
+        }
+        out.flush();
+
+        session.next = mark + 1;
+        session.loadedVersion = board.getVersion();
+    }
+
+    private void stream(Session session, DataOutputStream out) throws IOException, InterruptedException {
+        List<LogEntry> batch = new ArrayList<>(MAX_BATCH);
+        while (!closed) {
+            long head;
+            boolean lost;
+            lock.lock();
+            try {
+                if (session.next > lastSequence) {
+                    appended.await(ReplicationProtocol.HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                head = lastSequence;
+                // Реплика отстала больше, чем на журнал: нужные ей записи уже затёрты
+                lost = session.next <= head - log.length;
+                if (!lost) {
+                    long last = Math.min(head, session.next + MAX_BATCH - 1);
+                    for (long sequence = session.next; sequence <= last; sequence++) {
+                        batch.add(log[(int) (sequence % log.length)]);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (lost) {
+                sendSnapshot(session, out);
+                continue;
+            }
+
+            for (LogEntry entry : batch) {
+                // Изменения, уже учтённые в загруженном срезе, повторно не применяются
+                if (entry.type() == TaskEventType.VIEWED || entry.boardVersion() > session.loadedVersion) {
+                    ReplicationProtocol.writeRecord(out, entry);
+                }
+                session.next = entry.sequence() + 1;
+            }
+            batch.clear();
+            out.writeByte(ReplicationProtocol.HEARTBEAT);
+            out.writeLong(session.next - 1);
+            out.writeLong(head);
+            out.writeLong(System.currentTimeMillis());
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package replication;
+
+import event.TaskEventType;
+import http.TaskJsonReader;
+import http.TaskJsonWriter;
+import task.Task;
+import task.TaskType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+// Кадры журнала репликации. Все числа — big-endian (DataOutputStream), задачи — в JSON кодека http.
+//   HELLO     follower -> primary: эпоха и последний применённый номер (0, если реплика пуста)
+//   SNAPSHOT  эпоха, номер журнала L, на котором снят срез, время; затем задачи, эпики и подзадачи
+//             JSON-массивами с длиной. За ним идут RECORD-кадры, которых срез ещё не видел, и HISTORY
+//   RECORD    номер, тип события, тип задачи, id, время записи, задача в JSON (длина 0 — без задачи)
+//   HISTORY   история просмотров primary на момент L; завершает загрузку среза
+//   HEARTBEAT номер, до которого реплике отправлено всё, голова журнала primary и время.
+//             Идёт после каждой пачки записей и раз в HEARTBEAT_MILLIS в тишине
+final class ReplicationProtocol {
+    static final long HEARTBEAT_MILLIS = 200;
+
+    static final byte HELLO = 1;
+    static final byte SNAPSHOT = 2;
+    static final byte RECORD = 3;
+    static final byte HISTORY = 4;
+    static final byte HEARTBEAT = 5;
+
+    private static final TaskEventType[] EVENT_TYPES = TaskEventType.values();
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final byte[] NO_PAYLOAD = new byte[0];
+
+    private ReplicationProtocol() {
+    }
+
+    // Запись журнала; payload уже закодирован, чтобы не кодировать задачу заново для каждой реплики.
+    // boardVersion — версия среза primary, в которой изменение учтено (для отбора при загрузке среза)
+    record LogEntry(long sequence, TaskEventType type, TaskType taskType, int taskId, long boardVersion,
+                    long timeMillis, byte[] payload) {
+    }
+
+    static byte[] encode(Task task) throws IOException {
+        if (task == null) {
+            return NO_PAYLOAD;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        new TaskJsonWriter(out, null).write(task).flush();
+        return out.toByteArray();
+    }
+
+    static byte[] encodeAll(Iterable<? extends Task> tasks) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TaskJsonWriter(out, null).writeAll(tasks).flush();
+        return out.toByteArray();
+    }
+
+    static Task decode(TaskType type, byte[] payload) throws IOException {
+        if (payload.length == 0) {
+            return null;
+        }
+        TaskJsonReader reader = new TaskJsonReader(ByteBuffer.wrap(payload));
+        Task task = reader.read(type);
+        reader.expectEnd();
+        return task;
+    }
+
+    static void decodeAll(TaskType type, byte[] payload, Consumer<? super Task> consumer) throws IOException {
+        TaskJsonReader reader = new TaskJsonReader(ByteBuffer.wrap(payload));
+        reader.readArray(type, consumer);
+        reader.expectEnd();
+    }
+
+    static void writeRecord(DataOutputStream out, LogEntry entry) throws IOException {
+        out.writeByte(RECORD);
+        out.writeLong(entry.sequence());
+        out.writeByte(entry.type().ordinal());
+        out.writeByte(entry.taskType().ordinal());
+        out.writeInt(entry.taskId());
+        out.writeLong(entry.timeMillis());
+        writeBytes(out, entry.payload());
+    }
+
+    // Тело RECORD после байта типа кадра; boardVersion реплике не нужна и не передаётся
+    static LogEntry readRecord(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        TaskEventType type = EVENT_TYPES[in.readUnsignedByte()];
+        TaskType taskType = TASK_TYPES[in.readUnsignedByte()];
+        int taskId = in.readInt();
+        long timeMillis = in.readLong();
+        return new LogEntry(sequence, type, taskType, taskId, 0, timeMillis, readBytes(in));
+    }
+
+    static TaskType readTaskType(DataInputStream in) throws IOException {
+        return TASK_TYPES[in.readUnsignedByte()];
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Некорректная длина кадра: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
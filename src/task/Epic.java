@@ -16,6 +16,11 @@ public class Epic extends Task {
         this.subtaskIds = new ArrayList<>();
     }
 
+    @Override
+    public TaskType getType() {
+        return TaskType.EPIC;
+    }
+
     public List<Integer> getSubtaskIds() {
         return subtaskIds;
     }
@@ -45,6 +50,8 @@ public class Epic extends Task {
         copy.setId(this.id);
         copy.setStatus(this.status);
         copy.getSubtaskIds().addAll(this.subtaskIds);
+        copy.setEndTime(this.endTime);
+        copy.setVersion(this.version);
         return copy;
     }
 
@@ -16,6 +16,11 @@ public class Subtask extends Task {
         this.epicId = epicId;
     }
 
+    @Override
+    public TaskType getType() {
+        return TaskType.SUBTASK;
+    }
+
     public int getEpicId() { // Возвращаем int
         return epicId;
     }
@@ -37,6 +42,9 @@ public class Subtask extends Task {
         Subtask copy = new Subtask(this.name, this.description, this.epicId);
         copy.setId(this.id);
         copy.setStatus(this.status);
+        copy.setStartTime(this.startTime);
+        copy.setDuration(this.duration);
+        copy.setVersion(this.version);
         return copy;
     }
 }
\ No newline at end of file
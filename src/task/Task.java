@@ -11,6 +11,8 @@ public class Task {
     protected TaskStatus status;
     protected Duration duration;
     protected LocalDateTime startTime;
+    // Версия сохранённой копии: менеджер увеличивает её при каждом изменении задачи
+    protected long version;
 
     public Task(String name, String description) {
         this.name = name;
@@ -46,6 +48,10 @@ public class Task {
         this.id = id;
     }
 
+    public TaskType getType() {
+        return TaskType.TASK;
+    }
+
     public TaskStatus getStatus() {
         return status;
     }
@@ -85,6 +91,7 @@ public class Task {
         copy.setStatus(this.status != null ? this.status : TaskStatus.NEW);
         copy.setStartTime(this.startTime);
         copy.setDuration(this.duration);
+        copy.setVersion(this.version);
 
         return copy;
 }
@@ -112,4 +119,12 @@ public class Task {
         this.startTime = startTime;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
 }
@@ -2,6 +2,8 @@ package test.backed;
 
 import manager.FileBackedTaskManager;
 import manager.ManagerSaveException;
+import manager.TaskCsvReader;
+import metrics.ManagerMetrics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +17,10 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -180,6 +185,123 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         });
     }
 
+    @Test
+    void loadErrorsNameTheirCause() throws IOException {
+        String header = TaskCsvReader.VERSION_LINE + "\n" + TaskCsvReader.HEADER + "\n";
+        Files.writeString(tempFile.toPath(), header + "1,TASK,Задача,NEW,,,,\n\n\n1,1\n");
+        ManagerSaveException cycle = assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(tempFile));
+        assertTrue(cycle.getMessage().contains("зависимости"), cycle.getMessage());
+
+        Files.writeString(tempFile.toPath(), header + "-5,TASK,Задача,NEW,,,,\n\n");
+        ManagerSaveException badId = assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(tempFile));
+        assertFalse(badId.getMessage().contains("зависимости"), badId.getMessage());
+        assertTrue(badId.getMessage().contains("id"), badId.getMessage());
+    }
+
+    @Test
+    void shouldKeepCommasAndLineBreaksAndSubtaskLinks() {
+        Epic epic = new Epic("Эпик, первый", "Описание \"в кавычках\"");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Строка 1\nстрока 2", epic.getId());
+        manager.createSubtask(subtask);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        Epic loadedEpic = loadedManager.getEpicById(epic.getId());
+        assertEquals(epic.getName(), loadedEpic.getName());
+        assertEquals(epic.getDescription(), loadedEpic.getDescription());
+        assertEquals(List.of(subtask.getId()), loadedEpic.getSubtaskIds());
+        assertEquals("Строка 1\nстрока 2", loadedManager.getSubtaskById(subtask.getId()).getDescription());
+    }
+
+    @Test
+    void shouldMigrateLegacyFileOnFirstSave() throws IOException {
+        Files.writeString(tempFile.toPath(), """
+                id,type,name,status,description,epic
+                1,TASK,Задача,NEW,Описание,2024-01-01T10:00,30
+                2,EPIC,Эпик,DONE,Описание,,0
+                3,SUBTASK,Подзадача,DONE,Описание,,0,2
+
+                1
+                """);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(Duration.ofMinutes(30), loadedManager.getTask(1).getDuration());
+        assertEquals(List.of(3), loadedManager.getEpicById(2).getSubtaskIds());
+        assertTrue(Files.readString(tempFile.toPath()).startsWith("#v2\n"), "Файл переписан в новой версии");
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(3, reloaded.getAllTasks().size() + reloaded.getAllEpics().size()
+                + reloaded.getAllSubtasks().size());
+        assertEquals(Duration.ofMinutes(30), reloaded.getTask(1).getDuration());
+    }
+
+    @Test
+    void shouldSaveAndLoadCompressedFile() throws IOException {
+        File compressedFile = tempDir.resolve("tasks.dfb").toFile();
+        FileBackedTaskManager compressed = new FileBackedTaskManager(compressedFile, ManagerMetrics.disabled(), 6);
+        for (int i = 0; i < 1200; i++) {
+            Task task = new Task("Задача " + i, "Одинаковое описание");
+            manager.createTask(task);
+            compressed.createTask(new Task("Задача " + i, "Одинаковое описание"));
+        }
+        compressed.getTaskById(700);
+        compressed.getTaskById(3);
+        assertTrue(compressedFile.length() * 4 < tempFile.length(), "Сжатый файл меньше обычного");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(compressedFile);
+        assertEquals(Deflater.DEFAULT_COMPRESSION, loaded.getCompressionLevel(), "Файл остаётся сжатым");
+        assertEquals(compressed.getAllTasks(), loaded.getAllTasks());
+        assertEquals(List.of(700, 3), loaded.getHistory().stream().map(Task::getId).toList());
+
+        // Обычный файл можно перевести в сжатый при загрузке
+        FileBackedTaskManager converted = FileBackedTaskManager.loadFromFile(tempFile, ManagerMetrics.disabled(),
+                Deflater.BEST_SPEED);
+        converted.save();
+        assertEquals(1200, FileBackedTaskManager.loadFromFile(tempFile).getAllTasks().size());
+        assertEquals(Deflater.DEFAULT_COMPRESSION, FileBackedTaskManager.loadFromFile(tempFile).getCompressionLevel());
+
+        byte[] bytes = Files.readAllBytes(compressedFile.toPath());
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(compressedFile.toPath(), bytes);
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(compressedFile));
+    }
+
+    @Test
+    void shouldSaveAndLoadDependencies() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask design = new Subtask("Проект", "Описание", epic.getId());
+        design.setDuration(Duration.ofMinutes(30));
+        Subtask build = new Subtask("Сборка", "Описание", epic.getId());
+        build.setDuration(Duration.ofMinutes(90));
+        Subtask release = new Subtask("Выпуск", "Описание", epic.getId());
+        release.setDuration(Duration.ofMinutes(10));
+        manager.createSubtask(release);
+        manager.createSubtask(build);
+        manager.createSubtask(design);
+        Task review = new Task("Ревью", "Описание");
+        manager.createTask(review);
+        manager.addDependency(release.getId(), build.getId());
+        manager.addDependency(build.getId(), design.getId());
+        manager.addDependency(release.getId(), review.getId());
+        manager.addDependency(review.getId(), design.getId());
+        manager.removeDependency(review.getId(), design.getId());
+        manager.getTaskById(review.getId());
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(List.of(build.getId(), review.getId()), loaded.getDependencies(release.getId()));
+        assertEquals(List.of(design.getId()), loaded.getDependencies(build.getId()));
+        assertTrue(loaded.getDependencies(review.getId()).isEmpty());
+        assertEquals(List.of(design, build, release), loaded.getEpicSubtasksInOrder(epic.getId()));
+        assertEquals(Duration.ofMinutes(130), loaded.getCriticalPath(epic.getId()));
+        // Просмотры при загрузке переписали файл — рёбра в нём остались
+        assertEquals(manager.getDependencies(release.getId()),
+                FileBackedTaskManager.loadFromFile(tempFile).getDependencies(release.getId()));
+        assertThrows(IllegalStateException.class, () -> loaded.addDependency(design.getId(), release.getId()));
+    }
+
     @AfterEach
     void tearDown() {
         try {
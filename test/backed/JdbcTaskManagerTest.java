@@ -0,0 +1,180 @@
+package test.backed;
+
+import manager.JdbcTaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import test.task.TaskManagerTest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Драйвер в проект не входит: тесты идут, только если H2 лежит в classpath
+public class JdbcTaskManagerTest extends TaskManagerTest<JdbcTaskManager> {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private String url;
+
+    @BeforeEach
+    @Override
+    public void setUp() {
+        // DB_CLOSE_DELAY=-1: база живёт, пока жива JVM, и её можно открыть заново
+        url = "jdbc:h2:mem:tasks" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        assumeTrue(hasDriver(url), "Нет JDBC-драйвера H2");
+        super.setUp();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
+    @Override
+    protected JdbcTaskManager createManager() {
+        return new JdbcTaskManager(url);
+    }
+
+    private static boolean hasDriver(String url) {
+        try {
+            DriverManager.getDriver(url);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void shouldKeepBoardHistoryAndDependenciesAfterReopen() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask first = new Subtask("Первая", "Описание", epic.getId(), Duration.ofHours(1),
+                LocalDateTime.of(2024, 1, 1, 9, 0));
+        Subtask second = new Subtask("Вторая", "Описание", epic.getId(), Duration.ofHours(2), null);
+        manager.createSubtask(first);
+        manager.createSubtask(second);
+        manager.addDependency(second.getId(), first.getId());
+        Task task = new Task("Задача", "Описание", Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 11, 0));
+        task.setStatus(TaskStatus.DONE);
+        manager.createTask(task);
+        manager.getSubtaskById(second.getId());
+        manager.getTaskById(task.getId());
+        manager.close();
+
+        manager = new JdbcTaskManager(url);
+        assertEquals(List.of(task), manager.getAllTasks());
+        assertEquals(TaskStatus.DONE, manager.getTask(task.getId()).getStatus());
+        assertEquals(List.of(first, second), manager.getEpicSubtasks(epic.getId()));
+        assertEquals(List.of(first.getId(), second.getId()), manager.getEpicById(epic.getId()).getSubtaskIds());
+        assertEquals(List.of(second, task, epic), manager.getHistory());
+        assertEquals(List.of(first.getId()), manager.getDependencies(second.getId()));
+        assertEquals(Duration.ofHours(3), manager.getCriticalPath(epic.getId()));
+        assertThrows(IllegalStateException.class, () -> manager.createTask(new Task("Пересечение", "Описание",
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 30))));
+
+        Task next = new Task("Следующая", "Описание");
+        manager.createTask(next);
+        assertTrue(next.getId() > task.getId(), "id после перезапуска не должны повторяться");
+    }
+
+    @Test
+    void cachedTaskIsTheSameObjectAndEvictedOneIsReadFromDatabase() throws SQLException {
+        manager.close();
+        manager = new JdbcTaskManager(DriverManager.getConnection(url), 2);
+        Task first = new Task("Первая", "Описание");
+        Task second = new Task("Вторая", "Описание");
+        Task third = new Task("Третья", "Описание");
+        manager.createTask(first);
+        manager.createTask(second);
+        manager.createTask(third);
+
+        assertSame(third, manager.getTaskById(third.getId()));
+        Task evicted = manager.getTaskById(first.getId());
+        assertNotSame(first, evicted, "Первая задача должна была вытесниться из кеша");
+        assertEquals(first.getName(), evicted.getName());
+        assertSame(evicted, manager.getTaskById(first.getId()), "Прочитанная задача попадает в кеш");
+    }
+
+    @Test
+    void historyBatchesArePersistedInViewOrder() {
+        int count = 600;
+        for (int i = 0; i < count; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание"));
+        }
+        for (int id = count; id >= 1; id--) {
+            manager.getTaskById(id);
+        }
+        manager.getTaskById(count);
+
+        List<Task> history = manager.getHistory();
+        assertEquals(count, history.size());
+        assertEquals(count - 1, history.get(0).getId());
+        assertEquals(1, history.get(count - 2).getId());
+        assertEquals(count, history.get(count - 1).getId());
+    }
+
+    @Test
+    void upsertsAreWrittenInBatchesAndVisibleWithoutCache() throws SQLException {
+        manager.close();
+        AtomicInteger singleUpdates = new AtomicInteger();
+        manager = new JdbcTaskManager(countingUpdates(DriverManager.getConnection(url), singleUpdates), 0);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        for (int i = 0; i < 10; i++) {
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание", epic.getId());
+            subtask.setStatus(TaskStatus.DONE);
+            manager.createSubtask(subtask);
+        }
+        assertEquals(TaskStatus.DONE, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(10, manager.getEpicSubtasks(epic.getId()).size());
+        assertEquals(0, singleUpdates.get(), "Задачи должны писаться пачками, а не по одной");
+
+        manager.close();
+        manager = new JdbcTaskManager(url);
+        assertEquals(TaskStatus.DONE, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(10, manager.getEpicById(epic.getId()).getSubtaskIds().size());
+    }
+
+    // Соединение, которое считает одиночные executeUpdate подготовленных запросов
+    private static Connection countingUpdates(Connection connection, AtomicInteger counter) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (!(result instanceof PreparedStatement statement)) {
+                        return result;
+                    }
+                    return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class}, (inner, call, callArgs) -> {
+                                if (call.getName().equals("executeUpdate")) {
+                                    counter.incrementAndGet();
+                                }
+                                return invoke(statement, call, callArgs);
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package test.backed;
+
+import manager.PagedFileTaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import test.task.TaskManagerTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedFileTaskManagerTest extends TaskManagerTest<PagedFileTaskManager> {
+    private Path file;
+
+    @BeforeEach
+    @Override
+    public void setUp() {
+        try {
+            file = Files.createTempFile("tasks", ".pages");
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при создании временного файла", e);
+        }
+        super.setUp();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        manager.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    protected PagedFileTaskManager createManager() {
+        return new PagedFileTaskManager(file);
+    }
+
+    @Test
+    void shouldRestoreBoardAndHistoryAfterReopen() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId(), Duration.ofHours(1),
+                LocalDateTime.of(2024, 1, 1, 9, 0));
+        subtask.setStatus(TaskStatus.DONE);
+        manager.createSubtask(subtask);
+        Task task = new Task("Задача", null);
+        manager.createTask(task);
+        Task removed = new Task("Удалённая", "Описание");
+        manager.createTask(removed);
+        manager.getTaskById(task.getId());
+        manager.getEpicById(epic.getId());
+        manager.getSubtaskById(subtask.getId());
+        manager.getTaskById(task.getId());
+        manager.deleteTaskById(removed.getId());
+        manager.close();
+
+        manager = new PagedFileTaskManager(file);
+        assertEquals(3, manager.getStoredCount());
+        assertEquals(List.of(task), manager.getAllTasks());
+        assertNull(manager.getTask(task.getId()).getDescription());
+        assertEquals(List.of(subtask), manager.getEpicSubtasks(epic.getId()));
+        assertEquals(TaskStatus.DONE, manager.getAllEpics().get(0).getStatus());
+        assertEquals(subtask.getStartTime(), manager.getAllSubtasks().get(0).getStartTime());
+        assertEquals(List.of(epic.getId(), subtask.getId(), task.getId()),
+                manager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldWriteOnlyChangedRecords() {
+        for (int i = 0; i < 200; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание"));
+        }
+        Task task = manager.getAllTasks().get(0);
+        long fileBytes = manager.getFileBytes();
+        long written = manager.getBytesWritten();
+
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(task);
+        manager.getTaskById(task.getId());
+        assertEquals(fileBytes, manager.getFileBytes(), "Записи переписаны на месте");
+        assertTrue(manager.getBytesWritten() - written < 1000, "Записаны только изменённые записи");
+    }
+
+    @Test
+    void shouldPersistUndoAndRedo() {
+        manager.enableUndo(10);
+        Task kept = new Task("Остаётся", "Описание");
+        manager.createTask(kept);
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        Task updated = task.copy();
+        updated.setStatus(TaskStatus.DONE);
+        manager.updateTask(updated);
+        manager.deleteTaskById(kept.getId());
+
+        assertTrue(manager.undo());
+        assertTrue(manager.undo());
+        manager.close();
+        manager = new PagedFileTaskManager(file);
+        assertEquals(2, manager.getAllTasks().size(), "Отменённое удаление должно дойти до файла");
+        assertEquals(TaskStatus.NEW, manager.getTask(task.getId()).getStatus());
+        assertFalse(manager.redo(), "Отмены не переживают перезапуск");
+    }
+
+    @Test
+    void shouldRestoreDependenciesAfterReopen() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask design = new Subtask("Проект", "Описание", epic.getId());
+        design.setDuration(Duration.ofMinutes(30));
+        Subtask build = new Subtask("Сборка", "Описание", epic.getId());
+        build.setDuration(Duration.ofMinutes(90));
+        manager.createSubtask(build);
+        manager.createSubtask(design);
+        Task review = new Task("Ревью", "Описание");
+        manager.createTask(review);
+        Task dropped = new Task("Удалённая", "Описание");
+        manager.createTask(dropped);
+        manager.addDependency(build.getId(), design.getId());
+        manager.addDependency(build.getId(), review.getId());
+        manager.addDependency(review.getId(), design.getId());
+        manager.removeDependency(review.getId(), design.getId());
+        manager.addDependency(review.getId(), dropped.getId());
+        manager.deleteTaskById(dropped.getId());
+        manager.close();
+
+        manager = new PagedFileTaskManager(file);
+        assertEquals(List.of(design.getId(), review.getId()), manager.getDependencies(build.getId()));
+        assertTrue(manager.getDependencies(review.getId()).isEmpty());
+        assertEquals(List.of(design, build), manager.getEpicSubtasksInOrder(epic.getId()));
+        assertEquals(Duration.ofMinutes(120), manager.getCriticalPath(epic.getId()));
+        assertThrows(IllegalStateException.class, () -> manager.addDependency(design.getId(), build.getId()));
+    }
+}
@@ -0,0 +1,180 @@
+package test.event;
+
+import event.Subscription;
+import event.TaskEvent;
+import event.TaskEventBus;
+import event.TaskEventType;
+import manager.InMemoryTaskManager;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskEventBusTest {
+
+    @Test
+    void deliversEventsInOrderWithSequenceNumbers() throws InterruptedException {
+        TaskEventBus bus = new TaskEventBus(4);
+        BlockingQueue<TaskEvent> received = new LinkedBlockingQueue<>();
+        Subscription subscription = bus.subscribe(received::add);
+        try {
+            for (int i = 1; i <= 20; i++) {
+                Task task = new Task("Задача " + i, "Описание");
+                task.setId(i);
+                bus.publish(TaskEventType.CREATED, task);
+            }
+            for (int i = 1; i <= 20; i++) {
+                TaskEvent event = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(event, "Событие не доставлено");
+                assertEquals(i, event.getSequence());
+                assertEquals(i, event.getTaskId());
+            }
+        } finally {
+            subscription.close();
+        }
+    }
+
+    @Test
+    void slowSubscriberHoldsBackPublisher() throws InterruptedException {
+        TaskEventBus bus = new TaskEventBus(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Subscription subscription = bus.subscribe(event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            AtomicBoolean finished = new AtomicBoolean();
+            Thread publisher = new Thread(() -> {
+                for (int i = 1; i <= 10; i++) {
+                    bus.publishDeleted(TaskType.TASK, i);
+                }
+                finished.set(true);
+            });
+            publisher.start();
+            publisher.join(300);
+            assertFalse(finished.get(), "Издатель должен ждать медленного подписчика");
+
+            release.countDown();
+            publisher.join(5000);
+            assertTrue(finished.get(), "После разгрузки буфера издатель должен продолжить");
+        } finally {
+            subscription.close();
+        }
+    }
+
+    @Test
+    void failingListenerIsCountedAndDeliveryContinues() throws InterruptedException {
+        TaskEventBus bus = new TaskEventBus(4);
+        BlockingQueue<TaskEvent> received = new LinkedBlockingQueue<>();
+        Subscription subscription = bus.subscribe(event -> {
+            if (event.getTaskId() == 1) {
+                throw new IllegalArgumentException("Сбой слушателя");
+            }
+            received.add(event);
+        });
+        try {
+            bus.publishDeleted(TaskType.TASK, 1);
+            bus.publishDeleted(TaskType.TASK, 2);
+            TaskEvent event = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "После сбоя доставка должна продолжиться");
+            assertEquals(2, event.getTaskId());
+            assertEquals(1, bus.getFailureCount());
+            assertEquals("Сбой слушателя", bus.getLastFailure().getMessage());
+        } finally {
+            subscription.close();
+        }
+    }
+
+    @Test
+    void listenerPublishingIntoFullBufferFailsInsteadOfDeadlocking() throws InterruptedException {
+        TaskEventBus bus = new TaskEventBus(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Subscription subscription = bus.subscribe(event -> {
+            if (event.getTaskId() == 1) {
+                // Второе событие уже не помещается: слушатель ждал бы сам себя
+                try {
+                    bus.publishDeleted(TaskType.TASK, 2);
+                    bus.publishDeleted(TaskType.TASK, 3);
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        try {
+            bus.publishDeleted(TaskType.TASK, 1);
+            assertTrue(done.await(5, TimeUnit.SECONDS), "Слушатель завис на публикации");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (bus.getFailureCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, bus.getFailureCount());
+            assertTrue(bus.getLastFailure() instanceof IllegalStateException);
+        } finally {
+            subscription.close();
+        }
+    }
+
+    @Test
+    void managerPublishesTypedChanges() throws InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        BlockingQueue<TaskEvent> received = new LinkedBlockingQueue<>();
+        Subscription subscription = manager.subscribe(received::add);
+        try {
+            Epic epic = new Epic("Эпик", "Описание");
+            manager.createEpic(epic);
+            Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+            manager.createSubtask(subtask);
+            subtask.setStatus(TaskStatus.DONE);
+            manager.updateSubtask(subtask);
+            manager.deleteSubtaskById(subtask.getId());
+
+            List<TaskEventType> types = new ArrayList<>();
+            TaskEvent event;
+            while ((event = received.poll(1, TimeUnit.SECONDS)) != null) {
+                types.add(event.getType());
+            }
+            assertEquals(List.of(
+                    TaskEventType.CREATED,
+                    TaskEventType.CREATED, TaskEventType.EPIC_RECOMPUTED,
+                    TaskEventType.UPDATED, TaskEventType.STATUS_CHANGED,
+                    TaskEventType.STATUS_CHANGED, TaskEventType.EPIC_RECOMPUTED,
+                    TaskEventType.DELETED,
+                    TaskEventType.STATUS_CHANGED, TaskEventType.EPIC_RECOMPUTED), types);
+        } finally {
+            subscription.close();
+        }
+    }
+
+    @Test
+    void eventCarriesCopyOfTask() throws InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        BlockingQueue<TaskEvent> received = new LinkedBlockingQueue<>();
+        Subscription subscription = manager.subscribe(received::add);
+        try {
+            Task task = new Task("Задача", "Описание");
+            manager.createTask(task);
+            task.setStatus(TaskStatus.IN_PROGRESS);
+
+            TaskEvent event = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertEquals(TaskStatus.NEW, event.getTask().getStatus(), "Событие должно хранить состояние на момент изменения");
+        } finally {
+            subscription.close();
+        }
+    }
+}
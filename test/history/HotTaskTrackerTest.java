@@ -0,0 +1,154 @@
+package test.history;
+
+import history.HotTaskTracker;
+import manager.InMemoryTaskManager;
+import metrics.ManagerMetrics;
+import org.junit.jupiter.api.Test;
+import task.Task;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotTaskTrackerTest {
+
+    // Часы, которые идут только по команде теста
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+
+    private static List<Integer> topIds(HotTaskTracker tracker, int limit) {
+        return tracker.getTop(limit).stream().map(HotTaskTracker.HotTask::taskId).toList();
+    }
+
+    @Test
+    void countsAreExactWhileIdsFit() {
+        HotTaskTracker tracker = new HotTaskTracker(10, Duration.ofHours(1), clock);
+        for (int id = 1; id <= 5; id++) {
+            for (int i = 0; i < id; i++) {
+                tracker.record(id);
+            }
+        }
+        assertEquals(List.of(5, 4, 3), topIds(tracker, 3));
+        assertEquals(4.0, tracker.getViews(4), 1e-9);
+        assertEquals(0.0, tracker.getTop(1).get(0).error());
+
+        tracker.remove(5);
+        assertEquals(List.of(4, 3, 2, 1), topIds(tracker, 10));
+        assertEquals(0.0, tracker.getViews(5));
+    }
+
+    @Test
+    void recordsAndRemovalsMatchExactCounts() {
+        HotTaskTracker tracker = new HotTaskTracker(64, Duration.ofHours(1), clock);
+        int[] exact = new int[64];
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            // Удаления вперемешку с просмотрами проверяют сдвиг цепочек в индексе по id
+            int key = random.nextInt(64);
+            int id = key * 1024;
+            if (random.nextInt(8) == 0) {
+                tracker.remove(id);
+                exact[key] = 0;
+            } else {
+                tracker.record(id);
+                exact[key]++;
+            }
+        }
+        for (int key = 0; key < 64; key++) {
+            assertEquals(exact[key], tracker.getViews(key * 1024), 1e-9);
+        }
+    }
+
+    @Test
+    void heavyHittersSurviveManyDistinctViewsInFixedMemory() {
+        // Space-Saving гарантирует задачи с долей просмотров больше 1 / capacity
+        HotTaskTracker tracker = new HotTaskTracker(200, Duration.ofDays(1), clock);
+        Random random = new Random(7);
+        int[] exact = new int[6];
+        for (int i = 0; i < 100_000; i++) {
+            // Каждый десятый просмотр — одна из пяти горячих задач, остальные размазаны по 10 000 id
+            if (i % 10 == 0) {
+                int id = 1 + random.nextInt(5);
+                exact[id]++;
+                tracker.record(id);
+            } else {
+                tracker.record(100 + random.nextInt(10_000));
+            }
+        }
+        assertEquals(200, tracker.size(), "Счётчиков не больше заданного числа");
+        List<HotTaskTracker.HotTask> top = tracker.getTop(5);
+        assertEquals(List.of(1, 2, 3, 4, 5), top.stream().map(HotTaskTracker.HotTask::taskId).sorted().toList());
+        for (HotTaskTracker.HotTask hot : top) {
+            int views = exact[hot.taskId()];
+            assertTrue(hot.views() >= views - 1e-6 && hot.views() - hot.error() <= views + 1e-6,
+                    "Оценка должна накрывать настоящее число " + views + ": " + hot);
+        }
+    }
+
+    @Test
+    void oldViewsDecay() {
+        HotTaskTracker tracker = new HotTaskTracker(10, Duration.ofHours(1), clock);
+        for (int i = 0; i < 100; i++) {
+            tracker.record(1);
+        }
+        clock.advance(Duration.ofHours(2));
+        for (int i = 0; i < 30; i++) {
+            tracker.record(2);
+        }
+        assertEquals(List.of(2, 1), topIds(tracker, 2));
+        assertEquals(25.0, tracker.getViews(1), 1e-6);
+
+        // Долгий простой: веса переводятся на новую точку отсчёта, порядок сохраняется
+        clock.advance(Duration.ofDays(30));
+        tracker.record(3);
+        assertEquals(List.of(3, 2, 1), topIds(tracker, 3));
+        assertEquals(1.0, tracker.getViews(3), 1e-9);
+    }
+
+    @Test
+    void managerCountsViewsAndForgetsDeletedTasks() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(ManagerMetrics.disabled(), clock);
+        HotTaskTracker tracker = manager.enableHotTasks(10, Duration.ofHours(1));
+        Task first = new Task("Первая", "Описание");
+        Task second = new Task("Вторая", "Описание");
+        manager.createTask(first);
+        manager.createTask(second);
+        manager.getTaskById(first.getId());
+        manager.getTaskById(second.getId());
+        manager.getTaskById(second.getId());
+        manager.getTaskById(999);
+        assertEquals(List.of(second.getId(), first.getId()), topIds(tracker, 10));
+
+        manager.deleteTaskById(second.getId());
+        assertEquals(List.of(first.getId()), topIds(tracker, 10));
+        assertThrows(IllegalArgumentException.class, () -> manager.enableHotTasks(0, Duration.ofHours(1)));
+    }
+}
@@ -1,5 +1,6 @@
 package test.history;
 
+import history.HistorySnapshot;
 import history.InMemoryHistoryManager;
 import task.Task;
 import org.junit.jupiter.api.BeforeEach;
@@ -62,4 +63,25 @@ public class InMemoryHistoryManagerTest {
 
         assertEquals(List.of(task2, task1), historyManager.getHistory());
     }
+
+    @Test
+    void snapshotKeepsHistoryAsOfCall() {
+        for (int id = 1; id <= 3; id++) {
+            historyManager.add(createTask(id));
+        }
+        historyManager.add(createTask(1));
+        HistorySnapshot before = historyManager.snapshot();
+
+        historyManager.remove(2);
+        historyManager.add(createTask(4));
+        // Журнал не раз переписывается и растёт, а взятый срез не меняется
+        for (int i = 0; i < 1000; i++) {
+            historyManager.add(createTask(3 + i % 2));
+        }
+
+        assertArrayEquals(new int[] {2, 3, 1}, before.getIds());
+        assertArrayEquals(new int[] {1, 3, 4}, historyManager.snapshot().getIds());
+        assertArrayEquals(historyManager.getHistory().stream().mapToInt(Task::getId).toArray(),
+                historyManager.snapshot().getIds());
+    }
 }
@@ -0,0 +1,181 @@
+package test.http;
+
+import http.HttpTaskServer;
+import manager.InMemoryTaskManager;
+import manager.OffHeapTaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerTest {
+    private InMemoryTaskManager manager;
+    private HttpTaskServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = new InMemoryTaskManager();
+        server = new HttpTaskServer(manager, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void createsAndReadsTask() throws Exception {
+        HttpResponse<String> created = post("/tasks",
+                "{\"name\":\"Задача\",\"description\":\"Описание \\\"в кавычках\\\"\","
+                        + "\"startTime\":\"2024-01-01T10:00\",\"duration\":30}");
+        assertEquals(201, created.statusCode());
+        assertEquals(1, manager.getAllTasks().size());
+        Task task = manager.getAllTasks().get(0);
+        assertEquals("Описание \"в кавычках\"", task.getDescription());
+        assertEquals(Duration.ofMinutes(30), task.getDuration());
+
+        HttpResponse<String> read = get("/tasks/" + task.getId());
+        assertEquals(200, read.statusCode());
+        assertTrue(read.body().contains("\"name\":\"Задача\""), read.body());
+        assertTrue(read.body().contains("\"startTime\":\"2024-01-01T10:00\""), read.body());
+        assertEquals(1, manager.getHistory().size(), "Чтение по id попадает в историю");
+        assertTrue(get("/history").body().contains("\"id\":" + task.getId()));
+    }
+
+    @Test
+    void updatesExistingTaskAndRejectsUnknownId() throws Exception {
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        HttpResponse<String> updated = post("/tasks",
+                "{\"id\":" + task.getId() + ",\"name\":\"Задача\",\"description\":\"Новое\",\"status\":\"DONE\"}");
+        assertEquals(200, updated.statusCode());
+        assertEquals(TaskStatus.DONE, manager.getTask(task.getId()).getStatus());
+
+        assertEquals(404, post("/tasks", "{\"id\":999,\"name\":\"Задача\"}").statusCode());
+    }
+
+    @Test
+    void returnsNotAcceptableOnOverlap() throws Exception {
+        manager.createTask(new Task("Первая", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0)));
+        HttpResponse<String> response = post("/tasks",
+                "{\"name\":\"Вторая\",\"startTime\":\"2024-01-01T10:30\",\"duration\":60}");
+        assertEquals(406, response.statusCode());
+        assertEquals(1, manager.getAllTasks().size());
+    }
+
+    @Test
+    void rejectsMalformedRequests() throws Exception {
+        assertEquals(400, post("/tasks", "{\"name\":").statusCode());
+        assertEquals(400, post("/tasks", "{\"name\":\"Задача\",\"status\":\"LATER\"}").statusCode());
+        assertEquals(400, post("/subtasks", "{\"name\":\"Подзадача\"}").statusCode());
+        assertEquals(404, get("/tasks/abc").statusCode());
+        assertEquals(404, get("/tasks/1").statusCode());
+        assertEquals(404, post("/subtasks", "{\"name\":\"Подзадача\",\"epicId\":42}").statusCode());
+        HttpResponse<String> put = client.send(HttpRequest.newBuilder(uri("/tasks"))
+                .PUT(HttpRequest.BodyPublishers.ofString("{}")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, put.statusCode());
+    }
+
+    @Test
+    void servesEpicSubtasksAndDeletes() throws Exception {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        assertEquals(201, post("/subtasks",
+                "{\"name\":\"Подзадача\",\"description\":\"\",\"epicId\":" + epic.getId() + "}").statusCode());
+        Subtask subtask = manager.getAllSubtasks().get(0);
+
+        HttpResponse<String> subtasks = get("/epics/" + epic.getId() + "/subtasks");
+        assertEquals(200, subtasks.statusCode());
+        assertTrue(subtasks.body().contains("\"epicId\":" + epic.getId()), subtasks.body());
+        assertTrue(get("/epics").body().contains("\"subtaskIds\":[" + subtask.getId() + "]"));
+
+        assertEquals(200, delete("/subtasks/" + subtask.getId()).statusCode());
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertEquals(404, delete("/subtasks/" + subtask.getId()).statusCode());
+        assertEquals(200, delete("/epics").statusCode());
+        assertTrue(manager.getAllEpics().isEmpty());
+    }
+
+    @Test
+    void prioritizedIsOrderedByStartTime() throws Exception {
+        manager.createTask(new Task("Поздняя", "", Duration.ofMinutes(10), LocalDateTime.of(2024, 1, 2, 10, 0)));
+        manager.createTask(new Task("Ранняя", "", Duration.ofMinutes(10), LocalDateTime.of(2024, 1, 1, 10, 0)));
+        String body = get("/prioritized").body();
+        assertTrue(body.indexOf("Ранняя") < body.indexOf("Поздняя"), body);
+    }
+
+    @Test
+    void concurrentCreatesDoNotLoseTasks() throws Exception {
+        int requests = 200;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                String body = "{\"name\":\"Задача " + i + "\",\"description\":\"\"}";
+                statuses.add(clients.submit(() -> post("/tasks", body).statusCode()));
+            }
+            for (Future<Integer> status : statuses) {
+                assertEquals(201, (int) status.get());
+            }
+        }
+        assertEquals(requests, manager.getAllTasks().size());
+    }
+
+    @Test
+    void listsOverStorageBackedManagerDoNotRaceWithWrites() throws Exception {
+        server.stop();
+        OffHeapTaskManager offHeap = new OffHeapTaskManager(4);
+        server = new HttpTaskServer(offHeap, 0);
+        server.start();
+        int requests = 200;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                String body = "{\"name\":\"Задача " + i + "\",\"description\":\"\"}";
+                statuses.add(clients.submit(() -> post("/tasks", body).statusCode()));
+                statuses.add(clients.submit(() -> get("/tasks").statusCode()));
+            }
+            for (Future<Integer> status : statuses) {
+                assertTrue(status.get() == 200 || status.get() == 201, "Код " + status.get());
+            }
+        }
+        assertEquals(requests, offHeap.getAllTasks().size());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> delete(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).DELETE().build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
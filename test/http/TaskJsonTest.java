@@ -0,0 +1,142 @@
+package test.http;
+
+import http.TaskJsonReader;
+import http.TaskJsonWriter;
+import manager.BoardSnapshot;
+import manager.InMemoryTaskManager;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskJsonTest {
+
+    @Test
+    void roundTripsTasksThroughStream() throws IOException {
+        Task task = new Task("Задача \"в кавычках\"", "Строка\nвторая\t\\ 😀 \u0001",
+                Duration.ofMinutes(45), LocalDateTime.of(2024, 3, 5, 9, 7, 3, 120_000_000));
+        task.setId(7);
+        task.setStatus(TaskStatus.IN_PROGRESS);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskJsonWriter writer = new TaskJsonWriter(out, BoardSnapshot.empty());
+        writer.write(task).flush();
+
+        TaskJsonReader reader = new TaskJsonReader(new ByteArrayInputStream(out.toByteArray()));
+        Task read = reader.read(TaskType.TASK);
+        reader.expectEnd();
+        assertEquals(7, read.getId());
+        assertEquals(task.getName(), read.getName());
+        assertEquals(task.getDescription(), read.getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, read.getStatus());
+        assertEquals(task.getStartTime(), read.getStartTime());
+        assertEquals(task.getDuration(), read.getDuration());
+    }
+
+    @Test
+    void dateTimeMatchesLocalDateTimeToString() throws IOException {
+        LocalDateTime[] values = {
+                LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 12, 31, 23, 59, 1),
+                LocalDateTime.of(999, 2, 3, 4, 5, 6, 7),
+                LocalDateTime.of(2024, 6, 7, 8, 9, 10, 11_000),
+                LocalDateTime.of(12345, 6, 7, 8, 9)
+        };
+        for (LocalDateTime value : values) {
+            Task task = new Task("Задача", null, Duration.ofMinutes(1), value);
+            String json = encode(task, null);
+            assertTrue(json.contains("\"startTime\":\"" + value + "\""), json);
+        }
+    }
+
+    @Test
+    void epicTimesComeFromSnapshotSubtasks() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        manager.createSubtask(new Subtask("Вторая", "", epic.getId(), Duration.ofMinutes(30),
+                LocalDateTime.of(2024, 1, 2, 10, 0)));
+        manager.createSubtask(new Subtask("Первая", "", epic.getId(), Duration.ofMinutes(60),
+                LocalDateTime.of(2024, 1, 1, 10, 0)));
+
+        String json = encode(manager.getEpicById(epic.getId()), manager.snapshot());
+        assertTrue(json.contains("\"startTime\":\"2024-01-01T10:00\""), json);
+        assertTrue(json.contains("\"duration\":90"), json);
+        assertTrue(json.contains("\"endTime\":\"2024-01-02T10:30\""), json);
+        assertTrue(json.contains("\"subtaskIds\":[2,3]"), json);
+    }
+
+    @Test
+    void writesArraysIntoByteBufferAndReadsThemBack() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) {
+            Task task = new Task("Задача " + i, "Описание " + i);
+            task.setId(i);
+            tasks.add(task);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        new TaskJsonWriter(buffer, null).writeAll(tasks).flush();
+        buffer.flip();
+
+        List<Task> read = new ArrayList<>();
+        TaskJsonReader reader = new TaskJsonReader(buffer);
+        reader.readArray(TaskType.TASK, read::add);
+        reader.expectEnd();
+        assertEquals(tasks.size(), read.size());
+        assertEquals("Описание 1000", read.get(999).getDescription());
+    }
+
+    @Test
+    void overflowingByteBufferFails() {
+        Task task = new Task("Длинное название задачи", "Описание");
+        ByteBuffer small = ByteBuffer.allocate(16);
+        assertThrows(BufferOverflowException.class, () -> new TaskJsonWriter(small, null).write(task).flush());
+    }
+
+    @Test
+    void readerSkipsUnknownFieldsAndRejectsMalformedInput() throws IOException {
+        String json = "{\"id\":3,\"type\":\"SUBTASK\",\"extra\":{\"a\":[1,{\"b\":null}],\"c\":true},"
+                + "\"name\":\"Подзадача\",\"description\":null,\"status\":\"DONE\",\"epicId\":2,\"startTime\":null}";
+        Subtask subtask = (Subtask) read(json, TaskType.SUBTASK);
+        assertEquals(3, subtask.getId());
+        assertEquals(2, subtask.getEpicId());
+        assertEquals(TaskStatus.DONE, subtask.getStatus());
+        assertNull(subtask.getStartTime());
+
+        assertThrows(IllegalArgumentException.class, () -> read("{\"name\":\"Задача\"", TaskType.TASK));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"name\":\"Задача\",\"id\":1.5}", TaskType.TASK));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"name\":\"Задача\",\"status\":\"LATER\"}",
+                TaskType.TASK));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"description\":\"Без названия\"}", TaskType.TASK));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"name\":\"Подзадача\"}", TaskType.SUBTASK));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"name\":\"Задача\"} лишнее", TaskType.TASK));
+    }
+
+    private static String encode(Task task, BoardSnapshot board) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TaskJsonWriter(out, board).write(task).flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Task read(String json, TaskType type) throws IOException {
+        TaskJsonReader reader = new TaskJsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        Task task = reader.read(type);
+        reader.expectEnd();
+        return task;
+    }
+}
@@ -0,0 +1,69 @@
+package test.manager;
+
+import manager.ColdTaskStore;
+import org.junit.jupiter.api.Test;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColdTaskStoreTest {
+
+    @Test
+    void recordsKeepAllFields() throws IOException {
+        Path file = Files.createTempFile("cold", ".bin");
+        try (ColdTaskStore store = new ColdTaskStore(file)) {
+            Subtask subtask = new Subtask("Имя ✓", null, 4, Duration.ofSeconds(90, 7),
+                    LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123));
+            subtask.setId(3);
+            subtask.setStatus(TaskStatus.DONE);
+            store.write(subtask);
+
+            Subtask read = (Subtask) store.read(3);
+            assertNotSame(subtask, read);
+            assertEquals("Имя ✓", read.getName());
+            assertNull(read.getDescription());
+            assertEquals(4, read.getEpicId());
+            assertEquals(TaskStatus.DONE, read.getStatus());
+            assertEquals(subtask.getStartTime(), read.getStartTime());
+            assertEquals(subtask.getDuration(), read.getDuration());
+            assertEquals(TaskType.SUBTASK, store.typeOf(3));
+            assertNull(store.read(2));
+        }
+        assertFalse(Files.exists(file), "Рабочий файл удаляется при закрытии");
+    }
+
+    @Test
+    void rewritesAreCompactedAway() throws IOException {
+        try (ColdTaskStore store = new ColdTaskStore(Files.createTempFile("cold", ".bin"))) {
+            String description = "x".repeat(1000);
+            for (int round = 0; round < 10; round++) {
+                for (int id = 1; id <= 200; id++) {
+                    Task task = new Task("Задача " + round, description);
+                    task.setId(id);
+                    store.write(task);
+                }
+            }
+            store.remove(200);
+
+            assertEquals(199, store.size());
+            // Записано больше 2 МБ, а файл уплотняется, как только мусор превышает живые данные
+            assertTrue(store.getFileBytes() < (1 << 20) + 2000, "Файл не уплотнился: " + store.getFileBytes());
+            assertEquals("Задача 9", store.read(1).getName());
+            List<Integer> ids = new ArrayList<>();
+            store.forEach(TaskType.TASK, ids::add);
+            assertEquals(199, ids.size());
+            assertEquals(199, (int) ids.get(198));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package test.manager;
+
+import manager.InMemoryTaskManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompareAndUpdateTest {
+    private InMemoryTaskManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new InMemoryTaskManager();
+    }
+
+    @Test
+    void versionGrowsWithEveryChange() {
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        long created = manager.snapshot().getTask(task.getId()).getVersion();
+        assertTrue(created > 0);
+        assertEquals(created, task.getVersion());
+
+        Task copy = task.copy();
+        copy.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(copy);
+        long updated = manager.snapshot().getTask(task.getId()).getVersion();
+        assertTrue(updated > created);
+
+        // После удаления и восстановления версия не начинается заново
+        manager.deleteTaskById(task.getId());
+        Task again = new Task("Задача", "Описание");
+        manager.createTask(again);
+        assertTrue(again.getVersion() > updated);
+    }
+
+    @Test
+    void staleWriteIsRejectedAndLeavesTaskUnchanged() {
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        long version = task.getVersion();
+
+        Task first = task.copy();
+        first.setStatus(TaskStatus.IN_PROGRESS);
+        Task second = task.copy();
+        second.setStatus(TaskStatus.DONE);
+
+        assertTrue(manager.compareAndUpdate(first, version));
+        assertTrue(first.getVersion() > version);
+        assertFalse(manager.compareAndUpdate(second, version), "Запись по устаревшей версии должна отклоняться");
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getTask(task.getId()).getStatus());
+
+        // Перечитали — и повторили
+        second.setVersion(0);
+        assertTrue(manager.compareAndUpdate(second, manager.snapshot().getTask(task.getId()).getVersion()));
+        assertEquals(TaskStatus.DONE, manager.getTask(task.getId()).getStatus());
+    }
+
+    @Test
+    void subtaskChangeAlsoMovesEpicVersion() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        manager.createSubtask(subtask);
+        long epicVersion = manager.snapshot().getEpic(epic.getId()).getVersion();
+
+        Subtask done = subtask.copy();
+        done.setStatus(TaskStatus.DONE);
+        assertTrue(manager.compareAndUpdate(done, subtask.getVersion()));
+
+        // Статус эпика пересчитан, так что эпик, прочитанный до этого, уже устарел
+        Epic renamed = new Epic("Новое имя", "Описание");
+        renamed.setId(epic.getId());
+        assertFalse(manager.compareAndUpdate(renamed, epicVersion));
+        assertEquals(TaskStatus.DONE, manager.snapshot().getEpic(epic.getId()).getStatus());
+        assertTrue(manager.compareAndUpdate(renamed, manager.snapshot().getEpic(epic.getId()).getVersion()));
+        assertEquals("Новое имя", manager.getAllEpics().get(0).getName());
+    }
+
+    @Test
+    void missingOrMistypedTaskIsNotUpdated() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Task impostor = new Task("Задача", "Описание");
+        impostor.setId(epic.getId());
+        assertFalse(manager.compareAndUpdate(impostor, epic.getVersion()));
+
+        Task missing = new Task("Задача", "Описание");
+        missing.setId(100);
+        assertFalse(manager.compareAndUpdate(missing, 0));
+        assertThrows(IllegalArgumentException.class, () -> manager.compareAndUpdate(null, 0));
+    }
+}
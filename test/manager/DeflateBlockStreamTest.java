@@ -0,0 +1,64 @@
+package test.manager;
+
+import manager.DeflateBlockInputStream;
+import manager.DeflateBlockOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeflateBlockStreamTest {
+
+    private static byte[] compress(int level, String... blocks) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflateBlockOutputStream out = new DeflateBlockOutputStream(bytes, level)) {
+            for (String block : blocks) {
+                out.write(block.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+            assertEquals(blocks.length, out.getBlockCount());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String decompress(byte[] compressed, int parallelism) throws IOException {
+        try (DeflateBlockInputStream in = new DeflateBlockInputStream(new ByteArrayInputStream(compressed),
+                parallelism)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void blocksRoundTripInOrderAtAnyParallelism() throws IOException {
+        String[] blocks = new String[50];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = ("Блок " + i + ",TASK,NEW,2024-01-01T10:00\n").repeat(i + 1);
+        }
+        String expected = String.join("", blocks);
+        for (int level : new int[] {Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION}) {
+            byte[] compressed = compress(level, blocks);
+            assertEquals(expected, decompress(compressed, 1));
+            assertEquals(expected, decompress(compressed, 8));
+        }
+        assertEquals("", decompress(compress(Deflater.DEFAULT_COMPRESSION), 4));
+    }
+
+    @Test
+    void rejectsDamagedStreams() throws IOException {
+        byte[] compressed = compress(Deflater.DEFAULT_COMPRESSION, "первый блок ".repeat(100), "второй");
+        assertThrows(ZipException.class, () -> decompress("#v2\n".getBytes(StandardCharsets.UTF_8), 1));
+        assertThrows(IOException.class, () -> decompress(Arrays.copyOf(compressed, compressed.length - 3), 2));
+        byte[] damaged = compressed.clone();
+        damaged[20] ^= 0x10;
+        assertThrows(IOException.class, () -> decompress(damaged, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DeflateBlockOutputStream(new ByteArrayOutputStream(), 10));
+    }
+}
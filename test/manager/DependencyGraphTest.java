@@ -0,0 +1,119 @@
+package test.manager;
+
+import manager.DependencyGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DependencyGraphTest {
+    private DependencyGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new DependencyGraph();
+    }
+
+    @Test
+    void edgeAgainstOrderReordersNodes() {
+        graph.addNode(1, 10, 5);
+        graph.addNode(2, 10, 5);
+        graph.addNode(3, 10, 5);
+
+        graph.addEdge(3, 1);
+        graph.addEdge(2, 3);
+
+        assertEquals(List.of(2, 3, 1), graph.order(List.of(1, 2, 3)));
+        assertEquals(15, graph.getCriticalPath(10));
+    }
+
+    @Test
+    void cycleIsRejectedAndGraphStaysUnchanged() {
+        graph.addNode(1, 0, 1);
+        graph.addNode(2, 0, 1);
+        graph.addNode(3, 0, 1);
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+
+        assertThrows(IllegalStateException.class, () -> graph.addEdge(3, 1));
+        assertThrows(IllegalStateException.class, () -> graph.addEdge(2, 2));
+        assertEquals(List.of(), graph.getDependencies(1));
+        assertEquals(List.of(1, 2, 3), graph.order(List.of(3, 1, 2)));
+    }
+
+    @Test
+    void weightChangePropagatesToSuccessorsOnly() {
+        graph.addNode(1, 7, 10);
+        graph.addNode(2, 7, 20);
+        graph.addNode(3, 8, 30);
+        graph.addEdge(1, 2);
+
+        assertEquals(30, graph.getCriticalPath(7));
+        graph.setWeight(1, 0);
+        assertEquals(20, graph.getCriticalPath(7));
+        assertEquals(30, graph.getCriticalPath(8));
+
+        graph.removeNode(2);
+        assertEquals(0, graph.getCriticalPath(7));
+    }
+
+    @Test
+    void incrementalFinishMatchesFullRecompute() {
+        Random random = new Random(42);
+        int size = 300;
+        long[] weights = new long[size + 1];
+        for (int id = 1; id <= size; id++) {
+            weights[id] = random.nextInt(100);
+            graph.addNode(id, 1 + id % 5, weights[id]);
+        }
+        Map<Integer, List<Integer>> predecessors = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            int from = 1 + random.nextInt(size);
+            int to = 1 + random.nextInt(size);
+            try {
+                graph.addEdge(from, to);
+                if (!predecessors.computeIfAbsent(to, key -> new ArrayList<>()).contains(from)) {
+                    predecessors.get(to).add(from);
+                }
+            } catch (IllegalStateException ignored) {
+                // цикл или петля — ребро не добавлено
+            }
+            if (i % 10 == 0) {
+                int id = 1 + random.nextInt(size);
+                weights[id] = random.nextInt(100);
+                graph.setWeight(id, weights[id]);
+            }
+        }
+
+        List<Integer> all = new ArrayList<>();
+        for (int id = 1; id <= size; id++) {
+            all.add(id);
+        }
+        List<Integer> order = graph.order(all);
+        Map<Integer, Integer> position = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            position.put(order.get(i), i);
+        }
+        long[] finish = new long[size + 1];
+        long[] critical = new long[6];
+        for (int id : order) {
+            long start = 0;
+            for (int predecessor : predecessors.getOrDefault(id, List.of())) {
+                assertTrue(position.get(predecessor) < position.get(id), "Порядок нарушает зависимость");
+                start = Math.max(start, finish[predecessor]);
+            }
+            finish[id] = start + weights[id];
+            assertEquals(finish[id], graph.getFinish(id));
+            critical[1 + id % 5] = Math.max(critical[1 + id % 5], finish[id]);
+        }
+        for (int epicId = 1; epicId <= 5; epicId++) {
+            assertEquals(critical[epicId], graph.getCriticalPath(epicId));
+        }
+    }
+}
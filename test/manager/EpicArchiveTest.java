@@ -0,0 +1,176 @@
+package test.manager;
+
+import manager.EpicArchive;
+import manager.InMemoryTaskManager;
+import manager.RetentionJob;
+import metrics.ManagerMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.TaskStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EpicArchiveTest {
+    private static final Duration RETENTION = Duration.ofDays(30);
+
+    // Часы, которые тест переводит вручную
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+    private Path file;
+    private EpicArchive archive;
+    private InMemoryTaskManager manager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("archive", ".bin");
+        archive = new EpicArchive(file);
+        manager = new InMemoryTaskManager(ManagerMetrics.disabled(), clock);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        archive.close();
+        Files.deleteIfExists(file);
+    }
+
+    private Epic createEpic(String name, TaskStatus... statuses) {
+        Epic epic = new Epic(name, "Описание");
+        manager.createEpic(epic);
+        for (TaskStatus status : statuses) {
+            Subtask subtask = new Subtask("Подзадача " + name, "Описание", epic.getId());
+            subtask.setStatus(status);
+            manager.createSubtask(subtask);
+        }
+        return epic;
+    }
+
+    @Test
+    void epicsDoneLongerThanRetentionMoveToArchive() {
+        Epic old = createEpic("Старый", TaskStatus.DONE, TaskStatus.DONE);
+        clock.advance(Duration.ofDays(10));
+        Epic recent = createEpic("Свежий", TaskStatus.DONE);
+        Epic active = createEpic("Текущий", TaskStatus.IN_PROGRESS);
+        clock.advance(Duration.ofDays(25));
+
+        assertEquals(1, manager.archiveDoneEpics(archive, RETENTION));
+        assertNull(manager.getEpicById(old.getId()));
+        assertEquals(2, manager.getAllEpics().size());
+        assertEquals(2, manager.getAllSubtasks().size());
+        assertNull(manager.snapshot().getEpic(old.getId()));
+
+        Epic archived = archive.getEpic(old.getId());
+        assertEquals("Старый", archived.getName());
+        assertEquals(TaskStatus.DONE, archived.getStatus());
+        List<Subtask> subtasks = archive.getSubtasks(old.getId());
+        assertEquals(archived.getSubtaskIds(), subtasks.stream().map(Subtask::getId).toList());
+        assertEquals(old.getId(), archive.getSubtask(subtasks.get(1).getId()).getEpicId());
+        assertNull(archive.getEpic(recent.getId()));
+
+        clock.advance(Duration.ofDays(10));
+        assertEquals(1, manager.archiveDoneEpics(archive, RETENTION));
+        assertTrue(archive.contains(recent.getId()));
+        assertNotNull(manager.getEpicById(active.getId()));
+    }
+
+    @Test
+    void reopenedEpicStartsRetentionOver() {
+        Epic epic = createEpic("Эпик", TaskStatus.DONE);
+        clock.advance(Duration.ofDays(20));
+        Subtask subtask = manager.getEpicSubtasks(epic.getId()).get(0);
+        subtask.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        clock.advance(Duration.ofDays(20));
+
+        assertEquals(0, manager.archiveDoneEpics(archive, RETENTION));
+        clock.advance(Duration.ofDays(10));
+        assertEquals(1, manager.archiveDoneEpics(archive, RETENTION));
+    }
+
+    @Test
+    void reopenedArchiveRebuildsIndexAndDropsTornTail() throws IOException {
+        Epic epic = createEpic("Эпик", TaskStatus.DONE);
+        Subtask subtask = manager.getEpicSubtasks(epic.getId()).get(0);
+        subtask.setStartTime(LocalDateTime.of(2024, 1, 1, 9, 0, 0, 5));
+        subtask.setDuration(Duration.ofMinutes(45));
+        manager.updateSubtask(subtask);
+        manager.archiveDoneEpics(archive, Duration.ZERO);
+        long bytes = archive.getFileBytes();
+        archive.close();
+        Files.write(file, new byte[]{0, 0, 1, 0, 31}, StandardOpenOption.APPEND);
+
+        archive = new EpicArchive(file);
+        assertEquals(bytes, archive.getFileBytes());
+        assertEquals(bytes, Files.size(file));
+        Subtask archived = archive.getSubtask(subtask.getId());
+        assertEquals(subtask.getStartTime(), archived.getStartTime());
+        assertEquals(subtask.getDuration(), archived.getDuration());
+        assertEquals(subtask.getId(), archive.getMaxId());
+    }
+
+    @Test
+    void archivedIdsAreNotReusedByAnotherManager() {
+        createEpic("Эпик", TaskStatus.DONE, TaskStatus.DONE);
+        manager.archiveDoneEpics(archive, Duration.ZERO);
+
+        InMemoryTaskManager restarted = new InMemoryTaskManager(ManagerMetrics.disabled(), clock);
+        restarted.archiveDoneEpics(archive, RETENTION);
+        Epic epic = new Epic("Новый", "Описание");
+        restarted.createEpic(epic);
+        assertEquals(archive.getMaxId() + 1, epic.getId());
+    }
+
+    @Test
+    void retentionJobRunsUnderCallerLock() {
+        createEpic("Эпик", TaskStatus.DONE);
+        clock.advance(RETENTION);
+        ReentrantLock lock = new ReentrantLock();
+        try (RetentionJob job = new RetentionJob(manager, archive, RETENTION, Duration.ofHours(1), lock)) {
+            assertEquals(1, job.runOnce());
+            assertEquals(0, job.runOnce());
+            assertEquals(1, job.getArchivedCount());
+            assertFalse(lock.isLocked());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new RetentionJob(manager, archive, RETENTION, Duration.ZERO, new ReentrantLock()));
+    }
+}
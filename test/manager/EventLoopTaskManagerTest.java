@@ -0,0 +1,214 @@
+package test.manager;
+
+import manager.EventLoopTaskManager;
+import manager.FileBackedTaskManager;
+import manager.InMemoryTaskManager;
+import manager.OffHeapTaskManager;
+import metrics.ManagerMetrics;
+import metrics.Operation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLoopTaskManagerTest {
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("async", ".csv");
+        Files.delete(file.toPath());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    // Считает настоящие записи файла
+    private static final class SaveCounter implements ManagerMetrics {
+        final AtomicInteger saves = new AtomicInteger();
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void recordOperation(Operation operation, long nanos) {
+        }
+
+        @Override
+        public void recordSave(long bytes, long nanos) {
+            saves.incrementAndGet();
+        }
+
+        @Override
+        public void registerGauge(String name, LongSupplier supplier) {
+        }
+    }
+
+    // Первое создание эпика ждёт, пока тест не откроет ворота: за это время копится очередь
+    private static final class GatedManager extends FileBackedTaskManager {
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        GatedManager(File file, ManagerMetrics metrics) {
+            super(file, metrics);
+        }
+
+        @Override
+        public void createEpic(Epic epic) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            super.createEpic(epic);
+        }
+    }
+
+    @Test
+    void queuedOperationsAreSavedInOneWrite() throws Exception {
+        SaveCounter counter = new SaveCounter();
+        GatedManager manager = new GatedManager(file, counter);
+        int count = 100;
+        try (EventLoopTaskManager async = new EventLoopTaskManager(manager)) {
+            Epic epic = new Epic("Эпик", "Описание");
+            CompletableFuture<Void> epicCreated = async.createEpic(epic);
+            List<Task> tasks = new ArrayList<>();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Task task = new Task("Задача " + i, "Описание");
+                tasks.add(task);
+                futures.add(async.createTask(task));
+            }
+            manager.gate.countDown();
+            epicCreated.get();
+            for (CompletableFuture<Void> future : futures) {
+                future.get();
+            }
+            assertTrue(epic.getId() > 0);
+            for (Task task : tasks) {
+                assertTrue(task.getId() > 0, "id должен вернуться в переданную задачу");
+            }
+            assertTrue(async.getBatchCount() <= 2, "Очередь должна выполниться одной-двумя пачками");
+            assertTrue(counter.saves.get() <= 2, "Файл должен писаться раз на пачку, а не на операцию");
+            assertEquals(count, async.getAllTasks().get().size());
+        }
+        assertEquals(count, FileBackedTaskManager.loadFromFile(file).getAllTasks().size());
+    }
+
+    @Test
+    void readsSeeCompletedWritesAndReturnCopies() throws Exception {
+        try (EventLoopTaskManager async = new EventLoopTaskManager(new InMemoryTaskManager())) {
+            Epic epic = new Epic("Эпик", "Описание");
+            async.createEpic(epic).get();
+            Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+            async.createSubtask(subtask).get();
+
+            Subtask read = async.getEpicSubtasks(epic.getId()).get().get(0);
+            read.setStatus(TaskStatus.DONE);
+            assertEquals(TaskStatus.NEW, async.snapshot().getSubtask(subtask.getId()).getStatus(),
+                    "Изменение копии не должно менять доску");
+
+            async.updateSubtask(read).get();
+            assertEquals(TaskStatus.DONE, async.getAllEpics().get().get(0).getStatus());
+            assertEquals(epic.getId(), async.getEpicById(epic.getId()).get().getId());
+            assertEquals(1, async.getHistory().get().size());
+        }
+    }
+
+    @Test
+    void readsOverStorageBackedManagerRunInLoop() throws Exception {
+        int count = 500;
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        try (EventLoopTaskManager async = new EventLoopTaskManager(new OffHeapTaskManager(64));
+             ExecutorService readers = Executors.newFixedThreadPool(4)) {
+            for (int i = 0; i < count; i++) {
+                Task task = new Task("Задача " + i, "Описание");
+                pending.add(async.createTask(task).thenCompose(ignored -> {
+                    Task renamed = new Task("Изменённая", "Описание");
+                    renamed.setId(task.getId());
+                    return async.updateTask(renamed);
+                }));
+                if (i % 3 == 0) {
+                    pending.add(async.deleteTaskById(i));
+                }
+                pending.add(CompletableFuture.supplyAsync(() -> async.snapshot().getTasks().size(), readers));
+                pending.add(async.getAllTasks());
+                pending.add(async.getTask(i));
+            }
+            for (CompletableFuture<?> future : pending) {
+                future.get();
+            }
+            assertEquals(async.snapshot().getTasks().size(), async.getAllTasks().get().size());
+        }
+    }
+
+    @Test
+    void storesTaskAsItWasWhenSubmitted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryTaskManager manager = new InMemoryTaskManager() {
+            @Override
+            public void createTask(Task task) {
+                if (task.getName().equals("Держит цикл")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.createTask(task);
+            }
+        };
+        try (EventLoopTaskManager async = new EventLoopTaskManager(manager)) {
+            async.createTask(new Task("Держит цикл", "Описание"));
+            Task task = new Task("Задача", "До отправки");
+            CompletableFuture<Void> created = async.createTask(task);
+            // Цикл занят, операция ещё в очереди: правка вызывающего не должна в неё попасть
+            task.setDescription("После отправки");
+            release.countDown();
+            created.get();
+
+            assertTrue(task.getId() > 0, "id возвращается вызывающему");
+            assertEquals("До отправки", async.getTask(task.getId()).get().getDescription());
+            assertEquals(task.getVersion(), async.getTask(task.getId()).get().getVersion());
+        }
+    }
+
+    @Test
+    void failuresCompleteFuturesExceptionally() throws Exception {
+        EventLoopTaskManager async = new EventLoopTaskManager(new InMemoryTaskManager());
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        async.createTask(new Task("Первая", "Описание", Duration.ofHours(1), start)).get();
+        CompletableFuture<Void> overlapping = async.createTask(
+                new Task("Вторая", "Описание", Duration.ofHours(1), start.plusMinutes(30)));
+        ExecutionException failure = assertThrows(ExecutionException.class, overlapping::get);
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+        assertEquals(1, async.getAllTasks().get().size(), "Ошибка одной операции не должна мешать остальным");
+
+        async.close();
+        failure = assertThrows(ExecutionException.class, () -> async.deleteAllTasks().get());
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+    }
+}
@@ -0,0 +1,151 @@
+package test.manager;
+
+import manager.OffHeapTaskStore;
+import manager.PackedTimeIndex;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import task.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapTaskStoreTest {
+
+    @Test
+    void recordsKeepAllFields() {
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        Task task = new Task("Имя ✓", "Описание", Duration.ofSeconds(90, 7),
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123));
+        task.setId(3);
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        store.put(task);
+
+        Task read = store.get(3);
+        assertNotSame(task, read);
+        assertEquals(TaskType.TASK, read.getType());
+        assertEquals("Имя ✓", read.getName());
+        assertEquals("Описание", read.getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, read.getStatus());
+        assertEquals(task.getStartTime(), read.getStartTime());
+        assertEquals(task.getDuration(), read.getDuration());
+        assertNull(store.get(4));
+        assertNull(store.typeOf(4));
+    }
+
+    @Test
+    void epicStatusFollowsSubtaskCounters() {
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        Epic epic = new Epic("Эпик", "Описание");
+        epic.setId(1);
+        store.put(epic);
+        for (int id = 2; id <= 4; id++) {
+            Subtask subtask = new Subtask("Подзадача", "Описание", 1);
+            subtask.setId(id);
+            subtask.setStatus(TaskStatus.DONE);
+            store.put(subtask);
+        }
+        assertEquals(TaskStatus.DONE, store.calculateEpicStatus(1));
+        store.setStatus(3, TaskStatus.NEW);
+        assertEquals(TaskStatus.IN_PROGRESS, store.calculateEpicStatus(1));
+        store.remove(2);
+        store.remove(4);
+        assertEquals(TaskStatus.NEW, store.calculateEpicStatus(1));
+        assertEquals(1, store.getSubtaskCount(1));
+        assertEquals(List.of(3), ((Epic) store.get(1)).getSubtaskIds());
+        store.remove(3);
+        assertEquals(TaskStatus.NEW, store.calculateEpicStatus(1));
+    }
+
+    @Test
+    void subtaskOfMissingEpicIsRejected() {
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        Subtask subtask = new Subtask("Подзадача", "Описание", 7);
+        subtask.setId(1);
+        assertThrows(IllegalStateException.class, () -> store.put(subtask));
+    }
+
+    @Test
+    void sharedStringsSurviveRemovalOfOneOwner() {
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        for (int id = 1; id <= 3; id++) {
+            Task task = new Task("Общее имя", "Описание " + id);
+            task.setId(id);
+            store.put(task);
+        }
+        store.remove(1);
+        store.remove(3);
+        Task replacement = new Task("Другое имя", "Описание 1");
+        replacement.setId(5);
+        store.put(replacement);
+
+        assertEquals("Общее имя", store.get(2).getName());
+        assertEquals("Описание 2", store.get(2).getDescription());
+        assertEquals("Описание 1", store.get(5).getDescription());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void longStringDoesNotShareBufferWithShortOnes() {
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        String longDescription = "a".repeat(5_000_000);
+        Task first = new Task("one", longDescription);
+        first.setId(1);
+        store.put(first);
+        Task second = new Task("two", "short");
+        second.setId(2);
+        store.put(second);
+
+        // Без сравнения целиком: при падении не печатаем пять мегабайт
+        assertTrue(longDescription.equals(store.get(1).getDescription()), "Длинное описание испорчено");
+        assertEquals("one", store.get(1).getName());
+        assertEquals("two", store.get(2).getName());
+        assertEquals("short", store.get(2).getDescription());
+    }
+
+    @Test
+    void packedTimeIndexMatchesSortedMap() {
+        Random random = new Random(7);
+        PackedTimeIndex index = new PackedTimeIndex();
+        TreeMap<LocalDateTime, List<Integer>> expected = new TreeMap<>();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (int id = 0; id < 3000; id++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(5000));
+            starts.add(start);
+            index.add(id, start);
+        }
+        for (int id = 0; id < 3000; id += 3) {
+            assertTrue(index.remove(id, starts.get(id)));
+        }
+        assertFalse(index.remove(0, starts.get(0)));
+        for (int id = 0; id < 3000; id++) {
+            if (id % 3 != 0) {
+                expected.computeIfAbsent(starts.get(id), key -> new ArrayList<>()).add(id);
+            }
+        }
+        assertEquals(2000, index.size());
+
+        LocalDateTime from = base.plusMinutes(1000);
+        LocalDateTime to = base.plusMinutes(2000);
+        List<Integer> between = new ArrayList<>();
+        expected.subMap(from, to).values().forEach(between::addAll);
+        List<Integer> actual = new ArrayList<>();
+        index.forEachBetween(from, to, actual::add);
+        assertEquals(between, actual);
+
+        List<Integer> before = new ArrayList<>();
+        expected.headMap(from, false).descendingMap().values().forEach(ids -> before.addAll(ids.reversed()));
+        List<Integer> actualBefore = new ArrayList<>();
+        index.forEachBefore(from, actualBefore::add);
+        assertEquals(before, actualBefore);
+    }
+}
@@ -0,0 +1,154 @@
+package test.manager;
+
+import manager.PagedTaskStore;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagedTaskStoreTest {
+
+    private static Task task(int id, String description) {
+        Task task = new Task("Задача " + id, description, Duration.ofMinutes(15),
+                LocalDateTime.of(2024, 1, 1, 9, 0).plusHours(id));
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void rewritesInPlaceAndRelocatesGrownRecords() throws IOException {
+        Path file = Files.createTempFile("paged", ".bin");
+        try (PagedTaskStore store = new PagedTaskStore(file)) {
+            Epic epic = new Epic("Эпик", null);
+            epic.setId(1);
+            Subtask subtask = new Subtask("Подзадача", "Описание", 1, Duration.ofSeconds(90, 7),
+                    LocalDateTime.of(1969, 12, 31, 23, 59, 59, 123));
+            subtask.setId(2);
+            subtask.setStatus(TaskStatus.DONE);
+            store.write(epic, 0);
+            store.write(subtask, 5);
+            long size = store.getFileBytes();
+
+            subtask.setStatus(TaskStatus.IN_PROGRESS);
+            store.write(subtask, 6);
+            assertEquals(size, store.getFileBytes(), "Запись того же размера переписывается на месте");
+
+            Subtask grown = new Subtask("Подзадача", "x".repeat(PagedTaskStore.PAGE_SIZE), 1);
+            grown.setId(2);
+            store.write(grown, 7);
+            assertTrue(store.getFileBytes() > size + PagedTaskStore.PAGE_SIZE);
+            assertEquals(2, store.size());
+        }
+        try (PagedTaskStore store = new PagedTaskStore(file)) {
+            assertEquals(2, store.size());
+            PagedTaskStore.Stored epic = store.read(1);
+            assertTrue(epic.task() instanceof Epic);
+            assertNull(epic.task().getDescription());
+            PagedTaskStore.Stored subtask = store.read(2);
+            assertEquals(7, subtask.viewStamp());
+            assertEquals(1, ((Subtask) subtask.task()).getEpicId());
+            assertEquals(PagedTaskStore.PAGE_SIZE, subtask.task().getDescription().length());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void dropsTornRecordsOnOpen() throws IOException {
+        Path file = Files.createTempFile("paged", ".bin");
+        long fileBytes;
+        try (PagedTaskStore store = new PagedTaskStore(file)) {
+            store.write(task(1, "Первая"), 1);
+            store.write(task(2, "Вторая"), 2);
+            fileBytes = store.getFileBytes();
+        }
+        // Оборванная перезапись второй ячейки на месте и недописанная ячейка в конце файла
+        byte[] bytes = Files.readAllBytes(file);
+        int at = indexOf(bytes, "Вторая".getBytes(StandardCharsets.UTF_8));
+        assertTrue(at > 0);
+        bytes[at] ^= 0x55;
+        ByteBuffer torn = ByteBuffer.allocate((int) fileBytes + 29);
+        torn.put(bytes).position((int) fileBytes);
+        torn.putInt(64).putInt(40).putInt(3).putInt(0).putLong(99).put(new byte[5]);
+        Files.write(file, torn.array());
+
+        try (PagedTaskStore store = new PagedTaskStore(file)) {
+            assertEquals(1, store.size());
+            assertEquals("Первая", store.read(1).task().getDescription());
+            assertFalse(store.contains(2));
+            assertFalse(store.contains(3));
+            assertEquals(fileBytes, Files.size(file), "Хвост отрезан");
+            store.write(task(2, "Снова"), 3);
+        }
+        try (PagedTaskStore store = new PagedTaskStore(file)) {
+            assertEquals("Снова", store.read(2).task().getDescription());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void compactsInBackgroundWithoutLosingLaterWrites() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("paged", ".bin");
+        String large = "y".repeat(1000);
+        try (PagedTaskStore store = new PagedTaskStore(file)) {
+            for (int id = 1; id <= 2000; id++) {
+                store.write(task(id, large), 0);
+            }
+            for (int id = 1; id <= 2000; id++) {
+                if (id % 10 != 0) {
+                    store.remove(id);
+                }
+            }
+            long before = store.getFileBytes();
+            store.maybeCompact();
+            // Пока перенос идёт в фоне, доска продолжает меняться
+            store.write(task(10, "Изменена"), 1);
+            store.remove(20);
+            store.write(task(5000, "Новая"), 2);
+            for (int i = 0; i < 500 && store.getCompactionCount() == 0; i++) {
+                Thread.sleep(10);
+                store.maybeCompact();
+            }
+            assertEquals(1, store.getCompactionCount());
+            assertTrue(store.getFileBytes() < before / 4);
+        }
+        try (PagedTaskStore store = new PagedTaskStore(file)) {
+            List<Integer> ids = new ArrayList<>();
+            store.forEachId(ids::add);
+            assertEquals(200, ids.size());
+            assertEquals("Изменена", store.read(10).task().getDescription());
+            assertFalse(store.contains(20));
+            assertEquals(2, store.read(5000).viewStamp());
+            assertEquals(large, store.read(30).task().getDescription());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte[] marker) {
+        for (int i = 0; i + marker.length <= bytes.length; i++) {
+            int j = 0;
+            while (j < marker.length && bytes[i + j] == marker[j]) {
+                j++;
+            }
+            if (j == marker.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,88 @@
+package test.manager;
+
+import manager.PersistentIntMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentIntMapTest {
+
+    @Test
+    void oldVersionsStayUnchanged() {
+        PersistentIntMap<String> empty = PersistentIntMap.empty();
+        PersistentIntMap<String> first = empty.put(1, "один");
+        PersistentIntMap<String> second = first.put(2, "два").put(1, "ОДИН");
+        PersistentIntMap<String> third = second.remove(1);
+
+        assertNull(empty.get(1));
+        assertEquals("один", first.get(1));
+        assertEquals("ОДИН", second.get(1));
+        assertNull(third.get(1));
+        assertEquals("два", third.get(2));
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertEquals(1, third.size());
+    }
+
+    @Test
+    void rejectsNegativeKeysAndNullValues() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, "x"));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+        assertNull(map.get(-1));
+    }
+
+    @Test
+    void behavesLikeSortedMap() {
+        Random random = new Random(7);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(i % 3 == 0 ? Integer.MAX_VALUE : 5_000);
+            if (random.nextInt(4) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        List<Integer> values = new ArrayList<>();
+        map.forEach(values::add);
+        assertEquals(new ArrayList<>(expected.values()), values, "Обход должен идти по возрастанию ключей");
+        for (Integer key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    void changedKeysSkipSharedBranches() {
+        PersistentIntMap<String> base = PersistentIntMap.empty();
+        for (int key = 0; key < 5000; key++) {
+            base = base.put(key, "v" + key);
+        }
+        PersistentIntMap<String> changed = base.put(7, "новое").remove(4000).put(70_000, "дальний");
+        List<Integer> keys = new ArrayList<>();
+        base.forEachChangedKey(changed, keys::add);
+        assertEquals(List.of(7, 4000, 70_000), keys);
+
+        keys.clear();
+        changed.forEachChangedKey(base, keys::add);
+        assertEquals(List.of(7, 4000, 70_000), keys, "Разница симметрична, даже если деревья разной высоты");
+
+        keys.clear();
+        base.forEachChangedKey(base.put(3, "v3"), keys::add);
+        assertEquals(List.of(3), keys, "Равное, но другое значение тоже считается изменением");
+
+        keys.clear();
+        PersistentIntMap.<String>empty().forEachChangedKey(PersistentIntMap.<String>empty().put(42, "x"), keys::add);
+        assertEquals(List.of(42), keys);
+    }
+}
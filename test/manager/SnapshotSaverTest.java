@@ -0,0 +1,82 @@
+package test.manager;
+
+import manager.FileBackedTaskManager;
+import manager.InMemoryTaskManager;
+import manager.SnapshotSaver;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotSaverTest {
+
+    @Test
+    void writesBoardAsOfSaveWhileManagerKeepsChanging() throws IOException, ExecutionException,
+            InterruptedException {
+        Path directory = Files.createTempDirectory("snapshot");
+        File file = directory.resolve("tasks.csv").toFile();
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        subtask.setStatus(TaskStatus.DONE);
+        manager.createSubtask(subtask);
+        for (int i = 0; i < 1000; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание"));
+        }
+        manager.getTaskById(10);
+        manager.getEpicById(epic.getId());
+        manager.addDependency(10, 11);
+
+        try (SnapshotSaver saver = new SnapshotSaver(file, Deflater.BEST_SPEED)) {
+            Future<?> saved = saver.save(manager);
+            long version = manager.snapshot().getVersion();
+            // Изменения после save в файл не попадают, даже если запись ещё идёт
+            manager.getTaskById(11);
+            manager.removeDependency(10, 11);
+            manager.deleteAllTasks();
+            manager.createTask(new Task("Новая", "Описание"));
+            saved.get();
+            assertEquals(version, saver.getSavedVersion());
+            assertEquals(1, saver.getSavedCount());
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1000, loaded.getAllTasks().size());
+        assertEquals(List.of(subtask.getId()), loaded.getAllEpics().get(0).getSubtaskIds());
+        assertEquals(TaskStatus.DONE, loaded.getAllEpics().get(0).getStatus());
+        assertEquals(List.of(10, epic.getId()), loaded.getHistory().stream().map(Task::getId).toList());
+        assertEquals(List.of(11), loaded.getDependencies(10));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        Files.delete(file.toPath());
+        Files.delete(directory);
+    }
+
+    @Test
+    void skipsSnapshotsOvertakenByNewerOnes() throws IOException {
+        Path directory = Files.createTempDirectory("snapshot");
+        File file = directory.resolve("tasks.csv").toFile();
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        try (SnapshotSaver saver = new SnapshotSaver(file)) {
+            for (int i = 0; i < 50; i++) {
+                manager.createTask(new Task("Задача " + i, "Описание"));
+                saver.save(manager);
+            }
+        }
+        assertEquals(50, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(), "Последний срез записан");
+        Files.delete(file.toPath());
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,152 @@
+package test.manager;
+
+import manager.InMemoryTaskManager;
+import manager.StatusLog;
+import metrics.ManagerMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatusLogTest {
+
+    // Часы, которые идут только по команде теста
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+    private InMemoryTaskManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new InMemoryTaskManager(ManagerMetrics.disabled(), clock);
+    }
+
+    private void setStatus(Task stored, TaskStatus status) {
+        Task task = stored.copy();
+        task.setStatus(status);
+        if (task instanceof Subtask subtask) {
+            manager.updateSubtask(subtask);
+        } else {
+            manager.updateTask(task);
+        }
+    }
+
+    @Test
+    void transitionsUpdateLeadCycleAndWip() {
+        StatusLog log = manager.enableStatusLog();
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        assertEquals(1, log.getWip(TaskStatus.NEW));
+
+        clock.advance(Duration.ofHours(1));
+        setStatus(task, TaskStatus.IN_PROGRESS);
+        assertEquals(0, log.getWip(TaskStatus.NEW));
+        assertEquals(1, log.getWip(TaskStatus.IN_PROGRESS));
+
+        clock.advance(Duration.ofHours(2));
+        setStatus(task, TaskStatus.DONE);
+        assertEquals(1, log.getWip(TaskStatus.DONE));
+        assertEquals(1, log.getLeadTime().getCount());
+        assertEquals(Duration.ofHours(3).toMillis(), log.getLeadTime().getMax());
+        assertEquals(Duration.ofHours(2).toMillis(), log.getCycleTime().getMax());
+        assertEquals(Duration.ofHours(1).toMillis(), log.getTimeInStatus(TaskStatus.NEW).getMax());
+
+        List<StatusLog.Transition> transitions = log.getTransitions(task.getId());
+        assertEquals(3, transitions.size());
+        assertNull(transitions.get(0).from());
+        assertEquals(TaskStatus.IN_PROGRESS, transitions.get(2).from());
+        assertEquals(TaskStatus.DONE, transitions.get(2).to());
+        assertEquals(clock.instant(), transitions.get(2).time());
+
+        // Обновление без смены статуса в журнал не попадает
+        manager.updateTask(manager.getTask(task.getId()).copy());
+        assertEquals(3, log.size());
+    }
+
+    @Test
+    void reopeningDeletingAndEpicsAreHandled() {
+        Task before = new Task("До журнала", "Описание");
+        before.setStatus(TaskStatus.IN_PROGRESS);
+        manager.createTask(before);
+        StatusLog log = manager.enableStatusLog();
+        assertEquals(1, log.getWip(TaskStatus.IN_PROGRESS), "Задачи на доске сразу входят в WIP");
+        assertEquals(0, log.size());
+
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        manager.createSubtask(subtask);
+        clock.advance(Duration.ofMinutes(10));
+        setStatus(subtask, TaskStatus.DONE);
+        setStatus(manager.getAllSubtasks().get(0), TaskStatus.IN_PROGRESS);
+        clock.advance(Duration.ofMinutes(10));
+        setStatus(manager.getAllSubtasks().get(0), TaskStatus.DONE);
+        assertEquals(1, log.getLeadTime().getCount(), "Повторное завершение не считается новой поставкой");
+        assertEquals(Duration.ofMinutes(10).toMillis(), log.getLeadTime().getMax());
+        assertEquals(0, log.getCycleTime().getCount(), "Подзадача сразу из NEW в DONE не даёт cycle time");
+        assertTrue(log.getTransitions(epic.getId()).isEmpty(), "Статус эпика вычисляемый и не журналируется");
+
+        manager.deleteEpicById(epic.getId());
+        manager.deleteTaskById(before.getId());
+        for (TaskStatus status : TaskStatus.values()) {
+            assertEquals(0, log.getWip(status));
+        }
+        assertNull(log.get(log.size() - 1).to(), "Удаление — переход в никуда");
+        // Подзадача была в работе 10 минут, задача до журнала — 20 минут с момента включения
+        assertEquals(2, log.getTimeInStatus(TaskStatus.IN_PROGRESS).getCount());
+        assertEquals(Duration.ofMinutes(20).toMillis(), log.getTimeInStatus(TaskStatus.IN_PROGRESS).getMax());
+    }
+
+    @Test
+    void percentilesComeFromMergeableHistograms() {
+        StatusLog log = manager.enableStatusLog();
+        InMemoryTaskManager other = new InMemoryTaskManager(ManagerMetrics.disabled(), clock);
+        StatusLog otherLog = other.enableStatusLog();
+        for (int i = 1; i <= 10; i++) {
+            InMemoryTaskManager target = i % 2 == 0 ? manager : other;
+            Task task = new Task("Задача " + i, "Описание");
+            target.createTask(task);
+            clock.advance(Duration.ofMinutes(i));
+            Task done = task.copy();
+            done.setStatus(TaskStatus.DONE);
+            target.updateTask(done);
+        }
+        log.getLeadTime().add(otherLog.getLeadTime());
+        assertEquals(10, log.getLeadTime().getCount());
+        long p90 = log.getLeadTime().getValueAtQuantile(0.9);
+        long expected = Duration.ofMinutes(9).toMillis();
+        assertTrue(Math.abs(p90 - expected) <= expected * 0.03, "p90 = " + p90);
+    }
+}
@@ -0,0 +1,141 @@
+package test.manager;
+
+import manager.InMemoryTaskManager;
+import manager.StreamPublisher;
+import org.junit.jupiter.api.Test;
+import task.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamPublisherTest {
+
+    // Запоминает всё, что пришло, и сам ничего не запрашивает
+    private static final class Recorder implements Flow.Subscriber<Integer> {
+        final List<Integer> items = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    void itemsAreReadOnlyOnDemand() {
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        StreamPublisher<Integer> publisher = new StreamPublisher<>(() -> IntStream.range(0, 5).boxed()
+                .peek(item -> pulled.incrementAndGet())
+                .onClose(() -> closed.set(true)));
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        assertEquals(0, pulled.get(), "До request источник не читается");
+
+        recorder.subscription.request(2);
+        assertEquals(List.of(0, 1), recorder.items);
+        assertEquals(2, pulled.get());
+        assertFalse(recorder.completed);
+
+        recorder.subscription.request(10);
+        assertEquals(List.of(0, 1, 2, 3, 4), recorder.items);
+        assertTrue(recorder.completed);
+        assertTrue(closed.get(), "После последнего элемента поток закрывается");
+    }
+
+    @Test
+    void cancelAndBadRequestCloseTheStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        StreamPublisher<Integer> publisher = new StreamPublisher<>(() -> Stream.iterate(0, i -> i + 1)
+                .onClose(() -> closed.set(true)));
+        Recorder cancelled = new Recorder();
+        publisher.subscribe(cancelled);
+        cancelled.subscription.request(3);
+        cancelled.subscription.cancel();
+        cancelled.subscription.request(3);
+        assertEquals(3, cancelled.items.size());
+        assertTrue(closed.get());
+        assertFalse(cancelled.completed);
+
+        closed.set(false);
+        Recorder invalid = new Recorder();
+        publisher.subscribe(invalid);
+        invalid.subscription.request(1);
+        invalid.subscription.request(0);
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void snapshotIsPublishedFromAnotherThreadOneByOne() throws Exception {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        for (int i = 0; i < 1000; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание"));
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            StreamPublisher<Task> publisher = new StreamPublisher<>(() -> manager.snapshot().getTasks().stream(),
+                    executor);
+            CountDownLatch done = new CountDownLatch(1);
+            AtomicInteger received = new AtomicInteger();
+            publisher.subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                // Запрос изнутри onNext не должен уходить в рекурсию
+                @Override
+                public void onNext(Task item) {
+                    received.incrementAndGet();
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(1000, received.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
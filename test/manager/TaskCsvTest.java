@@ -0,0 +1,127 @@
+package test.manager;
+
+import manager.ManagerSaveException;
+import manager.TaskCsvReader;
+import manager.TaskCsvWriter;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskCsvTest {
+
+    private static TaskCsvReader reader(String text) throws IOException {
+        TaskCsvReader reader = new TaskCsvReader(new StringReader(text));
+        reader.readHeader();
+        return reader;
+    }
+
+    @Test
+    void roundTripsFieldsThatNeedQuoting() throws IOException {
+        Task task = new Task("Имя, с запятой и \"кавычками\"", "Строка\r\nвторая,\n",
+                Duration.ofSeconds(2700), LocalDateTime.of(2024, 3, 5, 9, 7, 3, 120_000_000));
+        task.setId(7);
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        Task empty = new Task("", null);
+        empty.setId(8);
+        Epic epic = new Epic("Эпик", "Описание");
+        epic.setId(9);
+        Subtask subtask = new Subtask("Подзадача", "Описание", 9, null, LocalDateTime.of(2024, 3, 5, 11, 0));
+        subtask.setId(10);
+
+        StringWriter out = new StringWriter();
+        new TaskCsvWriter(out).writeHeader().write(task).write(empty).write(epic).write(subtask)
+                .writeHistory(List.of(subtask, task)).flush();
+
+        TaskCsvReader reader = new TaskCsvReader(new StringReader(out.toString()));
+        assertEquals(TaskCsvReader.VERSION, reader.readHeader());
+        Task read = reader.readTask();
+        assertEquals(7, read.getId());
+        assertEquals(task.getName(), read.getName());
+        assertEquals(task.getDescription(), read.getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, read.getStatus());
+        assertEquals(task.getStartTime(), read.getStartTime());
+        assertEquals(task.getDuration(), read.getDuration());
+
+        Task readEmpty = reader.readTask();
+        assertEquals("", readEmpty.getName(), "Пустая строка не превращается в null");
+        assertNull(readEmpty.getDescription(), "null не превращается в пустую строку");
+        assertNull(readEmpty.getDuration());
+        assertTrue(reader.readTask() instanceof Epic);
+        Subtask readSubtask = (Subtask) reader.readTask();
+        assertEquals(9, readSubtask.getEpicId());
+        assertEquals(subtask.getStartTime(), readSubtask.getStartTime());
+        assertNull(reader.readTask());
+        assertEquals(List.of(10, 7), reader.readHistory());
+    }
+
+    @Test
+    void keepsSubSecondDurations() throws IOException {
+        List<Duration> durations = List.of(Duration.ofSeconds(90), Duration.ofMillis(90_500),
+                Duration.ofNanos(1_000_001), Duration.ofMillis(-250), Duration.ofSeconds(-3, 1));
+        StringWriter out = new StringWriter();
+        TaskCsvWriter writer = new TaskCsvWriter(out).writeHeader();
+        for (int i = 0; i < durations.size(); i++) {
+            Task task = new Task("Задача", "", durations.get(i), null);
+            task.setId(i + 1);
+            writer.write(task);
+        }
+        writer.flush();
+        assertTrue(out.toString().contains(",90,"), "Целые секунды пишутся как раньше");
+        assertTrue(out.toString().contains(",90.500,"), out.toString());
+
+        TaskCsvReader reader = new TaskCsvReader(new StringReader(out.toString()));
+        reader.readHeader();
+        for (Duration duration : durations) {
+            assertEquals(duration, reader.readTask().getDuration());
+        }
+        assertThrows(ManagerSaveException.class,
+                () -> reader("#v2\n" + TaskCsvReader.HEADER + "\n1,TASK,Имя,NEW,,,1.,\n").readTask());
+        assertThrows(ManagerSaveException.class,
+                () -> reader("#v2\n" + TaskCsvReader.HEADER + "\n1,TASK,Имя,NEW,,,.5,\n").readTask());
+    }
+
+    @Test
+    void readsLegacyFormat() throws IOException {
+        TaskCsvReader reader = new TaskCsvReader(new StringReader("""
+                id,type,name,status,description,epic
+                1,TASK,Задача,null,null,2024-01-01T10:00,30
+                2,EPIC,Эпик,DONE,Описание,2024-01-02T10:00,0
+                3,SUBTASK,Подзадача,DONE,Описание,,0,2
+
+                3,1
+                """));
+        assertEquals(1, reader.readHeader());
+        Task task = reader.readTask();
+        assertEquals(TaskStatus.NEW, task.getStatus());
+        assertEquals("null", task.getDescription());
+        assertEquals(Duration.ofMinutes(30), task.getDuration());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0), task.getStartTime());
+        assertTrue(reader.readTask() instanceof Epic);
+        assertEquals(2, ((Subtask) reader.readTask()).getEpicId());
+        assertNull(reader.readTask());
+        assertEquals(List.of(3, 1), reader.readHistory());
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThrows(ManagerSaveException.class, () -> reader("#v3\n" + TaskCsvReader.HEADER + "\n"));
+        assertThrows(ManagerSaveException.class, () -> reader("id,name\n"));
+        assertThrows(ManagerSaveException.class,
+                () -> reader("#v2\n" + TaskCsvReader.HEADER + "\n1,TASK,\"незакрытая,NEW,,,,\n").readTask());
+        assertThrows(ManagerSaveException.class,
+                () -> reader("#v2\n" + TaskCsvReader.HEADER + "\n1,SUBTASK,Имя,NEW,,,,\n").readTask());
+        assertThrows(ManagerSaveException.class,
+                () -> reader("#v2\n" + TaskCsvReader.HEADER + "\nx,TASK,Имя,NEW,,,,\n").readTask());
+    }
+}
@@ -0,0 +1,98 @@
+package test.manager;
+
+import manager.InMemoryTaskManager;
+import manager.TaskScheduler;
+import manager.TimeIndex;
+import manager.WorkingHours;
+import org.junit.jupiter.api.Test;
+import task.Task;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskSchedulerTest {
+
+    @Test
+    void emptyCalendarHasNoGaps() {
+        WorkingHours weekendsOnly = new WorkingHours(LocalTime.of(10, 0), LocalTime.of(12, 0),
+                EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY));
+        // 2024-01-08..2024-01-12 — с понедельника по пятницу
+        TaskScheduler scheduler = new TaskScheduler(new TimeIndex(), weekendsOnly,
+                LocalDateTime.of(2024, 1, 8, 0, 0), LocalDateTime.of(2024, 1, 13, 0, 0));
+
+        assertEquals(0, scheduler.getGapCount());
+        assertNull(scheduler.place(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void placesIntoFirstGapThatFits() {
+        TimeIndex index = new TimeIndex();
+        Task busy = new Task("Занято", "Описание", Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 8, 9, 30));
+        busy.setId(1);
+        index.add(busy);
+
+        TaskScheduler scheduler = new TaskScheduler(index, WorkingHours.standard(),
+                LocalDateTime.of(2024, 1, 8, 9, 0), LocalDateTime.of(2024, 1, 8, 18, 0));
+
+        assertEquals(LocalDateTime.of(2024, 1, 8, 10, 0), scheduler.place(Duration.ofHours(1)));
+        assertEquals(LocalDateTime.of(2024, 1, 8, 9, 0), scheduler.place(Duration.ofMinutes(20)));
+        assertEquals(LocalDateTime.of(2024, 1, 8, 11, 0), scheduler.place(Duration.ofMinutes(20)));
+    }
+
+    @Test
+    void roundTheClockWindowsSpanMidnight() {
+        WorkingHours always = WorkingHours.always();
+        List<LocalDateTime[]> windows = always.windows(LocalDateTime.of(2024, 1, 8, 12, 0),
+                LocalDateTime.of(2024, 1, 11, 12, 0));
+        assertEquals(1, windows.size());
+        assertEquals(LocalDateTime.of(2024, 1, 8, 12, 0), windows.get(0)[0]);
+        assertEquals(LocalDateTime.of(2024, 1, 11, 12, 0), windows.get(0)[1]);
+
+        // Выходные разрывают окно: пятница до полуночи, затем понедельник с полуночи
+        WorkingHours weekdays = new WorkingHours(LocalTime.MIN, LocalTime.MAX,
+                EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+        windows = weekdays.windows(LocalDateTime.of(2024, 1, 12, 0, 0), LocalDateTime.of(2024, 1, 16, 0, 0));
+        assertEquals(2, windows.size());
+        assertEquals(LocalDateTime.of(2024, 1, 13, 0, 0), windows.get(0)[1]);
+        assertEquals(LocalDateTime.of(2024, 1, 15, 0, 0), windows.get(1)[0]);
+
+        TaskScheduler scheduler = new TaskScheduler(new TimeIndex(), always,
+                LocalDateTime.of(2024, 1, 8, 20, 0), LocalDateTime.of(2024, 1, 12, 0, 0));
+        assertEquals(1, scheduler.getGapCount());
+        assertEquals(LocalDateTime.of(2024, 1, 8, 20, 0), scheduler.place(Duration.ofHours(30)));
+        assertEquals(LocalDateTime.of(2024, 1, 10, 2, 0), scheduler.place(Duration.ofHours(1)));
+    }
+
+    @Test
+    void rejectsInvalidPeriod() {
+        assertThrows(IllegalArgumentException.class, () -> new TaskScheduler(new TimeIndex(), WorkingHours.standard(),
+                LocalDateTime.of(2024, 1, 8, 9, 0), LocalDateTime.of(2024, 1, 8, 9, 0)));
+    }
+
+    @Test
+    void schedulesLargeBatchWithoutOverlaps() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание", Duration.ofMinutes(1 + i % 30), null));
+        }
+
+        List<Task> placed = manager.scheduleUnscheduled(WorkingHours.always(),
+                LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2028, 1, 1, 0, 0));
+
+        assertEquals(count, placed.size(), "Все задачи должны поместиться");
+        List<Task> ordered = manager.getTasksBetween(LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(2028, 1, 1, 0, 0));
+        assertEquals(count, ordered.size());
+        for (int i = 1; i < ordered.size(); i++) {
+            assertFalse(ordered.get(i).getStartTime().isBefore(ordered.get(i - 1).getEndTime()),
+                    "Размещённые задачи не должны пересекаться");
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package test.manager;
+
+import event.TaskEvent;
+import event.TaskEventType;
+import manager.BoardSnapshot;
+import manager.InMemoryTaskManager;
+import metrics.ManagerMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionHistoryTest {
+
+    // Часы, которые идут только по команде теста
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+    private InMemoryTaskManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new InMemoryTaskManager(ManagerMetrics.disabled(), clock);
+    }
+
+    @Test
+    void asOfReturnsBoardAtThatMoment() {
+        Instant enabled = clock.instant();
+        manager.retainVersions(Duration.ofHours(1), 100);
+        clock.advance(Duration.ofMinutes(1));
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        clock.advance(Duration.ofMinutes(1));
+        Task updated = task.copy();
+        updated.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(updated);
+
+        assertTrue(manager.asOf(enabled).getTasks().isEmpty());
+        assertEquals(TaskStatus.NEW, manager.asOf(enabled.plusSeconds(90)).getTask(task.getId()).getStatus());
+        assertEquals(TaskStatus.IN_PROGRESS, manager.asOf(clock.instant()).getTask(task.getId()).getStatus());
+        assertSame(manager.snapshot(), manager.asOf(clock.instant().plus(Duration.ofDays(1))));
+        assertNull(manager.asOf(enabled.minusSeconds(1)), "До включения версий ничего не хранится");
+        assertThrows(IllegalStateException.class, () -> new InMemoryTaskManager().asOf(Instant.now()));
+    }
+
+    @Test
+    void oldVersionsAreDroppedByCountAndAge() {
+        manager.retainVersions(Duration.ofHours(1), 3);
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        Instant created = clock.instant();
+        for (int i = 0; i < 3; i++) {
+            clock.advance(Duration.ofMinutes(1));
+            manager.updateTask(task.copy());
+        }
+        assertNull(manager.asOf(created), "Хранятся только три последние версии");
+        assertNotNull(manager.asOf(created.plus(Duration.ofMinutes(1))));
+
+        clock.advance(Duration.ofHours(2));
+        BoardSnapshot beforeUpdate = manager.snapshot();
+        manager.updateTask(task.copy());
+        assertNull(manager.asOf(created.plus(Duration.ofMinutes(2))), "Версии старше срока вытесняются");
+        assertSame(beforeUpdate, manager.asOf(clock.instant().minusSeconds(1)),
+                "Версия, актуальная в пределах срока, остаётся, даже если создана давно");
+    }
+
+    @Test
+    void undoAndRedoRevertCreateUpdateAndDelete() {
+        manager.enableUndo(10);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId(), Duration.ofHours(1),
+                LocalDateTime.of(2024, 1, 1, 9, 0));
+        subtask.setStatus(TaskStatus.DONE);
+        manager.createSubtask(subtask);
+        Subtask reopened = subtask.copy();
+        reopened.setStatus(TaskStatus.NEW);
+        manager.updateSubtask(reopened);
+        manager.deleteEpicById(epic.getId());
+        assertTrue(manager.getAllSubtasks().isEmpty());
+
+        assertTrue(manager.undo());
+        assertEquals(List.of(subtask.getId()), manager.getEpicById(epic.getId()).getSubtaskIds());
+        assertEquals(TaskStatus.NEW, manager.getSubtaskById(subtask.getId()).getStatus());
+        assertEquals(1, manager.getTasksBetween(subtask.getStartTime(), subtask.getEndTime()).size(),
+                "Восстановленная подзадача должна вернуться во временной индекс");
+
+        assertTrue(manager.undo());
+        assertEquals(TaskStatus.DONE, manager.getSubtaskById(subtask.getId()).getStatus());
+        assertEquals(TaskStatus.DONE, manager.getEpicById(epic.getId()).getStatus());
+
+        assertTrue(manager.undo());
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertTrue(manager.getEpicById(epic.getId()).getSubtaskIds().isEmpty());
+        assertEquals(TaskStatus.NEW, manager.snapshot().getEpic(epic.getId()).getStatus());
+        assertTrue(manager.getTasksBetween(subtask.getStartTime(), subtask.getEndTime()).isEmpty());
+
+        assertTrue(manager.redo());
+        assertTrue(manager.redo());
+        assertEquals(TaskStatus.NEW, manager.getSubtaskById(subtask.getId()).getStatus());
+        assertEquals(TaskStatus.NEW, manager.getEpicById(epic.getId()).getStatus());
+
+        // Новая операция отменяет возможность повтора
+        manager.createTask(new Task("Задача", "Описание"));
+        assertFalse(manager.redo());
+        assertTrue(manager.undo());
+        assertTrue(manager.getAllTasks().isEmpty());
+    }
+
+    @Test
+    void undoIsBoundedAndKeepsVersionsGrowing() throws Exception {
+        manager.enableUndo(2);
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        long firstVersion = task.getVersion();
+        Task updated = task.copy();
+        updated.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(updated);
+        Task done = updated.copy();
+        done.setStatus(TaskStatus.DONE);
+        manager.updateTask(done);
+
+        List<TaskEvent> events = new CopyOnWriteArrayList<>();
+        manager.subscribe(events::add);
+        assertTrue(manager.undo());
+        assertTrue(manager.undo());
+        assertFalse(manager.undo(), "Хранятся только две последние операции");
+
+        Task restored = manager.snapshot().getTask(task.getId());
+        assertEquals(TaskStatus.NEW, restored.getStatus());
+        assertTrue(restored.getVersion() > done.getVersion(), "Отмена — новая версия, а не возврат к старой");
+        assertFalse(manager.compareAndUpdate(task.copy(), firstVersion));
+        assertTrue(manager.compareAndUpdate(restored.copy(), restored.getVersion()));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (events.size() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(TaskEventType.UPDATED, TaskEventType.STATUS_CHANGED,
+                        TaskEventType.UPDATED, TaskEventType.STATUS_CHANGED),
+                events.stream().limit(4).map(TaskEvent::getType).toList());
+    }
+}
@@ -0,0 +1,125 @@
+package test.metrics;
+
+import manager.FileBackedTaskManager;
+import manager.InMemoryTaskManager;
+import metrics.JmxManagerMetrics;
+import metrics.LatencyHistogram;
+import metrics.Operation;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ManagerMetricsTest {
+
+    @Test
+    void histogramQuantilesStayWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000, histogram.getMax());
+        long p50 = histogram.getValueAtQuantile(0.5);
+        long p99 = histogram.getValueAtQuantile(0.99);
+        // Точность — 1/32 от порядка величины
+        assertTrue(Math.abs(p50 - 50_000) <= 50_000 / 16, "p50 = " + p50);
+        assertTrue(Math.abs(p99 - 99_000) <= 99_000 / 16, "p99 = " + p99);
+        assertEquals(50_000.5, histogram.getMean(), 1.0);
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 10; i++) {
+            histogram.record(7);
+        }
+        histogram.record(40);
+        assertEquals(7, histogram.getValueAtQuantile(0.5));
+        assertEquals(40, histogram.getValueAtQuantile(1.0));
+    }
+
+    @Test
+    void mergedHistogramMatchesCombinedRecording() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        LatencyHistogram combined = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            (value % 2 == 0 ? first : second).record(value * 37);
+            combined.record(value * 37);
+        }
+        first.add(second);
+        assertEquals(combined.getCount(), first.getCount());
+        assertEquals(combined.getMax(), first.getMax());
+        assertEquals(combined.getValueAtQuantile(0.99), first.getValueAtQuantile(0.99));
+
+        first.reset();
+        assertEquals(0, first.getCount());
+        assertEquals(0, first.getValueAtQuantile(0.99));
+    }
+
+    @Test
+    void managerRecordsOperationsAndGauges() {
+        JmxManagerMetrics metrics = new JmxManagerMetrics();
+        InMemoryTaskManager manager = new InMemoryTaskManager(metrics);
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+        manager.getTaskById(task.getId());
+        manager.getTaskById(task.getId());
+        manager.deleteTaskById(task.getId());
+
+        Map<String, Long> counts = metrics.getOperationCounts();
+        assertEquals(1, (long) counts.get(Operation.CREATE_TASK.name()));
+        assertEquals(1, (long) counts.get(Operation.CREATE_SUBTASK.name()));
+        assertEquals(2, (long) counts.get(Operation.GET_TASK.name()));
+        assertEquals(1, (long) counts.get(Operation.DELETE_TASK.name()));
+        assertEquals(0, (long) counts.get(Operation.SAVE.name()));
+
+        Map<String, Long> gauges = metrics.getGauges();
+        assertEquals(0, (long) gauges.get("tasks"));
+        assertEquals(1, (long) gauges.get("epics"));
+        assertEquals(1, (long) gauges.get("subtasks"));
+        assertEquals(0, (long) gauges.get("history.size"));
+        // Повторный просмотр и удаление вытесняют запись из истории
+        assertEquals(2, (long) gauges.get("history.evictions"));
+    }
+
+    @Test
+    void fileBackedManagerReportsSaveSize() throws IOException {
+        File file = File.createTempFile("metrics", ".csv");
+        file.deleteOnExit();
+        JmxManagerMetrics metrics = new JmxManagerMetrics();
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, metrics);
+        manager.createTask(new Task("Задача", "Описание"));
+        manager.createEpic(new Epic("Эпик", "Описание"));
+
+        assertEquals(2, metrics.getSaveCount());
+        assertTrue(metrics.getSaveBytes() > file.length(), "Учтены оба сохранения");
+        assertTrue(metrics.getSaveP99Millis() >= 0);
+    }
+
+    @Test
+    void registersAndUnregistersMXBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("tracker:type=TaskManager,name=" + ObjectName.quote("metrics-test"));
+        try (JmxManagerMetrics metrics = JmxManagerMetrics.register("metrics-test")) {
+            assertTrue(server.isRegistered(name));
+            assertThrows(IllegalStateException.class, () -> JmxManagerMetrics.register("metrics-test"));
+            new InMemoryTaskManager(metrics).createEpic(new Epic("Эпик", "Описание"));
+            assertEquals(0L, server.getAttribute(name, "SaveCount"));
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
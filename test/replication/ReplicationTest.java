@@ -0,0 +1,180 @@
+package test.replication;
+
+import manager.FileBackedTaskManager;
+import manager.InMemoryTaskManager;
+import manager.OffHeapTaskManager;
+import org.junit.jupiter.api.Test;
+import replication.ReplicaTaskManager;
+import replication.ReplicationFollower;
+import replication.ReplicationPrimary;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicationTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void primaryRejectsManagerWithoutPublishedSnapshot() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplicationPrimary(new OffHeapTaskManager(), 0));
+    }
+
+    @Test
+    void followerLoadsSnapshotAndAppliesLiveChanges() throws IOException, InterruptedException {
+        File file = File.createTempFile("primary", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        Task early = new Task("До запуска", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0));
+        manager.createTask(early);
+
+        try (ReplicationPrimary primary = new ReplicationPrimary(manager, 0);
+             ReplicationFollower follower = new ReplicationFollower("localhost", primary.getPort())) {
+            primary.start();
+            follower.start();
+            ReplicaTaskManager replica = follower.getManager();
+            awaitTrue(() -> replica.getAllTasks().size() == 1);
+
+            Epic epic = new Epic("Эпик", "Описание");
+            manager.createEpic(epic);
+            Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId(), Duration.ofHours(1),
+                    LocalDateTime.of(2024, 1, 1, 8, 0));
+            manager.createSubtask(subtask);
+            subtask.setStatus(TaskStatus.DONE);
+            manager.updateSubtask(subtask);
+            Task late = new Task("Поздняя", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 12, 0));
+            manager.createTask(late);
+            manager.deleteTaskById(early.getId());
+
+            awaitTrue(() -> replica.getEpicById(epic.getId()) != null
+                    && replica.getEpicById(epic.getId()).getStatus() == TaskStatus.DONE
+                    && replica.getTaskById(early.getId()) == null);
+            assertEquals(manager.getAllTasks(), replica.getAllTasks());
+            assertEquals(manager.getPrioritizedTasks(), replica.getPrioritizedTasks());
+            assertEquals(List.of(subtask, late), replica.getTasksBetween(LocalDateTime.of(2024, 1, 1, 0, 0),
+                    LocalDateTime.of(2024, 1, 2, 0, 0)));
+            assertEquals(List.of(subtask), replica.getEpicSubtasks(epic.getId()));
+            assertEquals(1, primary.getFollowerCount());
+        }
+    }
+
+    @Test
+    void historyIsReplicatedAndReplicaIsReadOnly() throws IOException, InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task first = new Task("Первая", "Описание");
+        Task second = new Task("Вторая", "Описание");
+        manager.createTask(first);
+        manager.createTask(second);
+        manager.getTaskById(first.getId());
+
+        try (ReplicationPrimary primary = new ReplicationPrimary(manager, 0);
+             ReplicationFollower follower = new ReplicationFollower("localhost", primary.getPort())) {
+            primary.start();
+            follower.start();
+            ReplicaTaskManager replica = follower.getManager();
+            awaitTrue(() -> replica.getHistory().size() == 1);
+
+            manager.getTaskById(second.getId());
+            manager.getTaskById(first.getId());
+            awaitTrue(() -> replica.getHistory().equals(List.of(second, first)));
+
+            // Чтение на реплике историю не меняет
+            replica.getTaskById(second.getId());
+            assertEquals(List.of(second, first), replica.getHistory());
+            assertThrows(IllegalStateException.class, () -> replica.createTask(new Task("Новая", "Описание")));
+            assertThrows(IllegalStateException.class, () -> replica.deleteTaskById(first.getId()));
+        }
+    }
+
+    @Test
+    void restartedFollowerCatchesUpFromLogTail() throws IOException, InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        try (ReplicationPrimary primary = new ReplicationPrimary(manager, 0)) {
+            primary.start();
+            ReplicaTaskManager replica = new ReplicaTaskManager();
+            ReplicationFollower follower = new ReplicationFollower("localhost", primary.getPort(), replica);
+            follower.start();
+            manager.createTask(new Task("Первая", "Описание"));
+            awaitTrue(() -> replica.getAllTasks().size() == 1);
+            follower.close();
+
+            for (int i = 0; i < 10; i++) {
+                manager.createTask(new Task("Задача " + i, "Описание"));
+            }
+            awaitTrue(() -> primary.getLastSequence() == 11);
+            assertEquals(1, replica.getAllTasks().size(), "Остановленная реплика не должна меняться");
+
+            try (ReplicationFollower restarted = new ReplicationFollower("localhost", primary.getPort(), replica)) {
+                restarted.start();
+                awaitTrue(() -> replica.getAppliedSequence() == 11);
+                assertEquals(manager.getAllTasks(), replica.getAllTasks());
+                awaitTrue(() -> restarted.getLagRecords() == 0 && restarted.getLagMillis() == 0);
+            }
+        }
+    }
+
+    @Test
+    void followerReloadsSnapshotWhenLogNoLongerHasItsPosition() throws IOException, InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        try (ReplicationPrimary primary = new ReplicationPrimary(manager, 0, 4)) {
+            primary.start();
+            ReplicaTaskManager replica = new ReplicaTaskManager();
+            try (ReplicationFollower follower = new ReplicationFollower("localhost", primary.getPort(), replica)) {
+                follower.start();
+                manager.createTask(new Task("Первая", "Описание"));
+                awaitTrue(() -> replica.getAllTasks().size() == 1);
+            }
+
+            Epic epic = new Epic("Эпик", "Описание");
+            manager.createEpic(epic);
+            for (int i = 0; i < 10; i++) {
+                manager.createSubtask(new Subtask("Подзадача " + i, "Описание", epic.getId()));
+            }
+            manager.deleteTaskById(1);
+            awaitTrue(() -> primary.getLastSequence() > 4 + replica.getAppliedSequence());
+
+            try (ReplicationFollower follower = new ReplicationFollower("localhost", primary.getPort(), replica)) {
+                follower.start();
+                awaitTrue(() -> replica.getAllSubtasks().size() == 10 && replica.getAllTasks().isEmpty());
+                assertEquals(10, replica.getEpicSubtasks(epic.getId()).size());
+                assertEquals(manager.getAllEpics(), replica.getAllEpics());
+            }
+        }
+    }
+
+    @Test
+    void lagGrowsWhilePrimaryIsGone() throws IOException, InterruptedException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        ReplicationPrimary primary = new ReplicationPrimary(manager, 0);
+        primary.start();
+        try (ReplicationFollower follower = new ReplicationFollower("localhost", primary.getPort())) {
+            assertEquals(-1, follower.getLagMillis());
+            follower.start();
+            manager.createTask(new Task("Задача", "Описание"));
+            awaitTrue(() -> follower.getManager().getAllTasks().size() == 1 && follower.getLagMillis() == 0);
+
+            primary.close();
+            awaitTrue(() -> !follower.isConnected() && follower.getLagMillis() > 0);
+            assertEquals(1, follower.getManager().getAllTasks().size(), "Реплика продолжает отдавать данные");
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Реплика не догнала primary за " + TIMEOUT_MILLIS + " мс");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
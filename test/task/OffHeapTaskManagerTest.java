@@ -0,0 +1,95 @@
+package test.task;
+
+import manager.BoardSnapshot;
+import manager.OffHeapTaskManager;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTaskManagerTest extends TaskManagerTest<OffHeapTaskManager> {
+
+    @Override
+    protected OffHeapTaskManager createManager() {
+        return new OffHeapTaskManager();
+    }
+
+    @Test
+    void evictedTasksAreRebuiltFromRecords() {
+        manager = new OffHeapTaskManager(1);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId(), Duration.ofMinutes(45),
+                LocalDateTime.of(2024, 1, 1, 9, 0, 0, 500));
+        subtask.setStatus(TaskStatus.DONE);
+        manager.createSubtask(subtask);
+        Task task = new Task("Задача", null, Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0));
+        manager.createTask(task);
+
+        Subtask rebuilt = manager.getSubtaskById(subtask.getId());
+        assertNotSame(subtask, rebuilt, "Подзадача должна была вытесниться из кеша");
+        assertEquals(subtask.getName(), rebuilt.getName());
+        assertEquals(subtask.getStartTime(), rebuilt.getStartTime());
+        assertEquals(subtask.getDuration(), rebuilt.getDuration());
+        assertEquals(TaskStatus.DONE, rebuilt.getStatus());
+        assertEquals(epic.getId(), rebuilt.getEpicId());
+        assertNull(manager.getTask(task.getId()).getDescription());
+
+        Epic rebuiltEpic = manager.getEpicById(epic.getId());
+        assertEquals(TaskStatus.DONE, rebuiltEpic.getStatus());
+        assertEquals(List.of(subtask.getId()), rebuiltEpic.getSubtaskIds());
+    }
+
+    @Test
+    void updatedTimeMovesTaskInIndexes() {
+        Task task = new Task("Задача", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0));
+        manager.createTask(task);
+        Task moved = new Task("Задача", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 12, 0));
+        moved.setId(task.getId());
+        manager.updateTask(moved);
+
+        manager.createTask(new Task("На старом месте", "Описание", Duration.ofHours(1),
+                LocalDateTime.of(2024, 1, 1, 9, 0)));
+        assertThrows(IllegalStateException.class, () -> manager.createTask(new Task("На новом месте", "Описание",
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 12, 30))));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0),
+                manager.getNextFreeSlot(Duration.ofHours(2), LocalDateTime.of(2024, 1, 1, 9, 0)));
+    }
+
+    @Test
+    void offHeapMemoryDoesNotGrowWhenDeletedTasksAreReplaced() {
+        for (int i = 0; i < 1000; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание"));
+        }
+        long used = manager.getOffHeapBytes();
+        manager.deleteAllTasks();
+        for (int i = 0; i < 1000; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание"));
+        }
+        assertEquals(used, manager.getOffHeapBytes());
+        assertEquals(1000, manager.getAllTasks().size());
+    }
+
+    @Test
+    void snapshotIsCollectedFromStorageAndNotLockFree() {
+        assertFalse(manager.isSnapshotLockFree());
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        BoardSnapshot first = manager.snapshot();
+        assertSame(first, manager.snapshot(), "Без изменений срез не собирается заново");
+        assertEquals("Задача", first.getTask(task.getId()).getName());
+
+        Task renamed = new Task("Новое имя", "Описание");
+        renamed.setId(task.getId());
+        manager.updateTask(renamed);
+        assertEquals("Задача", first.getTask(task.getId()).getName(), "Собранный срез не должен меняться");
+        assertEquals("Новое имя", manager.snapshot().getTask(task.getId()).getName());
+    }
+}
@@ -0,0 +1,290 @@
+package test.task;
+
+import event.Subscription;
+import event.TaskEvent;
+import manager.BoardSnapshot;
+import manager.ShardedTaskManager;
+import manager.WorkingHours;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTaskManagerTest extends TaskManagerTest<ShardedTaskManager> {
+    private static final int SHARDS = 4;
+
+    @Override
+    protected ShardedTaskManager createManager() {
+        return new ShardedTaskManager(SHARDS);
+    }
+
+    // Раздел, которому принадлежит id, — тот же расчёт, что внутри менеджера
+    private static int shardOf(int id) {
+        return (id - 1) % SHARDS;
+    }
+
+    @Test
+    void rejectsNonPositiveShardCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedTaskManager(0));
+    }
+
+    @Test
+    void epicsAreSpreadAndSubtasksStayWithTheirEpic() {
+        Set<Integer> usedShards = new HashSet<>();
+        for (int i = 0; i < SHARDS; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            manager.createEpic(epic);
+            usedShards.add(shardOf(epic.getId()));
+            for (int j = 0; j < 3; j++) {
+                Subtask subtask = new Subtask("Подзадача " + j, "Описание", epic.getId());
+                manager.createSubtask(subtask);
+                assertEquals(shardOf(epic.getId()), shardOf(subtask.getId()));
+            }
+            assertEquals(3, manager.getEpicSubtasks(epic.getId()).size());
+        }
+        assertEquals(SHARDS, usedShards.size(), "Эпики должны попасть во все разделы");
+        assertEquals(SHARDS * 3, manager.getAllSubtasks().size());
+
+        Set<Integer> ids = new HashSet<>();
+        manager.getAllEpics().forEach(epic -> ids.add(epic.getId()));
+        manager.getAllSubtasks().forEach(subtask -> ids.add(subtask.getId()));
+        assertEquals(SHARDS * 4, ids.size(), "id не должны повторяться между разделами");
+
+        List<Integer> subtaskIds = new ArrayList<>();
+        manager.getAllSubtasks().forEach(subtask -> subtaskIds.add(subtask.getId()));
+        assertEquals(subtaskIds.stream().sorted().toList(), subtaskIds, "Списки идут по возрастанию id");
+    }
+
+    @Test
+    void overlapIsCheckedAcrossShards() {
+        Epic first = new Epic("Первый", "Описание");
+        Epic second = new Epic("Второй", "Описание");
+        manager.createEpic(first);
+        manager.createEpic(second);
+        assertNotEquals(shardOf(first.getId()), shardOf(second.getId()));
+
+        manager.createSubtask(new Subtask("Занято", "Описание", first.getId(), Duration.ofHours(1),
+                LocalDateTime.of(2024, 1, 1, 10, 0)));
+        assertThrows(IllegalStateException.class, () -> manager.createSubtask(new Subtask("Пересекается",
+                "Описание", second.getId(), Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 30))));
+        assertThrows(IllegalStateException.class, () -> manager.createTask(new Task("Пересекается",
+                "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 30))));
+        assertTrue(manager.getEpicSubtasks(second.getId()).isEmpty());
+    }
+
+    @Test
+    void rangeQueriesAndFreeSlotsMergeAllShards() {
+        Epic first = new Epic("Первый", "Описание");
+        Epic second = new Epic("Второй", "Описание");
+        manager.createEpic(first);
+        manager.createEpic(second);
+        Task task = new Task("Задача", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 11, 0));
+        Subtask early = new Subtask("Ранняя", "Описание", second.getId(), Duration.ofHours(1),
+                LocalDateTime.of(2024, 1, 1, 9, 0));
+        Subtask middle = new Subtask("Средняя", "Описание", first.getId(), Duration.ofHours(1),
+                LocalDateTime.of(2024, 1, 1, 10, 0));
+        manager.createTask(task);
+        manager.createSubtask(early);
+        manager.createSubtask(middle);
+
+        assertEquals(List.of(early, middle, task), manager.getTasksBetween(LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 1, 2, 0, 0)));
+        assertEquals(List.of(middle, task), manager.getTasksBetween(LocalDateTime.of(2024, 1, 1, 10, 0),
+                LocalDateTime.of(2024, 1, 1, 12, 0)));
+        assertEquals(List.of(early, middle, task),
+                manager.getTasksByDay(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 1)).get(LocalDate.of(2024, 1, 1)));
+        // Каждый раздел в отдельности свободен раньше, но вместе они заняты с 9 до 12
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0),
+                manager.getNextFreeSlot(Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 9, 0)));
+    }
+
+    @Test
+    void schedulingSeesBusyTimeOfEveryShard() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        manager.createTask(new Task("Занято", "Описание", Duration.ofHours(2), LocalDateTime.of(2024, 1, 8, 9, 0)));
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId(), Duration.ofHours(1), null);
+        Task task = new Task("Задача", "Описание", Duration.ofHours(1), null);
+        manager.createSubtask(subtask);
+        manager.createTask(task);
+
+        List<Task> placed = manager.scheduleUnscheduled(WorkingHours.standard(),
+                LocalDateTime.of(2024, 1, 8, 9, 0), LocalDateTime.of(2024, 1, 8, 18, 0));
+
+        assertEquals(List.of(subtask, task), placed);
+        assertEquals(LocalDateTime.of(2024, 1, 8, 11, 0), subtask.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 1, 8, 12, 0), task.getStartTime());
+        assertEquals(3, manager.getTasksBetween(LocalDateTime.of(2024, 1, 8, 0, 0),
+                LocalDateTime.of(2024, 1, 9, 0, 0)).size());
+        assertEquals(subtask.getStartTime(), manager.snapshot().getSubtask(subtask.getId()).getStartTime());
+    }
+
+    @Test
+    void dependenciesAcrossShardsAreRejected() {
+        Epic first = new Epic("Первый", "Описание");
+        Epic second = new Epic("Второй", "Описание");
+        manager.createEpic(first);
+        manager.createEpic(second);
+        Subtask subtask = new Subtask("Подзадача", "Описание", first.getId());
+        Subtask other = new Subtask("Другая", "Описание", second.getId());
+        manager.createSubtask(subtask);
+        manager.createSubtask(other);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.addDependency(subtask.getId(), other.getId()));
+        assertTrue(manager.getDependencies(subtask.getId()).isEmpty());
+    }
+
+    @Test
+    void concurrentWritesToDifferentEpicsKeepEveryTask() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            manager.createEpic(epic);
+            epics.add(epic);
+        }
+        int perEpic = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(SHARDS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < SHARDS; i++) {
+                Epic epic = epics.get(i);
+                LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(i * perEpic);
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < perEpic; j++) {
+                        manager.createSubtask(new Subtask("Подзадача " + j, "Описание", epic.getId(),
+                                Duration.ofHours(1), base.plusDays(j)));
+                        manager.getEpicById(epic.getId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(SHARDS * perEpic, manager.getAllSubtasks().size());
+        List<Task> prioritized = manager.getTasksBetween(LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(2030, 1, 1, 0, 0));
+        assertEquals(SHARDS * perEpic, prioritized.size());
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertTrue(prioritized.get(i - 1).getEndTime().compareTo(prioritized.get(i).getStartTime()) <= 0);
+        }
+        for (Epic epic : epics) {
+            assertEquals(perEpic, manager.getEpicSubtasks(epic.getId()).size());
+        }
+    }
+
+    @Test
+    void compareAndUpdateLosesNoConcurrentIncrement() throws Exception {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask counter = new Subtask("Счётчик", "0", epic.getId());
+        manager.createSubtask(counter);
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(SHARDS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < SHARDS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < perThread; j++) {
+                        // Прочитать, изменить копию, записать; при конфликте — заново
+                        while (true) {
+                            Subtask current = manager.snapshot().getSubtask(counter.getId());
+                            Subtask next = current.copy();
+                            next.setDescription(String.valueOf(Integer.parseInt(current.getDescription()) + 1));
+                            if (manager.compareAndUpdate(next, current.getVersion())) {
+                                break;
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(String.valueOf(SHARDS * perThread),
+                manager.snapshot().getSubtask(counter.getId()).getDescription());
+        Subtask stale = counter.copy();
+        assertFalse(manager.compareAndUpdate(stale, counter.getVersion()));
+    }
+
+    @Test
+    void snapshotCombinesAllShards() {
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            manager.createEpic(epic);
+            manager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+            epics.add(epic);
+        }
+
+        BoardSnapshot snapshot = manager.snapshot();
+        manager.deleteAllEpics();
+
+        assertEquals(1, snapshot.getTasks().size());
+        assertEquals(SHARDS, snapshot.getEpics().size());
+        assertEquals(SHARDS, snapshot.getSubtasks().size());
+        for (Epic epic : epics) {
+            assertEquals(epic, snapshot.getEpic(epic.getId()));
+            assertEquals(1, snapshot.getEpicSubtasks(epic.getId()).size());
+        }
+        assertEquals(task, snapshot.getTask(task.getId()));
+        assertTrue(manager.snapshot().getEpics().isEmpty());
+    }
+
+    @Test
+    void eventsFromAllShardsShareOneSequenceAndThread() throws InterruptedException {
+        BlockingQueue<TaskEvent> received = new LinkedBlockingQueue<>();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Subscription subscription = manager.subscribe(event -> {
+            threads.add(Thread.currentThread());
+            received.add(event);
+        });
+        try {
+            List<Integer> created = new ArrayList<>();
+            for (int i = 0; i < SHARDS * 3; i++) {
+                Epic epic = new Epic("Эпик " + i, "Описание");
+                manager.createEpic(epic);
+                created.add(epic.getId());
+            }
+
+            Set<Integer> shards = new HashSet<>();
+            for (int i = 0; i < created.size(); i++) {
+                TaskEvent event = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(event, "Событие не доставлено");
+                assertEquals(i + 1, event.getSequence(), "Номера событий сквозные по всем разделам");
+                assertEquals((int) created.get(i), event.getTaskId(), "Порядок изменений одного потока сохраняется");
+                shards.add(shardOf(event.getTaskId()));
+            }
+            assertEquals(SHARDS, shards.size());
+            assertEquals(1, threads.size(), "Подписчику доставляет один поток");
+        } finally {
+            subscription.close();
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package test.task;
 
+import history.HistorySnapshot;
+import manager.BoardSnapshot;
 import manager.TaskManager;
+import manager.WorkingHours;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import task.Epic;
 import task.Subtask;
 import task.Task;
 import task.TaskStatus;
+import task.TaskType;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -318,4 +326,283 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
         assertThrows(IllegalStateException.class, () -> manager.createTask(task2));
     }
+
+    @Test
+    void adjacentTasksDoNotOverlap() {
+        Task task1 = new Task("Задача 1", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0));
+        Task task2 = new Task("Задача 2", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 11, 0));
+
+        manager.createTask(task1);
+
+        assertDoesNotThrow(() -> manager.createTask(task2), "Задачи встык не должны пересекаться");
+    }
+
+    @Test
+    void getTasksBetweenReturnsTasksAndSubtasksInRange() {
+        Task before = new Task("Раньше", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 8, 0));
+        Task spanning = new Task("Через границу", "Описание", Duration.ofHours(2), LocalDateTime.of(2024, 1, 1, 9, 0));
+        Task after = new Task("Позже", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 18, 0));
+        manager.createTask(before);
+        manager.createTask(spanning);
+        manager.createTask(after);
+
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId(),
+                Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 12, 0));
+        manager.createSubtask(subtask);
+
+        List<Task> found = manager.getTasksBetween(LocalDateTime.of(2024, 1, 1, 10, 0),
+                LocalDateTime.of(2024, 1, 1, 18, 0));
+
+        assertEquals(List.of(spanning, subtask), found, "Неверные задачи в периоде");
+    }
+
+    @Test
+    void getTasksBetweenIgnoresDeletedTasks() {
+        Task task = new Task("Задача", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0));
+        manager.createTask(task);
+        manager.deleteAllTasks();
+
+        assertTrue(manager.getTasksBetween(LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 1, 2, 0, 0)).isEmpty());
+    }
+
+    @Test
+    void getNextFreeSlotSkipsBusyIntervals() {
+        manager.createTask(new Task("Задача 1", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0)));
+        manager.createTask(new Task("Задача 2", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 30)));
+
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 0),
+                manager.getNextFreeSlot(Duration.ofMinutes(30), LocalDateTime.of(2024, 1, 1, 9, 30)));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 11, 30),
+                manager.getNextFreeSlot(Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 30)));
+    }
+
+    @Test
+    void getTasksByDayPutsLongTaskIntoEveryDay() {
+        Task overnight = new Task("Ночная", "Описание", Duration.ofHours(4), LocalDateTime.of(2024, 1, 1, 22, 0));
+        Task morning = new Task("Утренняя", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 2, 9, 0));
+        manager.createTask(overnight);
+        manager.createTask(morning);
+
+        Map<LocalDate, List<Task>> days = manager.getTasksByDay(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3));
+
+        assertEquals(List.of(overnight), days.get(LocalDate.of(2024, 1, 1)));
+        assertEquals(List.of(overnight, morning), days.get(LocalDate.of(2024, 1, 2)));
+        assertTrue(days.get(LocalDate.of(2024, 1, 3)).isEmpty());
+    }
+
+    @Test
+    void scheduleUnscheduledFillsGapsWithinWorkingHours() {
+        // 2024-01-05 — пятница, следующий рабочий день — понедельник 2024-01-08
+        manager.createTask(new Task("Занято", "Описание", Duration.ofHours(8), LocalDateTime.of(2024, 1, 5, 9, 0)));
+        Task first = new Task("Первая", "Описание", Duration.ofHours(1), null);
+        Task second = new Task("Вторая", "Описание", Duration.ofHours(2), null);
+        manager.createTask(first);
+        manager.createTask(second);
+
+        List<Task> placed = manager.scheduleUnscheduled(WorkingHours.standard(),
+                LocalDateTime.of(2024, 1, 5, 9, 0), LocalDateTime.of(2024, 1, 9, 0, 0));
+
+        assertEquals(List.of(first, second), placed);
+        assertEquals(LocalDateTime.of(2024, 1, 5, 17, 0), first.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 1, 8, 9, 0), second.getStartTime());
+    }
+
+    @Test
+    void scheduleUnscheduledRespectsPriorityAndLeavesWhatDoesNotFit() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask small = new Subtask("Маленькая", "Описание", epic.getId(), Duration.ofHours(1), null);
+        Subtask big = new Subtask("Большая", "Описание", epic.getId(), Duration.ofHours(3), null);
+        Task huge = new Task("Не влезет", "Описание", Duration.ofHours(10), null);
+        manager.createSubtask(small);
+        manager.createSubtask(big);
+        manager.createTask(huge);
+
+        List<Task> placed = manager.scheduleUnscheduled(WorkingHours.standard(),
+                LocalDateTime.of(2024, 1, 8, 9, 0), LocalDateTime.of(2024, 1, 8, 18, 0),
+                (task, other) -> other.getDuration().compareTo(task.getDuration()));
+
+        assertEquals(List.of(big, small), placed);
+        assertEquals(LocalDateTime.of(2024, 1, 8, 9, 0), big.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 1, 8, 12, 0), small.getStartTime());
+        assertNull(huge.getStartTime(), "Задача длиннее рабочего дня не должна быть размещена");
+        assertEquals(List.of(big, small), manager.getTasksBetween(LocalDateTime.of(2024, 1, 8, 0, 0),
+                LocalDateTime.of(2024, 1, 9, 0, 0)));
+    }
+
+    @Test
+    void criticalPathFollowsDependenciesAndStatus() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask design = new Subtask("Проект", "Описание", epic.getId(), Duration.ofHours(2), null);
+        Subtask build = new Subtask("Сборка", "Описание", epic.getId(), Duration.ofHours(3), null);
+        Subtask review = new Subtask("Проверка", "Описание", epic.getId(), Duration.ofHours(1), null);
+        manager.createSubtask(review);
+        manager.createSubtask(build);
+        manager.createSubtask(design);
+
+        manager.addDependency(build.getId(), design.getId());
+        manager.addDependency(review.getId(), build.getId());
+
+        assertEquals(List.of(design, build, review), manager.getEpicSubtasksInOrder(epic.getId()));
+        assertEquals(Duration.ofHours(6), manager.getCriticalPath(epic.getId()));
+
+        design.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(design);
+        assertEquals(Duration.ofHours(4), manager.getCriticalPath(epic.getId()));
+
+        manager.deleteSubtaskById(build.getId());
+        assertEquals(Duration.ofHours(1), manager.getCriticalPath(epic.getId()));
+    }
+
+    @Test
+    void cyclicDependencyIsRejected() {
+        Task first = new Task("Первая", "Описание");
+        Task second = new Task("Вторая", "Описание");
+        manager.createTask(first);
+        manager.createTask(second);
+        manager.addDependency(second.getId(), first.getId());
+
+        assertThrows(IllegalStateException.class, () -> manager.addDependency(first.getId(), second.getId()));
+        assertEquals(List.of(first.getId()), manager.getDependencies(second.getId()));
+    }
+
+    @Test
+    void allDependenciesAreCapturedAsOfCall() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask design = new Subtask("Проект", "Описание", epic.getId());
+        Subtask build = new Subtask("Сборка", "Описание", epic.getId());
+        Subtask release = new Subtask("Выпуск", "Описание", epic.getId());
+        manager.createSubtask(design);
+        manager.createSubtask(build);
+        manager.createSubtask(release);
+        manager.addDependency(release.getId(), design.getId());
+        manager.addDependency(release.getId(), build.getId());
+        manager.addDependency(build.getId(), design.getId());
+
+        Map<Integer, List<Integer>> before = manager.getAllDependencies();
+        manager.removeDependency(release.getId(), build.getId());
+        manager.deleteSubtaskById(design.getId());
+
+        assertEquals(Map.of(build.getId(), List.of(design.getId()),
+                release.getId(), List.of(design.getId(), build.getId())), before);
+        assertTrue(manager.getAllDependencies().isEmpty());
+    }
+
+    @Test
+    void historySnapshotKeepsOrderAsOfCall() {
+        Task first = new Task("Первая", "Описание");
+        Task second = new Task("Вторая", "Описание");
+        Task third = new Task("Третья", "Описание");
+        manager.createTask(first);
+        manager.createTask(second);
+        manager.createTask(third);
+        manager.getTaskById(first.getId());
+        manager.getTaskById(second.getId());
+        manager.getTaskById(first.getId());
+
+        HistorySnapshot before = manager.historySnapshot();
+        manager.getTaskById(third.getId());
+        manager.deleteTaskById(second.getId());
+
+        assertArrayEquals(new int[] {second.getId(), first.getId()}, before.getIds());
+        assertArrayEquals(new int[] {first.getId(), third.getId()}, manager.historySnapshot().getIds());
+    }
+
+    @Test
+    void snapshotIsConsistentAndUnaffectedByLaterChanges() {
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId());
+        manager.createSubtask(subtask);
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+
+        BoardSnapshot snapshot = manager.snapshot();
+
+        task.setStatus(TaskStatus.DONE);
+        manager.updateTask(task);
+        manager.deleteEpicById(epic.getId());
+
+        assertEquals(1, snapshot.getTasks().size());
+        assertEquals(TaskStatus.NEW, snapshot.getTask(task.getId()).getStatus());
+        assertEquals(List.of(subtask), snapshot.getEpicSubtasks(epic.getId()));
+        for (Epic snapshotEpic : snapshot.getEpics()) {
+            for (Integer subtaskId : snapshotEpic.getSubtaskIds()) {
+                assertNotNull(snapshot.getSubtask(subtaskId), "Эпик ссылается на подзадачу, которой нет в срезе");
+            }
+        }
+
+        BoardSnapshot latest = manager.snapshot();
+        assertTrue(latest.getVersion() > snapshot.getVersion());
+        assertTrue(latest.getEpics().isEmpty());
+        assertTrue(latest.getSubtasks().isEmpty());
+        assertEquals(TaskStatus.DONE, latest.getTask(task.getId()).getStatus());
+    }
+
+    @Test
+    void streamsMatchListQueries() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        Task late = new Task("Поздняя", "Описание", Duration.ofHours(1), start.plusHours(5));
+        manager.createTask(late);
+        Task early = new Task("Ранняя", "Описание", Duration.ofHours(1), start);
+        manager.createTask(early);
+        manager.createTask(new Task("Без времени", "Описание"));
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание", epic.getId(), Duration.ofHours(1), start.plusHours(2));
+        manager.createSubtask(subtask);
+        manager.getSubtaskById(subtask.getId());
+        manager.getTaskById(late.getId());
+        manager.getEpicById(epic.getId());
+
+        try (Stream<Task> tasks = manager.streamAllTasks()) {
+            assertEquals(ids(manager.getAllTasks()), tasks.map(Task::getId).sorted().collect(Collectors.toList()));
+        }
+        try (Stream<Subtask> subtasks = manager.streamAllSubtasks()) {
+            assertEquals(List.of(subtask.getId()), subtasks.map(Task::getId).collect(Collectors.toList()));
+        }
+        try (Stream<Task> history = manager.streamHistory()) {
+            assertEquals(List.of(subtask.getId(), late.getId(), epic.getId()),
+                    history.map(Task::getId).collect(Collectors.toList()));
+        }
+        try (Stream<Task> prioritized = manager.streamPrioritizedTasks()) {
+            assertEquals(List.of(early.getId(), late.getId()),
+                    prioritized.map(Task::getId).collect(Collectors.toList()));
+        }
+    }
+
+    private static List<Integer> ids(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::getId).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void snapshotViewsAreReadOnly() {
+        manager.createTask(new Task("Задача", "Описание"));
+
+        BoardSnapshot snapshot = manager.snapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getTasks().clear());
+    }
+
+    @Test
+    void containsChecksTypeWithoutTouchingHistory() {
+        Task task = new Task("Задача", "Описание");
+        manager.createTask(task);
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+
+        assertTrue(manager.contains(TaskType.TASK, task.getId()));
+        assertTrue(manager.contains(TaskType.EPIC, epic.getId()));
+        assertFalse(manager.contains(TaskType.EPIC, task.getId()), "Задача другого типа не считается");
+        assertFalse(manager.contains(TaskType.SUBTASK, 999));
+        assertTrue(manager.getHistory().isEmpty());
+
+        manager.deleteTaskById(task.getId());
+        assertFalse(manager.contains(TaskType.TASK, task.getId()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package test.task;
+
+import manager.TieredTaskManager;
+import manager.TieredTaskManager.Eviction;
+import metrics.JmxManagerMetrics;
+import metrics.ManagerMetrics;
+import metrics.Operation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredTaskManagerTest extends TaskManagerTest<TieredTaskManager> {
+
+    @Override
+    protected TieredTaskManager createManager() {
+        return new TieredTaskManager(tempFile());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
+    private static Path tempFile() {
+        try {
+            return Files.createTempFile("cold", ".bin");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TieredTaskManager reopen(int cacheSize, Eviction eviction, ManagerMetrics metrics) {
+        manager.close();
+        manager = new TieredTaskManager(tempFile(), cacheSize, eviction, metrics);
+        return manager;
+    }
+
+    private Task createDone(String name) {
+        Task task = new Task(name, "Описание");
+        task.setStatus(TaskStatus.DONE);
+        manager.createTask(task);
+        return task;
+    }
+
+    @Test
+    void streamReadsColdTasksFromDisk() {
+        reopen(0, Eviction.LRU, ManagerMetrics.disabled());
+        Task first = createDone("Первая");
+        Task second = createDone("Вторая");
+        Task open = new Task("Открытая", "Описание");
+        manager.createTask(open);
+
+        assertEquals(2, manager.getColdCount());
+        try (Stream<Task> tasks = manager.streamAllTasks()) {
+            assertEquals(List.of(open.getId(), first.getId(), second.getId()),
+                    tasks.map(Task::getId).collect(Collectors.toList()), "Сначала горячие, затем холодные задачи");
+        }
+        assertEquals(0, manager.getCachedCount(), "Без кеша прочитанные с диска задачи не задерживаются в памяти");
+    }
+
+    @Test
+    void doneTasksAreEvictedToDiskAndFaultedBackIn() {
+        reopen(1, Eviction.LRU, ManagerMetrics.disabled());
+        Task first = createDone("Первая");
+        Task second = createDone("Вторая");
+        Task open = new Task("Открытая", "Описание", Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 9, 0));
+        manager.createTask(open);
+
+        assertEquals(2, manager.getColdCount());
+        assertEquals(1, manager.getCachedCount());
+        assertSame(open, manager.getTaskById(open.getId()), "Незавершённая задача всегда в памяти");
+        assertSame(second, manager.getTaskById(second.getId()));
+        Task faulted = manager.getTaskById(first.getId());
+        assertNotSame(first, faulted, "Первая задача должна была вытесниться из кеша");
+        assertEquals("Первая", faulted.getName());
+        assertEquals(TaskStatus.DONE, faulted.getStatus());
+        assertSame(faulted, manager.getTaskById(first.getId()), "Прочитанная с диска задача попадает в кеш");
+        assertEquals(1, manager.getFaultCount());
+        assertEquals(2, manager.getHitCount());
+        assertEquals(List.of(first.getId(), second.getId(), open.getId()),
+                manager.getAllTasks().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void reopenedTaskMovesBackToMemory() {
+        reopen(0, Eviction.LRU, ManagerMetrics.disabled());
+        Task task = createDone("Задача");
+        Task reopened = manager.getTaskById(task.getId());
+        reopened.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(reopened);
+
+        assertEquals(0, manager.getColdCount());
+        assertSame(reopened, manager.getTaskById(task.getId()));
+    }
+
+    @Test
+    void historyReadsViewedColdTasksFromDisk() {
+        reopen(0, Eviction.LRU, ManagerMetrics.disabled());
+        Task first = createDone("Первая");
+        Task second = createDone("Вторая");
+        Task open = new Task("Открытая", "Описание");
+        manager.createTask(open);
+        manager.getTaskById(first.getId());
+        manager.getTaskById(open.getId());
+        manager.getTaskById(second.getId());
+        long faults = manager.getFaultCount();
+
+        assertEquals(List.of(first.getId(), open.getId(), second.getId()),
+                manager.getHistory().stream().map(Task::getId).toList());
+        assertEquals(faults + 2, manager.getFaultCount(), "Выполненные задачи история читает с диска");
+
+        Task changed = manager.getTaskById(first.getId());
+        changed.setDescription("Изменено");
+        manager.updateTask(changed);
+        Task reopened = manager.getTaskById(second.getId());
+        reopened.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(reopened);
+        Map<Integer, Task> history = manager.getHistory().stream()
+                .collect(Collectors.toMap(Task::getId, task -> task));
+        assertEquals("Описание", history.get(first.getId()).getDescription(),
+                "История хранит задачу на момент просмотра, а не перезаписанную");
+        assertEquals(TaskStatus.DONE, history.get(second.getId()).getStatus());
+    }
+
+    @Test
+    void epicStatusCountsSubtasksOnDiskAsDone() {
+        reopen(0, Eviction.LRU, ManagerMetrics.disabled());
+        Epic epic = new Epic("Эпик", "Описание");
+        manager.createEpic(epic);
+        Subtask done = new Subtask("Готовая", "Описание", epic.getId(), Duration.ofHours(2),
+                LocalDateTime.of(2024, 1, 1, 9, 0));
+        done.setStatus(TaskStatus.DONE);
+        manager.createSubtask(done);
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+
+        Subtask open = new Subtask("Открытая", "Описание", epic.getId());
+        manager.createSubtask(open);
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(List.of(done.getId(), open.getId()),
+                manager.getEpicSubtasks(epic.getId()).stream().map(Task::getId).toList());
+        assertThrows(IllegalStateException.class, () -> manager.createTask(new Task("Пересечение", "Описание",
+                Duration.ofHours(1), LocalDateTime.of(2024, 1, 1, 10, 0))), "Время выгруженной подзадачи занято");
+    }
+
+    @Test
+    void fifoEvictsOldestLoadedEvenIfItWasRead() {
+        reopen(2, Eviction.FIFO, ManagerMetrics.disabled());
+        Task first = createDone("Первая");
+        createDone("Вторая");
+        manager.getTaskById(first.getId());
+        createDone("Третья");
+
+        assertNotSame(first, manager.getTaskById(first.getId()));
+        assertEquals(1, manager.getFaultCount());
+    }
+
+    @Test
+    void hitRateAndFaultLatencyAreExposedAsMetrics() {
+        JmxManagerMetrics metrics = new JmxManagerMetrics();
+        reopen(1, Eviction.LRU, metrics);
+        Task first = createDone("Первая");
+        Task second = createDone("Вторая");
+        manager.getTaskById(first.getId());
+        manager.getTaskById(first.getId());
+        manager.getTaskById(second.getId());
+
+        assertEquals(2, metrics.getLatency(Operation.FAULT_IN).getCount());
+        Map<String, Long> gauges = metrics.getGauges();
+        assertEquals(1, (long) gauges.get("cold.hits"));
+        assertEquals(2, (long) gauges.get("cold.faults"));
+        assertEquals(33, (long) gauges.get("cold.hitRate.percent"));
+        assertEquals(2, (long) gauges.get("cold.size"));
+    }
+}